@@ -28,6 +28,7 @@ import org.jax.mgi.shr.dla.input.genbank.GBOrganismChecker;
 import org.jax.mgi.shr.dla.input.SequenceInput;
 import org.jax.mgi.shr.dla.log.DLALogger;
 import org.jax.mgi.shr.dla.log.DLALoggingException;
+import org.jax.mgi.shr.exception.MGIException;
 import org.jax.mgi.shr.ioutils.RecordFormatException;
 import org.jax.mgi.shr.stringutil.StringLib;
 
@@ -951,8 +952,10 @@ public class DBGSSGeneTrapInterpreter extends GBFormatInterpreter {
 	http://pokey.ibme.utoronto.ca/sequence_report.php?id=145B3.
 	Class: Gene Trap.
 	
+	 * @throws RecordFormatException if the sequence record can not be read
 	 */
-	private String getCreator(SequenceInput seqInput) {
+	private String getCreator(SequenceInput seqInput)
+			throws RecordFormatException {
 		String comment = seqInput.getSeq().getComment();
 		String creator = null;
 		if (comment != null) {
@@ -967,7 +970,14 @@ public class DBGSSGeneTrapInterpreter extends GBFormatInterpreter {
 			} 
 		}
 		if (creator ==  null) { // could be Ishida_2
-		    String record = seqInput.getSeq().getRecord();
+		    String record = null;
+		    try {
+			record = seqInput.getSeq().getRecord();
+		    } catch (MGIException e) {
+			RecordFormatException rfE = new RecordFormatException();
+			rfE.bindRecord(e.getMessage());
+			throw rfE;
+		    }
 		    if (record != null) {
 			contactMatcher = contactPattern.matcher(record);
 			if (contactMatcher.find() == true) {
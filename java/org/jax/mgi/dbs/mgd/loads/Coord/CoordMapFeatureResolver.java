@@ -99,7 +99,8 @@ public class CoordMapFeatureResolver {
             for (Iterator mapI = sequences.keySet().iterator(); mapI.hasNext();) {
                 Integer seqKey = (Integer) mapI.next();
                 String chromosome = (String) sequences.get(seqKey);
-                logger.logdDebug("seqKey: " +  seqKey + " chromosome: " + chromosome + " mapObject: " + mapObject);
+                logger.logdDebug("seqKey: {0} chromosome: {1} mapObject: {2}",
+                    new Object[] {seqKey, chromosome, mapObject});
                 if (mapObject.equals(chromosome)) {
                     objectKey = seqKey;
                 }
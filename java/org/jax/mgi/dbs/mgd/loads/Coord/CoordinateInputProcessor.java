@@ -28,6 +28,9 @@ import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
 import org.jax.mgi.dbs.SchemaConstants;
 import org.jax.mgi.shr.dla.loader.coord.CoordInDatabaseException;
 
+import java.util.HashSet;
+import java.util.Iterator;
+
 /**
  * An object that resolves raw date and creates map collection, a coordinate map
  *  and a coord map feature objects in a database.
@@ -44,6 +47,7 @@ import org.jax.mgi.shr.dla.loader.coord.CoordInDatabaseException;
  * @does
  *   <UL>
  *   <LI>deletes existing collection, map, and features for a collection
+ *   <LI>deletes the existing features of a set of objects in batches
  *   <LI>gets or creates the collection and the map for a coordinate
  *   <LI>creates a coordinate
  *   <LI>
@@ -90,6 +94,16 @@ public class CoordinateInputProcessor {
     // lookup a object ID of a given MGI type regardless of collection
     private FeatureKeyLookup featureLookup;
 
+    // true if the features of the input objects are deleted in bulk
+    // before processing (DR_BY_OBJECT_MODE only)
+    private boolean bulkDelete;
+
+    // number of feature keys to delete with one statement in bulk
+    private int deleteBatchSize;
+
+    // number of delete statements executed in bulk
+    private int bulkDeleteCtr = 0;
+
     DLALogger logger;
     /**
      * Constructs a CoordinateInputProcessor
@@ -134,6 +148,8 @@ public class CoordinateInputProcessor {
 	else if (loadMode.equals(CoordloaderConstants.DR_BY_OBJECT_MODE )) {
 	    featureLookup = new FeatureKeyLookup(mgiTypeKey);
             //System.out.println("DR_BY_OBJECT Load Mode Lookup mgiTypeKey: " + mgiTypeKey.toString());
+	    bulkDelete = coordCfg.getOkToBulkDeleteByObject().booleanValue();
+	    deleteBatchSize = Integer.parseInt(coordCfg.getDeleteBatchSize());
 	}
 	logger = DLALogger.getInstance();
     }
@@ -180,7 +196,8 @@ public class CoordinateInputProcessor {
 	    }
 	    // DEBUG end
 	    */
-            if (featureLookup.lookup(objectID) != null) {
+            // features already deleted in bulk if configured
+            if (!bulkDelete && featureLookup.lookup(objectID) != null) {
 		//System.out.println("Deleting " + objectID);
 		deleteByObject(objectID);
 	    } 
@@ -232,7 +249,7 @@ public class CoordinateInputProcessor {
 	    logger.logcInfo(e.getMessage(), true);
 	    return;
 	}
-        logger.logdDebug("MAP_Coord_FeatureState: " + state.toString());
+        logger.logdDebug("MAP_Coord_FeatureState: {0}", state);
         
 	// set the feature in the coordMap object
         coordinate.setCoordMapFeatureState(state);
@@ -302,6 +319,70 @@ public class CoordinateInputProcessor {
 	// because it is configured; Configurator does not take parameter
 	mapProcessor.initCollection(collectionKey);
     }
+    /**
+     * determines if the features of the input objects are to be deleted
+     * in bulk with deleteByObjects before processing
+     * @assumes Nothing
+     * @effects Nothing
+     * @return true if deletes by object are done in bulk
+     */
+    public boolean isBulkDelete() {
+        return bulkDelete;
+    }
+
+    /**
+     * deletes the features for a set of object IDs with one statement per
+     * batch of feature keys
+     * @assumes load mode is DR_BY_OBJECT_MODE
+     * @effects deletes all features from the database for the object IDs
+     * @param objectIDs the object IDs (String)
+     * @throws DBException if errors using lookup or deleting
+     * @throws CacheException if errors using lookup
+     */
+    public void deleteByObjects(HashSet objectIDs) throws DBException,
+        CacheException {
+        HashSet keys = new HashSet();
+        for (Iterator i = objectIDs.iterator(); i.hasNext(); ) {
+            Integer[] featureKeys =
+                (Integer[])featureLookup.lookup((String)i.next());
+            if (featureKeys == null) {
+                continue;
+            }
+            for (int j = 0; j < featureKeys.length; j++) {
+                keys.add(featureKeys[j]);
+            }
+            if (keys.size() >= deleteBatchSize) {
+                deleteFeatures(keys);
+                keys.clear();
+            }
+        }
+        if (!keys.isEmpty()) {
+            deleteFeatures(keys);
+        }
+        logger.logdInfo("Deleted features of " + objectIDs.size() +
+            " objects with " + bulkDeleteCtr + " statements", false);
+    }
+
+    /**
+     * deletes the features for a batch of feature keys with one statement
+     * @assumes Nothing
+     * @effects deletes features from the database
+     * @param keys the feature keys (Integer)
+     * @throws DBException if error deleting
+     */
+    private void deleteFeatures(HashSet keys) throws DBException {
+        StringBuffer array = new StringBuffer();
+        for (Iterator i = keys.iterator(); i.hasNext(); ) {
+            if (array.length() > 0) {
+                array.append(",");
+            }
+            array.append(i.next().toString());
+        }
+        sqlMgr.executeUpdate("delete from MAP_Coord_Feature " +
+            "where _Feature_key = any('{" + array.toString() + "}'::int[])");
+        bulkDeleteCtr++;
+    }
+
     /**
      * deletes the features for the object ID
      * @assumes objectID is not null and featureLookup returns a featureKey
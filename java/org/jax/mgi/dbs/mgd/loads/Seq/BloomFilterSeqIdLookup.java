@@ -0,0 +1,256 @@
+package org.jax.mgi.dbs.mgd.loads.Seq;
+
+import org.jax.mgi.dbs.mgd.lookup.AccessionLookup;
+import org.jax.mgi.dbs.mgd.MGD;
+import org.jax.mgi.dbs.mgd.MGITypeConstants;
+import org.jax.mgi.dbs.mgd.AccessionLib;
+import org.jax.mgi.dbs.SchemaConstants;
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
+import org.jax.mgi.shr.dbutils.ResultsNavigator;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
+import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.cache.CacheConstants;
+import org.jax.mgi.shr.cache.CacheException;
+import org.jax.mgi.shr.config.ConfigException;
+
+/**
+ * A lazy cached AccessionLookup of preferred sequence seqids for a
+ *     logicalDB with a Bloom filter of all the seqids in front of it, so
+ *     that seqids which are definitely not in MGI are not queried for
+ * @has
+ *   <UL>
+ *   <LI>a Bloom filter of every preferred seqid for the logicalDB
+ *   <LI>counts of queries saved and false positives
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>builds the Bloom filter with one scan of the seqids
+ *   <LI>returns null for a seqid not in the filter without querying
+ *   <LI>looks up any other seqid with the lazy cache
+ *   </UL>
+ * Like a full cached AccessionLookup, seqids added to the database after
+ * the filter is built are not found.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class BloomFilterSeqIdLookup extends AccessionLookup {
+
+    // the filter bits
+    private long[] bits;
+
+    // number of bits in the filter
+    private long numBits;
+
+    // number of hash functions
+    private int numHashes;
+
+    // number of seqids in the filter
+    private int size;
+
+    // number of lookups the filter answered without querying
+    private int savedCtr = 0;
+
+    // number of lookups the filter passed which weren't found
+    private int falsePositiveCtr = 0;
+
+    // number of lookups the filter passed which were found
+    private int hitCtr = 0;
+
+    /**
+     * Constructs a BloomFilterSeqIdLookup and builds its filter
+     * @assumes Nothing
+     * @effects queries a database
+     * @param logicalDBKey the logicalDB of the seqids
+     * @param fpp the desired false positive probability e.g. 0.01
+     * @throws DBException if error querying the database
+     * @throws CacheException if error creating the AccessionLookup
+     * @throws ConfigException if error creating the AccessionLookup
+     */
+
+    public BloomFilterSeqIdLookup(int logicalDBKey, double fpp)
+        throws DBException, CacheException, ConfigException {
+        super(logicalDBKey, MGITypeConstants.SEQUENCE, AccessionLib.PREFERRED,
+              CacheConstants.LAZY_CACHE);
+        build(logicalDBKey, fpp);
+    }
+
+    /**
+     * looks up the _Sequence_key for a seqid, querying only if the seqid
+     * may be in the database
+     * @assumes Nothing
+     * @effects may query a database
+     * @param seqId the seqid
+     * @return the _Sequence_key or null if the seqid isn't preferred in MGI
+     * @throws DBException if error querying the database
+     * @throws CacheException if error using the lazy cache
+     */
+    public Integer lookup(String seqId) throws DBException, CacheException {
+        if (!mightContain(seqId)) {
+            savedCtr++;
+            return null;
+        }
+        Integer key = super.lookup(seqId);
+        if (key == null) {
+            falsePositiveCtr++;
+        }
+        else {
+            hitCtr++;
+        }
+        return key;
+    }
+
+    /**
+     * gets the number of seqids in the filter
+     * @return the number of seqids
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * gets the number of lookups answered without querying the database
+     * @return the number of queries saved
+     */
+    public int getSavedQueryCount() {
+        return savedCtr;
+    }
+
+    /**
+     * gets the number of lookups the filter passed which weren't found
+     * @return the number of false positives
+     */
+    public int getFalsePositiveCount() {
+        return falsePositiveCtr;
+    }
+
+    /**
+     * gets the number of lookups which were found
+     * @return the number of hits
+     */
+    public int getHitCount() {
+        return hitCtr;
+    }
+
+    /**
+     * gets the observed false positive rate, the fraction of seqids not in
+     * the database which the filter passed
+     * @return the false positive rate or 0 if there were no misses
+     */
+    public double getFalsePositiveRate() {
+        int misses = savedCtr + falsePositiveCtr;
+        if (misses == 0) {
+            return 0.0;
+        }
+        return (double) falsePositiveCtr / misses;
+    }
+
+    /**
+     * gets the size of the filter
+     * @return the number of bytes used by the filter
+     */
+    public long getFilterBytes() {
+        return (long) bits.length * 8;
+    }
+
+    /**
+     * sizes the filter and adds all preferred seqids of the logicalDB
+     * @param logicalDBKey the logicalDB of the seqids
+     * @param fpp the desired false positive probability
+     * @throws DBException if error querying the database
+     */
+    private void build(int logicalDBKey, double fpp) throws DBException {
+        SQLDataManager sqlMgr =
+            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        String where = " FROM " + MGD.acc_accession._name +
+            " WHERE " + MGD.acc_accession._logicaldb_key + " = " +
+            logicalDBKey +
+            " AND " + MGD.acc_accession._mgitype_key + " = " +
+            MGITypeConstants.SEQUENCE +
+            " AND " + MGD.acc_accession.preferred + " = " +
+            AccessionLib.PREFERRED;
+
+        ResultsNavigator nav = sqlMgr.executeQuery("SELECT count(*)" + where);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                return row.getInt(1);
+            }
+        });
+        int count = 0;
+        if (nav.next()) {
+            count = ((Integer) nav.getCurrent()).intValue();
+        }
+        nav.close();
+
+        // optimal size m = -n ln(p) / ln(2)^2 and hashes k = m/n ln(2)
+        double n = Math.max(count, 1);
+        double ln2 = Math.log(2);
+        numBits = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) /
+                                                (ln2 * ln2)));
+        numHashes = Math.max(1, (int) Math.round(numBits / n * ln2));
+        bits = new long[(int) ((numBits + 63) / 64)];
+        numBits = (long) bits.length * 64;
+        size = 0;
+
+        nav = sqlMgr.executeQuery("SELECT " + MGD.acc_accession.accid +
+                                  where);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                add(row.getString(1));
+                return null;
+            }
+        });
+        while (nav.next()) {
+            nav.getCurrent();
+        }
+        nav.close();
+    }
+
+    /**
+     * adds a seqid to the filter
+     * @param seqId the seqid
+     */
+    private void add(String seqId) {
+        long h1 = seqId.hashCode();
+        long h2 = hash2(seqId);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            bits[(int) (bit >>> 6)] |= 1L << (bit & 63);
+        }
+        size++;
+    }
+
+    /**
+     * determines if a seqid may have been added to the filter
+     * @param seqId the seqid
+     * @return false if the seqid was definitely not added
+     */
+    private boolean mightContain(String seqId) {
+        long h1 = seqId.hashCode();
+        long h2 = hash2(seqId);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % numBits;
+            if ((bits[(int) (bit >>> 6)] & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * a second hash of a seqid, independent of String.hashCode
+     * @param seqId the seqid
+     * @return a 64 bit FNV-1a hash, made odd so every probe differs
+     */
+    private static long hash2(String seqId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < seqId.length(); i++) {
+            h ^= seqId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h | 1;
+    }
+}
@@ -0,0 +1,307 @@
+package org.jax.mgi.dbs.mgd.loads.Seq;
+
+import org.jax.mgi.dbs.mgd.lookup.AccessionLookup;
+import org.jax.mgi.dbs.mgd.MGD;
+import org.jax.mgi.dbs.mgd.MGITypeConstants;
+import org.jax.mgi.dbs.mgd.AccessionLib;
+import org.jax.mgi.dbs.SchemaConstants;
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
+import org.jax.mgi.shr.dbutils.ResultsNavigator;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
+import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.cache.CacheConstants;
+import org.jax.mgi.shr.cache.CacheException;
+import org.jax.mgi.shr.config.ConfigException;
+
+import java.util.HashMap;
+
+/**
+ * An AccessionLookup of preferred sequence seqids for a logicalDB which
+ *     holds all of them in memory as primitives rather than as a cache of
+ *     String and Integer objects
+ * @has
+ *   <UL>
+ *   <LI>an open addressing table of seqids packed into longs and their
+ *       _Sequence_keys
+ *   <LI>a HashMap for the few seqids which can't be packed
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>loads every preferred seqid for the logicalDB from the database
+ *   <LI>looks up the _Sequence_key for a seqid without querying the
+ *       database, like a full cached AccessionLookup
+ *   </UL>
+ * A seqid of up to six upper case letters or underscores followed by one to
+ * nine digits, e.g. AB000123, NM_001123456 or AAAA01000001, is packed into
+ * a long as five bits per prefix character, four bits for the number of
+ * digits (so leading zeros are kept) and thirty bits for the number. Each
+ * seqid then takes twelve bytes of table rather than a HashMap entry, a
+ * String and an Integer.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class CompactSeqIdLookup extends AccessionLookup {
+
+    // marks an empty slot; no seqid packs to zero as it has at least 1 digit
+    private static final long EMPTY = 0L;
+
+    // returned by pack for seqids which can't be packed
+    private static final long NOT_PACKED = -1L;
+
+    // returned by lookupKey for seqids which aren't in the lookup
+    public static final int NOT_FOUND = -1;
+
+    // maximum number of prefix characters and digits that can be packed
+    private static final int MAX_PREFIX = 6;
+    private static final int MAX_DIGITS = 9;
+
+    // fraction of the table to fill
+    private static final double LOAD_FACTOR = 0.7;
+
+    // the packed seqids and their _Sequence_keys
+    private long[] keys;
+    private int[] values;
+
+    // seqids which can't be packed and their _Sequence_keys (Integer)
+    private HashMap overflow;
+
+    // number of seqids in the table
+    private int size;
+
+    /**
+     * Constructs a CompactSeqIdLookup and loads it
+     * @assumes Nothing
+     * @effects queries a database
+     * @param logicalDBKey the logicalDB of the seqids
+     * @throws DBException if error querying the database
+     * @throws CacheException if error creating the AccessionLookup
+     * @throws ConfigException if error creating the AccessionLookup
+     */
+
+    public CompactSeqIdLookup(int logicalDBKey)
+        throws DBException, CacheException, ConfigException {
+        // the superclass cache is never used
+        super(logicalDBKey, MGITypeConstants.SEQUENCE, AccessionLib.PREFERRED,
+              CacheConstants.LAZY_CACHE);
+        load(logicalDBKey);
+    }
+
+    /**
+     * looks up the _Sequence_key for a seqid
+     * @assumes Nothing
+     * @effects Nothing
+     * @param seqId the seqid
+     * @return the _Sequence_key or null if the seqid isn't preferred in MGI
+     */
+    public Integer lookup(String seqId) {
+        int key = lookupKey(seqId);
+        if (key == NOT_FOUND) {
+            return null;
+        }
+        return new Integer(key);
+    }
+
+    /**
+     * looks up the _Sequence_key for a seqid without creating any objects
+     * @assumes Nothing
+     * @effects Nothing
+     * @param seqId the seqid
+     * @return the _Sequence_key or NOT_FOUND
+     */
+    public int lookupKey(String seqId) {
+        long packed = pack(seqId);
+        if (packed == NOT_PACKED) {
+            Integer key = (Integer) overflow.get(seqId);
+            return key == null ? NOT_FOUND : key.intValue();
+        }
+        int i = slot(packed);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == packed) {
+                return values[i];
+            }
+            i = (i + 1) % keys.length;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * gets the number of seqids in the lookup
+     * @return the number of seqids
+     */
+    public int size() {
+        return size + overflow.size();
+    }
+
+    /**
+     * gets the number of seqids which couldn't be packed
+     * @return the number of seqids in the overflow map
+     */
+    public int getOverflowSize() {
+        return overflow.size();
+    }
+
+    /**
+     * gets the size of the packed table
+     * @return the number of bytes used by the table arrays
+     */
+    public long getTableBytes() {
+        return (long) keys.length * 12;
+    }
+
+    /**
+     * loads all preferred seqids of the logicalDB
+     * @param logicalDBKey the logicalDB of the seqids
+     * @throws DBException if error querying the database
+     */
+    private void load(int logicalDBKey) throws DBException {
+        SQLDataManager sqlMgr =
+            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        String where = " FROM " + MGD.acc_accession._name +
+            " WHERE " + MGD.acc_accession._logicaldb_key + " = " +
+            logicalDBKey +
+            " AND " + MGD.acc_accession._mgitype_key + " = " +
+            MGITypeConstants.SEQUENCE +
+            " AND " + MGD.acc_accession.preferred + " = " +
+            AccessionLib.PREFERRED;
+
+        // size the table from the count so it is never rehashed
+        ResultsNavigator nav = sqlMgr.executeQuery("SELECT count(*)" + where);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                return row.getInt(1);
+            }
+        });
+        int count = 0;
+        if (nav.next()) {
+            count = ((Integer) nav.getCurrent()).intValue();
+        }
+        nav.close();
+
+        int capacity = (int) (count / LOAD_FACTOR) + 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        overflow = new HashMap();
+        size = 0;
+
+        nav = sqlMgr.executeQuery("SELECT " + MGD.acc_accession.accid +
+            ", " + MGD.acc_accession._object_key + where);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                put(row.getString(1), row.getInt(2).intValue());
+                return null;
+            }
+        });
+        while (nav.next()) {
+            nav.getCurrent();
+        }
+        nav.close();
+    }
+
+    /**
+     * adds a seqid to the lookup
+     * @param seqId the seqid
+     * @param key its _Sequence_key
+     */
+    private void put(String seqId, int key) {
+        long packed = pack(seqId);
+        if (packed == NOT_PACKED) {
+            overflow.put(seqId, new Integer(key));
+            return;
+        }
+        if (size + 1 >= keys.length) {
+            // more rows than counted; grow so there is always an empty slot
+            rehash(keys.length * 2);
+        }
+        int i = slot(packed);
+        while (keys[i] != EMPTY) {
+            if (keys[i] == packed) {
+                values[i] = key;
+                return;
+            }
+            i = (i + 1) % keys.length;
+        }
+        keys[i] = packed;
+        values[i] = key;
+        size++;
+    }
+
+    /**
+     * copies the table into a larger one
+     * @param capacity the new capacity
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) % keys.length;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * gets the first slot to probe for a packed seqid
+     * @param packed the packed seqid
+     * @return the slot
+     */
+    private int slot(long packed) {
+        // mix the bits so sequential seqids spread over the table
+        long h = packed * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        return (int) ((h & Long.MAX_VALUE) % keys.length);
+    }
+
+    /**
+     * packs a seqid into a long
+     * @param seqId the seqid
+     * @return the packed seqid or NOT_PACKED if the seqid doesn't have the
+     *         form prefix + digits
+     */
+    private static long pack(String seqId) {
+        int len = seqId.length();
+        int i = 0;
+        long prefix = 0;
+        while (i < len) {
+            char c = seqId.charAt(i);
+            int code;
+            if (c >= 'A' && c <= 'Z') {
+                code = c - 'A' + 1;
+            }
+            else if (c == '_') {
+                code = 27;
+            }
+            else {
+                break;
+            }
+            if (i == MAX_PREFIX) {
+                return NOT_PACKED;
+            }
+            prefix = (prefix << 5) | code;
+            i++;
+        }
+        int digits = len - i;
+        if (digits < 1 || digits > MAX_DIGITS) {
+            return NOT_PACKED;
+        }
+        long number = 0;
+        for (; i < len; i++) {
+            char c = seqId.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_PACKED;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return (prefix << 34) | ((long) digits << 30) | number;
+    }
+}
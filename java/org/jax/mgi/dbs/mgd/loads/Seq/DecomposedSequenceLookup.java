@@ -0,0 +1,504 @@
+package org.jax.mgi.dbs.mgd.loads.Seq;
+
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
+import org.jax.mgi.shr.dbutils.ResultsNavigator;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
+import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.InterpretException;
+import org.jax.mgi.shr.dbutils.BindableStatement;
+import org.jax.mgi.shr.dbutils.dao.SQLStream;
+import org.jax.mgi.shr.dla.log.DLALoggingException;
+import org.jax.mgi.shr.dla.log.DLALogger;
+import org.jax.mgi.shr.cache.CacheException;
+import org.jax.mgi.shr.cache.KeyNotFoundException;
+import org.jax.mgi.shr.config.ConfigException;
+import org.jax.mgi.dbs.mgd.MGD;
+import org.jax.mgi.dbs.mgd.MGITypeConstants;
+import org.jax.mgi.dbs.mgd.MGIRefAssocTypeConstants;
+import org.jax.mgi.dbs.mgd.AccessionLib;
+import org.jax.mgi.dbs.mgd.dao.*;
+import org.jax.mgi.dbs.SchemaConstants;
+
+import java.util.Set;
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * A SequenceLookup which fetches a batch of Sequences with one narrow query
+ *     per table rather than one query joining them all.
+ * @has
+ *   <UL>
+ *   <LI> a query for the sequences with their primary accession ids
+ *   <LI> a query each for source associations, secondary accession ids
+ *        and reference associations
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>looks up a Sequence by seqid, building it from the sequence query
+ *       and adding the rows from each child query by _Sequence_key
+ *   </UL>
+ * The joined query returns secondaries x references x sources rows for each
+ * sequence; these queries return secondaries + references + sources rows.
+ * The Sequences built are the same as those built by SequenceLookup.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class DecomposedSequenceLookup extends SequenceLookup {
+
+    // restricts the primary accession 'a' to the seqids of the batch
+    private static final String PRIMARY_WHERE =
+        " a." + MGD.acc_accession._logicaldb_key + " = ?" +
+        " AND a." + MGD.acc_accession._mgitype_key + " = " +
+        MGITypeConstants.SEQUENCE +
+        " AND a." + MGD.acc_accession.preferred + " = " +
+        AccessionLib.PREFERRED +
+        " AND a." + MGD.acc_accession.accid + " in (:x)";
+
+    // the accession columns selected for a primary or 2ndary accession
+    private static final String ACC_COLUMNS =
+        "#." + MGD.acc_accession._accession_key + ", " +
+        "#." + MGD.acc_accession.accid + ", " +
+        "#." + MGD.acc_accession.prefixpart + ", " +
+        "#." + MGD.acc_accession.numericpart + ", " +
+        "#." + MGD.acc_accession._logicaldb_key + ", " +
+        "#." + MGD.acc_accession._object_key + ", " +
+        "#." + MGD.acc_accession._mgitype_key + ", " +
+        "#." + MGD.acc_accession.privateVal + ", " +
+        "#." + MGD.acc_accession.preferred + ", " +
+        "#." + MGD.acc_accession._createdby_key + ", " +
+        "#." + MGD.acc_accession._modifiedby_key + ", " +
+        "#." + MGD.acc_accession.creation_date + ", " +
+        "#." + MGD.acc_accession.modification_date;
+
+    // sequences, their raw attributes and primary accession ids; like the
+    // joined query, only sequences with a source association are returned
+    private static final String SEQUENCE_QUERY = "SELECT " +
+        ACC_COLUMNS.replaceAll("#", "a") + ", " +
+        " s." + MGD.seq_sequence._sequence_key + ", " +
+        " s." + MGD.seq_sequence._sequencetype_key + ", " +
+        " s." + MGD.seq_sequence._sequencequality_key + ", " +
+        " s." + MGD.seq_sequence._sequencestatus_key + ", " +
+        " s." + MGD.seq_sequence._sequenceprovider_key + ", " +
+        " s." + MGD.seq_sequence._organism_key + ", " +
+        " s." + MGD.seq_sequence.length + ", " +
+        " s." + MGD.seq_sequence.description + ", " +
+        " s." + MGD.seq_sequence.version + ", " +
+        " s." + MGD.seq_sequence.division + ", " +
+        " s." + MGD.seq_sequence.virtual + ", " +
+        " sr." + MGD.seq_sequence_raw.rawtype + ", " +
+        " sr." + MGD.seq_sequence_raw.rawlibrary + ", " +
+        " sr." + MGD.seq_sequence_raw.raworganism + ", " +
+        " sr." + MGD.seq_sequence_raw.rawstrain + ", " +
+        " sr." + MGD.seq_sequence_raw.rawtissue + ", " +
+        " sr." + MGD.seq_sequence_raw.rawage + ", " +
+        " sr." + MGD.seq_sequence_raw.rawsex + ", " +
+        " sr." + MGD.seq_sequence_raw.rawcellline + ", " +
+        " sr." + MGD.seq_sequence_raw._createdby_key + ", " +
+        " sr." + MGD.seq_sequence_raw._modifiedby_key + ", " +
+        " sr." + MGD.seq_sequence_raw.creation_date + ", " +
+        " sr." + MGD.seq_sequence_raw.modification_date + ", " +
+        " s." + MGD.seq_sequence.numberoforganisms + ", " +
+        " s." + MGD.seq_sequence.seqrecord_date + ", " +
+        " s." + MGD.seq_sequence.sequence_date + ", " +
+        " s." + MGD.seq_sequence._createdby_key + ", " +
+        " s." + MGD.seq_sequence._modifiedby_key + ", " +
+        " s." + MGD.seq_sequence.creation_date + ", " +
+        " s." + MGD.seq_sequence.modification_date +
+        " FROM " +
+        MGD.acc_accession._name + " a, " +
+        MGD.seq_sequence._name + " s, " +
+        MGD.seq_sequence_raw._name + " sr " +
+        " WHERE s." + MGD.seq_sequence._sequence_key + " = " +
+        " a." + MGD.acc_accession._object_key +
+        " AND s." + MGD.seq_sequence._sequence_key + " = " +
+        " sr." + MGD.seq_sequence_raw._sequence_key +
+        " AND" + PRIMARY_WHERE +
+        " AND EXISTS (SELECT 1 FROM " +
+        MGD.seq_source_assoc._name + " sa " +
+        " WHERE sa." + MGD.seq_source_assoc._sequence_key + " = " +
+        " s." + MGD.seq_sequence._sequence_key + ")" +
+        " order by s." + MGD.seq_sequence._sequence_key;
+
+    // source associations of the sequences
+    private static final String SOURCE_QUERY = "SELECT " +
+        " sa." + MGD.seq_source_assoc._assoc_key + ", " +
+        " sa." + MGD.seq_source_assoc._sequence_key + ", " +
+        " sa." + MGD.seq_source_assoc._source_key + ", " +
+        " sa." + MGD.seq_source_assoc._createdby_key + ", " +
+        " sa." + MGD.seq_source_assoc._modifiedby_key + ", " +
+        " sa." + MGD.seq_source_assoc.creation_date + ", " +
+        " sa." + MGD.seq_source_assoc.modification_date +
+        " FROM " +
+        MGD.acc_accession._name + " a, " +
+        MGD.seq_source_assoc._name + " sa " +
+        " WHERE sa." + MGD.seq_source_assoc._sequence_key + " = " +
+        " a." + MGD.acc_accession._object_key +
+        " AND" + PRIMARY_WHERE;
+
+    // 2ndary accession ids of the sequences in the same logicalDB
+    private static final String SECONDARY_QUERY = "SELECT " +
+        ACC_COLUMNS.replaceAll("#", "aa") +
+        " FROM " +
+        MGD.acc_accession._name + " a, " +
+        MGD.acc_accession._name + " aa " +
+        " WHERE aa." + MGD.acc_accession._object_key + " = " +
+        " a." + MGD.acc_accession._object_key +
+        " AND aa." + MGD.acc_accession._logicaldb_key + " = ?" +
+        " AND aa." + MGD.acc_accession._mgitype_key + " = " +
+        MGITypeConstants.SEQUENCE +
+        " AND aa." + MGD.acc_accession.preferred + " = " +
+        AccessionLib.NO_PREFERRED +
+        " AND" + PRIMARY_WHERE;
+
+    // provider reference associations of the sequences
+    private static final String REFERENCE_QUERY = "SELECT " +
+        " m." + MGD.mgi_reference_assoc._assoc_key + ", " +
+        " m." + MGD.mgi_reference_assoc._refs_key + ", " +
+        " m." + MGD.mgi_reference_assoc._object_key + ", " +
+        " m." + MGD.mgi_reference_assoc._refassoctype_key + ", " +
+        " m." + MGD.mgi_reference_assoc._createdby_key + ", " +
+        " m." + MGD.mgi_reference_assoc._modifiedby_key + ", " +
+        " m." + MGD.mgi_reference_assoc.creation_date + ", " +
+        " m." + MGD.mgi_reference_assoc.modification_date +
+        " FROM " +
+        MGD.acc_accession._name + " a, " +
+        MGD.mgi_reference_assoc._name + " m " +
+        " WHERE m." + MGD.mgi_reference_assoc._object_key + " = " +
+        " a." + MGD.acc_accession._object_key +
+        " AND m." + MGD.mgi_reference_assoc._mgitype_key + " = " +
+        MGITypeConstants.SEQUENCE +
+        " AND m." + MGD.mgi_reference_assoc._refassoctype_key + " = " +
+        MGIRefAssocTypeConstants.PROVIDER +
+        " AND" + PRIMARY_WHERE;
+
+    // the statements for each query, prepared for preparedSize seqids
+    private BindableStatement sequenceStmt;
+    private BindableStatement sourceStmt;
+    private BindableStatement secondaryStmt;
+    private BindableStatement referenceStmt;
+    private int preparedSize = -1;
+
+    // the Sequences of the current batch keyed by _Sequence_key
+    private HashMap sequenceMap;
+
+    /**
+     * Constructs a DecomposedSequenceLookup
+     * @assumes Nothing
+     * @effects creates a temp table if useTempTable is true
+     * @param stream SQL stream for the Sequence
+     * @param bSize the batchSize for which to lookup Sequences
+     * @param useTempTable true if the seqids of a batch should be loaded
+     *        into a temp table and joined against
+     * @throws DBException if error creating a SQLDataManager or creating
+     *         the temp table
+     * @throws ConfigException if config error creating a SQLDataManager
+     */
+
+    public DecomposedSequenceLookup(SQLStream stream, int bSize,
+                                    boolean useTempTable)
+        throws DBException, ConfigException {
+        this(stream, bSize,
+             SQLDataManagerFactory.getShared(SchemaConstants.MGD),
+             useTempTable);
+    }
+
+    /**
+     * Constructs a DecomposedSequenceLookup which queries through the given
+     * SQLDataManager
+     * @assumes Nothing
+     * @effects creates a temp table if useTempTable is true
+     * @param stream SQL stream for the Sequence
+     * @param bSize the batchSize for which to lookup Sequences
+     * @param sqlMgr the SQLDataManager to query with
+     * @param useTempTable true if the seqids of a batch should be loaded
+     *        into a temp table and joined against
+     * @throws DBException if error creating the temp table
+     */
+
+    public DecomposedSequenceLookup(SQLStream stream, int bSize,
+                                    SQLDataManager sqlMgr,
+                                    boolean useTempTable)
+        throws DBException {
+        super(stream, bSize, sqlMgr, useTempTable);
+    }
+
+    /**
+     * create a Vector of Sequence objects by querying each table of the
+     * database with a set of seqids
+     * @assumes nothing
+     * @effects queries a database four times
+     * @param seqIdSet the set of seqids of the Sequences for which to query
+     * @param logicalDBKey the logicalDBKey of the seqids in the set
+     * @return a Vector of Sequence objects ordered by _Sequence_key;
+     * Vector is empty if "seqIds" is empty.
+     * @throws DBException if error querying the database
+     */
+    public Vector findBySeqId(Set seqIdSet, int logicalDBKey)
+        throws DBException {
+        DLALogger.logDebug(logger,
+            "DecomposedSequenceLookup processing batch of size {0}",
+            new Object[] {new Integer(seqIdSet.size())});
+        Vector sequenceVector = new Vector();
+        if (seqIdSet.isEmpty()) {
+            return sequenceVector;
+        }
+        prepare(seqIdSet.size());
+
+        // bind the logicalDB key then the seqids for the primary accession
+        Integer ldbKey = new Integer(logicalDBKey);
+        Vector primaryBinds = new Vector();
+        primaryBinds.add(ldbKey);
+        if (useTempTable) {
+            loadTempTable(seqIdSet);
+        }
+        else {
+            primaryBinds.addAll(seqIdSet);
+        }
+        // the 2ndary query binds the logicalDB key for the 2ndary first
+        Vector secondaryBinds = new Vector();
+        secondaryBinds.add(ldbKey);
+        secondaryBinds.addAll(primaryBinds);
+
+        sequenceMap = new HashMap();
+        ResultsNavigator nav = sequenceStmt.executeQuery(primaryBinds);
+        nav.setInterpreter(new SequenceBuilder());
+        while (nav.next()) {
+            sequenceVector.add(nav.getCurrent());
+        }
+        nav.close();
+
+        if (!sequenceMap.isEmpty()) {
+            runChildQuery(sourceStmt, primaryBinds, new SourceAssocBuilder());
+            runChildQuery(secondaryStmt, secondaryBinds,
+                          new SecondaryAccBuilder());
+            runChildQuery(referenceStmt, primaryBinds,
+                          new RefAssocBuilder());
+        }
+        sequenceMap = null;
+        return sequenceVector;
+    }
+
+    /**
+     * prepares the statements for a batch of seqids unless they are already
+     * prepared for a batch of the same size
+     * @assumes nothing
+     * @effects nothing
+     * @param size the number of seqids in the batch
+     * @throws DBException if error getting a bindable statement
+     */
+    private void prepare(int size) throws DBException {
+        if (useTempTable) {
+            // in temp table mode the statements don't depend on the size
+            size = 0;
+        }
+        if (size == preparedSize) {
+            return;
+        }
+        String idList;
+        if (useTempTable) {
+            idList = "select accID from " + TEMP_TABLE;
+        }
+        else {
+            StringBuffer s = new StringBuffer();
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    s.append(",");
+                }
+                s.append("?");
+            }
+            idList = s.toString();
+        }
+        sequenceStmt = sqlMgr.getBindableStatement(
+            SEQUENCE_QUERY.replaceAll(":x", idList));
+        sourceStmt = sqlMgr.getBindableStatement(
+            SOURCE_QUERY.replaceAll(":x", idList));
+        secondaryStmt = sqlMgr.getBindableStatement(
+            SECONDARY_QUERY.replaceAll(":x", idList));
+        referenceStmt = sqlMgr.getBindableStatement(
+            REFERENCE_QUERY.replaceAll(":x", idList));
+        preparedSize = size;
+    }
+
+    /**
+     * runs a query for one of the child tables, each row of which is added
+     * to its Sequence by the interpreter
+     * @assumes the sequence query has been run for the batch
+     * @effects queries a database
+     * @param stmt the statement to run
+     * @param binds the values to bind
+     * @param builder the interpreter which adds a row to its Sequence
+     * @throws DBException if error querying the database
+     */
+    private void runChildQuery(BindableStatement stmt, Vector binds,
+                               RowDataInterpreter builder)
+        throws DBException {
+        ResultsNavigator nav = stmt.executeQuery(binds);
+        nav.setInterpreter(builder);
+        while (nav.next()) {
+            nav.getCurrent();
+        }
+        nav.close();
+    }
+
+    /**
+     * gets the Sequence of the current batch for a _Sequence_key
+     * @param key the _Sequence_key
+     * @return the Sequence or null if the sequence query didn't return it
+     */
+    private Sequence getSequence(Integer key) {
+        return (Sequence) sequenceMap.get(key);
+    }
+
+    /**
+     * creates an ACC_AccessionState from the columns of an accession row
+     * @param row the RowReference
+     * @return the ACC_AccessionState
+     * @throws DBException if error getting columns for a row reference
+     */
+    private static ACC_AccessionState createAccState(RowReference row)
+        throws DBException {
+        ACC_AccessionState state = new ACC_AccessionState();
+        state.setAccID(row.getString(2));
+        state.setPrefixPart(row.getString(3));
+        state.setNumericPart(row.getInt(4));
+        state.setLogicalDBKey(row.getInt(5));
+        state.setObjectKey(row.getInt(6));
+        state.setMGITypeKey(row.getInt(7));
+        state.setPrivateVal(row.getBoolean(8));
+        state.setPreferred(row.getBoolean(9));
+        state.setCreatedByKey(row.getInt(10));
+        state.setModifiedByKey(row.getInt(11));
+        state.setCreationDate(row.getTimestamp(12));
+        state.setModificationDate(row.getTimestamp(13));
+        return state;
+    }
+
+    /**
+     * creates a Sequence with its primary accession from a row of the
+     * sequence query and adds it to the current batch
+     */
+    private class SequenceBuilder implements RowDataInterpreter {
+        public Object interpret(RowReference row) throws DBException {
+            SEQ_SequenceState seqState = new SEQ_SequenceState();
+            SEQ_Sequence_RawState seqRawState = new SEQ_Sequence_RawState();
+            Integer seqKey = row.getInt(14);
+            seqState.setSequenceTypeKey(row.getInt(15));
+            seqState.setSequenceQualityKey(row.getInt(16));
+            seqState.setSequenceStatusKey(row.getInt(17));
+            seqState.setSequenceProviderKey(row.getInt(18));
+            seqState.setOrganismKey(row.getInt(19));
+            seqState.setLength(row.getInt(20));
+            seqState.setDescription(row.getString(21));
+            seqState.setVersion(row.getString(22));
+            seqState.setDivision(row.getString(23));
+            seqState.setVirtual(row.getBoolean(24));
+            seqRawState.setRawType(row.getString(25));
+            seqRawState.setRawLibrary(row.getString(26));
+            seqRawState.setRawOrganism(row.getString(27));
+            seqRawState.setRawStrain(row.getString(28));
+            seqRawState.setRawTissue(row.getString(29));
+            seqRawState.setRawAge(row.getString(30));
+            seqRawState.setRawSex(row.getString(31));
+            seqRawState.setRawCellLine(row.getString(32));
+            seqRawState.setCreatedByKey(row.getInt(33));
+            seqRawState.setModifiedByKey(row.getInt(34));
+            seqRawState.setCreationDate(row.getTimestamp(35));
+            seqRawState.setModificationDate(row.getTimestamp(36));
+            seqState.setNumberOfOrganisms(row.getInt(37));
+            seqState.setSeqrecordDate(row.getTimestamp(38));
+            seqState.setSequenceDate(row.getTimestamp(39));
+            seqState.setCreatedByKey(row.getInt(40));
+            seqState.setModifiedByKey(row.getInt(41));
+            seqState.setCreationDate(row.getTimestamp(42));
+            seqState.setModificationDate(row.getTimestamp(43));
+
+            Sequence sequence;
+            try {
+                sequence = new Sequence(seqState, new SEQ_SequenceKey(seqKey),
+                                        seqRawState, stream);
+            }
+            catch (ConfigException e) {
+                throw new InterpretException(e);
+            }
+            catch (DLALoggingException e) {
+                throw new InterpretException(e);
+            }
+            catch (CacheException e) {
+                throw new InterpretException(e);
+            }
+            catch (KeyNotFoundException e) {
+                throw new InterpretException(e);
+            }
+            // flag Sequence as existing
+            sequence.setIsNewSequence(false);
+            sequence.setAccPrimary(new ACC_AccessionKey(row.getInt(1)),
+                                   createAccState(row));
+            sequenceMap.put(seqKey, sequence);
+            return sequence;
+        }
+    }
+
+    /**
+     * adds a row of the source query to its Sequence
+     */
+    private class SourceAssocBuilder implements RowDataInterpreter {
+        public Object interpret(RowReference row) throws DBException {
+            Sequence sequence = getSequence(row.getInt(2));
+            if (sequence == null) {
+                return null;
+            }
+            SEQ_Source_AssocState state = new SEQ_Source_AssocState();
+            state.setSequenceKey(row.getInt(2));
+            state.setSourceKey(row.getInt(3));
+            state.setCreatedByKey(row.getInt(4));
+            state.setModifiedByKey(row.getInt(5));
+            state.setCreationDate(row.getTimestamp(6));
+            state.setModificationDate(row.getTimestamp(7));
+            sequence.addSeqSrcAssoc(new SEQ_Source_AssocKey(row.getInt(1)),
+                                    state);
+            return null;
+        }
+    }
+
+    /**
+     * adds a row of the 2ndary accession query to its Sequence
+     */
+    private class SecondaryAccBuilder implements RowDataInterpreter {
+        public Object interpret(RowReference row) throws DBException {
+            Sequence sequence = getSequence(row.getInt(6));
+            if (sequence == null) {
+                return null;
+            }
+            sequence.addAccSecondary(new ACC_AccessionKey(row.getInt(1)),
+                                     createAccState(row));
+            return null;
+        }
+    }
+
+    /**
+     * adds a row of the reference query to its Sequence
+     */
+    private class RefAssocBuilder implements RowDataInterpreter {
+        public Object interpret(RowReference row) throws DBException {
+            Sequence sequence = getSequence(row.getInt(3));
+            if (sequence == null) {
+                return null;
+            }
+            MGI_Reference_AssocState state = new MGI_Reference_AssocState();
+            state.setRefsKey(row.getInt(2));
+            state.setObjectKey(row.getInt(3));
+            state.setRefAssocTypeKey(row.getInt(4));
+            state.setCreatedByKey(row.getInt(5));
+            state.setModifiedByKey(row.getInt(6));
+            state.setCreationDate(row.getTimestamp(7));
+            state.setModificationDate(row.getTimestamp(8));
+            sequence.addRefAssoc(new MGI_Reference_AssocKey(row.getInt(1)),
+                                 state);
+            return null;
+        }
+    }
+}
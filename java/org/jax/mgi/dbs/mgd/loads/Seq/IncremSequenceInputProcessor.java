@@ -1,6 +1,8 @@
 package org.jax.mgi.dbs.mgd.loads.Seq;
 
 import org.jax.mgi.shr.dbutils.dao.SQLStream;
+import org.jax.mgi.shr.dbutils.dao.Inline_Stream;
+import org.jax.mgi.shr.dbutils.dao.BCP_Inline_Stream;
 import org.jax.mgi.shr.cache.CacheException;
 import org.jax.mgi.shr.cache.CacheConstants;
 import org.jax.mgi.shr.dbutils.DBException;
@@ -30,6 +32,7 @@ import java.util.Iterator;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -79,6 +82,28 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
     // to be in MGI (possible updates)
     private HashMap batchMap;
 
+    // runs SequenceLookup queries in the background when prefetching;
+    // null if not prefetching or once the last batch has been collected
+    private SequenceLookupPrefetcher prefetcher;
+
+    // true if prefetching is configured; stays set after the prefetcher
+    // is closed so the final report still includes the hidden time
+    private boolean prefetching;
+
+    // the batch whose lookup has been submitted to the prefetcher but
+    // whose sequences have not been processed
+    private HashMap pendingBatchMap;
+
+    // times waiting on the prefetcher
+    private Stopwatch waitWatch;
+
+    // true if the status of a batch is looked up before the full Sequences
+    private boolean twoPhase;
+
+    // applies the updates of a batch with one update per table; null if
+    // updates go to the stream
+    private SequenceBulkUpdater bulkUpdater;
+
     // The following are public to provide easy access for debug logging
     // the number of seqids for the SequenceLookup to query for at one time
     public int batchSize;
@@ -105,6 +130,12 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
     // current SequenceLookup average
     private double runningLookupAverage;
 
+    // Current total time spent waiting for prefetched SequenceLookups
+    private double runningLookupWaitTime;
+
+    // Current total time for two phase status lookups
+    private double runningStatusLookupTime;
+
     /**
      * Constructs a IncremSeqProcessor that handles processing of add, update,
      * dummy, non-event, merge, and split events
@@ -140,10 +171,45 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
             new LogicalDBLookup().lookup(config.getLogicalDB()).intValue();
 
         batchSize = new Integer(config.getQueryBatchSize()).intValue();
-        seqLookup = new SequenceLookup(mgdSqlStream, batchSize);
+        boolean useTempTable =
+            config.getUseTempTableSequenceLookup().booleanValue();
+        boolean decomposed =
+            config.getUseDecomposedSequenceLookup().booleanValue();
+        if (decomposed) {
+            seqLookup = new DecomposedSequenceLookup(mgdSqlStream, batchSize,
+                                                     useTempTable);
+        }
+        else {
+            seqLookup = new SequenceLookup(mgdSqlStream, batchSize,
+                                           useTempTable);
+        }
         batchCtr = 0;
         batchMap = new HashMap();
+        prefetching = config.getOkToPrefetchSequenceLookup().booleanValue();
+        if (prefetching) {
+            prefetcher = new SequenceLookupPrefetcher(mgdSqlStream, batchSize,
+                                                      useTempTable, decomposed);
+            waitWatch = new Stopwatch();
+        }
+        pendingBatchMap = null;
+        twoPhase = config.getOkToUseTwoPhaseLookup().booleanValue();
+        if (config.getOkToBulkUpdateSequences().booleanValue()) {
+            // the bulk updates are applied inline, so they are used only
+            // with a stream which applies its updates inline rather than
+            // writing them to a script or bcp files
+            if (mgdSqlStream instanceof Inline_Stream ||
+                mgdSqlStream instanceof BCP_Inline_Stream) {
+                bulkUpdater = new SequenceBulkUpdater();
+            }
+            else {
+                logger.logdInfo("SEQ_BULK_UPDATE ignored for " +
+                    mgdSqlStream.getClass().getName() +
+                    " which does not update inline", false);
+            }
+        }
+        runningStatusLookupTime = 0.0;
         runningLookupTime = 0.0;
+        runningLookupWaitTime = 0.0;
         highLookupTime = 0.0;
         lowLookupTime = 0.0;
         existingSeqErrCtr = 0;
@@ -221,7 +287,12 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
               batchCtr++;
               // process the batch
               if (batchCtr == batchSize) {
-                  processUpdateBatch();
+                  if (prefetcher != null) {
+                      prefetchUpdateBatch();
+                  }
+                  else {
+                      processUpdateBatch();
+                  }
                   // reset the batch counter and the batch map
                   batchCtr = 0;
                   batchMap = new HashMap();
@@ -306,6 +377,42 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
          return runningLookupTime / existingSeqCtr;
      }
 
+    /**
+     * The current total time spent waiting for prefetched SequenceLookups
+     * thus far; zero if not prefetching
+     * @assumes nothing
+     * @effects nothing
+     * @return double current total time waiting for the SequenceLookup
+     */
+    public double getCurrentSequenceLookupWaitTime() {
+        return runningLookupWaitTime;
+    }
+
+    /**
+     * The current total time for two phase status lookups thus far; zero if
+     * not looking up in two phases
+     * @assumes nothing
+     * @effects nothing
+     * @return double current total time to query sequence status
+     */
+    public double getCurrentStatusLookupTime() {
+        return runningStatusLookupTime;
+    }
+
+    /**
+     * The current total SequenceLookup time hidden behind processing by
+     * prefetching thus far; zero if not prefetching
+     * @assumes nothing
+     * @effects nothing
+     * @return double current total SequenceLookup time not waited for
+     */
+    public double getCurrentHiddenSequenceLookupTime() {
+        if (!prefetching) {
+            return 0.0;
+        }
+        return runningLookupTime - runningLookupWaitTime;
+    }
+
     /**
     * Gets a Vector of Strings reporting counts for a different events processed
     * thus far
@@ -321,6 +428,14 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
          report.add("Total Non Events: " + eventDetector.getNonEventCount());
          report.add("Total Merge Events: " + eventDetector.getMergeEventCount());
          report.add("Total Split Events: " + eventDetector.getSplitEventCount());
+         if (bulkUpdater != null) {
+             report.add("Total Bulk Update Batches: " +
+                        bulkUpdater.getBatchCount());
+             report.add("Total SEQ_Sequence Rows Bulk Updated: " +
+                        bulkUpdater.getTotalSequenceCount());
+             report.add("Total SEQ_Sequence_Raw Rows Bulk Updated: " +
+                        bulkUpdater.getTotalRawCount());
+         }
          return report;
      }
 
@@ -333,6 +448,38 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
       * @throws MSException if of type UnresolvedAttributeException
       */
      public void finishUpdateBatch() throws SeqloaderException, MSException {
+          boolean collected = false;
+          try {
+              // process the batch still waiting on the prefetcher
+              if (pendingBatchMap != null) {
+                  HashMap map = pendingBatchMap;
+                  pendingBatchMap = null;
+                  processExistingSequences(map, collectPrefetchedBatch());
+              }
+              collected = true;
+          }
+          catch (SeqloaderException e) {
+              SeqloaderException e1 =
+                  (SeqloaderException) eFactory.getException(
+                  SeqloaderExceptionFactory.ProcessUpdateErr, e);
+              throw e1;
+          }
+          finally {
+              // close the prefetcher even if the last batch failed; an error
+              // closing it is reported only if nothing else failed
+              if (collected) {
+                  close();
+              }
+              else {
+                  try {
+                      close();
+                  }
+                  catch (SeqloaderException e) {
+                      logger.logdInfo("Error closing SequenceLookupPrefetcher: " +
+                                      e.getMessage(), false);
+                  }
+              }
+          }
           if(batchMap.size() > 0 ) {
               try {
                   processUpdateBatch();
@@ -346,6 +493,32 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
           }
       }
 
+     /**
+      * closes the SequenceLookupPrefetcher and its database connection if
+      * prefetching; called by finishUpdateBatch and by the loader when the
+      * load fails before the last batch is processed. Closing again does
+      * nothing
+      * @assumes nothing
+      * @effects closes a database connection
+      * @throws SeqloaderException if error closing the connection
+      */
+     public void close() throws SeqloaderException {
+          if (prefetcher == null) {
+              return;
+          }
+          SequenceLookupPrefetcher p = prefetcher;
+          prefetcher = null;
+          try {
+              p.close();
+          }
+          catch (DBException e) {
+              SeqloaderException e1 =
+                  (SeqloaderException) eFactory.getException(
+                  SeqloaderExceptionFactory.ProcessUpdateErr, e);
+              throw e1;
+          }
+      }
+
     /**
      * Processes a batch of SequenceInput's determined to be in MGI. Detects and handles
      * update, dummy, merge, split and non-events
@@ -359,7 +532,7 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
 
     private void processUpdateBatch() throws  SeqloaderException, MSException  {
         // get the set of seqids to pass to the SequenceLookup
-        Set seqIdSet = batchMap.keySet();
+        Set seqIdSet = selectFullLookupSeqIds(batchMap);
         Vector sequences;
         // get Sequence objects for the batch
         try {
@@ -367,14 +540,12 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
             stopWatch.start();
             sequences = seqLookup.findBySeqId(seqIdSet, logicalDBKey);
             stopWatch.stop();
-            double time = stopWatch.time();
-            if (highLookupTime < time) {
-                highLookupTime = time;
+            addLookupTime(stopWatch.time());
+            // when prefetching, the last batch is looked up synchronously
+            // so all of its lookup time is waited for
+            if (prefetching) {
+                runningLookupWaitTime += stopWatch.time();
             }
-            else if (lowLookupTime > time) {
-                lowLookupTime = time;
-            }
-            runningLookupTime += time;
         }
         catch (MGIException e) {
             SeqloaderException e1 =
@@ -383,21 +554,169 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
             e1.bind(seqIdSet.toString());
             throw e1;
         }
-        // iterate thru the Sequence objects detecting and processing events
-        for (Iterator i = sequences.iterator(); i.hasNext(); ) {
-            Sequence existingSequence = (Sequence) i.next();
+        processExistingSequences(batchMap, sequences);
+    }
+
+    /**
+     * Submits the current batch to the prefetcher then processes the
+     * previous batch, whose lookup ran while the batch before it was
+     * being processed
+     * @assumes prefetching is configured
+     * @effects Depending on the stream, writes to bcp files, creates SQL batch,
+     * writes to SQL script, or does inline SQL
+     * @throws SeqloaderException if error using seqLookup, detecting or
+     * processing an event
+     * @throws MSException if of type UnresolvedAttributeException
+     */
+
+    private void prefetchUpdateBatch() throws SeqloaderException, MSException {
+        HashMap previousMap = pendingBatchMap;
+        Vector previousSequences = null;
+        if (previousMap != null) {
+            previousSequences = collectPrefetchedBatch();
+        }
+        // start the lookup for this batch before processing the previous
+        prefetcher.submit(selectFullLookupSeqIds(batchMap), logicalDBKey);
+        pendingBatchMap = batchMap;
+        if (previousMap != null) {
+            processExistingSequences(previousMap, previousSequences);
+        }
+    }
+
+    /**
+     * waits for the pending prefetched lookup and records its timing
+     * @assumes a lookup has been submitted to the prefetcher
+     * @effects nothing
+     * @return Vector of Sequence objects for the pending batch
+     * @throws SeqloaderException if error querying the database
+     */
+
+    private Vector collectPrefetchedBatch() throws SeqloaderException {
+        Set seqIdSet = prefetcher.getPendingSeqIds();
+        Vector sequences;
+        try {
+            waitWatch.reset();
+            waitWatch.start();
+            sequences = prefetcher.collect();
+            waitWatch.stop();
+        }
+        catch (MGIException e) {
+            SeqloaderException e1 =
+                (SeqloaderException) eFactory.getException(
+                SeqloaderExceptionFactory.SeqQueryErr, e);
+            e1.bind(seqIdSet.toString());
+            throw e1;
+        }
+        runningLookupWaitTime += waitWatch.time();
+        addLookupTime(prefetcher.getLookupTime());
+        return sequences;
+    }
+
+    /**
+     * Gets the seqids of a batch for which to look up the full Sequence. In
+     * two phase mode the status of each sequence is looked up first and
+     * non events, which need nothing more, are left out
+     * @assumes nothing
+     * @effects queries a database in two phase mode
+     * @param map the batch of SequenceInput objects keyed by primary seqid
+     * @return the set of seqids for which to look up the full Sequence
+     * @throws SeqloaderException if error querying the status or detecting
+     * an event
+     */
+
+    private Set selectFullLookupSeqIds(HashMap map) throws SeqloaderException {
+        if (!twoPhase) {
+            return map.keySet();
+        }
+        HashMap statusMap;
+        try {
+            stopWatch.reset();
+            stopWatch.start();
+            statusMap = seqLookup.findStatusBySeqId(map.keySet(),
+                                                    logicalDBKey);
+            stopWatch.stop();
+            runningStatusLookupTime += stopWatch.time();
+        }
+        catch (MGIException e) {
+            SeqloaderException e1 =
+                (SeqloaderException) eFactory.getException(
+                SeqloaderExceptionFactory.SeqQueryErr, e);
+            e1.bind(map.keySet().toString());
+            throw e1;
+        }
+        Set seqIdSet = new HashSet();
+        for (Iterator i = statusMap.values().iterator(); i.hasNext(); ) {
+            SequenceLookup.SequenceStatus status =
+                (SequenceLookup.SequenceStatus) i.next();
+            String primarySeqId = status.getSeqId();
+            SequenceInput seqInput = (SequenceInput) map.get(primarySeqId);
+            try {
+                if (eventDetector.isNonEvent(seqInput,
+                                             status.getSequenceStatusKey(),
+                                             status.getSeqrecordDate())) {
+                    logger.logdDebug("NON Event Primary: {0}", primarySeqId);
+                }
+                else {
+                    seqIdSet.add(primarySeqId);
+                }
+            }
+            catch (MGIException e) {
+                SeqloaderException e1 =
+                    (SeqloaderException) eFactory.getException(
+                    SeqloaderExceptionFactory.EventDetectionErr, e);
+                throw e1;
+            }
+        }
+        return seqIdSet;
+    }
+
+    /**
+     * adds the time of a single SequenceLookup to the running totals
+     * @assumes nothing
+     * @effects nothing
+     * @param time the lookup time
+     */
+
+    private void addLookupTime(double time) {
+        if (highLookupTime < time) {
+            highLookupTime = time;
+        }
+        else if (lowLookupTime > time) {
+            lowLookupTime = time;
+        }
+        runningLookupTime += time;
+    }
+
+    /**
+     * Detects and handles update, dummy, merge, split and non-events for a
+     * batch of existing Sequences
+     * @assumes nothing
+     * @effects Depending on the stream, writes to bcp files, creates SQL batch,
+     * writes to SQL script, or does inline SQL
+     * @param map the batch of SequenceInput objects keyed by primary seqid
+     * @param sequences the Sequence objects found in MGI for the batch
+     * @throws SeqloaderException if error detecting or processing an event
+     * @throws MSException if of type UnresolvedAttributeException
+     */
+
+    private void processExistingSequences(HashMap map, Vector sequences)
+        throws SeqloaderException, MSException {
+        // detect the event of each sequence first so only the sequences
+        // whose source is processed are prefetched
+        int[] events = new int[sequences.size()];
+        HashSet seqIds = new HashSet();
+        HashSet seqKeys = new HashSet();
+        for (int i = 0; i < sequences.size(); i++) {
+            Sequence existingSequence = (Sequence) sequences.get(i);
             String primarySeqId = existingSequence.getAccPrimary().getAccID();
-            //System.out.println("Primary seqid: " + primarySeqId);
-            SequenceInput seqInput = (SequenceInput) batchMap.get(primarySeqId);
+            SequenceInput seqInput = (SequenceInput) map.get(primarySeqId);
             if (seqInput == null) {
                 throw new RuntimeException("IncremSequenceInputProcessor: " +
                     "No SequenceInput object for existing sequence in MGI!");
             }
-
-            // must declare outside try block
-            int event;
             try {
-                event = eventDetector.detectEvent(seqInput, existingSequence);
+                events[i] = eventDetector.detectEvent(seqInput,
+                                                      existingSequence);
             }
             catch (MGIException e) {
                 SeqloaderException e1 =
@@ -405,8 +724,27 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
                     SeqloaderExceptionFactory.EventDetectionErr, e);
                 throw e1;
             }
+            if (events[i] == SeqloaderConstants.UPDATE ||
+                events[i] == SeqloaderConstants.DUMMY) {
+                seqIds.add(primarySeqId);
+                seqKeys.add(existingSequence.getSequenceKey());
+            }
+        }
+        // look up the associated clones and source associations of those
+        // sequences in one query each
+        msProcessor.prefetchAssociatedClones(seqIds);
+        msProcessor.prefetchSeqAssocs(seqKeys);
+
+        // iterate thru the Sequence objects processing events
+        for (int i = 0; i < sequences.size(); i++) {
+            Sequence existingSequence = (Sequence) sequences.get(i);
+            existingSequence.setBulkUpdater(bulkUpdater);
+            String primarySeqId = existingSequence.getAccPrimary().getAccID();
+            //System.out.println("Primary seqid: " + primarySeqId);
+            SequenceInput seqInput = (SequenceInput) map.get(primarySeqId);
+            int event = events[i];
             if (event == SeqloaderConstants.UPDATE) {
-                logger.logdDebug("Update Event Primary: " + primarySeqId);
+                logger.logdDebug("Update Event Primary: {0}", primarySeqId);
                 try {
                     processUpdateEvent(seqInput, existingSequence);
                 }
@@ -479,7 +817,7 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
 
             }
             else if (event == SeqloaderConstants.DUMMY) {
-                logger.logdDebug("Dummy Event Primary: " + primarySeqId);
+                logger.logdDebug("Dummy Event Primary: {0}", primarySeqId);
                 try {
                     processDummyEvent(seqInput, existingSequence);
                 }
@@ -492,7 +830,7 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
             }
 
             else if (event == SeqloaderConstants.NON_EVENT) {
-                logger.logdDebug("NON Event Primary: " + primarySeqId);
+                logger.logdDebug("NON Event Primary: {0}", primarySeqId);
             }
             else {
                 // raise error - unhandled case
@@ -501,7 +839,26 @@ public class IncremSequenceInputProcessor extends SequenceInputProcessor {
                     "Unhandled event in IncremSeqProcessor.processSequence");
             }
         }
-        existingSeqCtr = existingSeqCtr + seqIdSet.size();
+        // later sequences are not part of this batch
+        msProcessor.clearPrefetched();
+        // apply the updates collected for the batch
+        if (bulkUpdater != null) {
+            try {
+                bulkUpdater.apply();
+            }
+            catch (DBException e) {
+                SeqloaderException e1 =
+                    (SeqloaderException) eFactory.getException(
+                    SeqloaderExceptionFactory.ProcessUpdateErr, e);
+                throw e1;
+            }
+            logger.logdInfo("Bulk update batch " +
+                bulkUpdater.getBatchCount() + " updated " +
+                bulkUpdater.getLastSequenceCount() + " SEQ_Sequence and " +
+                bulkUpdater.getLastRawCount() + " SEQ_Sequence_Raw rows",
+                false);
+        }
+        existingSeqCtr = existingSeqCtr + map.size();
         runningLookupAverage = runningLookupTime / existingSeqCtr;
     }
 
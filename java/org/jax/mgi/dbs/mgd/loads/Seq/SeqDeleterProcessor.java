@@ -2,6 +2,8 @@ package org.jax.mgi.dbs.mgd.loads.Seq;
 
 
 import org.jax.mgi.shr.dbutils.dao.SQLStream;
+import org.jax.mgi.shr.dbutils.dao.Inline_Stream;
+import org.jax.mgi.shr.dbutils.dao.BCP_Inline_Stream;
 import org.jax.mgi.shr.dbutils.SQLDataManager;
 import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
 import org.jax.mgi.shr.config.SeqDeleterCfg;
@@ -10,6 +12,9 @@ import org.jax.mgi.shr.dla.log.DLALoggingException;
 import org.jax.mgi.shr.cache.CacheConstants;
 import org.jax.mgi.shr.cache.CacheException;
 import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.DBExceptionFactory;
+import org.jax.mgi.shr.dbutils.dao.RecordStamper;
+import org.jax.mgi.shr.dbutils.dao.RecordStampException;
 import org.jax.mgi.shr.config.ConfigException;
 import org.jax.mgi.shr.cache.KeyNotFoundException;
 import org.jax.mgi.shr.dla.loader.seq.SeqloaderConstants;
@@ -23,6 +28,7 @@ import org.jax.mgi.dbs.mgd.lookup.AccessionLookup;
 import org.jax.mgi.dbs.mgd.lookup.LogicalDBLookup;
 import org.jax.mgi.dbs.mgd.lookup.VocabTermLookup;
 import org.jax.mgi.dbs.mgd.AccessionLib;
+import org.jax.mgi.dbs.mgd.MGD;
 import org.jax.mgi.dbs.mgd.MGITypeConstants;
 import org.jax.mgi.dbs.mgd.lookup.VocabKeyLookup;
 import org.jax.mgi.dbs.mgd.VocabularyTypeConstants;
@@ -41,6 +47,8 @@ import java.util.Set;
  *   <LI>AccessionLookup to determine if the seqid is primary in MGI
  *   <LI>SequenceLookup to get the Sequence to update.
  *   <LI>A stream to process the updates
+ *   <LI>optionally, a SQLDataManager to status a batch of sequences as
+ *       deleted with one update
  *   </UL>
  * @does
  *   <UL>
@@ -49,6 +57,8 @@ import java.util.Set;
  *   <LI>counts sequences statused as deleted
  *   <LI>counts sequences not statused as deleted because currently statused
  *       as split or deleted.
+ *   <LI>in status only mode, looks up just the sequence key and status of a
+ *       batch and updates the status of those to be deleted in one statement
  *   </UL>
  * @company The Jackson Laboratory
  * @author sc
@@ -107,6 +117,16 @@ public class SeqDeleterProcessor {
     int deleteCtr = 0;
     // current number of sequences not deleted because their status is 'split'
     int notDelCtr = 0;
+
+    // true if only the status of a batch is looked up and updated, used only
+    // with a stream which updates inline
+    private boolean statusOnly;
+
+    // the SQLDataManager for status only updates
+    private SQLDataManager sqlMgr;
+
+    // the _ModifiedBy_key for status only updates
+    private Integer modifiedByKey;
     
     /**
      * Constructs a SeqProcessor that adds and deletes sequence to/from
@@ -139,21 +159,61 @@ public class SeqDeleterProcessor {
         // get an instance of the logger
         logger = DLALogger.getInstance();
         // create an accession lookup for this logical DB
-        seqIdLookup = new AccessionLookup(logicalDBKey,
-                                          MGITypeConstants.SEQUENCE,
-                                          AccessionLib.PREFERRED,
-					  CacheConstants.LAZY_CACHE);
+        if (config.getUseCompactAccessionCache().booleanValue()) {
+            seqIdLookup = new CompactSeqIdLookup(logicalDBKey);
+        }
+        else {
+            seqIdLookup = new AccessionLookup(logicalDBKey,
+                                              MGITypeConstants.SEQUENCE,
+                                              AccessionLib.PREFERRED,
+                                              CacheConstants.LAZY_CACHE);
+        }
         // get the configured batch size for the SequenceLookup
         batchSize = new Integer(config.getQueryBatchSize()).intValue();
 
         // get object to lookup a Sequence in MGI
-        seqLookup = new SequenceLookup(mgdStream, batchSize);
+        boolean useTempTable =
+            config.getUseTempTableSequenceLookup().booleanValue();
+        if (config.getUseDecomposedSequenceLookup().booleanValue()) {
+            seqLookup = new DecomposedSequenceLookup(mgdStream, batchSize,
+                                                     useTempTable);
+        }
+        else {
+            seqLookup = new SequenceLookup(mgdStream, batchSize, useTempTable);
+        }
         // create a lookup to get the delete status key
         statusKeyLookup = new VocabKeyLookup(VocabularyTypeConstants.SEQUENCESTATUS);
         // lookup to get the delete status key
         deleteStatus = statusKeyLookup.lookup(SeqloaderConstants.DELETE_STATUS);
         // lookup to get the status name given a status key
         termNameLookup = new VocabTermLookup();
+        // set up status only updates
+        statusOnly = config.getOkToUseStatusOnlyDelete().booleanValue();
+        // the status only update is applied inline, so it is used only
+        // with a stream which applies its updates inline rather than
+        // writing them to a script or bcp files
+        if (statusOnly && !(mgdSqlStream instanceof Inline_Stream ||
+                            mgdSqlStream instanceof BCP_Inline_Stream)) {
+            logger.logdInfo("SEQ_DELETE_STATUS_ONLY ignored for " +
+                mgdSqlStream.getClass().getName() +
+                " which does not update inline", false);
+            statusOnly = false;
+        }
+        if (statusOnly) {
+            sqlMgr = SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+            SEQ_SequenceState stampState = new SEQ_SequenceState();
+            try {
+                RecordStamper.stampForUpdate(stampState);
+            }
+            catch (RecordStampException e) {
+                DBExceptionFactory ef = new DBExceptionFactory();
+                DBException e2 = (DBException)
+                    ef.getException(DBExceptionFactory.RecordStampErr);
+                e2.bind("SEQ_Sequence");
+                throw e2;
+            }
+            modifiedByKey = stampState.getModifiedByKey();
+        }
         // batch the seqids to query
         batchMap = new HashMap();
 	repeatMap = new HashMap();
@@ -253,6 +313,10 @@ public class SeqDeleterProcessor {
           CacheException, DBException  {
           // get the set of seqids to pass to the SequenceLookup
           Set seqIdSet = batchMap.keySet();
+          if (statusOnly) {
+              processStatusOnlyBatch(seqIdSet);
+              return;
+          }
           Vector sequences;
           // get Sequence objects for the batch
           try {
@@ -272,6 +336,63 @@ public class SeqDeleterProcessor {
           }
       }
 
+      /**
+       * Looks up the status of a batch of seqids and statuses those not
+       * already deleted, split or not loaded as deleted with one update
+       * @effects queries and updates a database
+       * @param seqIdSet the seqids of the batch
+       * @throws SeqloaderException if error looking up the statuses
+       * @throws CacheException if error using lookups
+       * @throws DBException if error statusing the sequences as deleted
+       */
+
+      private void processStatusOnlyBatch(Set seqIdSet)
+          throws SeqloaderException, CacheException, DBException {
+          HashMap statusMap;
+          try {
+              statusMap = seqLookup.findStatusBySeqId(seqIdSet, logicalDBKey);
+          }
+          catch (MGIException e) {
+              SeqloaderException e1 =
+                  (SeqloaderException) eFactory.getException(
+                  SeqloaderExceptionFactory.SeqQueryErr, e);
+              e1.bind(seqIdSet.toString());
+              throw e1;
+          }
+          StringBuffer keys = new StringBuffer();
+          for (Iterator i = statusMap.values().iterator(); i.hasNext(); ) {
+              SequenceLookup.SequenceStatus status =
+                  (SequenceLookup.SequenceStatus) i.next();
+              String statusString =
+                  termNameLookup.lookup(status.getSequenceStatusKey());
+              if (statusString.equals(SeqloaderConstants.SPLIT_STATUS) ||
+                  statusString.equals(SeqloaderConstants.DELETE_STATUS) ||
+                  statusString.equals(SeqloaderConstants.DUMMY_SEQ_STATUS)) {
+                  notDelCtr++;
+                  continue;
+              }
+              deleteCtr++;
+              logger.logcInfo("DELETED " + SeqloaderConstants.TAB +
+                              status.getSeqId(), false);
+              if (keys.length() > 0) {
+                  keys.append(SeqloaderConstants.COMMA);
+              }
+              keys.append(status.getSequenceKey());
+          }
+          if (keys.length() == 0) {
+              return;
+          }
+          sqlMgr.executeVoid("update " + MGD.seq_sequence._name +
+              " set " + MGD.seq_sequence._sequencestatus_key + " = " +
+              deleteStatus +
+              ", " + MGD.seq_sequence._modifiedby_key + " = " +
+              modifiedByKey +
+              ", " + MGD.seq_sequence.modification_date +
+              " = current_timestamp" +
+              " where " + MGD.seq_sequence._sequence_key + " in (" +
+              keys.toString() + ")");
+      }
+
       /**
         * Status a Sequence as deleted if it is not already deleted or statused
         * as split
@@ -51,6 +51,10 @@ public class Sequence {
     // the stream used to accomplish the database inserts, updates, deletes
     private SQLStream stream;
 
+    // collects the updates of an existing sequence in place of the stream;
+    // null if updates go to the stream
+    private SequenceBulkUpdater bulkUpdater;
+
     // the primary seqid
     private ACC_AccessionDAO primaryAcc;
 
@@ -527,6 +531,19 @@ public class Sequence {
     }
 
 
+    /**
+     * sets the SequenceBulkUpdater to collect the update of this sequence
+     * in place of the stream
+     * @assumes Nothing
+     * @effects Nothing
+     * @param updater the SequenceBulkUpdater or null to update through the
+     * stream
+     */
+
+    public void setBulkUpdater(SequenceBulkUpdater updater) {
+        bulkUpdater = updater;
+    }
+
     /**
      * sets the isNewSequence attribute
      * @assumes Nothing
@@ -623,6 +640,13 @@ public class Sequence {
             }
         }
         // Existing sequence that needs updating - update it
+        else if (bulkUpdater != null &&
+                 (isChangedSequence || isChangedRawSequence)) {
+            if (isChangedSequence)
+                bulkUpdater.update(sequenceDAO);
+            if (isChangedRawSequence)
+                bulkUpdater.update(sequence_RawDAO);
+        }
         else if (isChangedSequence || isChangedRawSequence) {
             if (isChangedSequence)
                 stream.update(sequenceDAO);
@@ -0,0 +1,306 @@
+package org.jax.mgi.dbs.mgd.loads.Seq;
+
+import java.sql.Connection;
+import java.util.Vector;
+
+import org.jax.mgi.dbs.mgd.dao.SEQ_SequenceDAO;
+import org.jax.mgi.dbs.mgd.dao.SEQ_Sequence_RawDAO;
+import org.jax.mgi.dbs.SchemaConstants;
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
+import org.jax.mgi.shr.dbutils.ResultsNavigator;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
+import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.Table;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.DBExceptionFactory;
+import org.jax.mgi.shr.dbutils.dao.RecordStamper;
+import org.jax.mgi.shr.dbutils.dao.RecordStampException;
+import org.jax.mgi.shr.config.ConfigException;
+import org.jax.mgi.shr.dla.loader.Copy_Stream;
+
+/**
+ * An object that applies the changes to existing sequences a batch at a time
+ * with one UPDATE per table
+ * @has
+ *   <UL>
+ *   <LI>a session temp table for each of SEQ_Sequence and SEQ_Sequence_Raw
+ *       having the columns of the table
+ *   <LI>the changed rows of the current batch in COPY text format
+ *   <LI>an UPDATE ... FROM joining each table to its temp table
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>collects the changed SEQ_Sequence and SEQ_Sequence_Raw states of a
+ *       batch in place of an update statement for each
+ *   <LI>copies them into the temp tables and updates every column but the
+ *       key and the creation columns from them, counting the rows updated
+ *   </UL>
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class SequenceBulkUpdater {
+
+    // session temp tables holding the changed rows of a batch
+    private static final String SEQ_TEMP_TABLE = "tmp_seq_update";
+    private static final String RAW_TEMP_TABLE = "tmp_seqraw_update";
+
+    // columns which are not updated besides the key
+    private static final String CREATEDBY = "_createdby_key";
+    private static final String CREATION_DATE = "creation_date";
+
+    // the SQLDataManager for the MGD database
+    private SQLDataManager sqlMgr;
+
+    // the connection the temp tables were created on; temp tables belong to
+    // the session, so they are created again if the shared SQLDataManager
+    // has since opened a new connection
+    private Connection connection;
+
+    // Table objects to get the bcp vectors of the DAOs
+    private Table seqTable;
+    private Table rawTable;
+
+    // the statements updating each table from its temp table
+    private String seqUpdate;
+    private String rawUpdate;
+
+    // the rows of the current batch
+    private StringBuilder seqRows = new StringBuilder();
+    private StringBuilder rawRows = new StringBuilder();
+
+    // rows updated by the last batch and by all batches
+    private int lastSeqCtr = 0;
+    private int lastRawCtr = 0;
+    private int totalSeqCtr = 0;
+    private int totalRawCtr = 0;
+
+    // number of batches applied
+    private int batchCtr = 0;
+
+    /**
+     * Constructs a SequenceBulkUpdater for the MGD database
+     * @assumes the database is PostgreSQL and the updates are applied
+     *          inline, i.e. the load stream is not writing a script or bcp
+     *          files for them
+     * @effects creates two temp tables
+     * @throws DBException if error creating the temp tables or reading the
+     *         columns of the tables
+     * @throws ConfigException if config error creating a SQLDataManager
+     */
+
+    public SequenceBulkUpdater() throws DBException, ConfigException {
+        sqlMgr = SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        seqTable = Table.getInstance("SEQ_Sequence", sqlMgr);
+        rawTable = Table.getInstance("SEQ_Sequence_Raw", sqlMgr);
+        createTempTables();
+    }
+
+    /**
+     * adds a changed sequence to the batch
+     * @assumes the sequence exists in the database
+     * @effects stamps the state for update
+     * @param dao the DAO of the changed sequence
+     * @throws DBException if error stamping the state or getting its values
+     */
+
+    public void update(SEQ_SequenceDAO dao) throws DBException {
+        stamp(dao.getState(), "SEQ_Sequence");
+        Copy_Stream.appendRow(seqRows, dao.getBCPVector(seqTable));
+    }
+
+    /**
+     * adds a changed raw sequence to the batch
+     * @assumes the raw sequence exists in the database
+     * @effects stamps the state for update
+     * @param dao the DAO of the changed raw sequence
+     * @throws DBException if error stamping the state or getting its values
+     */
+
+    public void update(SEQ_Sequence_RawDAO dao) throws DBException {
+        stamp(dao.getState(), "SEQ_Sequence_Raw");
+        Copy_Stream.appendRow(rawRows, dao.getBCPVector(rawTable));
+    }
+
+    /**
+     * updates the database with the changes in the batch and starts a new
+     * batch
+     * @assumes nothing
+     * @effects replaces the contents of the temp tables and updates
+     *          SEQ_Sequence and SEQ_Sequence_Raw
+     * @throws DBException if error updating the database
+     */
+
+    public void apply() throws DBException {
+        if (sqlMgr.getConnection() != connection) {
+            createTempTables();
+        }
+        lastSeqCtr = apply(seqRows, SEQ_TEMP_TABLE, seqUpdate);
+        lastRawCtr = apply(rawRows, RAW_TEMP_TABLE, rawUpdate);
+        totalSeqCtr += lastSeqCtr;
+        totalRawCtr += lastRawCtr;
+        batchCtr++;
+    }
+
+    /**
+     * gets the number of SEQ_Sequence rows updated by the last batch
+     * @return the number of rows
+     */
+
+    public int getLastSequenceCount() {
+        return lastSeqCtr;
+    }
+
+    /**
+     * gets the number of SEQ_Sequence_Raw rows updated by the last batch
+     * @return the number of rows
+     */
+
+    public int getLastRawCount() {
+        return lastRawCtr;
+    }
+
+    /**
+     * gets the number of SEQ_Sequence rows updated by all batches
+     * @return the number of rows
+     */
+
+    public int getTotalSequenceCount() {
+        return totalSeqCtr;
+    }
+
+    /**
+     * gets the number of SEQ_Sequence_Raw rows updated by all batches
+     * @return the number of rows
+     */
+
+    public int getTotalRawCount() {
+        return totalRawCtr;
+    }
+
+    /**
+     * gets the number of batches applied
+     * @return the number of batches
+     */
+
+    public int getBatchCount() {
+        return batchCtr;
+    }
+
+    /**
+     * creates the temp tables on the current connection of the
+     * SQLDataManager
+     * @throws DBException if error querying or updating the database
+     */
+
+    private void createTempTables() throws DBException {
+        connection = sqlMgr.getConnection();
+        seqUpdate = createTempTable("SEQ_Sequence", SEQ_TEMP_TABLE);
+        rawUpdate = createTempTable("SEQ_Sequence_Raw", RAW_TEMP_TABLE);
+    }
+
+    /**
+     * creates a temp table with the columns of a table and builds the
+     * statement updating the table from it
+     * @param table the table to update
+     * @param tempTable the temp table
+     * @return the update statement; it returns the number of rows updated
+     * @throws DBException if error querying or updating the database
+     */
+
+    private String createTempTable(String table, String tempTable)
+        throws DBException {
+        sqlMgr.executeVoid("create temp table if not exists " + tempTable +
+                           " (like " + table + ")");
+        // columns in table order, resolved with the search path as the
+        // update will be
+        ResultsNavigator nav = sqlMgr.executeQuery(
+            "select attname from pg_attribute " +
+            "where attrelid = '" + table + "'::regclass " +
+            "and attnum > 0 and not attisdropped order by attnum");
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                return row.getString(1);
+            }
+        });
+        Vector columns = new Vector();
+        while (nav.next()) {
+            columns.add(nav.getCurrent());
+        }
+        nav.close();
+
+        // the first column is the key
+        String key = (String) columns.get(0);
+        StringBuffer set = new StringBuffer();
+        for (int i = 1; i < columns.size(); i++) {
+            String column = (String) columns.get(i);
+            if (column.equalsIgnoreCase(CREATEDBY) ||
+                column.equalsIgnoreCase(CREATION_DATE)) {
+                continue;
+            }
+            if (set.length() > 0) {
+                set.append(", ");
+            }
+            set.append(column + " = t." + column);
+        }
+        return "with u as (update " + table + " s set " + set.toString() +
+            " from " + tempTable + " t where s." + key + " = t." + key +
+            " returning 1) select count(*) from u";
+    }
+
+    /**
+     * replaces the contents of a temp table with a batch of rows and updates
+     * its table from it
+     * @param rows the rows in COPY text format; emptied
+     * @param tempTable the temp table
+     * @param update the update statement
+     * @return the number of rows updated
+     * @throws DBException if error updating the database
+     */
+
+    private int apply(StringBuilder rows, String tempTable, String update)
+        throws DBException {
+        if (rows.length() == 0) {
+            return 0;
+        }
+        sqlMgr.executeVoid("truncate table " + tempTable);
+        Copy_Stream.copyIn(sqlMgr, "COPY " + tempTable + " FROM STDIN",
+                           rows.toString());
+        rows.setLength(0);
+
+        ResultsNavigator nav = sqlMgr.executeQuery(update);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                return row.getInt(1);
+            }
+        });
+        int count = 0;
+        if (nav.next()) {
+            count = ((Integer) nav.getCurrent()).intValue();
+        }
+        nav.close();
+        return count;
+    }
+
+    /**
+     * sets the modification columns of a state as its update would
+     * @param state the state
+     * @param table the table of the state for reporting errors
+     * @throws DBException if error stamping the state
+     */
+
+    private static void stamp(Object state, String table) throws DBException {
+        try {
+            RecordStamper.stampForUpdate(state);
+        }
+        catch (RecordStampException e) {
+            DBExceptionFactory ef = new DBExceptionFactory();
+            DBException e2 = (DBException)
+                ef.getException(DBExceptionFactory.RecordStampErr);
+            e2.bind(table);
+            throw e2;
+        }
+    }
+}
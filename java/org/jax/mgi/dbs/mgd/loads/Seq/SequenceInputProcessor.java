@@ -261,10 +261,13 @@ public class SequenceInputProcessor implements ProcessSequenceInput  {
          throw e1;
        }
 
-       logger.logdDebug("Add Event Primary: "  +
-                        seqInput.getPrimaryAcc().getAccID());
-       for (Iterator i = seqInput.getMSources().iterator(); i.hasNext(); ) {
-          logger.logdDebug("    " + ((MSRawAttributes) i.next()).getOrganism());
+       if (logger.isDebugLoggable()) {
+           logger.logdDebug("Add Event Primary: "  +
+                            seqInput.getPrimaryAcc().getAccID());
+           for (Iterator i = seqInput.getMSources().iterator(); i.hasNext(); ) {
+              logger.logdDebug("    " +
+                               ((MSRawAttributes) i.next()).getOrganism());
+           }
        }
 
        // resolve secondary accessions and set the accession states in the
@@ -273,7 +276,10 @@ public class SequenceInputProcessor implements ProcessSequenceInput  {
        while (secondaryIterator.hasNext()) {
            AccessionRawAttributes ara =
                (AccessionRawAttributes) secondaryIterator.next();
-           logger.logdDebug("Add Event Secondary: " + (ara).getAccID(), false);
+           if (logger.isDebugLoggable()) {
+               logger.logdDebug("Add Event Secondary: " + (ara).getAccID(),
+                                false);
+           }
            try {
              inputSequence.addAccSecondary(
                  accResolver.resolveAttributes(ara,
@@ -389,6 +395,17 @@ public class SequenceInputProcessor implements ProcessSequenceInput  {
        report.add("Total sequences added: " + addCtr);
        return report;
    }
+
+   /**
+    * Gets the MSProcessor used to process molecular sources
+    * @assumes nothing
+    * @effects nothing
+    * @return the MSProcessor
+    */
+   public MSProcessor getMSProcessor() {
+       return msProcessor;
+   }
+
    /**
     * Processes sequence-reference associations and sets them in the Sequence
     * @assumes nothing
@@ -3,12 +3,15 @@ package org.jax.mgi.dbs.mgd.loads.Seq;
 import org.jax.mgi.shr.dbutils.SQLDataManager;
 import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
 import org.jax.mgi.shr.dla.log.DLALoggingException;
+import org.jax.mgi.shr.dla.log.DLALogger;
 import org.jax.mgi.shr.dla.loader.seq.SeqloaderConstants;
 import org.jax.mgi.shr.dbutils.MultiRowInterpreter;
 import org.jax.mgi.shr.dbutils.MultiRowIterator;
 import org.jax.mgi.shr.dbutils.ResultsNavigator;
 import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
 import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.DBExceptionFactory;
 import org.jax.mgi.shr.cache.CacheException;
 import org.jax.mgi.shr.cache.KeyNotFoundException;
 import org.jax.mgi.shr.dbutils.dao.SQLStream;
@@ -26,10 +29,14 @@ import org.jax.mgi.shr.log.Logger;
 
 import java.util.Set;
 import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Vector;
 import java.sql.Timestamp;
 import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 
 /**
  * An object for looking up Sequence objects from the database.
@@ -44,6 +51,9 @@ import java.sql.Array;
  * @does
  *   <UL>
  *   <LI>looks up a Sequence by seqid
+ *   <LI>optionally loads the seqids of a batch into a session temp table and
+ *       joins against it instead of binding an IN-list of seqids, so the
+ *       statement is the same size for any batch
  *   </UL>
  * @company The Jackson Laboratory
  * @author sc
@@ -51,11 +61,25 @@ import java.sql.Array;
  */
 
 public class SequenceLookup {
+    // session temp table holding the seqids of the current batch
+    protected static final String TEMP_TABLE = "tmp_seqlookup_ids";
+
+    // loads the seqids of a batch, bound as one text[] parameter, into the
+    // temp table
+    private static final String TEMP_INSERT = "insert into " + TEMP_TABLE +
+        " select distinct unnest(?::text[])";
+
+    // the prepared TEMP_INSERT; null until the temp table is first loaded
+    private PreparedStatement tempInsert = null;
+
+    // true once the temp table has been analyzed
+    private boolean tempAnalyzed = false;
+
     // an SQL stream with which to the Sequence
-    private SQLStream stream;
+    protected SQLStream stream;
 
     // sql manager for performing queries
-    private static SQLDataManager sqlMgr;
+    protected SQLDataManager sqlMgr;
 
     // results navigator for stepping through rows returned from a query
     private ResultsNavigator resultsNav;
@@ -67,7 +91,10 @@ public class SequenceLookup {
     private SequenceInterpreter interpreter;
 
     // size of the batch of seqids to query for
-    private int batchSize;
+    protected int batchSize;
+
+    // true if seqids are loaded into a temp table rather than bound
+    protected boolean useTempTable;
 
     // logger
     Logger logger;
@@ -655,6 +682,37 @@ public class SequenceLookup {
 
         private BindableStatement statement;
 
+        // the light query for the status and seqrecord date of a batch of
+        // sequences. Returns the same sequences as the full query, i.e. only
+        // those with raw attributes and a source association
+        private String statusQuery = "SELECT " +
+            " a." + MGD.acc_accession.accid + ", " +
+            " s." + MGD.seq_sequence._sequence_key + ", " +
+            " s." + MGD.seq_sequence._sequencestatus_key + ", " +
+            " s." + MGD.seq_sequence.seqrecord_date +
+            " FROM " +
+            MGD.acc_accession._name + " a, " +
+            MGD.seq_sequence._name + " s, " +
+            MGD.seq_sequence_raw._name + " sr " +
+            " WHERE s." + MGD.seq_sequence._sequence_key + " = " +
+            " a." + MGD.acc_accession._object_key +
+            " AND s." + MGD.seq_sequence._sequence_key + " = " +
+            " sr." + MGD.seq_sequence_raw._sequence_key +
+            " AND a." + MGD.acc_accession._logicaldb_key + " = ?" +
+            " AND a." + MGD.acc_accession._mgitype_key + " = " +
+            MGITypeConstants.SEQUENCE +
+            " AND a." + MGD.acc_accession.preferred + " = " +
+            AccessionLib.PREFERRED +
+            " AND a." + MGD.acc_accession.accid + " in (:x)" +
+            " AND EXISTS (SELECT 1 FROM " +
+            MGD.seq_source_assoc._name + " sa " +
+            " WHERE sa." + MGD.seq_source_assoc._sequence_key + " = " +
+            " s." + MGD.seq_sequence._sequence_key + ")";
+
+        // the light query statement, prepared for statusPreparedSize seqids
+        private BindableStatement statusStatement;
+        private int statusPreparedSize = -1;
+
         /**
          * Constructs a SequenceLookup
          * @assumes Nothing
@@ -668,15 +726,84 @@ public class SequenceLookup {
 
         public SequenceLookup(SQLStream stream, int bSize)
             throws DBException, ConfigException {
+            this(stream, bSize, false);
+        }
+
+        /**
+         * Constructs a SequenceLookup, optionally in temp table mode
+         * @assumes Nothing
+         * @effects creates a temp table if useTempTable is true
+         * @param stream SQL stream for the Sequence
+         * @param bSize the batchSize for which to lookup Sequences
+         * @param useTempTable true if the seqids of a batch should be loaded
+         *        into a temp table and joined against
+         * @throws DBException if error creating a SQLDataManager, getting
+         *         a bindable statement or creating the temp table
+         * @throws ConfigException if config error creating a SQLDataManager
+         */
+
+        public SequenceLookup(SQLStream stream, int bSize,
+                              boolean useTempTable)
+            throws DBException, ConfigException {
+            // get an SQL manager for the MGD database
+            this(stream, bSize,
+                 SQLDataManagerFactory.getShared(SchemaConstants.MGD),
+                 useTempTable);
+        }
+
+        /**
+         * Constructs a SequenceLookup which queries through the given
+         * SQLDataManager, e.g. one with its own connection so that lookups
+         * may run on a separate thread
+         * @assumes Nothing
+         * @effects Nothing
+         * @param stream SQL stream for the Sequence
+         * @param bSize the batchSize for which to lookup Sequences
+         * @param sqlMgr the SQLDataManager to query with
+         * @throws DBException if error getting a bindable statement
+         */
+
+        public SequenceLookup(SQLStream stream, int bSize,
+                              SQLDataManager sqlMgr)
+            throws DBException {
+            this(stream, bSize, sqlMgr, false);
+        }
+
+        /**
+         * Constructs a SequenceLookup which queries through the given
+         * SQLDataManager, optionally in temp table mode
+         * @assumes the SQLDataManager keeps the same connection between
+         *          queries when useTempTable is true
+         * @effects creates a temp table if useTempTable is true
+         * @param stream SQL stream for the Sequence
+         * @param bSize the batchSize for which to lookup Sequences
+         * @param sqlMgr the SQLDataManager to query with
+         * @param useTempTable true if the seqids of a batch should be loaded
+         *        into a temp table and joined against
+         * @throws DBException if error getting a bindable statement or
+         *         creating the temp table
+         */
+
+        public SequenceLookup(SQLStream stream, int bSize,
+                              SQLDataManager sqlMgr, boolean useTempTable)
+            throws DBException {
             // the stream with which to build the Sequence
             this.stream = stream;
 
-            // get an SQL manager for the MGD database
-            sqlMgr = SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+            this.sqlMgr = sqlMgr;
+            this.useTempTable = useTempTable;
             logger = sqlMgr.getLogger();
             batchSize = bSize;
-            queryWithBindParams = addBindParams(batchSize);
-            statement = sqlMgr.getBindableStatement(queryWithBindParams);
+            if (useTempTable) {
+                sqlMgr.executeVoid("create temp table if not exists " +
+                                   TEMP_TABLE + " (accID text not null)");
+                queryWithBindParams = replaceIdList(
+                    "select accID from " + TEMP_TABLE);
+            }
+            else {
+                queryWithBindParams = addBindParams(batchSize);
+            }
+            // the statement is prepared on first use
             interpreter = new SequenceInterpreter();
         }
 
@@ -695,10 +822,11 @@ public class SequenceLookup {
     public Vector findBySeqId(Set seqIdSet, int logicalDBKey)
         throws DBException {
         int seqIdSetSize = seqIdSet.size();
-        logger.logDebug("SequenceLookup processing batch of size" +
-                        seqIdSetSize);
-        logger.logDebug("SequenceLookup looking up the followings " +
-                        "sequences: " + seqIdSet.toString());
+        DLALogger.logDebug(logger,
+            "SequenceLookup processing batch of size{0}",
+            new Object[] {new Integer(seqIdSetSize)});
+        DLALogger.logDebug(logger, "SequenceLookup looking up the followings " +
+            "sequences: {0}", new Object[] {seqIdSet});
         // to hold our Sequence objects
         Vector sequenceVector = new Vector();
 
@@ -706,6 +834,19 @@ public class SequenceLookup {
         if(seqIdSet.isEmpty()) {
                return sequenceVector;
         }
+        // in temp table mode load the seqids and bind only the logicalDB
+        // keys; the statement doesn't change with the size of the batch
+        if (useTempTable) {
+            loadTempTable(seqIdSet);
+            if (statement == null) {
+                statement = sqlMgr.getBindableStatement(queryWithBindParams);
+            }
+            Vector bindVector = new Vector();
+            for (int i = 0; i < 8; i++) {
+                bindVector.add(new Integer(logicalDBKey));
+            }
+            return executeQuery(bindVector);
+        }
         // if 'seqIds' is not of length batchSize create a new
         // queryWithBindParams and BindableStatement
         // This happens when seqIds.length() mod batchSize != 0 e.g. the last
@@ -717,6 +858,9 @@ public class SequenceLookup {
             queryWithBindParams = addBindParams(seqIdSetSize);
             statement = sqlMgr.getBindableStatement(queryWithBindParams);
         }
+        else if (statement == null) {
+            statement = sqlMgr.getBindableStatement(queryWithBindParams);
+        }
         // create Vector of values to bind to the query
         Vector bindVector = new Vector();
         // add three values to bind to each select in the query
@@ -727,6 +871,20 @@ public class SequenceLookup {
             }
             bindVector.add(new Integer(logicalDBKey));
          }
+         return executeQuery(bindVector);
+    }
+
+    /**
+     * executes the query and builds Sequence objects from the results
+     * @assumes nothing
+     * @effects queries a database
+     * @param bindVector the values to bind to the query
+     * @return a Vector of Sequence objects
+     * @throws DBException if error querying the database
+     */
+    private Vector executeQuery(Vector bindVector) throws DBException {
+         Vector sequenceVector = new Vector();
+
          // execute the query, passing the values to bind
          resultsNav = statement.executeQuery(bindVector);
 
@@ -745,21 +903,177 @@ public class SequenceLookup {
          return sequenceVector;
     }
 
+    /**
+     * replaces the contents of the temp table with a set of seqids, bound as
+     * a single text[] parameter. The temp table is analyzed after it is
+     * first loaded; batches are the same size apart from the last, so the
+     * planner's estimate stays good without analyzing each batch
+     * @assumes the SQLDataManager keeps the same connection between calls
+     * @effects truncates and inserts into the temp table
+     * @param seqIdSet the set of seqids to load
+     * @throws DBException if error updating the temp table
+     */
+    protected void loadTempTable(Set seqIdSet) throws DBException {
+        sqlMgr.executeVoid("truncate table " + TEMP_TABLE);
+        try {
+            Connection conn = sqlMgr.getConnection();
+            if (tempInsert == null) {
+                tempInsert = conn.prepareStatement(TEMP_INSERT);
+            }
+            Array ids = conn.createArrayOf("text", seqIdSet.toArray());
+            tempInsert.setArray(1, ids);
+            tempInsert.executeUpdate();
+            ids.free();
+        }
+        catch (SQLException e) {
+            DBExceptionFactory eFactory = new DBExceptionFactory();
+            DBException e2 = (DBException)
+                eFactory.getException(DBExceptionFactory.JDBCException, e);
+            e2.bind(TEMP_INSERT);
+            throw e2;
+        }
+        if (!tempAnalyzed) {
+            sqlMgr.executeVoid("analyze " + TEMP_TABLE);
+            tempAnalyzed = true;
+        }
+    }
+
+    /**
+     * looks up the status and seqrecord date of a set of seqids without
+     * building Sequence objects, e.g. to decide which sequences need the
+     * full lookup
+     * @assumes nothing
+     * @effects queries a database; in temp table mode replaces the contents
+     *          of the temp table
+     * @param seqIdSet the set of seqids of the sequences for which to query
+     * @param logicalDBKey the logicalDBKey of the seqids in the set
+     * @return HashMap of SequenceStatus objects keyed by seqid; only seqids
+     *         findBySeqId would return a Sequence for are included
+     * @throws DBException if error querying the database
+     */
+    public HashMap findStatusBySeqId(Set seqIdSet, int logicalDBKey)
+        throws DBException {
+        HashMap statusMap = new HashMap();
+        if (seqIdSet.isEmpty()) {
+            return statusMap;
+        }
+        Vector bindVector = new Vector();
+        bindVector.add(new Integer(logicalDBKey));
+        if (useTempTable) {
+            loadTempTable(seqIdSet);
+            if (statusStatement == null) {
+                statusStatement = sqlMgr.getBindableStatement(
+                    statusQuery.replaceAll(":x",
+                        "select accID from " + TEMP_TABLE));
+            }
+        }
+        else {
+            if (statusPreparedSize != seqIdSet.size()) {
+                statusStatement = sqlMgr.getBindableStatement(
+                    statusQuery.replaceAll(":x",
+                        bindParams(seqIdSet.size())));
+                statusPreparedSize = seqIdSet.size();
+            }
+            bindVector.addAll(seqIdSet);
+        }
+        ResultsNavigator nav = statusStatement.executeQuery(bindVector);
+        nav.setInterpreter(new RowDataInterpreter() {
+            public Object interpret(RowReference row) throws DBException {
+                return new SequenceStatus(row.getString(1), row.getInt(2),
+                                          row.getInt(3), row.getTimestamp(4));
+            }
+        });
+        while (nav.next()) {
+            SequenceStatus status = (SequenceStatus) nav.getCurrent();
+            statusMap.put(status.getSeqId(), status);
+        }
+        nav.close();
+        return statusMap;
+    }
+
     private String addBindParams(int paramNum) {
+        return replaceIdList(bindParams(paramNum));
+    }
+
+    /**
+     * creates a comma separated list of bind parameters
+     * @assumes nothing
+     * @effects nothing
+     * @param paramNum the number of bind parameters
+     * @return the list of bind parameters
+     */
+    private String bindParams(int paramNum) {
         StringBuffer s = new StringBuffer();
         for (int i = 0; i < paramNum; i++) {
             s.append("?");
             s.append(",");
         }
         s.deleteCharAt(s.length()-1);
-        String sString = s.toString();
+        return s.toString();
+    }
+
+    /**
+     * replaces the seqid list placeholder in each part of the query
+     * @assumes nothing
+     * @effects nothing
+     * @param idList the bind parameters or subquery for the seqids
+     * @return the query with the placeholders replaced
+     */
+    private String replaceIdList(String idList) {
         StringBuffer tempBuffer = new StringBuffer(query);
         for (int j = 0; j < 4; j++) {
             int index = tempBuffer.indexOf(":x");
-            tempBuffer.replace(index, index + 2, sString);
+            tempBuffer.replace(index, index + 2, idList);
         }
         return tempBuffer.toString();
     }
+
+    /**
+     * the status and seqrecord date of an existing sequence
+     * @has
+     *   <UL>
+     *   <LI> the primary seqid, _Sequence_key, _SequenceStatus_key and
+     *        seqrecord_date
+     *   </UL>
+     * @does
+     *   <UL>
+     *   <LI> provides the attributes of a sequence needed to detect events
+     *   </UL>
+     * @company The Jackson Laboratory
+     * @author sc
+     * @version 1.0
+     */
+
+    public static class SequenceStatus {
+        private String seqId;
+        private Integer sequenceKey;
+        private Integer statusKey;
+        private Timestamp seqrecordDate;
+
+        private SequenceStatus(String seqId, Integer sequenceKey,
+                               Integer statusKey, Timestamp seqrecordDate) {
+            this.seqId = seqId;
+            this.sequenceKey = sequenceKey;
+            this.statusKey = statusKey;
+            this.seqrecordDate = seqrecordDate;
+        }
+
+        public String getSeqId() {
+            return seqId;
+        }
+
+        public Integer getSequenceKey() {
+            return sequenceKey;
+        }
+
+        public Integer getSequenceStatusKey() {
+            return statusKey;
+        }
+
+        public Timestamp getSeqrecordDate() {
+            return seqrecordDate;
+        }
+    }
     /**
      * an object that knows how to build a Sequence object from
      * multiple rows of a result set. All rows with the same sequence key
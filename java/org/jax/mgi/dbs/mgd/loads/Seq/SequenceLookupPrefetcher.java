@@ -0,0 +1,211 @@
+package org.jax.mgi.dbs.mgd.loads.Seq;
+
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.dao.SQLStream;
+import org.jax.mgi.shr.config.ConfigException;
+import org.jax.mgi.shr.config.DatabaseCfg;
+import org.jax.mgi.shr.dla.log.DLALogger;
+import org.jax.mgi.shr.dla.log.DLALoggingException;
+import org.jax.mgi.shr.timing.Stopwatch;
+
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An object that runs SequenceLookup queries on a background thread so that
+ *     the lookup for one batch of existing sequences can overlap the
+ *     processing of the previous batch
+ * @has
+ *   <UL>
+ *   <LI>a SequenceLookup with its own connection to the MGD database
+ *   <LI>a single background thread
+ *   <LI>at most one lookup which has been submitted but not yet collected
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>submits a batch of seqids to be looked up in the background
+ *   <LI>waits for and returns the Sequence objects for the submitted batch
+ *   <LI>times each lookup on the background thread
+ *   </UL>
+ * The lookup reads the database through its own connection, so it does not
+ * see updates made inline for the batch being processed while it runs.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class SequenceLookupPrefetcher {
+
+    // sql manager with its own connection for the background lookups
+    private SQLDataManager sqlMgr;
+
+    // the lookup run on the background thread
+    private SequenceLookup seqLookup;
+
+    // runs the lookups
+    private ExecutorService executor;
+
+    // the lookup which has been submitted but not yet collected
+    private Future pending = null;
+
+    // the seqids of the pending lookup, for error reporting
+    private Set pendingSeqIds = null;
+
+    // time taken by the last collected lookup; set on the background thread
+    private double lookupTime = 0.0;
+
+    /**
+     * Constructs a SequenceLookupPrefetcher
+     * @assumes Nothing
+     * @effects opens a new connection to the MGD database
+     * @param stream SQL stream for the Sequence objects
+     * @param batchSize the batchSize for which to lookup Sequences
+     * @param useTempTable true if the SequenceLookup should use a temp table
+     * @param decomposed true if a DecomposedSequenceLookup should be used
+     * @throws DBException if error creating a SQLDataManager or getting
+     *         a bindable statement
+     * @throws ConfigException if config error creating a SQLDataManager
+     * @throws DLALoggingException if error getting a logger
+     */
+
+    public SequenceLookupPrefetcher(SQLStream stream, int batchSize,
+                                    boolean useTempTable, boolean decomposed)
+        throws DBException, ConfigException, DLALoggingException {
+        sqlMgr = new SQLDataManager(new DatabaseCfg("MGD"));
+        sqlMgr.setLogger(DLALogger.getInstance());
+        if (decomposed) {
+            seqLookup = new DecomposedSequenceLookup(stream, batchSize, sqlMgr,
+                                                     useTempTable);
+        }
+        else {
+            seqLookup = new SequenceLookup(stream, batchSize, sqlMgr,
+                                           useTempTable);
+        }
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "SequenceLookupPrefetcher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * determines if a lookup has been submitted but not yet collected
+     * @assumes nothing
+     * @effects nothing
+     * @return true if there is a pending lookup
+     */
+    public boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * submits a batch of seqids to be looked up on the background thread
+     * @assumes there is no pending lookup and seqIdSet will not be modified
+     *          until the lookup has been collected
+     * @effects queries a database on the background thread
+     * @param seqIdSet the set of seqids of the Sequences for which to query
+     * @param logicalDBKey the logicalDBKey of the seqids in the set
+     */
+    public void submit(final Set seqIdSet, final int logicalDBKey) {
+        if (pending != null) {
+            throw new RuntimeException("SequenceLookupPrefetcher: " +
+                "previous lookup has not been collected");
+        }
+        pendingSeqIds = seqIdSet;
+        pending = executor.submit(new Callable() {
+            public Object call() throws Exception {
+                Stopwatch watch = new Stopwatch();
+                watch.start();
+                Vector sequences = seqLookup.findBySeqId(seqIdSet,
+                    logicalDBKey);
+                watch.stop();
+                lookupTime = watch.time();
+                return sequences;
+            }
+        });
+    }
+
+    /**
+     * waits for the pending lookup to finish and returns its results
+     * @assumes a lookup has been submitted
+     * @effects nothing
+     * @return a Vector of Sequence objects for the submitted seqids
+     * @throws DBException if error querying the database
+     */
+    public Vector collect() throws DBException {
+        Future future = pending;
+        pending = null;
+        pendingSeqIds = null;
+        try {
+            return (Vector) future.get();
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DBException) {
+                throw (DBException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause.toString());
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException("SequenceLookupPrefetcher: " +
+                "interrupted waiting for lookup");
+        }
+    }
+
+    /**
+     * gets the seqids of the pending lookup
+     * @assumes nothing
+     * @effects nothing
+     * @return the seqids of the pending lookup or null if none
+     */
+    public Set getPendingSeqIds() {
+        return pendingSeqIds;
+    }
+
+    /**
+     * gets the time taken by the last collected lookup
+     * @assumes collect has been called
+     * @effects nothing
+     * @return time in seconds
+     */
+    public double getLookupTime() {
+        return lookupTime;
+    }
+
+    /**
+     * stops the background thread and closes the database connection. A
+     * pending lookup, as when the load fails between batches, is cancelled
+     * and waited for so the connection is not closed under it
+     * @assumes nothing
+     * @effects closes a database connection
+     * @throws DBException if error closing the connection
+     */
+    public void close() throws DBException {
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+            pendingSeqIds = null;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(60, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sqlMgr.closeResources();
+    }
+}
@@ -2,6 +2,9 @@ package org.jax.mgi.dbs.mgd.loads.Seq;
 
 import java.sql.Timestamp;
 
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.dla.input.RecordReference;
+
 /**
  * An object that represents raw values needed to create a SEQ_Sequence object
  * @has
@@ -46,6 +49,9 @@ public class SequenceRawAttributes {
     private String status = null;
     private String seqRecord = null;
 
+    // refers to the sequence record in the input file; null if not known
+    private RecordReference recordRef = null;
+
     // added 07/06/04 to support Genbank TPA sequences. General purpose
     // misc attribute
     private String misc =  null;
@@ -315,6 +321,30 @@ public class SequenceRawAttributes {
 
     public void setRecord (String seqRecord) {this.seqRecord = seqRecord;}
 
+    /**
+     * set the reference to the sequence record in the input file
+     * @assumes Nothing
+     * @effects Nothing
+     * @param ref the reference to the sequence record
+     */
+
+    public void setRecordReference (RecordReference ref) {
+        this.recordRef = ref;
+    }
+
+    /**
+     * release the sequence record attribute if there is a reference to the
+     * sequence record in the input file; getRecord reads it again on demand
+     * @assumes Nothing
+     * @effects Nothing
+     */
+
+    public void releaseRecord () {
+        if (recordRef != null) {
+            seqRecord = null;
+        }
+    }
+
     /**
      * get the sequence type
      * @assumes Nothing
@@ -554,13 +584,30 @@ public class SequenceRawAttributes {
        public String getFeatureOrganism() {return featureOrganism;}
 
      /**
-      * get the sequence record attribute
+      * get the sequence record attribute; if it has been released it is
+      * read from the input file
       * @assumes Nothing
       * @effects Nothing
       * @return the sequence record
+      * @throws MGIException if the record has been released and can not be
+      *         read from the input file
       */
 
-     public String getRecord () {return seqRecord;}
+     public String getRecord () throws MGIException {
+         if (seqRecord == null && recordRef != null) {
+             return recordRef.read();
+         }
+         return seqRecord;
+     }
+
+    /**
+     * get the reference to the sequence record in the input file
+     * @assumes Nothing
+     * @effects Nothing
+     * @return the reference or null if not known
+     */
+
+    public RecordReference getRecordReference () {return recordRef;}
 
     /**
      * Resets object values to null; number of organisms to 0
@@ -64,7 +64,7 @@ public class SequenceRawUpdater {
        * @throws KeyNotFoundException if error creating instance of this class
        * @throws CacheException if error creating instance of this class
        */
-      protected static SequenceRawUpdater getInstance()
+      protected static synchronized SequenceRawUpdater getInstance()
           throws DBException, DLALoggingException, ConfigException,
             KeyNotFoundException, CacheException {
         if (instance == null) {
@@ -63,7 +63,7 @@ public class SequenceUpdater {
        * @throws KeyNotFoundException if error creating instance of this class
        * @throws CacheException if error creating instance of this class
        */
-      protected static SequenceUpdater getInstance()
+      protected static synchronized SequenceUpdater getInstance()
           throws DBException, DLALoggingException, ConfigException,
             KeyNotFoundException, CacheException {
         if (instance == null) {
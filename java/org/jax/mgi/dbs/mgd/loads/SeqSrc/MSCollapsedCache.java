@@ -28,7 +28,7 @@ import org.jax.mgi.dbs.SchemaConstants;
  */
 
 public class MSCollapsedCache
-    extends CachedLookup {
+    extends CachedLookup implements MSCollapsedLookup {
     /**
      * the RowDataInterpreter returned from call to getRowDataInterpreter()
      */
@@ -144,7 +144,7 @@ public class MSCollapsedCache
      * @throws DBException thrown if there is an error with the database
      * @throws CacheException thrown if there is an error with the cache
      */
-    protected void addToCache(MolecularSource ms)
+    public void addToCache(MolecularSource ms)
     throws DBException, CacheException
     {
         if (super.lookupNullsOk(ms.toString().toLowerCase()) == null)
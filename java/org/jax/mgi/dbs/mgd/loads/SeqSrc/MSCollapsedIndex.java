@@ -0,0 +1,297 @@
+package org.jax.mgi.dbs.mgd.loads.SeqSrc;
+
+import java.util.HashMap;
+
+import org.jax.mgi.shr.dbutils.ResultsNavigator;
+import org.jax.mgi.shr.dbutils.RowDataInterpreter;
+import org.jax.mgi.shr.dbutils.RowReference;
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.dbs.mgd.dao.PRB_SourceDAO;
+import org.jax.mgi.dbs.mgd.dao.PRB_SourceInterpreter;
+import org.jax.mgi.dbs.mgd.MGD;
+import org.jax.mgi.dbs.SchemaConstants;
+
+/**
+ * A full cache of collapsed MolecularSource objects indexed by their
+ * attribute keys rather than by a string
+ * @has an open addressing table of attribute tuples and the MolecularSource
+ * objects having them, and a table of the distinct ages
+ * @does loads every non curator edited anonymous source from the database
+ * and looks up or adds MolecularSource objects by segment type, vector
+ * type, organism, strain, tissue, gender and cell line keys and age, the
+ * same attributes MSCollapsedCache keys on. As in MSCollapsedCache the ages
+ * and names of sources loaded from the database are kept as they are and
+ * those of sources added later are kept in lower case, and a lookup matches
+ * them exactly. Each tuple is eight ints in the table, the age being
+ * replaced by its index in the age table, so a lookup hashes and compares
+ * ints and creates no objects.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class MSCollapsedIndex implements MSCollapsedLookup {
+
+    // number of ints in a tuple
+    private static final int WIDTH = 8;
+
+    // stands in for a null key
+    private static final int NULL_KEY = Integer.MIN_VALUE;
+
+    // fraction of the table to fill before growing
+    private static final double LOAD_FACTOR = 0.7;
+
+    // the tuples, WIDTH ints per slot, and the MolecularSource in each slot;
+    // a slot is empty if its MolecularSource is null
+    private int[] tuples;
+    private MolecularSource[] values;
+
+    // number of MolecularSources in the table
+    private int size = 0;
+
+    // age ids (Integer) keyed by age
+    private HashMap ageIds = new HashMap();
+
+    // the tuple being looked up or added
+    private int[] probe = new int[WIDTH];
+
+    // named sources keyed by name; not normally collapsed
+    private HashMap named = new HashMap();
+
+    /**
+     * constructor which loads the index from the database
+     * @assumes nothing
+     * @effects queries the database
+     * @throws DBException thrown if there is an error accessing the database
+     */
+    public MSCollapsedIndex() throws DBException
+    {
+        tuples = new int[1024 * WIDTH];
+        values = new MolecularSource[1024];
+        SQLDataManager sqlMgr =
+            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        ResultsNavigator nav = sqlMgr.executeQuery(
+            "SELECT " + MGD.prb_source._name + ".* " +
+            "FROM " + MGD.prb_source._name + " " +
+            "WHERE " + MGD.prb_source.iscuratoredited + " = 0 " +
+            "AND " + MGD.prb_source.name + " is null");
+        nav.setInterpreter(new RowDataInterpreter()
+        {
+            private PRB_SourceInterpreter srcInterpreter =
+                new PRB_SourceInterpreter();
+            public Object interpret(RowReference row) throws DBException
+            {
+                PRB_SourceDAO dao =
+                    (PRB_SourceDAO)srcInterpreter.interpret(row);
+                MolecularSource ms = new MolecularSource(dao);
+                ms.setInDatabase(true);
+                return ms;
+            }
+        });
+        while (nav.next())
+            put((MolecularSource)nav.getCurrent(), false);
+        nav.close();
+    }
+
+    /**
+     * take the given unresolved MolecularSource and see if it has attributes
+     * which match a resolved MolecularSource within the index
+     * @assumes nothing
+     * @effects nothing
+     * @param unresolvedMS an unresolved MolecularSource
+     * @return a resolved MolecularSource or null if not in the index
+     */
+    public synchronized MolecularSource lookup(MolecularSource unresolvedMS)
+    {
+        if (unresolvedMS.getName() != null)
+            return (MolecularSource)named.get(unresolvedMS.getName());
+        if (!setProbe(unresolvedMS, unresolvedMS.getAge(), false))
+            return null; // age never seen
+        int slot = find();
+        return values[slot];
+    }
+
+    /**
+     * add a MolecularSource object to the index if it does not already exist
+     * there
+     * @assumes nothing
+     * @effects a new MolecularSource object will be added to the index if
+     * it does not already exist there
+     * @param ms the MolecularSource to add
+     */
+    public synchronized void addToCache(MolecularSource ms)
+    {
+        put(ms, true);
+    }
+
+    /**
+     * add a MolecularSource object to the index if it does not already exist
+     * there
+     * @param ms the MolecularSource to add
+     * @param lowerCase true to key the source by its name or age in lower
+     * case, as MSCollapsedCache.addToCache does
+     */
+    private void put(MolecularSource ms, boolean lowerCase)
+    {
+        if (ms.getName() != null)
+        {
+            String name = ms.getName();
+            if (lowerCase)
+                name = name.toLowerCase();
+            if (!named.containsKey(name))
+                named.put(name, ms);
+            return;
+        }
+        String age = ms.getAge();
+        if (lowerCase && age != null)
+            age = age.toLowerCase();
+        setProbe(ms, age, true);
+        int slot = find();
+        if (values[slot] != null)
+            return;
+        System.arraycopy(probe, 0, tuples, slot * WIDTH, WIDTH);
+        values[slot] = ms;
+        size++;
+        if (size > values.length * LOAD_FACTOR)
+            rehash(values.length * 2);
+    }
+
+    /**
+     * get the number of MolecularSource objects in the index
+     * @assumes nothing
+     * @effects nothing
+     * @return the number of MolecularSource objects
+     */
+    public synchronized int size()
+    {
+        return size + named.size();
+    }
+
+    /**
+     * set the probe tuple from the attributes of a MolecularSource
+     * @param ms the MolecularSource
+     * @param age the age to key on
+     * @param addAge true if an age not seen before should be given an id
+     * @return false if the age has not been seen and addAge is false
+     */
+    private boolean setProbe(MolecularSource ms, String age, boolean addAge)
+    {
+        probe[0] = intKey(ms.getSegmentTypeKey());
+        probe[1] = intKey(ms.getVectorTypeKey());
+        probe[2] = intKey(ms.getOrganismKey());
+        probe[3] = intKey(ms.getStrainKey());
+        probe[4] = intKey(ms.getTissueKey());
+        probe[5] = intKey(ms.getGenderKey());
+        probe[6] = intKey(ms.getCellLineKey());
+        int ageId = ageId(age, addAge);
+        if (ageId == NULL_KEY && age != null)
+            return false;
+        probe[7] = ageId;
+        return true;
+    }
+
+    /**
+     * get the id of an age
+     * @param age the age
+     * @param add true if an age not seen before should be given an id
+     * @return the id or NULL_KEY if the age is null or not seen and not added
+     */
+    private int ageId(String age, boolean add)
+    {
+        if (age == null)
+            return NULL_KEY;
+        Integer id = (Integer)ageIds.get(age);
+        if (id == null)
+        {
+            if (!add)
+                return NULL_KEY;
+            id = new Integer(ageIds.size());
+            ageIds.put(age.intern(), id);
+        }
+        return id.intValue();
+    }
+
+    /**
+     * find the slot holding the probe tuple or the empty slot where it
+     * would go
+     * @return the slot
+     */
+    private int find()
+    {
+        int mask = values.length - 1;
+        int slot = hash(probe, 0) & mask;
+        while (values[slot] != null && !matches(slot))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * determine if a slot holds the probe tuple
+     * @param slot the slot
+     * @return true if the tuples are equal
+     */
+    private boolean matches(int slot)
+    {
+        int base = slot * WIDTH;
+        for (int i = 0; i < WIDTH; i++)
+        {
+            if (tuples[base + i] != probe[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * copy the table into a larger one
+     * @param capacity the new capacity, a power of two
+     */
+    private void rehash(int capacity)
+    {
+        int[] oldTuples = tuples;
+        MolecularSource[] oldValues = values;
+        tuples = new int[capacity * WIDTH];
+        values = new MolecularSource[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++)
+        {
+            if (oldValues[j] == null)
+                continue;
+            int slot = hash(oldTuples, j * WIDTH) & mask;
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            System.arraycopy(oldTuples, j * WIDTH, tuples, slot * WIDTH,
+                             WIDTH);
+            values[slot] = oldValues[j];
+        }
+    }
+
+    /**
+     * hash a tuple
+     * @param a the array holding the tuple
+     * @param base the index of the tuple in the array
+     * @return the hash
+     */
+    private static int hash(int[] a, int base)
+    {
+        int h = 0;
+        for (int i = 0; i < WIDTH; i++)
+            h = h * 31 + a[base + i];
+        // spread the bits so the low bits used for the slot vary
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+
+    /**
+     * convert a key to an int
+     * @param key the key
+     * @return the key value or NULL_KEY
+     */
+    private static int intKey(Integer key)
+    {
+        return key == null ? NULL_KEY : key.intValue();
+    }
+}
@@ -0,0 +1,43 @@
+package org.jax.mgi.dbs.mgd.loads.SeqSrc;
+
+import org.jax.mgi.shr.cache.CacheException;
+import org.jax.mgi.shr.dbutils.DBException;
+
+/**
+ * An interface for storing and retrieving collapsed MolecularSource objects
+ * by their attributes
+ * @has nothing
+ * @does defines the methods the MSResolver uses to find an existing
+ * MolecularSource with the same attributes as a newly resolved one and to
+ * add new MolecularSource objects so they can be shared
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public interface MSCollapsedLookup {
+
+    /**
+     * take the given unresolved MolecularSource and see if it has attributes
+     * which match a resolved MolecularSource within the cache
+     * @param unresolvedMS an unresolved MolecularSource
+     * @return a resolved MolecularSource or null if not in cache
+     * @throws DBException thrown if there is an error with the database
+     * @throws CacheException thrown if there is an error accessing the cache
+     */
+    public MolecularSource lookup(MolecularSource unresolvedMS)
+    throws DBException, CacheException;
+
+    /**
+     * add a MolecularSource object to the cache if it does not already exist
+     * there
+     * @assumes nothing
+     * @effects a new MolecularSource object will be added to the cache if
+     * it does not already exist there
+     * @param ms the MolecularSource to add
+     * @throws DBException thrown if there is an error with the database
+     * @throws CacheException thrown if there is an error with the cache
+     */
+    public void addToCache(MolecularSource ms)
+    throws DBException, CacheException;
+}
@@ -1,6 +1,9 @@
 package org.jax.mgi.dbs.mgd.loads.SeqSrc;
 
 import java.util.Vector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
 
 import org.jax.mgi.dbs.mgd.dao.PRB_SourceDAO;
 import org.jax.mgi.dbs.mgd.dao.PRB_SourceLookup;
@@ -11,6 +14,7 @@ import org.jax.mgi.dbs.mgd.MGITypeConstants;
 import org.jax.mgi.dbs.mgd.LogicalDBConstants;
 import org.jax.mgi.dbs.SchemaConstants;
 import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.BindableStatement;
 import org.jax.mgi.shr.dbutils.SQLDataManagerFactory;
 import org.jax.mgi.shr.dbutils.ResultsNavigator;
 import org.jax.mgi.shr.dbutils.RowReference;
@@ -39,6 +43,13 @@ public class MSLookup {
    */
   private static SQLDataManager sqlMgr = null;
 
+  /**
+   * the prepared batch associated clone name query and the number of accids
+   * it was prepared for
+   */
+  private static BindableStatement assocClonesStatement = null;
+  private static int assocClonesPreparedSize = 0;
+
   /*
    * the following constant definitions are exceptions thrown by this class
    */
@@ -97,20 +108,7 @@ public class MSLookup {
   public static Vector findAssocClonesByAccid(String accid, int limit)
   throws DBException, ConfigException, MSException
   {
-    String query =
-        "SELECT src.* FROM " +
-           MGD.prb_source._name + " src, " +
-           MGD.prb_probe._name + " prb, " +
-           MGD.acc_accession._name + " acc " +
-        "WHERE acc." + MGD.acc_accession.accid + " = '" + accid + "' " +
-        "AND acc." + MGD.acc_accession._logicaldb_key + " = " +
-           LogicalDBConstants.SEQUENCE + " " +
-        "AND acc." + MGD.acc_accession._mgitype_key + " = " +
-           MGITypeConstants.CLONE + " " +
-        "AND acc." + MGD.acc_accession._object_key + " = " +
-           "prb." + MGD.prb_probe._probe_key + " " +
-        "AND prb." + MGD.prb_probe._source_key + " = " +
-           "src." + MGD.prb_source._source_key;
+    String query = assocClonesQuery("src.*", "= '" + accid + "'");
 
     class AssociatedCloneInterpreter implements RowDataInterpreter
     {
@@ -135,6 +133,108 @@ public class MSLookup {
   }
 
 
+  /**
+   * find the source names of the associated clones of each of a set of
+   * accids with one prepared query, rather than one lookup per accid
+   * through the AssocClonesLookup cache. Sources without a name are left
+   * out
+   * @assumes nothing
+   * @effects a new connection could be opened to the database if one does
+   * not already exist
+   * @param accids the set of accids
+   * @return HashMap keyed by every accid in the set. The value is the array
+   * of the source names of the associated clones of the accid or null if
+   * there are none
+   * @throws DBException thrown if there is an error with the database
+   * @throws ConfigException if there is an error with configuration
+   */
+  public static synchronized HashMap findAssocCloneNamesByAccids(Set accids)
+  throws DBException, ConfigException
+  {
+    HashMap results = new HashMap();
+    if (accids.isEmpty())
+      return results;
+    if (sqlMgr == null)
+      sqlMgr = SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+
+    if (assocClonesStatement == null ||
+        assocClonesPreparedSize != accids.size())
+    {
+      StringBuffer params = new StringBuffer("in (");
+      for (int i = 0; i < accids.size(); i++)
+      {
+        if (i > 0)
+          params.append(",");
+        params.append("?");
+      }
+      params.append(")");
+      assocClonesStatement = sqlMgr.getBindableStatement(assocClonesQuery(
+          "acc." + MGD.acc_accession.accid + ", src." +
+          MGD.prb_source.name, params.toString()) +
+          " AND src." + MGD.prb_source.name + " is not null");
+      assocClonesPreparedSize = accids.size();
+    }
+    ResultsNavigator nav =
+        assocClonesStatement.executeQuery(new Vector(accids));
+    nav.setInterpreter(new RowDataInterpreter()
+    {
+      public Object interpret(RowReference row) throws DBException
+      {
+        return new String[] {row.getString(1), row.getString(2)};
+      }
+    });
+    HashMap namesByAccid = new HashMap();
+    while (nav.next())
+    {
+      String[] row = (String[])nav.getCurrent();
+      Vector names = (Vector)namesByAccid.get(row[0]);
+      if (names == null)
+      {
+        names = new Vector();
+        namesByAccid.put(row[0], names);
+      }
+      names.add(row[1]);
+    }
+    nav.close();
+
+    for (Iterator i = accids.iterator(); i.hasNext(); )
+    {
+      String accid = (String)i.next();
+      Vector names = (Vector)namesByAccid.get(accid);
+      if (names == null)
+        results.put(accid, null);
+      else
+        results.put(accid, (String[])names.toArray(new String[0]));
+    }
+    return results;
+  }
+
+  /**
+   * create the query for the sources of the associated clones of accids
+   * @assumes nothing
+   * @effects nothing
+   * @param columns the columns to select
+   * @param accidClause the condition on the accid e.g. "= 'AA000001'"
+   * @return the query
+   */
+  private static String assocClonesQuery(String columns, String accidClause)
+  {
+    return
+        "SELECT " + columns + " FROM " +
+           MGD.prb_source._name + " src, " +
+           MGD.prb_probe._name + " prb, " +
+           MGD.acc_accession._name + " acc " +
+        "WHERE acc." + MGD.acc_accession.accid + " " + accidClause + " " +
+        "AND acc." + MGD.acc_accession._logicaldb_key + " = " +
+           LogicalDBConstants.SEQUENCE + " " +
+        "AND acc." + MGD.acc_accession._mgitype_key + " = " +
+           MGITypeConstants.CLONE + " " +
+        "AND acc." + MGD.acc_accession._object_key + " = " +
+           "prb." + MGD.prb_probe._probe_key + " " +
+        "AND prb." + MGD.prb_probe._source_key + " = " +
+           "src." + MGD.prb_source._source_key;
+  }
+
     /**
      * parse the query results and place MolecularSource objects into a vector
      * @assumes nothing
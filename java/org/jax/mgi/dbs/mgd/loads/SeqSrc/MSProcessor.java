@@ -2,10 +2,13 @@ package org.jax.mgi.dbs.mgd.loads.SeqSrc;
 
 import java.util.Vector;
 import java.util.Iterator;
+import java.util.HashMap;
+import java.util.Set;
 
 import org.jax.mgi.shr.dbutils.dao.SQLStream;
 import org.jax.mgi.shr.log.Logger;
 import org.jax.mgi.shr.log.ConsoleLogger;
+import org.jax.mgi.shr.dla.log.DLALogger;
 import org.jax.mgi.shr.cache.CacheConstants;
 import org.jax.mgi.dbs.mgd.lookup.AssocClonesLookup;
 import org.jax.mgi.shr.exception.MGIException;
@@ -73,6 +76,19 @@ public class MSProcessor
      */
     private int MAXCLONES = 50;
 
+    /**
+     * the source names of the associated clones looked up for the pending
+     * batch of sequences keyed by accid; see
+     * MSLookup.findAssocCloneNamesByAccids
+     */
+    private HashMap prefetchedClones = null;
+
+    /**
+     * the Vectors of MSSeqAssoc objects looked up for the pending batch of
+     * sequences keyed by sequence key; see MSSeqAssoc.findBySeqKeys
+     */
+    private HashMap prefetchedSeqAssocs = null;
+
     /**
      * the logger to use
      */
@@ -167,7 +183,9 @@ public class MSProcessor
         // MolecularSource object to be returned
         MolecularSource ms = null;
 
-        logger.logDebug("processing the following raw attributes: " + attr);
+        DLALogger.logDebug(logger,
+            "processing the following raw attributes: {0}",
+            new Object[] {attr});
 
         if (attr.getLibraryName() != null &&
             attr.getLibraryName().toLowerCase().equals("not applicable"))
@@ -321,8 +339,14 @@ public class MSProcessor
         MolecularSource existingSrc = null;
         try
         {
-            existingSrcAssoc =
-                MSSeqAssoc.findBySeqKeyOrganism(seqKey,
+            if (prefetchedSeqAssocs != null &&
+                prefetchedSeqAssocs.containsKey(seqKey))
+                existingSrcAssoc = MSSeqAssoc.findBySeqKeyOrganism(
+                    (Vector)prefetchedSeqAssocs.get(seqKey), seqKey,
+                    incomingSrc.getOrganismKey());
+            else
+                existingSrcAssoc =
+                    MSSeqAssoc.findBySeqKeyOrganism(seqKey,
                                                 incomingSrc.getOrganismKey());
             if (existingSrcAssoc == null)
             {
@@ -370,6 +394,119 @@ public class MSProcessor
         this.MAXCLONES = max;
     }
 
+    /**
+     * get the MSResolver used for resolving raw attributes
+     * @assumes nothing
+     * @effects nothing
+     * @return the MSResolver
+     */
+    public MSResolver getResolver()
+    {
+        return this.resolver;
+    }
+
+    /**
+     * looks up the source names of the associated clones for a batch of
+     * sequences with one batch query if the configuration enables it.
+     * Subsequent calls to processNewSeqSrc and processExistingSeqSrc for
+     * these sequences use the names instead of the associated clones cache;
+     * the named source is still found by name as for the cache
+     * @assumes nothing
+     * @effects queries the database and replaces the results of the
+     * previous batch
+     * @param accids the accids of the sequences in the batch
+     * @throws MSException thrown if there is an error in configuration or if
+     * there is an error during lookup
+     */
+    public void prefetchAssociatedClones(Set accids)
+        throws MSException
+    {
+        try
+        {
+            if (!cfg.getOkToSearchAssocClones().booleanValue() ||
+                !cfg.getOkToBatchAssocClones().booleanValue())
+                return;
+        }
+        catch (ConfigException e)
+        {
+            MSExceptionFactory eFactory = new MSExceptionFactory();
+            MSException e2 = (MSException)
+                eFactory.getException(ConfigErr, e);
+            throw e2;
+        }
+        logger.logDebug("looking up associated clones for batch of " +
+                        accids.size());
+        try
+        {
+            prefetchedClones = MSLookup.findAssocCloneNamesByAccids(accids);
+        }
+        catch (MGIException e)
+        {
+            MSExceptionFactory eFactory = new MSExceptionFactory();
+            MSException e2 = (MSException)
+                eFactory.getException(LookupErr, e);
+            e2.bind(MSLookup.class.getName());
+            throw e2;
+        }
+    }
+
+    /**
+     * looks up the sequence to source associations for a batch of existing
+     * sequences with one query if the configuration enables it. Subsequent
+     * calls to processExistingSeqSrc for these sequences use the results
+     * instead of looking up each sequence
+     * @assumes nothing
+     * @effects queries the database and replaces the results of the
+     * previous batch
+     * @param seqKeys the sequence keys of the sequences in the batch
+     * @throws MSException thrown if there is an error in configuration or if
+     * there is an error during lookup
+     */
+    public void prefetchSeqAssocs(Set seqKeys)
+        throws MSException
+    {
+        try
+        {
+            if (!cfg.getOkToBatchSeqAssoc().booleanValue())
+                return;
+        }
+        catch (ConfigException e)
+        {
+            MSExceptionFactory eFactory = new MSExceptionFactory();
+            MSException e2 = (MSException)
+                eFactory.getException(ConfigErr, e);
+            throw e2;
+        }
+        logger.logDebug("looking up source associations for batch of " +
+                        seqKeys.size());
+        try
+        {
+            prefetchedSeqAssocs = MSSeqAssoc.findBySeqKeys(seqKeys);
+        }
+        catch (MGIException e)
+        {
+            MSExceptionFactory eFactory = new MSExceptionFactory();
+            MSException e2 = (MSException)
+                eFactory.getException(LookupErr, e);
+            e2.bind(MSSeqAssoc.class.getName());
+            throw e2;
+        }
+    }
+
+    /**
+     * discards the associated clone names and sequence to source
+     * associations looked up for the pending batch so that later sequences
+     * are looked up individually
+     * @assumes nothing
+     * @effects the results of prefetchAssociatedClones and prefetchSeqAssocs
+     * are discarded
+     */
+    public void clearPrefetched()
+    {
+        prefetchedClones = null;
+        prefetchedSeqAssocs = null;
+    }
+
     /**
      * checks the configuration to see if this feature is enabled and if so,
      * it will lookup up MolecularSource objects via looking at the sources
@@ -400,7 +537,10 @@ public class MSProcessor
         {
           logger.logDebug("looking up named associated clones");
           //ms = findByNonCachedAssociatedClonesLookup(accid);
-          ms = findByCachedAssociatedClones(accid);
+          if (prefetchedClones != null && prefetchedClones.containsKey(accid))
+              ms = findByPrefetchedAssociatedClones(accid);
+          else
+              ms = findByCachedAssociatedClones(accid);
         }
         else
           logger.logDebug("looking up named associated clones is disabled");
@@ -510,6 +650,26 @@ public class MSProcessor
                    // two named sources were found with different names
     }
 
+    /**
+     * finds a MolecularSource object for the associated clones of the given
+     * sequence from the clone source names looked up for the pending batch
+     * by prefetchAssociatedClones
+     * @assumes prefetchAssociatedClones has looked up the given sequence
+     * @effects a new entry could be added to the qc reports if more than one
+     * named source is found and they have conflicting names
+     * @param accid the given sequence
+     * @return the MolecularSource for a named source of one of the associated
+     * clones of the given sequence
+     * @throws MSException thrown if there is an error with the database or
+     * configuration
+     */
+    private MolecularSource findByPrefetchedAssociatedClones(String accid)
+        throws MSException
+    {
+        return findByCloneSourceNames(accid,
+                                      (String[])prefetchedClones.get(accid));
+    }
+
     /**
      * finds a MolecularSource object from cache for one or more of the
      * clones associated to the given sequence.
@@ -553,6 +713,26 @@ public class MSProcessor
             e2.bind(AssocClonesLookup.class.getName());
             throw e2  ;
         }
+        return findByCloneSourceNames(accid, cloneSrcNames);
+    }
+
+    /**
+     * finds the named MolecularSource for the source names of the clones
+     * associated to the given sequence if all of the names agree
+     * @assumes nothing
+     * @effects a new entry could be added to the qc reports if more than one
+     * named source is found and they have conflicting names
+     * @param accid the given sequence
+     * @param cloneSrcNames the source names of the associated clones or null
+     * if there are none
+     * @return the MolecularSource for the agreed upon name or null
+     * @throws MSException thrown if there is an error with the database or
+     * configuration
+     */
+    private MolecularSource findByCloneSourceNames(String accid,
+                                                   String[] cloneSrcNames)
+        throws MSException
+    {
         if (cloneSrcNames == null)
             return null;
         // try and find a named source from the associated clones.
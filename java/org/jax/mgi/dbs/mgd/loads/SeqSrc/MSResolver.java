@@ -5,15 +5,21 @@ import org.jax.mgi.shr.cache.CacheConstants;
 import org.jax.mgi.shr.log.Logger;
 import org.jax.mgi.shr.log.ConsoleLogger;
 import org.jax.mgi.shr.config.SequenceLoadCfg;
+import org.jax.mgi.shr.config.MSProcessorCfg;
 import org.jax.mgi.dbs.mgd.lookup.LogicalDBLookup;
 import org.jax.mgi.dbs.mgd.LogicalDBConstants;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * An object for resolving MolecularSource raw attributes into
  * a MolecularSource object which has a database key and can be inserted
  * the database
  * @has a MSAttrResolver for resolving the raw attributes, a MSCollapsedCache
- * for reusing MolecularSource objects which share the same attributes
+ * for reusing MolecularSource objects which share the same attributes and
+ * an optional bounded memo of the MolecularSource objects already resolved
+ * for a set of raw attributes
  * @does finds an appropriate MolecularSource object from the database
  * for a given set of MolecularSource raw attributes or creates a new
  * one based on the given attributes
@@ -25,9 +31,10 @@ import org.jax.mgi.dbs.mgd.LogicalDBConstants;
 public class MSResolver {
 
     /**
-     * the cache of collapsed MolecularSource objects
+     * the cache of collapsed MolecularSource objects, a MSCollapsedCache or
+     * a MSCollapsedIndex
      */
-    protected MSCollapsedCache msCollapsedCache = null;
+    protected MSCollapsedLookup msCollapsedCache = null;
 
     /**
      * the MSAttributeResolver used for resolving the raw attributes
@@ -39,6 +46,18 @@ public class MSResolver {
      */
     protected Logger logger = null;
 
+    /**
+     * the memo of resolved MolecularSource objects keyed by raw attributes,
+     * least recently used first; null if memoizing is disabled
+     */
+    private LinkedHashMap memo = null;
+
+    /**
+     * the number of resolves found in and not found in the memo
+     */
+    private int memoHits = 0;
+    private int memoMisses = 0;
+
     /*
      * the following constant definitions are exceptions thrown by this class
      */
@@ -88,6 +107,67 @@ public class MSResolver {
      */
     public MolecularSource resolve(MSRawAttributes attributes)
     throws MSException
+    {
+        if (memo == null)
+            return resolveAndCollapse(attributes);
+        /**
+         * the same raw attributes always resolve to the same collapsed
+         * MolecularSource, so reuse it if these were resolved before
+         */
+        String key = memoKey(attributes);
+        MolecularSource ms = null;
+        synchronized (memo)
+        {
+            ms = (MolecularSource)memo.get(key);
+            if (ms != null)
+            {
+                memoHits++;
+                return ms;
+            }
+            memoMisses++;
+        }
+        ms = resolveAndCollapse(attributes);
+        synchronized (memo)
+        {
+            memo.put(key, ms);
+        }
+        return ms;
+    }
+
+    /**
+     * get the number of resolves found in the memo
+     * @assumes nothing
+     * @effects nothing
+     * @return the number of memo hits
+     */
+    public int getMemoHits()
+    {
+        return memoHits;
+    }
+
+    /**
+     * get the number of resolves not found in the memo
+     * @assumes nothing
+     * @effects nothing
+     * @return the number of memo misses
+     */
+    public int getMemoMisses()
+    {
+        return memoMisses;
+    }
+
+    /**
+     * resolve the given set of raw molecular source attributes and find or
+     * create the collapsed MolecularSource
+     * @param attributes the unresolved attributes for the Molecular Source
+     * @return the MolecularSource object which represents a record in the
+     * PRB_Source table.
+     * @throws MSException thrown if any error occurs with the database
+     * resource, the configuration resource or the cache handling of
+     * collapsed MolecularSource objects
+     */
+    private MolecularSource resolveAndCollapse(MSRawAttributes attributes)
+    throws MSException
     {
         // resolve attributes only
         MolecularSource newMS =
@@ -97,50 +177,55 @@ public class MSResolver {
          * of collapsed sources and if not there create a new one and add
          * it to the cache
          */
-        MolecularSource existingMS = null;
-        try
-        {
-            existingMS = this.msCollapsedCache.lookup(newMS);
-        }
-        catch (MGIException e)
+        // looking up and adding must be atomic so that concurrent resolves
+        // of the same attributes don't both assign a new key
+        synchronized (this.msCollapsedCache)
         {
-            MSExceptionFactory eFactory = new MSExceptionFactory();
-            MSException e2 = (MSException)
-                eFactory.getException(ResolveErr, e);
-            e2.bind(attributes.toString());
-            throw e2;
-        }
-        if (existingMS == null)
-        {
-            // assign a new key to the new MolecularSource and add
-            // it to the cache
-            try {
-                newMS.assignKey();
-            }
-            catch (MGIException e)
-           {
-               MSExceptionFactory eFactory = new MSExceptionFactory();
-               MSException e2 = (MSException)
-                   eFactory.getException(ResolveErr, e);
-               e2.bind(attributes.toString());
-               throw e2;
-           }
+            MolecularSource existingMS = null;
             try
             {
-                this.msCollapsedCache.addToCache(newMS);
+                existingMS = this.msCollapsedCache.lookup(newMS);
             }
             catch (MGIException e)
             {
                 MSExceptionFactory eFactory = new MSExceptionFactory();
-               MSException e2 = (MSException)
-                   eFactory.getException(CacheErr, e);
-               e2.bind(newMS.getClass().getName());
-               throw e2;
+                MSException e2 = (MSException)
+                    eFactory.getException(ResolveErr, e);
+                e2.bind(attributes.toString());
+                throw e2;
+            }
+            if (existingMS == null)
+            {
+                // assign a new key to the new MolecularSource and add
+                // it to the cache
+                try {
+                    newMS.assignKey();
+                }
+                catch (MGIException e)
+               {
+                   MSExceptionFactory eFactory = new MSExceptionFactory();
+                   MSException e2 = (MSException)
+                       eFactory.getException(ResolveErr, e);
+                   e2.bind(attributes.toString());
+                   throw e2;
+               }
+                try
+                {
+                    this.msCollapsedCache.addToCache(newMS);
+                }
+                catch (MGIException e)
+                {
+                    MSExceptionFactory eFactory = new MSExceptionFactory();
+                   MSException e2 = (MSException)
+                       eFactory.getException(CacheErr, e);
+                   e2.bind(newMS.getClass().getName());
+                   throw e2;
+                }
+                return newMS;
             }
-            return newMS;
+            else
+              return existingMS;
         }
-        else
-          return existingMS;
     }
 
     /**
@@ -159,6 +244,40 @@ public class MSResolver {
         return this.attrResolver.resolveAttributes(attributes);
     }
 
+    /**
+     * create the memo key for a set of raw attributes
+     * @assumes nothing
+     * @effects nothing
+     * @param attributes the raw attributes
+     * @return the key, distinct for each distinct set of attribute values
+     */
+    private static String memoKey(MSRawAttributes attributes)
+    {
+        StringBuffer key = new StringBuffer();
+        appendMemoKey(key, attributes.getLibraryName());
+        appendMemoKey(key, attributes.getOrganism());
+        appendMemoKey(key, attributes.getTissue());
+        appendMemoKey(key, attributes.getStrain());
+        appendMemoKey(key, attributes.getGender());
+        appendMemoKey(key, attributes.getCellLine());
+        appendMemoKey(key, attributes.getAge());
+        return key.toString();
+    }
+
+    /**
+     * append an attribute value to a memo key, distinguishing null
+     * @param key the key
+     * @param value the attribute value
+     */
+    private static void appendMemoKey(StringBuffer key, String value)
+    {
+        if (value == null)
+            key.append('\u0000');
+        else
+            key.append(value.length()).append(':').append(value);
+        key.append('|');
+    }
+
     /**
      * initialize this instance
      * @assumes nothing
@@ -170,7 +289,24 @@ public class MSResolver {
     {
         try
         {
-            msCollapsedCache = new MSCollapsedCache(CacheConstants.FULL_CACHE);
+            MSProcessorCfg msCfg = new MSProcessorCfg();
+            if (msCfg.getUseCollapsedIndex().booleanValue())
+                msCollapsedCache = new MSCollapsedIndex();
+            else
+                msCollapsedCache =
+                    new MSCollapsedCache(CacheConstants.FULL_CACHE);
+            final int memoSize =
+                Integer.parseInt(msCfg.getResolverMemoSize());
+            if (memoSize > 0)
+            {
+                memo = new LinkedHashMap(16, 0.75f, true)
+                {
+                    protected boolean removeEldestEntry(Map.Entry eldest)
+                    {
+                        return size() > memoSize;
+                    }
+                };
+            }
             // instantiate the correct MSAttrResolver based on logicalDB
             SequenceLoadCfg cfg = new SequenceLoadCfg();
             LogicalDBLookup lookup = new LogicalDBLookup();
@@ -1,6 +1,9 @@
 package org.jax.mgi.dbs.mgd.loads.SeqSrcAssoc;
 
 import java.util.Vector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
 
 import org.jax.mgi.dbs.mgd.dao.PRB_SourceDAO;
 import org.jax.mgi.dbs.mgd.dao.PRB_SourceInterpreter;
@@ -242,65 +245,167 @@ public class MSSeqAssoc extends DAO
                                                   Integer organismKey)
     throws DBException, ConfigException, MSException
     {
+        SQLDataManager sqlMgr =
+            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        String sql = seqKeyOrganismQuery(seqkey, organismKey);
+        ResultsNavigator nav = sqlMgr.executeQuery(sql);
+        if (!nav.next())
+            return null;
+        nav.setInterpreter(new MSSeqSourceInterpreter());
+        MSSeqAssoc assoc = (MSSeqAssoc)nav.getCurrent();
+        if (nav.next()) // more than one record was found...throw exception
+        {
+            MSExceptionFactory eFactory = new MSExceptionFactory();
+            MSException e =
+                (MSException)eFactory.getException(TooManyRows);
+            e.bind(1);
+            e.bind(sql);
+            throw e;
+        }
+        nav.close();
+        return assoc;
+    }
 
-        class MSSeqSourceInterpreter implements RowDataInterpreter
+    /**
+     * find the MSSeqAssoc objects from the database for all of the given
+     * sequence keys with one query
+     * @assumes nothing
+     * @effects queries the database
+     * @param seqKeys the set of sequence keys
+     * @return HashMap keyed by every sequence key in the set. The value is a
+     * Vector of the MSSeqAssoc objects of the sequence for all organisms
+     * @throws DBException thrown if there is an error with the database
+     * @throws ConfigException thrown if there is an error with the
+     * configuration
+     */
+    public static HashMap findBySeqKeys(Set seqKeys)
+    throws DBException, ConfigException
+    {
+        HashMap assocs = new HashMap();
+        if (seqKeys.isEmpty())
+            return assocs;
+        StringBuffer keyList = new StringBuffer();
+        for (Iterator i = seqKeys.iterator(); i.hasNext(); )
+        {
+            Integer seqKey = (Integer)i.next();
+            assocs.put(seqKey, new Vector());
+            keyList.append(Converter.toString(seqKey));
+            if (i.hasNext())
+                keyList.append(",");
+        }
+        SQLDataManager sqlMgr =
+            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
+        ResultsNavigator nav = sqlMgr.executeQuery(
+            SELECT +
+            "AND assoc." + MGD.seq_source_assoc._sequence_key + " in (" +
+                   keyList + ")");
+        nav.setInterpreter(new MSSeqSourceInterpreter());
+        while (nav.next())
         {
-            SEQ_Source_AssocInterpreter seqSourceInterpreter =
-                new SEQ_Source_AssocInterpreter();
-            PRB_SourceInterpreter prbSourceInterpreter =
-                new PRB_SourceInterpreter();
+            MSSeqAssoc assoc = (MSSeqAssoc)nav.getCurrent();
+            ((Vector)assocs.get(assoc.getSeqKey())).add(assoc);
+        }
+        nav.close();
+        return assocs;
+    }
 
-            public Object interpret(RowReference row) throws DBException
+    /**
+     * find a MSSeqAssoc object with the given organism key among the
+     * MSSeqAssoc objects found for a sequence by findBySeqKeys
+     * @assumes assocs are all the MSSeqAssoc objects for the sequence
+     * @effects nothing
+     * @param assocs the MSSeqAssoc objects for the sequence
+     * @param seqkey the sequence key
+     * @param organismKey the organism key
+     * @return the MSSeqAssoc or null, as findBySeqKeyOrganism would return
+     * @throws MSException thrown if more than one is found
+     */
+    public static MSSeqAssoc findBySeqKeyOrganism(Vector assocs,
+                                                  Integer seqkey,
+                                                  Integer organismKey)
+    throws MSException
+    {
+        MSSeqAssoc found = null;
+        for (Iterator i = assocs.iterator(); i.hasNext(); )
+        {
+            MSSeqAssoc assoc = (MSSeqAssoc)i.next();
+            if (!organismKey.equals(
+                    assoc.prbSourceDAO.getState().getOrganismKey()))
+                continue;
+            if (found != null) // more than one was found...throw exception
             {
-                SEQ_Source_AssocDAO seqSourceDAO =
-                    (SEQ_Source_AssocDAO)seqSourceInterpreter.interpret(row);
-                PRB_SourceDAO prbSourceDAO =
-                    (PRB_SourceDAO)prbSourceInterpreter.interpret(row);
-                MSSeqAssoc assoc = null;
-                try
-                {
-                    assoc = new MSSeqAssoc(prbSourceDAO, seqSourceDAO);
-                }
-                catch (ConfigException e)
-                {
-                    DBExceptionFactory eFactory = new DBExceptionFactory();
-                    DBException e2 =
-                        (DBException)eFactory.getException(ConfigErr, e);
-                    throw e2;
-                }
-                return assoc;
+                MSExceptionFactory eFactory = new MSExceptionFactory();
+                MSException e =
+                    (MSException)eFactory.getException(TooManyRows);
+                e.bind(1);
+                e.bind(seqKeyOrganismQuery(seqkey, organismKey));
+                throw e;
             }
+            found = assoc;
         }
+        return found;
+    }
 
-        SQLDataManager sqlMgr =
-            SQLDataManagerFactory.getShared(SchemaConstants.MGD);
-        String sql =
+    /**
+     * the query for the sources associated to sequences without the
+     * condition on the sequence key
+     */
+    private static final String SELECT =
           "SELECT src.*, " +
           "       assoc." + MGD.seq_source_assoc._assoc_key + ", " +
           "       assoc." + MGD.seq_source_assoc._sequence_key + " " +
           "FROM " + MGD.prb_source._name + " src, " +
                     MGD.seq_source_assoc._name + " assoc " +
           "WHERE src." + MGD.prb_source._source_key + " = " +
-                "assoc." + MGD.seq_source_assoc._source_key + " " +
+                "assoc." + MGD.seq_source_assoc._source_key + " ";
+
+    /**
+     * create the query for the source of a sequence with an organism
+     * @assumes nothing
+     * @effects nothing
+     * @param seqkey the sequence key
+     * @param organismKey the organism key
+     * @return the query
+     */
+    private static String seqKeyOrganismQuery(Integer seqkey,
+                                              Integer organismKey)
+    {
+        return SELECT +
           "AND assoc." + MGD.seq_source_assoc._sequence_key + " = " +
                    Converter.toString(seqkey) + " " +
           "AND " + MGD.prb_source._organism_key + " = " +
                    Converter.toString(organismKey);
-        ResultsNavigator nav = sqlMgr.executeQuery(sql);
-        if (!nav.next())
-            return null;
-        nav.setInterpreter(new MSSeqSourceInterpreter());
-        MSSeqAssoc assoc = (MSSeqAssoc)nav.getCurrent();
-        if (nav.next()) // more than one record was found...throw exception
+    }
+
+    /**
+     * creates MSSeqAssoc objects from rows of the source association query
+     */
+    private static class MSSeqSourceInterpreter implements RowDataInterpreter
+    {
+        SEQ_Source_AssocInterpreter seqSourceInterpreter =
+            new SEQ_Source_AssocInterpreter();
+        PRB_SourceInterpreter prbSourceInterpreter =
+            new PRB_SourceInterpreter();
+
+        public Object interpret(RowReference row) throws DBException
         {
-            MSExceptionFactory eFactory = new MSExceptionFactory();
-            MSException e =
-                (MSException)eFactory.getException(TooManyRows);
-            e.bind(1);
-            e.bind(sql);
-            throw e;
+            SEQ_Source_AssocDAO seqSourceDAO =
+                (SEQ_Source_AssocDAO)seqSourceInterpreter.interpret(row);
+            PRB_SourceDAO prbSourceDAO =
+                (PRB_SourceDAO)prbSourceInterpreter.interpret(row);
+            MSSeqAssoc assoc = null;
+            try
+            {
+                assoc = new MSSeqAssoc(prbSourceDAO, seqSourceDAO);
+            }
+            catch (ConfigException e)
+            {
+                DBExceptionFactory eFactory = new DBExceptionFactory();
+                DBException e2 =
+                    (DBException)eFactory.getException(ConfigErr, e);
+                throw e2;
+            }
+            return assoc;
         }
-        nav.close();
-        return assoc;
     }
 }
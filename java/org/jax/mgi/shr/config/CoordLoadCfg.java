@@ -185,4 +185,28 @@ public class CoordLoadCfg extends Configurator {
         return getConfigString("COORD_LOAD_MODE");
     }
 
+    /**
+    * get the ok to delete the features of all input objects in batches
+    * before loading in delete/reload by object mode, rather than deleting
+    * the features of each object as it is processed
+    * @return true if deletes by object should be done in bulk
+    * @throws ConfigException thrown if "COORD_BULK_DELETE_BY_OBJECT" has an
+    *    invalid value in the configuration file
+    */
+    public Boolean getOkToBulkDeleteByObject() throws ConfigException {
+        return getConfigBoolean("COORD_BULK_DELETE_BY_OBJECT",
+                                new Boolean(false));
+    }
+
+    /**
+    * get the number of feature keys to delete with one statement when
+    * deleting by object in bulk
+    * @return the number of feature keys
+    * @throws ConfigException thrown if there is an error accessing the
+    *    configuration
+    */
+    public String getDeleteBatchSize() throws ConfigException {
+        return getConfigString("COORD_DELETE_BATCH_SIZE", "10000");
+    }
+
 }
@@ -69,6 +69,66 @@ public class DLALoaderCfg extends Configurator {
                              "org.jax.mgi.shr.dbutils.dao.Inline_Stream");
   }
 
+  /**
+   * get the names of the tables whose inserts are sent with COPY by the
+   * org.jax.mgi.shr.dla.loader.Copy_Stream, in the order they are written.
+   * Tables referenced by other tables must come first. The configuration
+   * variable is DLA_COPY_TABLES
+   * @assumes nothing
+   * @effects nothing
+   * @return the table names
+   */
+  public String[] getCopyTables()
+  {
+      String[] tables = getConfigStringArrayNull("DLA_COPY_TABLES");
+      if (tables == null)
+          tables = new String[] {"PRB_Source", "SEQ_Sequence",
+                                 "SEQ_Sequence_Raw", "ACC_Accession",
+                                 "SEQ_Source_Assoc", "MGI_Reference_Assoc"};
+      return tables;
+  }
+
+  /**
+   * get the number of rows the org.jax.mgi.shr.dla.loader.Copy_Stream
+   * buffers before writing them to the database. The configuration variable
+   * is DLA_COPY_CHUNK_SIZE and the default is 10000
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of rows
+   */
+  public String getCopyChunkSize()
+  {
+      return getConfigString("DLA_COPY_CHUNK_SIZE", "10000");
+  }
+
+  /**
+   * get the number of statements which can wait to be written by the
+   * org.jax.mgi.shr.dla.loader.Async_Stream before the loader waits for
+   * the writer thread. The configuration variable is DLA_ASYNC_QUEUE_SIZE
+   * and the default is 10000
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of statements
+   */
+  public String getAsyncQueueSize()
+  {
+      return getConfigString("DLA_ASYNC_QUEUE_SIZE", "10000");
+  }
+
+  /**
+   * get the number of threads which decompress a gzip compressed (.gz)
+   * input file. The blocks of a BGZF file are decompressed in parallel;
+   * any other gzip file is decompressed on one background thread. The
+   * configuration variable is DLA_GZIP_THREADS and the default is 4
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of threads
+   */
+  public String getGzipThreads()
+  {
+      return getConfigString("DLA_GZIP_THREADS", "4");
+  }
+
   /**
    * get the name of the Job Stream
    * @assumes Nothing
@@ -114,6 +114,30 @@ public class DLALoggerCfg extends Configurator {
       return getConfigBoolean("LOG_DEBUG", new Boolean(false));
     }
 
+    /**
+     * get the value of the option which designates whether to write the log
+     * files on a background thread. The parameter name read from the
+     * configuration file or system properties is LOG_ASYNC. The value can be
+     * yes, no, true or false and the case of the letters are ignored. The
+     * default value is false.
+     * @return true if the log files should be written asynchronously
+     * @throws ConfigException if an error occurs during configuration
+     */
+    public Boolean getAsync() throws ConfigException {
+      return getConfigBoolean("LOG_ASYNC", new Boolean(false));
+    }
+
+    /**
+     * get the number of messages which can wait to be written when the log
+     * files are written asynchronously. The parameter name read from the
+     * configuration file or system properties is LOG_ASYNC_BUFFER_SIZE. The
+     * default value is 8192.
+     * @return the buffer size
+     */
+    public String getAsyncBufferSize() {
+      return getConfigString("LOG_ASYNC_BUFFER_SIZE", "8192");
+    }
+
     /**
      * get the process name which will be used in calculating default log
      * names. The parameter name read from the configuration file or system
@@ -56,5 +56,67 @@ public class MSProcessorCfg extends Configurator {
                             new Boolean(true));
   }
 
+  /**
+   * get the ok to look up the source names of the associated clones for a
+   * batch of sequences with one batch query rather than through the
+   * associated clones cache, where the loader processes sequences in
+   * batches. The
+   * configuration variable is MS_OK_TO_BATCH_ASSOC_CLONES and the default
+   * is false
+   * @return true if the batch lookup should be performed and false otherwise
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToBatchAssocClones() throws ConfigException {
+    return getConfigBoolean("MS_OK_TO_BATCH_ASSOC_CLONES",
+                            new Boolean(false));
+  }
+
+  /**
+   * get the ok to look up the sequence to source associations for a batch
+   * of existing sequences with one query rather than one query per
+   * sequence, where the loader processes sequences in batches. The
+   * configuration variable is MS_OK_TO_BATCH_SEQ_ASSOC and the default is
+   * false
+   * @return true if the batch lookup should be performed and false otherwise
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToBatchSeqAssoc() throws ConfigException {
+    return getConfigBoolean("MS_OK_TO_BATCH_SEQ_ASSOC", new Boolean(false));
+  }
+
+  /**
+   * get the maximum number of sets of raw attributes for which the
+   * MSResolver remembers the resolved MolecularSource, the least recently
+   * used being forgotten first. The configuration variable is
+   * MS_RESOLVER_MEMO_SIZE and the default is 0, which disables the memo
+   * @return the maximum size of the memo
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public String getResolverMemoSize() throws ConfigException {
+    return getConfigString("MS_RESOLVER_MEMO_SIZE", "0");
+  }
+
+  /**
+   * get the ok to index collapsed molecular sources by their attribute keys
+   * rather than caching them by string. With this option set to true the
+   * MSResolver uses a MSCollapsedIndex in place of the MSCollapsedCache,
+   * which needs less memory and does not create objects on lookup. The
+   * configuration variable is MS_USE_COLLAPSED_INDEX and the default is
+   * false
+   * @return true if the MSCollapsedIndex should be used
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getUseCollapsedIndex() throws ConfigException {
+    return getConfigBoolean("MS_USE_COLLAPSED_INDEX", new Boolean(false));
+  }
+
 
 }
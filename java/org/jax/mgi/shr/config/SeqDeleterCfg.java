@@ -74,5 +74,59 @@ public class SeqDeleterCfg extends Configurator {
       return getConfigString("SEQ_QUERY_BATCHSIZE", "400");
     }
 
+    /**
+     * get the ok to use a temp table for the seqids of a SequenceLookup
+     * batch rather than an IN-list, default is false
+     * @return true if SequenceLookup should use a temp table
+     * @assumes nothing
+     * @effects nothing
+     * @throws ConfigException if "SEQ_LOOKUP_USE_TEMP_TABLE" has an invalid
+     *    value in the configuration file
+     */
+    public Boolean getUseTempTableSequenceLookup() throws ConfigException {
+      return getConfigBoolean("SEQ_LOOKUP_USE_TEMP_TABLE", new Boolean(false));
+    }
+
+    /**
+     * get the ok to fetch sequences with one query per table rather than
+     * one query joining them all, default is false
+     * @return true if the DecomposedSequenceLookup should be used
+     * @assumes nothing
+     * @effects nothing
+     * @throws ConfigException if "SEQ_LOOKUP_DECOMPOSED" has an invalid
+     *    value in the configuration file
+     */
+    public Boolean getUseDecomposedSequenceLookup() throws ConfigException {
+      return getConfigBoolean("SEQ_LOOKUP_DECOMPOSED", new Boolean(false));
+    }
+
+    /**
+     * get the ok to load all seqids into a compact full cache rather than
+     * using a lazy cache, default is false
+     * @return true if the compact accession lookup should be used
+     * @assumes nothing
+     * @effects nothing
+     * @throws ConfigException if "SEQ_USE_COMPACT_ACCESSION_CACHE" has an
+     *    invalid value in the configuration file
+     */
+    public Boolean getUseCompactAccessionCache() throws ConfigException {
+      return getConfigBoolean("SEQ_USE_COMPACT_ACCESSION_CACHE",
+                              new Boolean(false));
+    }
+
+    /**
+     * get the ok to look up only the status of the sequences in a batch and
+     * status them as deleted with one update per batch rather than looking
+     * up and updating each whole Sequence, default is false
+     * @return true if the status only delete should be used
+     * @assumes nothing
+     * @effects nothing
+     * @throws ConfigException if "SEQ_DELETE_STATUS_ONLY" has an invalid
+     *    value in the configuration file
+     */
+    public Boolean getOkToUseStatusOnlyDelete() throws ConfigException {
+      return getConfigBoolean("SEQ_DELETE_STATUS_ONLY", new Boolean(false));
+    }
+
 
 }
@@ -303,5 +303,234 @@ public class SequenceLoadCfg extends Configurator {
                             new Boolean(true));
   }
 
+  /**
+   * get the number of threads used to parse input records. A value greater
+   * than 1 runs the SeqLoader in pipelined mode; records are parsed by this
+   * many worker threads and handed, in input order, to the single thread
+   * which processes them. The configuration variable is SEQ_PARSE_THREADS
+   * and the default is 1 (no pipelining)
+   * @return number of parse threads
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public String getParseThreads() throws ConfigException {
+    return getConfigString("SEQ_PARSE_THREADS", "1");
+  }
+
+  /**
+   * get the maximum number of records which may be read but not yet
+   * processed when running in pipelined mode. The configuration variable
+   * is SEQ_PARSE_QUEUE_DEPTH and the default is 1000
+   * @return depth of the parse queue
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public String getParseQueueDepth() throws ConfigException {
+    return getConfigString("SEQ_PARSE_QUEUE_DEPTH", "1000");
+  }
+
+  /**
+   * get the ok to prefetch SequenceLookup batches in incremental mode. With
+   * this option set to true, the lookup for the next batch of existing
+   * sequences runs on a separate connection while the current batch is
+   * processed. The configuration variable is SEQ_PREFETCH_LOOKUP and the
+   * default is false
+   * @return true if SequenceLookup batches should be prefetched
+   * @assumes nothing
+   * @effects if true a second database connection is opened
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToPrefetchSequenceLookup() throws ConfigException {
+    return getConfigBoolean("SEQ_PREFETCH_LOOKUP", new Boolean(false));
+  }
+
+  /**
+   * get the ok to use a temp table for the seqids of a SequenceLookup batch.
+   * With this option set to true the seqids are loaded into a session temp
+   * table which the lookup query joins against, so SEQ_QUERY_BATCHSIZE may
+   * be raised well beyond the size of an IN-list. The configuration
+   * variable is SEQ_LOOKUP_USE_TEMP_TABLE and the default is false
+   * @return true if SequenceLookup should use a temp table
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getUseTempTableSequenceLookup() throws ConfigException {
+    return getConfigBoolean("SEQ_LOOKUP_USE_TEMP_TABLE", new Boolean(false));
+  }
+
+  /**
+   * get the ok to fetch existing sequences with one query per table rather
+   * than one query joining them all. The joined query returns one row for
+   * each combination of 2ndary accession, reference and source of a
+   * sequence, which is costly for sequences with many of each. The
+   * configuration variable is SEQ_LOOKUP_DECOMPOSED and the default is false
+   * @return true if the DecomposedSequenceLookup should be used
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getUseDecomposedSequenceLookup() throws ConfigException {
+    return getConfigBoolean("SEQ_LOOKUP_DECOMPOSED", new Boolean(false));
+  }
+
+  /**
+   * get the ok to look up existing sequences in two phases in incremental
+   * mode. With this option set to true only the status and seqrecord date
+   * of each sequence in a batch are looked up first; the full Sequence is
+   * looked up only for those which are not non events. The configuration
+   * variable is SEQ_LOOKUP_TWO_PHASE and the default is false
+   * @return true if existing sequences should be looked up in two phases
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToUseTwoPhaseLookup() throws ConfigException {
+    return getConfigBoolean("SEQ_LOOKUP_TWO_PHASE", new Boolean(false));
+  }
+
+  /**
+   * get the ok to use a compact full cache when looking up sequences using
+   * the AccessionLookup. With this option set to true all seqids for the
+   * logicalDB are loaded into a CompactSeqIdLookup, which holds them as
+   * primitives and needs a fraction of the memory of the full cache. Takes
+   * precedence over SEQ_USE_ACCESSION_FULL_CACHE. The configuration variable
+   * is SEQ_USE_COMPACT_ACCESSION_CACHE and the default is false
+   * @return true if the compact accession lookup should be used
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getUseCompactAccessionCache() throws ConfigException {
+    return getConfigBoolean("SEQ_USE_COMPACT_ACCESSION_CACHE",
+                            new Boolean(false));
+  }
+
+  /**
+   * get the ok to put a Bloom filter of all seqids for the logicalDB in front
+   * of the lazy cached AccessionLookup. With this option set to true a seqid
+   * which is definitely not in the database is not queried for. Used only
+   * when neither the full nor the compact cache is configured. The
+   * configuration variable is SEQ_USE_SEQID_BLOOM_FILTER and the default is
+   * false
+   * @return true if the Bloom filtered accession lookup should be used
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getUseSeqIdBloomFilter() throws ConfigException {
+    return getConfigBoolean("SEQ_USE_SEQID_BLOOM_FILTER", new Boolean(false));
+  }
+
+  /**
+   * get the desired false positive probability of the seqid Bloom filter.
+   * The configuration variable is SEQ_BLOOM_FILTER_FPP and the default is
+   * 0.01
+   * @return false positive probability
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public String getSeqIdBloomFilterFpp() throws ConfigException {
+    return getConfigString("SEQ_BLOOM_FILTER_FPP", "0.01");
+  }
+
+  /**
+   * get the ok to apply the updates of existing sequences a batch at a time
+   * in incremental mode. With this option set to true the changed
+   * SEQ_Sequence and SEQ_Sequence_Raw rows of a batch are copied into temp
+   * tables and applied with one update per table rather than one update per
+   * row. It applies only where the load stream applies updates inline, not
+   * where it writes a script or bcp files. The configuration variable is
+   * SEQ_BULK_UPDATE and the default is false
+   * @return true if existing sequences should be updated in bulk
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToBulkUpdateSequences() throws ConfigException {
+    return getConfigBoolean("SEQ_BULK_UPDATE", new Boolean(false));
+  }
+
+  /**
+   * get the ok to apply merges and splits in bulk in incremental mode. With
+   * this option set to true all merge and split events are loaded into a
+   * temp table and the merge and split stored procedures are called for them
+   * in a single statement rather than one statement per event. The
+   * configuration variable is SEQ_BULK_MERGE_SPLIT and the default is false
+   * @return true if merges and splits should be applied in bulk
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToBulkMergeSplit() throws ConfigException {
+    return getConfigBoolean("SEQ_BULK_MERGE_SPLIT", new Boolean(false));
+  }
+
+  /**
+   * get the ok to memory map a GenBank input file. With this option set to
+   * true the records of a GBInputFile are found by searching the mapped file
+   * and the organism of each record is checked without copying it into a
+   * String. The load must implement createParseInterpreter. The
+   * configuration variable is SEQ_MAP_INPUT_FILE and the default is false
+   * @return true if a GenBank input file should be memory mapped
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToMapInputFile() throws ConfigException {
+    return getConfigBoolean("SEQ_MAP_INPUT_FILE", new Boolean(false));
+  }
+
+  /**
+   * get the ok to read only the headers of the records of a GenBank input
+   * file. With this option set to true the lines of each record from LOCUS
+   * through the ORIGIN or CONTIG line are read and the sequence is skipped
+   * without being decoded. Repeated records are read again from the input
+   * file for the repeat file. The load must implement
+   * createParseInterpreter. The configuration variable is
+   * SEQ_READ_HEADERS_ONLY and the default is false
+   * @return true if only the headers of the records should be read
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToReadHeadersOnly() throws ConfigException {
+    return getConfigBoolean("SEQ_READ_HEADERS_ONLY", new Boolean(false));
+  }
+
+  /**
+   * get the maximum size in bytes of the header of a record when reading
+   * only the headers of a GenBank input file; a record with a longer
+   * header is skipped and logged. The configuration variable is
+   * SEQ_HEADER_MAX_BYTES and the default is 67108864
+   * @return the maximum size of a header
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public String getHeaderMaxBytes() throws ConfigException {
+    return getConfigString("SEQ_HEADER_MAX_BYTES", "67108864");
+  }
+
+  /**
+   * get the ok to release the input record of each sequence once it has
+   * been parsed. With this option set to true a sequence read by a reader
+   * which knows where its record is in the input file (see
+   * SEQ_MAP_INPUT_FILE and SEQ_READ_HEADERS_ONLY) keeps only a reference to
+   * the record, which is read again when it is needed for the repeat file
+   * or error reporting. The configuration variable is SEQ_RELEASE_RECORDS
+   * and the default is false
+   * @return true if input records should be released
+   * @assumes nothing
+   * @effects nothing
+   * @throws ConfigException if there is an error accessing the configuration
+   */
+  public Boolean getOkToReleaseRecords() throws ConfigException {
+    return getConfigBoolean("SEQ_RELEASE_RECORDS", new Boolean(false));
+  }
+
 
 }
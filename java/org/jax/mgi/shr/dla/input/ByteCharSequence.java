@@ -0,0 +1,140 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A CharSequence view over a region of a ByteBuffer, e.g. a record in a
+ *     memory mapped input file, which decodes each byte as one ISO-8859-1
+ *     character
+ * @has
+ *   <UL>
+ *   <LI>a ByteBuffer, which is only read with absolute gets so views may be
+ *       shared between threads
+ *   <LI>the offset and length of the region in the buffer
+ *   <LI>the offset of the region in the input file
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>answers charAt and subSequence without copying any bytes, so regular
+ *       expressions may be run over the region in place
+ *   <LI>copies the region into a String only when toString is called
+ *   </UL>
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class ByteCharSequence implements CharSequence {
+
+    // the buffer holding the bytes
+    private ByteBuffer buffer;
+
+    // the offset of the region in the buffer
+    private int offset;
+
+    // the number of bytes in the region
+    private int length;
+
+    // the offset of the region in the input file
+    private long fileOffset;
+
+    /**
+     * Constructs a view over a region of a buffer
+     * @assumes the region lies within the buffer
+     * @effects nothing
+     * @param buffer the buffer
+     * @param offset the offset of the region in the buffer
+     * @param length the number of bytes in the region
+     * @param fileOffset the offset of the region in the input file
+     */
+
+    public ByteCharSequence(ByteBuffer buffer, int offset, int length,
+                            long fileOffset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.fileOffset = fileOffset;
+    }
+
+    /**
+     * gets the number of characters in the view
+     * @return the number of characters
+     */
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * gets a character of the view
+     * @param index the index of the character
+     * @return the character
+     * @throws IndexOutOfBoundsException if index is not in the view
+     */
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index);
+        }
+        return (char) (buffer.get(offset + index) & 0xff);
+    }
+
+    /**
+     * gets a view over part of this view without copying
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return the view
+     * @throws IndexOutOfBoundsException if start or end are not in the view
+     */
+
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                "start: " + start + " end: " + end);
+        }
+        return new ByteCharSequence(buffer, offset + start, end - start,
+                                    fileOffset + start);
+    }
+
+    /**
+     * determines if the view starts with a string at an index
+     * @param prefix the string
+     * @param index the index
+     * @return true if the characters at index match prefix
+     */
+
+    public boolean startsWith(String prefix, int index) {
+        if (index < 0 || index + prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if ((buffer.get(offset + index + i) & 0xff) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the offset of the view in the input file
+     * @return the offset
+     */
+
+    public long getFileOffset() {
+        return fileOffset;
+    }
+
+    /**
+     * copies the view into a String
+     * @return the String
+     */
+
+    public String toString() {
+        byte[] bytes = new byte[length];
+        ByteBuffer dup = buffer.duplicate();
+        dup.position(offset);
+        dup.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
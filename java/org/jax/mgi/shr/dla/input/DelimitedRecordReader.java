@@ -0,0 +1,346 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+
+/**
+ * An iterator over the records of an InputStream, e.g. a
+ *     GzipBlockInputStream over a compressed input file, which finds the
+ *     records by delimiters at the start of a line
+ * @has
+ *   <UL>
+ *   <LI>the InputStream read through a fixed size byte buffer
+ *   <LI>a begin delimiter and an optional end delimiter
+ *   <LI>an optional RecordDataInterpreter
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>finds each record from a line starting with the begin delimiter
+ *       through the end delimiter at the start of a later line or, with no
+ *       end delimiter, up to the next line starting with the begin
+ *       delimiter, as the GBInputFile, EMBLInputFile and FASTAInputFile
+ *       delimiters do
+ *   <LI>returns each record as a String or, with an interpreter, skips the
+ *       records which are not valid and returns the interpretation of the
+ *       others
+ *   </UL>
+ * Bytes are decoded as ISO-8859-1.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class DelimitedRecordReader implements DataIterator {
+
+    // the size of the byte buffer
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // the name of the input, for messages
+    private String name;
+
+    // the input and the bytes read from it
+    private InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength = 0;
+    private int bufferPos = 0;
+
+    // true once the end of the input has been read
+    private boolean eof = false;
+
+    // the delimiters; end is null if a record ends at the next begin
+    private byte[] begin;
+    private byte[] end;
+
+    // the current record, reused for each record
+    private byte[] record = new byte[64 * 1024];
+    private int recordLength = 0;
+
+    // the interpreter or null to return the records
+    private RecordDataInterpreter interpreter;
+
+    // the next record, found by hasNext and not yet returned by next
+    private String pending = null;
+
+    // count of records found and records skipped as not valid
+    private int recordCtr = 0;
+    private int skippedCtr = 0;
+
+    /**
+     * Constructs a DelimitedRecordReader over an InputStream
+     * @assumes nothing
+     * @effects nothing
+     * @param name the name of the input, e.g. the file name, for messages
+     * @param in the input
+     * @param begin the begin delimiter
+     * @param end the end delimiter or null if a record ends at the next
+     *        begin delimiter
+     * @param interpreter the interpreter for the records or null to return
+     *        the records as Strings
+     */
+
+    public DelimitedRecordReader(String name, InputStream in, String begin,
+                                 String end,
+                                 RecordDataInterpreter interpreter) {
+        this.name = name;
+        this.in = in;
+        this.begin = begin.getBytes(StandardCharsets.ISO_8859_1);
+        this.end = (end == null) ?
+            null : end.getBytes(StandardCharsets.ISO_8859_1);
+        this.interpreter = interpreter;
+    }
+
+    /**
+     * creates a DelimitedRecordReader over a gzip compressed file which is
+     * decompressed by a GzipBlockInputStream
+     * @assumes nothing
+     * @effects opens the file and starts decompressing it
+     * @param filename the name of the compressed file
+     * @param begin the begin delimiter
+     * @param end the end delimiter or null if a record ends at the next
+     *        begin delimiter
+     * @param interpreter the interpreter for the records or null to return
+     *        the records as Strings
+     * @param threads the number of threads decompressing the file; up to
+     *        twice this many chunks are decompressed ahead of the reader
+     * @return the DelimitedRecordReader
+     * @throws MGIException if the file cannot be opened
+     */
+
+    public static DelimitedRecordReader openCompressed(
+        String filename, String begin, String end,
+        RecordDataInterpreter interpreter, int threads)
+        throws MGIException {
+        try {
+            return new DelimitedRecordReader(filename,
+                new GzipBlockInputStream(filename, threads, threads * 2),
+                begin, end, interpreter);
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot open input file " + filename +
+                                   ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * determines if there is another record; with an interpreter, another
+     * valid record
+     * @assumes nothing
+     * @effects records which are not valid are skipped
+     * @return true if there is another record
+     * @throws MGIException if the input cannot be read
+     */
+
+    public boolean hasNext() throws MGIException {
+        while (pending == null) {
+            if (!readRecord()) {
+                return false;
+            }
+            recordCtr++;
+            String rcd = new String(record, 0, recordLength,
+                                    StandardCharsets.ISO_8859_1);
+            if (interpreter == null || interpreter.isValid(rcd)) {
+                pending = rcd;
+            }
+            else {
+                skippedCtr++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the next record or its interpretation
+     * @assumes nothing
+     * @effects nothing
+     * @return the record or, with an interpreter, the interpretation of the
+     *         record
+     * @throws MGIException if the input cannot be read or the interpreter
+     *         throws an exception
+     */
+
+    public Object next() throws MGIException {
+        if (!hasNext()) {
+            throw new MGIException("No more records in " + name);
+        }
+        String rcd = pending;
+        pending = null;
+        if (interpreter == null) {
+            return rcd;
+        }
+        return interpreter.interpret(rcd);
+    }
+
+    /**
+     * closes the input
+     * @assumes nothing
+     * @effects nothing
+     * @throws MGIException if the input cannot be closed
+     */
+
+    public void close() throws MGIException {
+        try {
+            in.close();
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot close " + name + ": " +
+                                   e.getMessage());
+        }
+    }
+
+    /**
+     * gets the number of records found
+     * @return the number of records
+     */
+
+    public int getRecordCount() {
+        return recordCtr;
+    }
+
+    /**
+     * gets the number of records skipped because they were not valid
+     * @return the number of records
+     */
+
+    public int getSkippedCount() {
+        return skippedCtr;
+    }
+
+    /**
+     * reads the next record into the record buffer
+     * @return false if there are no more records
+     * @throws MGIException if the input cannot be read
+     */
+
+    private boolean readRecord() throws MGIException {
+        // find begin at the start of a line
+        while (!lineStartsWith(begin)) {
+            if (!copyLine(false)) {
+                return false;
+            }
+        }
+        recordLength = 0;
+        copyLine(true);
+        while (fill(1)) {
+            if (end == null) {
+                if (lineStartsWith(begin)) {
+                    break;
+                }
+            }
+            else if (lineStartsWith(end)) {
+                // the record ends with the end delimiter, not the rest of
+                // its line
+                append(bufferPos, end.length);
+                bufferPos += end.length;
+                copyLine(false);
+                break;
+            }
+            copyLine(true);
+        }
+        return true;
+    }
+
+    /**
+     * determines if the line at the current position starts with a prefix
+     * @param prefix the prefix
+     * @return true if it does
+     * @throws MGIException if the input cannot be read
+     */
+
+    private boolean lineStartsWith(byte[] prefix) throws MGIException {
+        if (!fill(prefix.length)) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[bufferPos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * moves past the line at the current position, optionally copying it
+     * into the record buffer
+     * @param copy true to copy the line
+     * @return false if the end of the input has been reached
+     * @throws MGIException if the input cannot be read
+     */
+
+    private boolean copyLine(boolean copy) throws MGIException {
+        while (fill(1)) {
+            int start = bufferPos;
+            boolean eol = false;
+            while (bufferPos < bufferLength) {
+                if (buffer[bufferPos++] == '\n') {
+                    eol = true;
+                    break;
+                }
+            }
+            if (copy) {
+                append(start, bufferPos - start);
+            }
+            if (eol) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * appends bytes of the byte buffer to the record buffer
+     * @param start the offset of the bytes in the byte buffer
+     * @param length the number of bytes
+     */
+
+    private void append(int start, int length) {
+        if (recordLength + length > record.length) {
+            byte[] bigger =
+                new byte[Math.max(record.length * 2, recordLength + length)];
+            System.arraycopy(record, 0, bigger, 0, recordLength);
+            record = bigger;
+        }
+        System.arraycopy(buffer, start, record, recordLength, length);
+        recordLength += length;
+    }
+
+    /**
+     * makes sure the byte buffer holds at least a number of bytes from the
+     * current position, reading more of the input if needed
+     * @param count the number of bytes
+     * @return false if the end of the input is reached first
+     * @throws MGIException if the input cannot be read
+     */
+
+    private boolean fill(int count) throws MGIException {
+        while (bufferLength - bufferPos < count) {
+            if (eof) {
+                return false;
+            }
+            // move the unread bytes to the start of the buffer
+            int unread = bufferLength - bufferPos;
+            System.arraycopy(buffer, bufferPos, buffer, 0, unread);
+            bufferPos = 0;
+            bufferLength = unread;
+            try {
+                int n = in.read(buffer, bufferLength,
+                                buffer.length - bufferLength);
+                if (n < 0) {
+                    eof = true;
+                }
+                else {
+                    bufferLength += n;
+                }
+            }
+            catch (IOException e) {
+                throw new MGIException("Cannot read " + name + ": " +
+                                       e.getMessage());
+            }
+        }
+        return true;
+    }
+}
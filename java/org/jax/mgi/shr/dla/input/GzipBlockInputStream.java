@@ -0,0 +1,490 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * An InputStream over a gzip compressed file which decompresses the file on
+ *     background threads ahead of the reader
+ * @has
+ *   <UL>
+ *   <LI>a reader thread which reads the compressed file
+ *   <LI>a pool of threads which inflate BGZF blocks
+ *   <LI>a bounded queue of decompressed chunks in file order
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>splits a BGZF file (gzip members with a BSIZE extra field, as
+ *       written by bgzip) into its blocks by their headers, without
+ *       inflating them, and inflates the blocks in parallel, checking the
+ *       CRC32 and size of each
+ *   <LI>inflates any other gzip member, and the rest of the file after it,
+ *       with a GZIPInputStream on the reader thread, which reads each member
+ *       of a multi-member file in turn
+ *   <LI>returns the decompressed bytes in file order. At most the queue
+ *       depth of chunks are decompressed but not yet read, so decompression
+ *       runs ahead of the reader by a bounded amount
+ *   </UL>
+ * Either way decompression overlaps whatever the reader does with the bytes.
+ * Not thread safe; one thread reads the stream.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class GzipBlockInputStream extends InputStream {
+
+    // the size of a chunk inflated on the reader thread
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    // gzip header fields
+    private static final int GZIP_HEADER_SIZE = 12;
+    private static final int FEXTRA = 4;
+
+    // the largest uncompressed size of a BGZF block
+    private static final int MAX_BLOCK_SIZE = 65536;
+
+    // marks the end of the decompressed bytes on the queue
+    private static final Future END_OF_INPUT =
+        new FutureTask(new Runnable() { public void run() {} }, null);
+
+    // the name of the compressed file
+    private String filename;
+
+    // the compressed file
+    private PushbackInputStream in;
+
+    // inflates BGZF blocks
+    private ExecutorService inflaters;
+
+    // decompressed chunks, as Futures of byte arrays, in file order
+    private ArrayBlockingQueue chunks;
+
+    // the reader thread
+    private Thread readerThread;
+
+    // the current chunk and the position in it
+    private byte[] chunk = new byte[0];
+    private int chunkPos = 0;
+
+    // true once END_OF_INPUT has been taken from the queue
+    private boolean eof = false;
+
+    // count of BGZF blocks read
+    private long blockCtr = 0;
+
+    /**
+     * Constructs a GzipBlockInputStream over a file and starts decompressing
+     * it
+     * @assumes nothing
+     * @effects opens the file and starts the reader and inflater threads
+     * @param filename the name of the compressed file
+     * @param threads the number of threads inflating BGZF blocks
+     * @param queueDepth the maximum number of decompressed chunks waiting to
+     *        be read
+     * @throws IOException if the file cannot be opened
+     */
+
+    public GzipBlockInputStream(String filename, int threads, int queueDepth)
+        throws IOException {
+        this.filename = filename;
+        in = new PushbackInputStream(new FileInputStream(filename),
+                                     GZIP_HEADER_SIZE + 0xffff);
+        chunks = new ArrayBlockingQueue(Math.max(queueDepth, 1));
+        inflaters = Executors.newFixedThreadPool(Math.max(threads, 1),
+            new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r);
+                    t.setName("GzipBlockInputStream-inflater");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        readerThread = new Reader();
+        readerThread.setName("GzipBlockInputStream-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * determines if a file name is that of a gzip compressed file
+     * @assumes nothing
+     * @effects nothing
+     * @param filename the file name
+     * @return true if the name ends with .gz
+     */
+
+    public static boolean isCompressed(String filename) {
+        return filename != null && filename.endsWith(".gz");
+    }
+
+    /**
+     * reads a byte
+     * @return the byte or -1 at the end of the file
+     * @throws IOException if the file cannot be read or decompressed
+     */
+
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[chunkPos++] & 0xff;
+    }
+
+    /**
+     * reads bytes into an array
+     * @param b the array
+     * @param off the offset in the array to read into
+     * @param len the maximum number of bytes to read
+     * @return the number of bytes read or -1 at the end of the file
+     * @throws IOException if the file cannot be read or decompressed
+     */
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, chunk.length - chunkPos);
+        System.arraycopy(chunk, chunkPos, b, off, n);
+        chunkPos += n;
+        return n;
+    }
+
+    /**
+     * gets the number of decompressed bytes which can be read without
+     * waiting
+     * @return the number of bytes
+     */
+
+    public int available() {
+        return chunk.length - chunkPos;
+    }
+
+    /**
+     * stops decompressing and closes the file
+     * @assumes nothing
+     * @effects stops the reader and inflater threads
+     * @throws IOException if the file cannot be closed
+     */
+
+    public void close() throws IOException {
+        eof = true;
+        readerThread.interrupt();
+        inflaters.shutdownNow();
+        chunks.clear();
+        in.close();
+    }
+
+    /**
+     * gets the number of BGZF blocks read so far
+     * @return the number of blocks; 0 if the file is not BGZF
+     */
+
+    public long getBlockCount() {
+        return blockCtr;
+    }
+
+    /**
+     * makes sure the current chunk has bytes left to read, waiting for the
+     * next chunk if needed
+     * @return false at the end of the file
+     * @throws IOException if the file cannot be read or decompressed
+     */
+
+    private boolean fill() throws IOException {
+        while (chunkPos >= chunk.length) {
+            if (eof) {
+                return false;
+            }
+            try {
+                Future next = (Future) chunks.take();
+                if (next == END_OF_INPUT) {
+                    eof = true;
+                    return false;
+                }
+                chunk = (byte[]) next.get();
+                chunkPos = 0;
+            }
+            catch (InterruptedException e) {
+                // keep the interrupt for the caller
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted reading " + filename);
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Cannot decompress " + filename +
+                                      ": " + cause);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * reads the compressed file onto the chunk queue
+     */
+
+    private class Reader extends Thread {
+        public void run() {
+            try {
+                byte[] header = new byte[GZIP_HEADER_SIZE];
+                while (true) {
+                    int n = readFully(header, 0, header.length);
+                    if (n == 0) {
+                        break;
+                    }
+                    byte[] block = (n == header.length) ?
+                        readBlock(header) : null;
+                    if (block == null) {
+                        in.unread(header, 0, n);
+                        inflateSerially();
+                        break;
+                    }
+                    blockCtr++;
+                    chunks.put(inflaters.submit(new BlockInflater(block)));
+                }
+                chunks.put(END_OF_INPUT);
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (IOException e) {
+                try {
+                    chunks.put(failed(e));
+                    chunks.put(END_OF_INPUT);
+                }
+                catch (InterruptedException e1) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * reads the rest of a BGZF block after its gzip header
+         * @param header the gzip header
+         * @return the whole block or null if the header is not that of a
+         *         BGZF block, in which case nothing more has been read
+         * @throws IOException if the file cannot be read
+         */
+
+        private byte[] readBlock(byte[] header) throws IOException {
+            if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b ||
+                header[2] != 8 || header[3] != FEXTRA) {
+                return null;
+            }
+            int xlen = uint16(header, 10);
+            byte[] extra = new byte[xlen];
+            int n = readFully(extra, 0, xlen);
+            if (n < xlen) {
+                in.unread(extra, 0, n);
+                return null;
+            }
+            int bsize = -1;
+            for (int i = 0; i + 4 <= xlen; i += 4 + uint16(extra, i + 2)) {
+                if (extra[i] == 'B' && extra[i + 1] == 'C' &&
+                    uint16(extra, i + 2) == 2 && i + 6 <= xlen) {
+                    bsize = uint16(extra, i + 4);
+                }
+            }
+            int size = bsize + 1;
+            if (bsize < 0 || size < GZIP_HEADER_SIZE + xlen + 8) {
+                in.unread(extra);
+                return null;
+            }
+            byte[] block = new byte[size];
+            System.arraycopy(header, 0, block, 0, GZIP_HEADER_SIZE);
+            System.arraycopy(extra, 0, block, GZIP_HEADER_SIZE, xlen);
+            int offset = GZIP_HEADER_SIZE + xlen;
+            if (readFully(block, offset, size - offset) < size - offset) {
+                throw new EOFException("Truncated BGZF block in " +
+                                       filename);
+            }
+            return block;
+        }
+
+        /**
+         * inflates the rest of the file on this thread
+         * @throws IOException if the file cannot be read or decompressed
+         * @throws InterruptedException if the stream is closed
+         */
+
+        private void inflateSerially()
+            throws IOException, InterruptedException {
+            InputStream gz = new GZIPInputStream(in, 64 * 1024);
+            while (true) {
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int length = 0;
+                int n = 0;
+                while (length < buffer.length &&
+                       (n = gz.read(buffer, length,
+                                    buffer.length - length)) >= 0) {
+                    length += n;
+                }
+                if (length > 0) {
+                    byte[] bytes = buffer;
+                    if (length < buffer.length) {
+                        bytes = new byte[length];
+                        System.arraycopy(buffer, 0, bytes, 0, length);
+                    }
+                    chunks.put(done(bytes));
+                }
+                if (n < 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * reads bytes of the compressed file until an array is full or the
+         * end of the file
+         * @param b the array
+         * @param off the offset in the array to read into
+         * @param len the number of bytes to read
+         * @return the number of bytes read
+         * @throws IOException if the file cannot be read
+         */
+
+        private int readFully(byte[] b, int off, int len) throws IOException {
+            int total = 0;
+            while (total < len) {
+                int n = in.read(b, off + total, len - total);
+                if (n < 0) {
+                    break;
+                }
+                total += n;
+            }
+            return total;
+        }
+    }
+
+    /**
+     * inflates a BGZF block
+     */
+
+    private class BlockInflater implements Callable {
+        // the whole block including its header and trailer
+        private byte[] block;
+
+        private BlockInflater(byte[] block) {
+            this.block = block;
+        }
+
+        public Object call() throws IOException {
+            int xlen = uint16(block, 10);
+            int dataStart = GZIP_HEADER_SIZE + xlen;
+            int dataLength = block.length - dataStart - 8;
+            long crc = uint32(block, block.length - 8);
+            long size = uint32(block, block.length - 4);
+            if (size > MAX_BLOCK_SIZE || dataLength < 0) {
+                throw new IOException("Corrupt BGZF block in " + filename +
+                                      ": uncompressed size " + size +
+                                      " compressed size " + dataLength);
+            }
+            int isize = (int) size;
+            byte[] bytes = new byte[isize];
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(block, dataStart, dataLength);
+                int n = 0;
+                while (n < isize && !inflater.finished()) {
+                    int k = inflater.inflate(bytes, n, isize - n);
+                    if (k == 0 && (inflater.needsInput() ||
+                                   inflater.needsDictionary())) {
+                        break;
+                    }
+                    n += k;
+                }
+                if (n != isize) {
+                    throw new IOException("Corrupt BGZF block in " +
+                                          filename + ": size " + n +
+                                          " expected " + isize);
+                }
+            }
+            catch (DataFormatException e) {
+                throw new IOException("Corrupt BGZF block in " + filename +
+                                      ": " + e.getMessage());
+            }
+            finally {
+                inflater.end();
+            }
+            CRC32 check = new CRC32();
+            check.update(bytes, 0, isize);
+            if (check.getValue() != crc) {
+                throw new IOException("CRC error in BGZF block in " +
+                                      filename);
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * creates a completed Future for a chunk
+     * @param bytes the chunk
+     * @return the Future
+     */
+
+    private static Future done(byte[] bytes) {
+        FutureTask f = new FutureTask(new Runnable() { public void run() {} },
+                                      bytes);
+        f.run();
+        return f;
+    }
+
+    /**
+     * creates a failed Future for an error
+     * @param e the error
+     * @return the Future
+     */
+
+    private static Future failed(final IOException e) {
+        FutureTask f = new FutureTask(new Callable() {
+            public Object call() throws IOException {
+                throw e;
+            }
+        });
+        f.run();
+        return f;
+    }
+
+    /**
+     * reads an unsigned little endian 16 bit integer
+     * @param b the bytes
+     * @param i the offset of the integer
+     * @return the integer
+     */
+
+    private static int uint16(byte[] b, int i) {
+        return (b[i] & 0xff) | ((b[i + 1] & 0xff) << 8);
+    }
+
+    /**
+     * reads an unsigned little endian 32 bit integer
+     * @param b the bytes
+     * @param i the offset of the integer
+     * @return the integer
+     */
+
+    private static long uint32(byte[] b, int i) {
+        return ((long) uint16(b, i)) | (((long) uint16(b, i + 2)) << 16);
+    }
+}
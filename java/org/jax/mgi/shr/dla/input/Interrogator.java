@@ -28,6 +28,17 @@ public abstract class Interrogator {
     */
     protected abstract void loadExpressions();
 
+    /**
+    * Gets the expression mapped to "expressionKey"
+    * @assumes Nothing
+    * @effects Nothing
+    * @param expressionKey controlled vocab for the expression
+    * @return the expression or null if there is none for "expressionKey"
+    */
+    public String getExpression (String expressionKey) {
+        return (String)expressions.get(expressionKey);
+    }
+
     /**
     * Determines whether the expression mapped to "expressionKey" matches "input"
     * @assumes Nothing
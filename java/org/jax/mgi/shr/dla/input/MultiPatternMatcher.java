@@ -0,0 +1,148 @@
+package org.jax.mgi.shr.dla.input;
+
+/**
+ * An object that finds which of a set of strings occur in a region of text
+ *     in one pass over the text, ignoring case
+ * @has
+ *   <UL>
+ *   <LI>up to 32 patterns
+ *   <LI>an Aho-Corasick automaton over the lower case patterns with a
+ *       transition for every ASCII character from every state
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>answers the set of patterns which occur in a region of text as a
+ *       bit mask, bit i set if pattern i occurs. Each character of the text
+ *       is lower cased as it is read, so the answer is the same as for
+ *       text.toLowerCase().indexOf(pattern) > -1 for each pattern, without
+ *       copying the text
+ *   </UL>
+ * Patterns must be ASCII; a text character outside ASCII can not be part
+ * of a match. The automaton is not changed after construction so an
+ * instance may be shared between threads.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class MultiPatternMatcher {
+
+    // number of characters with a transition
+    private static final int ALPHABET = 128;
+
+    // the next state for each state and character
+    private int[][] next;
+
+    // the patterns ending at each state, including by its failure links
+    private int[] output;
+
+    // the mask with a bit for every pattern
+    private int allPatterns;
+
+    /**
+     * Constructs a MultiPatternMatcher for a set of patterns
+     * @assumes the patterns are ASCII and there are at most 32
+     * @effects nothing
+     * @param patterns the patterns; matching ignores their case
+     * @throws IllegalArgumentException if there are more than 32 patterns or
+     *         a pattern is empty or not ASCII
+     */
+
+    public MultiPatternMatcher(String[] patterns) {
+        if (patterns.length > 32) {
+            throw new IllegalArgumentException("More than 32 patterns");
+        }
+        // the trie has at most one state per pattern character plus the root
+        int maxStates = 1;
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].length() == 0) {
+                throw new IllegalArgumentException("Empty pattern");
+            }
+            maxStates += patterns[i].length();
+        }
+        int[][] trie = new int[maxStates][ALPHABET];
+        int[] out = new int[maxStates];
+        int states = 1;
+
+        // build the trie; 0 is the root and means no transition elsewhere
+        for (int i = 0; i < patterns.length; i++) {
+            String p = patterns[i].toLowerCase();
+            int state = 0;
+            for (int j = 0; j < p.length(); j++) {
+                char c = p.charAt(j);
+                if (c >= ALPHABET) {
+                    throw new IllegalArgumentException(
+                        "Pattern is not ASCII: " + patterns[i]);
+                }
+                if (trie[state][c] == 0) {
+                    trie[state][c] = states++;
+                }
+                state = trie[state][c];
+            }
+            out[state] |= 1 << i;
+            allPatterns |= 1 << i;
+        }
+
+        // fill in the failure transitions breadth first so each state's
+        // failure state is complete before the state itself
+        int[] fail = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < ALPHABET; c++) {
+            if (trie[0][c] != 0) {
+                queue[tail++] = trie[0][c];
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            out[state] |= out[fail[state]];
+            for (int c = 0; c < ALPHABET; c++) {
+                int child = trie[state][c];
+                if (child != 0) {
+                    fail[child] = trie[fail[state]][c];
+                    queue[tail++] = child;
+                }
+                else {
+                    trie[state][c] = trie[fail[state]][c];
+                }
+            }
+        }
+        next = new int[states][];
+        output = new int[states];
+        for (int s = 0; s < states; s++) {
+            next[s] = trie[s];
+            output[s] = out[s];
+        }
+    }
+
+    /**
+     * finds the patterns which occur in a region of text
+     * @assumes nothing
+     * @effects nothing
+     * @param text the text
+     * @param start the index of the first character of the region
+     * @param end the index after the last character of the region
+     * @return a mask with bit i set if pattern i occurs in the region
+     */
+
+    public int match(CharSequence text, int start, int end) {
+        int found = 0;
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c >= ALPHABET) {
+                state = 0;
+                continue;
+            }
+            state = next[state][c];
+            if (output[state] != 0) {
+                found |= output[state];
+                if (found == allPatterns) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,23 @@
+package org.jax.mgi.shr.dla.input;
+
+/**
+ * An interface for iterators over an input file which know where in the
+ *     file each record they return was found
+ * @has nothing
+ * @does provides a RecordReference to the last record returned, so the full
+ *       record can be read again later, e.g. to write it to the repeat file
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public interface RecordLocator {
+
+    /**
+     * gets a reference to the last record returned in the input file
+     * @assumes nothing
+     * @effects nothing
+     * @return the reference or null if no record has been returned
+     */
+    public RecordReference getRecordReference();
+}
@@ -0,0 +1,129 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import org.jax.mgi.shr.exception.MGIException;
+
+/**
+ * An object that refers to a record in an input file by its byte offset and
+ *     length, so the record need not be kept in memory
+ * @has
+ *   <UL>
+ *   <LI>the name of the input file
+ *   <LI>the offset and length of the record in the file
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>reads the record from the input file on demand
+ *   </UL>
+ * Bytes are decoded as ISO-8859-1.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class RecordReference {
+
+    // the name of the input file
+    private String filename;
+
+    // the offset and length of the record in the file
+    private long offset;
+    private int length;
+
+    /**
+     * Constructs a RecordReference
+     * @assumes nothing
+     * @effects nothing
+     * @param filename the name of the input file
+     * @param offset the offset of the record in the file
+     * @param length the length of the record in bytes
+     */
+
+    public RecordReference(String filename, long offset, int length) {
+        this.filename = filename;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * gets the name of the input file
+     * @return the name of the file
+     */
+
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * gets the offset of the record in the input file
+     * @return the offset
+     */
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * gets the length of the record in bytes
+     * @return the length
+     */
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * reads the record from the input file
+     * @assumes the input file has not changed since the record was found
+     * @effects nothing
+     * @return the record
+     * @throws MGIException if the file cannot be read
+     */
+
+    public String read() throws MGIException {
+        byte[] bytes = new byte[length];
+        try {
+            RandomAccessFile file = new RandomAccessFile(filename, "r");
+            try {
+                file.seek(offset);
+                file.readFully(bytes);
+            }
+            finally {
+                file.close();
+            }
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot read record at offset " + offset +
+                                   " from " + filename + ": " +
+                                   e.getMessage());
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * sets a reference to the record an input object was parsed from in the
+     * object, if it is a SequenceInput
+     * @assumes nothing
+     * @effects the record is kept until the object's record is released
+     * @param input the object parsed from the record
+     * @param ref the reference to the record
+     */
+
+    public static void setReference(Object input, RecordReference ref) {
+        if (input instanceof SequenceInput) {
+            ((SequenceInput) input).getSeq().setRecordReference(ref);
+        }
+    }
+
+    /**
+     * String representation of this object
+     * @return the file name, offset and length
+     */
+
+    public String toString() {
+        return filename + "@" + offset + "+" + length;
+    }
+}
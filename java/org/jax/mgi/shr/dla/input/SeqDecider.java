@@ -53,12 +53,26 @@ public abstract class SeqDecider {
     public boolean isA(String s) {
         boolean answer = is(s);
         if(answer == true) {
-             trueCtr++;
+             synchronized (this) {
+                 trueCtr++;
+             }
         }
         return answer;
     }
 
 
+    /**
+     * Counts a String for which the predicate is already known to be true,
+     * e.g. when a MultiPatternMatcher has applied several deciders at once
+     * @assumes Nothing
+     * @effects Increments counter
+     */
+    public void countTrue() {
+        synchronized (this) {
+            trueCtr++;
+        }
+    }
+
     /**
      * gets counter of records for which the predicate is true
      * @assumes Nothing
@@ -66,7 +80,7 @@ public abstract class SeqDecider {
      * @return trueCtr number of Strings for which the predicate is true
      */
 
-     public int getTrueCtr() {
+     public synchronized int getTrueCtr() {
         return trueCtr;
     }
 
@@ -1,7 +1,6 @@
 package org.jax.mgi.shr.dla.input.embl;
 
 import java.util.*;
-import java.util.regex.*;
 
 import org.jax.mgi.shr.dla.input.SeqDecider;
 import org.jax.mgi.shr.dla.loader.seq.SeqloaderConstants;
@@ -43,16 +42,15 @@ import org.jax.mgi.shr.dla.input.*;
  */
 
 public class EMBLOrganismChecker implements OrganismChecker {
-    // expression string, pattern, and matcher to find the OS
-    // section of a EMBL format sequence record
-    // Note the ? forces searching until the FIRST instance of OC is found
-    // without the ? it will search until the LAST instance
-    private static final String ORG_EXPRESSION = "^OS([\\s\\S]*?)OC";
-    private Pattern orgPattern;
-    private Matcher orgMatcher;
+    // the OS section of a EMBL format sequence record runs from the FIRST
+    // line starting with OS to the FIRST instance of OC after it, as the
+    // ^OS([\s\S]*?)OC expression used to find it
+    private static final String OS = "OS";
+    private static final String OC = "OC";
 
-    // true if any decider returns true
-    private boolean isA;
+    // finds the expressions of all the deciders in one pass over the OS
+    // section; pattern i is the expression of decider i
+    private MultiPatternMatcher deciderMatcher;
 
     // current count of total records looked at
     private int totalCtr = 0;
@@ -107,8 +105,13 @@ public class EMBLOrganismChecker implements OrganismChecker {
           deciders.add(humanDecider);
         }
 
-        // compile expression to find the OS section of a record
-        orgPattern = Pattern.compile(ORG_EXPRESSION, Pattern.MULTILINE);
+        // build a matcher for the expressions of the deciders
+        String[] expressions = new String[deciders.size()];
+        for (int i = 0; i < deciders.size(); i++) {
+            expressions[i] =
+                si.getExpression(((SeqDecider)deciders.get(i)).getName());
+        }
+        deciderMatcher = new MultiPatternMatcher(expressions);
         logger = DLALogger.getInstance();
     }
 
@@ -121,29 +124,41 @@ public class EMBLOrganismChecker implements OrganismChecker {
     * @return true if 'record' is an organism represented by one of
     *         the deciders.
     * @throws Nothing
+    * Safe to call from multiple parse threads.
     */
 
     public boolean checkOrganism(String record) {
         // increment the total record looked at
-        totalCtr++;
+        synchronized (this) {
+            totalCtr++;
+        }
+        // true if any decider returns true
+        boolean isA = false;
 
-        // reset
-        isA = false;
+        logger.logdDebug(record);
 
         // find the OS section of this record
-        orgMatcher = orgPattern.matcher(record);
-        Iterator i = deciders.iterator();
-        logger.logdDebug(record);
+        int os = findOS(record);
+
         // if we've found the OS section -
-        if (orgMatcher.find() == true) {
-            logger.logdDebug("We found the OS section" + orgMatcher.group(1));
-            // Determine if we are interested in this sequence
-            while (i.hasNext()) {
-                SeqDecider currentDecider = (SeqDecider)i.next();
-                // m.group(1) is the classification
-                if(currentDecider.isA(orgMatcher.group(1))) {
-                    trueCtr++;
-                    isA = true;
+        if (os >= 0) {
+            int start = os + OS.length();
+            int end = record.indexOf(OC, start);
+            if (end >= 0) {
+                logger.logdDebug("We found the OS section{0}",
+                                 record.substring(start, end));
+
+                // Determine if we are interested in this sequence; every
+                // decider that matches is counted
+                int found = deciderMatcher.match(record, start, end);
+                for (int i = 0; i < deciders.size(); i++) {
+                    if ((found & (1 << i)) != 0) {
+                        ((SeqDecider)deciders.get(i)).countTrue();
+                        synchronized (this) {
+                            trueCtr++;
+                        }
+                        isA = true;
+                    }
                 }
             }
         }
@@ -155,6 +170,29 @@ public class EMBLOrganismChecker implements OrganismChecker {
         return isA;
       }
 
+    /**
+    * Finds the first line of a sequence record which starts with OS
+    * @assumes Nothing
+    * @effects Nothing
+    * @param record a EMBL format sequence record
+    * @return the index of the OS line or -1 if there is none
+    */
+
+    private static int findOS(String record) {
+        int i = 0;
+        while (i < record.length()) {
+            if (record.startsWith(OS, i)) {
+                return i;
+            }
+            int eol = record.indexOf('\n', i);
+            if (eol < 0) {
+                break;
+            }
+            i = eol + 1;
+        }
+        return -1;
+    }
+
       /**
        * returns true if 'OSString' is for a mouse
        * @assumes Nothing
@@ -205,7 +243,7 @@ public class EMBLOrganismChecker implements OrganismChecker {
     *         and the count of records for which the decider returned true
     */
 
-    public Vector getDeciderCounts () {
+    public synchronized Vector getDeciderCounts () {
       Vector v = new Vector();
       v.add("Total Sequences looked at: " + totalCtr + SeqloaderConstants.CRT);
 
@@ -3,6 +3,11 @@ package org.jax.mgi.shr.dla.input.fasta;
 import org.jax.mgi.shr.ioutils.RecordDataIterator;
 import org.jax.mgi.shr.ioutils.InputDataFile;
 import org.jax.mgi.shr.ioutils.IOUException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.dla.input.DelimitedRecordReader;
+import org.jax.mgi.shr.dla.input.GzipBlockInputStream;
 import org.jax.mgi.shr.config.ConfigException;
 
 
@@ -57,5 +62,34 @@ public class FASTAInputFile extends InputDataFile
         return this.filename;
     }
 
+    /**
+     * determines if the input file is gzip compressed, i.e. its name ends
+     * with .gz
+     * @assumes nothing
+     * @effects nothing
+     * @return true if the input file is compressed
+     */
+    public boolean isCompressed()
+    {
+        return GzipBlockInputStream.isCompressed(getFilename());
+    }
 
-}
\ No newline at end of file
+    /**
+     * get an iterator over the records of a gzip compressed input file. The
+     * file is decompressed by a GzipBlockInputStream on background threads
+     * while the records are read.
+     * @assumes the input file is compressed
+     * @effects opens the input file and starts decompressing it
+     * @param interpreter the interpreter for the records, e.g.
+     * FASTAData.getRecordInterpreter()
+     * @param threads the number of threads decompressing the file
+     * @return the iterator
+     * @throws MGIException thrown if there is an error opening the file
+     */
+    public DataIterator getDecompressingIterator(
+        RecordDataInterpreter interpreter, int threads) throws MGIException
+    {
+        return DelimitedRecordReader.openCompressed(getFilename(),
+            ">", null, interpreter, threads);
+    }
+}
@@ -128,10 +128,22 @@ public class GBFormatInterpreter extends SequenceInterpreter {
     private StringBuffer classification;
     private StringBuffer reference;
     private StringBuffer comment;
-    private StringBuffer source;
     private StringBuffer secondarySource;
     private StringBuffer keywords;
 
+    // the record being parsed and the bounds in it of the first FEATURES
+    // source section, which is parsed in place
+    private String record;
+    private int sourceStart;
+    private int sourceEnd;
+
+    // builds a source qualifier value which spans lines
+    private StringBuffer valueBuffer;
+
+    // true if a subclass overrides parseSource(String) but not the
+    // parseSource which takes the bounds of the section in the record
+    private boolean parsesSourceString;
+
     /**
     * Constructs a GenBankFormatInterpreter
     * @assumes Nothing
@@ -154,9 +166,13 @@ public class GBFormatInterpreter extends SequenceInterpreter {
         classification  = new StringBuffer();
         reference = new StringBuffer();
         comment = new StringBuffer();
-        source = new StringBuffer();
+        record = null;
+        sourceStart = 0;
+        sourceEnd = 0;
         secondarySource = new StringBuffer();
         keywords = new StringBuffer();
+        valueBuffer = new StringBuffer();
+        parsesSourceString = overridesParseSourceString(getClass());
     }
 
     /**
@@ -173,6 +189,21 @@ public class GBFormatInterpreter extends SequenceInterpreter {
         return (organismChecker.checkOrganism(record));
     }
 
+    /**
+     * Determines whether this sequence is for an organism we want to load
+     * without copying the record into a String
+     * @assumes Nothing
+     * @effects Nothing
+     * @param record A GenBank format sequence record, e.g. a view over a
+     *        memory mapped input file
+     * @return true if we want to load this sequence
+     * @throws Nothing
+     */
+
+    public boolean isValid(CharSequence record) {
+        return (organismChecker.checkOrganism(record));
+    }
+
     /**
      * Parses a sequence record and  creates a SequenceInput object from
      * Configuration and parsed values
@@ -225,8 +256,13 @@ public class GBFormatInterpreter extends SequenceInterpreter {
 	if(comment.length() > 0 ) {
 	    parseComment(comment.toString());
  	}
-        if (source.length() > 0 ) {
-            parseSource(source.toString()  );
+        if (sourceEnd > sourceStart) {
+            if (parsesSourceString) {
+                parseSource(trimLines(record, sourceStart, sourceEnd));
+            }
+            else {
+                parseSource(record, sourceStart, sourceEnd);
+            }
         }
         else {
             RecordFormatException e = new RecordFormatException();
@@ -280,7 +316,10 @@ public class GBFormatInterpreter extends SequenceInterpreter {
     }
 
     /**
-     * Parses a sequence record into individual sections for later parsing
+     * Parses a sequence record into individual sections for later parsing.
+     * The record is read with a cursor over its lines, without splitting it
+     * into line Strings; the first FEATURES source section is kept as its
+     * bounds in the record for parseSource
      * @assumes Nothing
      * @effects Nothing
      * @param rcd A sequence record
@@ -297,46 +336,59 @@ public class GBFormatInterpreter extends SequenceInterpreter {
 
         // re-initialize vars that hold sequence record sections for later parsing
         locus = null;
-        definition = new StringBuffer();
-        accession = new StringBuffer();
+        definition.setLength(0);
+        accession.setLength(0);
         version = null;
         organism = null;
-        classification = new StringBuffer();
-        reference = new StringBuffer();
-	comment = new StringBuffer();
-        source = new StringBuffer();
-	secondarySource = new StringBuffer();
-        keywords = new StringBuffer();
-       
+        classification.setLength(0);
+        reference.setLength(0);
+        comment.setLength(0);
+        record = rcd;
+        sourceStart = 0;
+        sourceEnd = 0;
+        secondarySource.setLength(0);
+        keywords.setLength(0);
+
         // set the record attribute of the SequenceRawAttributes - we use this
         // to write out repeated sequences
         rawSeq.setRecord(rcd);
 
-        // split the record into lines
-        StringTokenizer lineSplitter = new StringTokenizer(rcd, SeqloaderConstants.CRT);
-        String line;
+        // the start of the next line
+        int next = 0;
+        int length = rcd.length();
+
         // iterate through each line getting individual sections of the sequence
-        while (lineSplitter.hasMoreTokens()) {
-          // be sure to trim each line so String.startsWith works properly
-          line = lineSplitter.nextToken().trim();
+        while (next < length) {
+          // the start and end of the line, trimmed so the tests for tags
+          // work properly
+          int start = next;
+          int end = lineEnd(rcd, start, length);
+          next = end + 1;
+          // empty lines are skipped, as by a StringTokenizer
+          if (start == end) {
+              continue;
+          }
+          end = trimEnd(rcd, start, end);
+          start = trimStart(rcd, start, end);
+
           // if we are currently looking for the LOCUS line check to see if
-          // 'line' is the LOCUS line
+          // the line is the LOCUS line
           if (currentSection== LOCUS_SECTION) {
-            if (line.startsWith(LOCUS)) {
+            if (rcd.startsWith(LOCUS, start)) {
               // get the LOCUS line
-              locus = line;
+              locus = rcd.substring(start, end);
               currentSection = DEFINITION_SECTION;
             }
           }
           // if we are currently looking for the DEFINITION line check to see
-          // if 'line' is the DEFINITION line
+          // if the line is the DEFINITION line
           else if (currentSection == DEFINITION_SECTION) {
-            if (line.startsWith(DEFINITION)) {
+            if (rcd.startsWith(DEFINITION, start)) {
               // get the first DEFINITION line
-              definition.append(line);
+              definition.append(rcd, start, end);
 
               // > 1 def line if first line does not end w/PERIOD
-              if (!line.endsWith(SeqloaderConstants.PERIOD)) {
+              if (!endsWithPeriod(rcd, start, end)) {
                 // Now were looking for another definition line
                 currentSection = ANOTHER_DEF_LINE;
               }
@@ -350,43 +402,43 @@ public class GBFormatInterpreter extends SequenceInterpreter {
           // it
           else if (currentSection == ANOTHER_DEF_LINE) {
             //get another DEFINITION line
-            definition.append(SeqloaderConstants.SPC + line);
+            definition.append(SeqloaderConstants.SPC).append(rcd, start, end);
             // period indicates last def line
-            if (line.endsWith(SeqloaderConstants.PERIOD)) {
+            if (endsWithPeriod(rcd, start, end)) {
               // now we are looking for the ACCESSION line
               currentSection = ACCESSION_SECTION;
             }
           }
           // if we are currently looking for the first ACCESSION line check to see
-          // if 'line' is the ACCESSION line
+          // if the line is the ACCESSION line
           else if (currentSection == ACCESSION_SECTION) {
-            if (line.startsWith(ACCESSION)) {
+            if (rcd.startsWith(ACCESSION, start)) {
               // get the first ACCESSION line
-              accession.append(line + SeqloaderConstants.CRT);
+              accession.append(rcd, start, end).append(SeqloaderConstants.CRT);
               // now we are looking for another accession line
               currentSection = ANOTHER_ACCESSION_LINE;
             }
           }
           // if we are currently looking for another accession line
           else if (currentSection == ANOTHER_ACCESSION_LINE) {
-            // if 'line' is not the VERSION line, it is another accession line
-            if (!line.startsWith(VERSION)) {
-              accession.append(line + SeqloaderConstants.CRT);
+            // if the line is not the VERSION line, it is another accession line
+            if (!rcd.startsWith(VERSION, start)) {
+              accession.append(rcd, start, end).append(SeqloaderConstants.CRT);
             }
-            // if 'line' is the VERSION line get it. Now we are looking for the
-            // KEYWORDS line
+            // if the line is the VERSION line get it. Now we are looking for
+            // the KEYWORDS line
             else {
               // now we are looking for KEYWORDS
-              version = line;
+              version = rcd.substring(start, end);
               currentSection = KEYWORDS_SECTION;
             }
           }
           else if (currentSection == KEYWORDS_SECTION) {
-             if (line.startsWith(KEYWORDS)) {
+             if (rcd.startsWith(KEYWORDS, start)) {
                  // get the first keywords line
-                 keywords.append(line);
+                 keywords.append(rcd, start, end);
                  // > 1 def line if first line does not end w/PERIOD
-                 if (!line.endsWith(SeqloaderConstants.PERIOD)) {
+                 if (!endsWithPeriod(rcd, start, end)) {
                      currentSection = ANOTHER_KEYWORDS_LINE;
                  }
                  else {
@@ -396,73 +448,74 @@ public class GBFormatInterpreter extends SequenceInterpreter {
           }
           // if we are currently looking for another keyword line
           else if (currentSection == ANOTHER_KEYWORDS_LINE) {
-              keywords.append(SeqloaderConstants.SPC + line);
-              if (line.endsWith(SeqloaderConstants.PERIOD)) {
+              keywords.append(SeqloaderConstants.SPC).append(rcd, start, end);
+              if (endsWithPeriod(rcd, start, end)) {
                   currentSection = ORGANISM_SECTION;
               }
           }
 
           // if we are currently looking for the ORGANISM line check to see if
-          // 'line is the ORGANISM line
+          // the line is the ORGANISM line
           else if (currentSection == ORGANISM_SECTION) {
-            if (line.startsWith(ORGANISM)) {
+            if (rcd.startsWith(ORGANISM, start)) {
               // get the ORGANISM line
-              organism = line;
-	      // now we are looking for the first REFERENCE line
+              organism = rcd.substring(start, end);
+              // now we are looking for the first REFERENCE line
               currentSection = REFERENCE_SECTION;
-	    }
+            }
           }
 
           // if we are currently looking for the first REFERENCE line check to
-          // see if 'line' is the REFERENCE line
+          // see if the line is the REFERENCE line
           else if (currentSection == REFERENCE_SECTION ) {
-            if (line.startsWith(REFERENCE)) {
+            if (rcd.startsWith(REFERENCE, start)) {
               // get the first REFERENCE line
-              reference.append(line + SeqloaderConstants.CRT);
+              reference.append(rcd, start, end).append(SeqloaderConstants.CRT);
               currentSection = ANOTHER_REFERENCE_LINE;
             }
             // records without references won't have a reference line
             // the next line we want is the COMMENT line
-            else if (line.startsWith(COMMENT)) {
-		  comment.append(line  + SeqloaderConstants.CRT);
-                  currentSection = COMMENT_SECTION;
-            }
-	    // added after source section not found when no COMMENT section
-	    else if(line.startsWith(FEATURES)) {
-		 currentSection = SOURCE_SECTION;
-	    }
+            else if (rcd.startsWith(COMMENT, start)) {
+              comment.append(rcd, start, end).append(SeqloaderConstants.CRT);
+              currentSection = COMMENT_SECTION;
+            }
+            // added after source section not found when no COMMENT section
+            else if (rcd.startsWith(FEATURES, start)) {
+              currentSection = SOURCE_SECTION;
+            }
+          }
+          // if we are looking for another REFERENCE line
+          else if (currentSection ==  ANOTHER_REFERENCE_LINE) {
+            // check to see if the line is the COMMENT line
+            if (rcd.startsWith(COMMENT, start)) {
+              comment.append(rcd, start, end).append(SeqloaderConstants.CRT);
+              currentSection = COMMENT_SECTION;
+            }
+            else if (rcd.startsWith(FEATURES, start)) {
+              currentSection = SOURCE_SECTION;
+            }
+            else {
+              reference.append(rcd, start, end).append(SeqloaderConstants.CRT);
+            }
           }
-	   // if we are looking for another REFERENCE line
-	  else if (currentSection ==  ANOTHER_REFERENCE_LINE) {
-	  // check to see if the 'line' is the COMMENT line
-	      if (line.startsWith(COMMENT)){
-                  comment.append(line  + SeqloaderConstants.CRT);
-                    currentSection = COMMENT_SECTION;
-               }
-	       else if (line.startsWith(FEATURES)) {
-			 currentSection = SOURCE_SECTION;
-		}
-		else {
-		    reference.append(line + SeqloaderConstants.CRT);
-	       }
+          else if (currentSection == COMMENT_SECTION) {
+            if (!rcd.startsWith(FEATURES, start)) {
+              comment.append(rcd, start, end).append(SeqloaderConstants.CRT);
+            }
+            // records without comments won't have a COMMENT line
+            // the next line we want is the FEATURES line where we will start
+            // looking for first features source line
+            else {
+              currentSection = SOURCE_SECTION;
+            }
           }
-	  else if(currentSection == COMMENT_SECTION) {
-		 if (!line.startsWith(FEATURES)) {
-		    comment.append(line  + SeqloaderConstants.CRT);
-		  }
-		  // records without comments won't have a COMMENT line
-            	  // the next line we want is the FEATURES line where we will start
-                  // looking for first features source line
-		 else {
-		     currentSection = SOURCE_SECTION;
-		 }
-	  }
           // if we are looking for the first FEATURES source line, check to
-          // see if 'line' is a FEATURES source line
+          // see if the line is a FEATURES source line
           else if (currentSection == SOURCE_SECTION) {
-            if (line.startsWith(SOURCE)) {
-              // get the first features source line
-              source.append(line + SeqloaderConstants.CRT);
+            if (rcd.startsWith(SOURCE, start)) {
+              // the first features source line starts the source section
+              sourceStart = start;
+              sourceEnd = end;
               // now we are looking for another features source line
               currentSection = ANOTHER_SOURCE_LINE;
             }
@@ -471,13 +524,16 @@ public class GBFormatInterpreter extends SequenceInterpreter {
           else if (currentSection == ANOTHER_SOURCE_LINE) {
             // get the rest of the FIRST features source section; if we find
             // the ORIGIN line or the end of record line we are done
-            if (!line.startsWith(SOURCE) && !line.startsWith(ORIGIN)  && !line.startsWith(CONTIG) ) {
-              source.append(line + SeqloaderConstants.CRT);
+            if (!rcd.startsWith(SOURCE, start) &&
+                !rcd.startsWith(ORIGIN, start) &&
+                !rcd.startsWith(CONTIG, start)) {
+              sourceEnd = end;
             }
             // if there is a second feature source section get it
             // added for gene traps 10/01/07
-            else if (line.startsWith (SOURCE) ) {
-                secondarySource.append(line + SeqloaderConstants.CRT);
+            else if (rcd.startsWith(SOURCE, start)) {
+                secondarySource.append(rcd, start, end).append(
+                    SeqloaderConstants.CRT);
                 currentSection = ANOTHER_SOURCE_LINE2;
             }
             else {
@@ -487,8 +543,11 @@ public class GBFormatInterpreter extends SequenceInterpreter {
           else if (currentSection == ANOTHER_SOURCE_LINE2) {
               // get the rest of the SECOND features source section; if we find
               // another source section or the ORIGIN line we are done
-              if (!line.startsWith(SOURCE) && !line.startsWith(ORIGIN) && !line.startsWith(CONTIG)) {
-                  secondarySource.append(line + SeqloaderConstants.CRT);
+              if (!rcd.startsWith(SOURCE, start) &&
+                  !rcd.startsWith(ORIGIN, start) &&
+                  !rcd.startsWith(CONTIG, start)) {
+                  secondarySource.append(rcd, start, end).append(
+                      SeqloaderConstants.CRT);
               }
               else {
                 break;
@@ -497,10 +556,24 @@ public class GBFormatInterpreter extends SequenceInterpreter {
         }
     }
 
+    /**
+     * determines if a line of a record ends with a period
+     * @param rcd the record
+     * @param start the index of the first character of the trimmed line
+     * @param end the index after the last character of the trimmed line
+     * @return true if it does
+     */
+
+    private static boolean endsWithPeriod(String rcd, int start, int end) {
+        return end > start && rcd.charAt(end - 1) == '.';
+    }
+
     /**
     * Parses molecular source attributes from the first FEATURES source
     * section of a GenBank sequence record and sets them in MSRawAttributes
-    * and SequencRawAttributes objects
+    * and SequencRawAttributes objects. interpret calls this with the
+    * section as trimmed lines when a subclass overrides it, and not
+    * parseSource(String, int, int)
     * @assumes Nothing
     * @effects Nothing
     * @param source first FEATURES source section parsed from a GenBank
@@ -537,104 +610,161 @@ public class GBFormatInterpreter extends SequenceInterpreter {
     */
 
     protected void parseSource(String source) {
-        // Split the source section into individual lines
-        StringTokenizer lineSplitter = new StringTokenizer(
-            source, SeqloaderConstants.CRT);
-        String line;
-
-        // a qualifier line split into qualifier and value on '='
-        ArrayList splitLine = null;
+        parseSource(source, 0, source.length(), false);
+    }
 
-        // the source qualifier
-        String qualifier = null;
+    /**
+    * Parses molecular source attributes from the first FEATURES source
+    * section of a GenBank sequence record, given as its bounds in the
+    * record found by parseRecord, and sets them in MSRawAttributes and
+    * SequencRawAttributes objects. Lines of only whitespace are skipped, as
+    * they were when parseRecord kept the section as trimmed lines
+    * @assumes Nothing
+    * @effects Nothing
+    * @param text the record
+    * @param start the index in 'text' of the start of the source section
+    * @param end the index in 'text' after the end of the source section
+    */
 
-        // value of the source qualifier
-        String value = null;
-        while(lineSplitter.hasMoreTokens()) {
-            line = lineSplitter.nextToken().trim();
+    protected void parseSource(String text, int start, int end) {
+        parseSource(text, start, end, true);
+    }
 
-            // all qualifiers start with '/'
-            if (line.startsWith(SeqloaderConstants.SLASH)) {
-                // split the qualifier line on '='
-                splitLine = StringLib.split(line, SeqloaderConstants.EQUAL);
-
-                // not all qualifiers require values (no '=') and not all
-                // qualifiers that require values have values (these do have '=').
-                // The qualifiers we are looking for *should* all have values.
-                if (splitLine.size() == 2) {
-                    // get the qualifier e.g. "/strain" and value e.g. "BALB/c"
-                    qualifier = (String) splitLine.get(0);
-                    value = (String) splitLine.get(1);
-                    // The values we are interested are surrounded by double quotes
-                    // Note some values don't have dbl quotes
-                    if(value.charAt(0) != '"' ) {
-                      continue;
-                    }
-                    // get the first line which is all we originally parsed
-                    // need to map new translations
-                    // covers this case:
-                    //       /strain="
-                    //       BALB/c"
-                    char lastchar;
-                    if (value.length() == 1) {
-                       // set lastchar to anything but '"' for while test below
-                       lastchar = 'x';
-                    }
-                    // Note: using char because testing for doubleQuote did not work
-                    // if last char is not double quote - value is multi-line
-                    else {
-                        lastchar = value.charAt(value.length()-1);
-                    }
+    /**
+    * Parses molecular source attributes from a region of text. A cursor
+    * moves forward over the lines of the region and each qualifier we want
+    * is taken from the text by its bounds; only a value which spans lines is
+    * built up, in a buffer reused for each value. Empty lines are skipped,
+    * as by a StringTokenizer. A line of only whitespace adds a space to a
+    * value which spans lines and counts toward the lines it may span, unless
+    * 'skipBlankLines' is true
+    * @assumes Nothing
+    * @effects Nothing
+    * @param text the text containing the source section
+    * @param start the index in 'text' of the start of the source section
+    * @param end the index in 'text' after the end of the source section
+    * @param skipBlankLines true to skip lines of only whitespace
+    */
 
-                    // double quote signals end of value, but just in case there
-                    // is no ending double quote set a ctr to avoid infinite loop
-                    int ctr = 0;
-                    while( lastchar != '"' && ctr < 10) {
-                        ctr++;
-                        if(lineSplitter.hasMoreTokens()) {
-                             value = value + " " + lineSplitter.nextToken().trim();
-                             lastchar = value.charAt(value.length()-1);
-                        }
-                    }
+    private void parseSource(String text, int start, int end,
+                             boolean skipBlankLines) {
+        // the start of the next line
+        int next = start;
 
-                    // remove leading and trailing quote
-                    value = value.substring(1, value.length()-1);
+        while (next < end) {
+            // the start and end of the line, trimmed
+            int lineStart = next;
+            int lineEnd = lineEnd(text, lineStart, end);
+            next = lineEnd + 1;
+            lineEnd = trimEnd(text, lineStart, lineEnd);
+            lineStart = trimStart(text, lineStart, lineEnd);
 
-                    // set source and raw sequence attributes
-                    if (qualifier.startsWith(LIBRARY)) {
-                        ms.setLibraryName(value);
-                        rawSeq.setLibrary(value);
-                    }
-                    else if (qualifier.startsWith(STRAIN)) {
-                      ms.setStrain(value);
-                      rawSeq.setStrain(value);
-                    }
-                    else if (qualifier.startsWith(TISSUE)) {
-                        ms.setTissue(value);
-                        rawSeq.setTissue(value);
-                    }
-                    else if (qualifier.startsWith(AGE)) {
-                        rawSeq.setAge(value);
-                    }
-                    else if (qualifier.startsWith(SEX)) {
-                        ms.setGender(value);
-                        rawSeq.setSex(value);
-                    }
-                    else if (qualifier.startsWith(CELLINE)) {
-                        ms.setCellLine(value);
-                        rawSeq.setCellLine(value);
-                    }
-                    else if (qualifier.startsWith(CLONE)) {
-                        rawSeq.setCloneId(value);
+            // all qualifiers start with '/'
+            if (lineStart == lineEnd || text.charAt(lineStart) != '/') {
+                continue;
+            }
+            // find the qualifier e.g. "/strain" and value e.g. "BALB/c", the
+            // first two tokens of the line split on '='. Empty tokens are
+            // skipped as by StringLib.split.
+            // Not all qualifiers require values (no '=') and not all
+            // qualifiers that require values have values (these do have '=').
+            // The qualifiers we are looking for *should* all have values.
+            int qualifierStart = lineStart;
+            int qualifierEnd = text.indexOf('=', lineStart);
+            if (qualifierEnd < 0 || qualifierEnd >= lineEnd) {
+                continue;
+            }
+            int valueStart = qualifierEnd;
+            while (valueStart < lineEnd && text.charAt(valueStart) == '=') {
+                valueStart++;
+            }
+            int valueEnd = valueStart;
+            while (valueEnd < lineEnd && text.charAt(valueEnd) != '=') {
+                valueEnd++;
+            }
+            // a line with more than two tokens is not a qualifier we want
+            int rest = valueEnd;
+            while (rest < lineEnd && text.charAt(rest) == '=') {
+                rest++;
+            }
+            if (valueStart == lineEnd || rest < lineEnd) {
+                continue;
+            }
+            // The values we are interested are surrounded by double quotes
+            // Note some values don't have dbl quotes
+            if (text.charAt(valueStart) != '"') {
+                continue;
+            }
+            String value;
+            if (valueEnd - valueStart > 1 && text.charAt(valueEnd - 1) == '"') {
+                // a value on one line; remove leading and trailing quote
+                value = text.substring(valueStart + 1, valueEnd - 1);
+            }
+            else {
+                // the value is multi-line; this covers the case:
+                //       /strain="
+                //       BALB/c"
+                // double quote signals end of value, but just in case there
+                // is no ending double quote take at most 10 more lines
+                valueBuffer.setLength(0);
+                valueBuffer.append(text, valueStart, valueEnd);
+                int ctr = 0;
+                while (ctr < 10 && next < end) {
+                    int contStart = next;
+                    int contEnd = lineEnd(text, contStart, end);
+                    next = contEnd + 1;
+                    // empty lines are skipped, as by a StringTokenizer
+                    if (contStart == contEnd) {
+                        continue;
                     }
-                    else if (qualifier.startsWith(NOTE)) {
-                        rawSeq.setNote(value);
+                    contEnd = trimEnd(text, contStart, contEnd);
+                    contStart = trimStart(text, contStart, contEnd);
+                    if (contStart == contEnd && skipBlankLines) {
+                        continue;
                     }
-                    else if (qualifier.startsWith(FEATURE_ORGANISM)) {
-                        rawSeq.setFeatureOrganism(value);
+                    ctr++;
+                    valueBuffer.append(' ').append(text, contStart, contEnd);
+                    if (contEnd > contStart &&
+                        text.charAt(contEnd - 1) == '"') {
+                        break;
                     }
                 }
+                // remove leading and trailing quote
+                value = valueBuffer.substring(1, valueBuffer.length() - 1);
+            }
 
+            // set source and raw sequence attributes
+            if (text.startsWith(LIBRARY, qualifierStart)) {
+                ms.setLibraryName(value);
+                rawSeq.setLibrary(value);
+            }
+            else if (text.startsWith(STRAIN, qualifierStart)) {
+                ms.setStrain(value);
+                rawSeq.setStrain(value);
+            }
+            else if (text.startsWith(TISSUE, qualifierStart)) {
+                ms.setTissue(value);
+                rawSeq.setTissue(value);
+            }
+            else if (text.startsWith(AGE, qualifierStart)) {
+                rawSeq.setAge(value);
+            }
+            else if (text.startsWith(SEX, qualifierStart)) {
+                ms.setGender(value);
+                rawSeq.setSex(value);
+            }
+            else if (text.startsWith(CELLINE, qualifierStart)) {
+                ms.setCellLine(value);
+                rawSeq.setCellLine(value);
+            }
+            else if (text.startsWith(CLONE, qualifierStart)) {
+                rawSeq.setCloneId(value);
+            }
+            else if (text.startsWith(NOTE, qualifierStart)) {
+                rawSeq.setNote(value);
+            }
+            else if (text.startsWith(FEATURE_ORGANISM, qualifierStart)) {
+                rawSeq.setFeatureOrganism(value);
             }
         }
         // 2ndary source - this is the SECOND source section which we will not
@@ -650,6 +780,108 @@ public class GBFormatInterpreter extends SequenceInterpreter {
 
     }
 
+    /**
+     * determines if a class overrides parseSource(String) and not
+     * parseSource(String, int, int), so that interpret should call the
+     * former as it did before the source section was parsed in place
+     * @param c the class, a GBFormatInterpreter or a subclass
+     * @return true if parseSource(String) is overridden alone
+     */
+
+    private static boolean overridesParseSourceString(Class c) {
+        boolean stringOverridden = false;
+        boolean boundsOverridden = false;
+        for (; c != GBFormatInterpreter.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("parseSource", new Class[] {String.class});
+                stringOverridden = true;
+            }
+            catch (NoSuchMethodException e) {
+                // not declared in this class
+            }
+            try {
+                c.getDeclaredMethod("parseSource", new Class[] {
+                    String.class, Integer.TYPE, Integer.TYPE});
+                boundsOverridden = true;
+            }
+            catch (NoSuchMethodException e) {
+                // not declared in this class
+            }
+        }
+        return stringOverridden && !boundsOverridden;
+    }
+
+    /**
+     * copies a region of text as parseRecord used to keep the source
+     * section: each line which is not empty, trimmed and followed by a
+     * new line
+     * @param text the text
+     * @param start the index of the start of the region
+     * @param end the index after the end of the region
+     * @return the trimmed lines
+     */
+
+    private static String trimLines(String text, int start, int end) {
+        StringBuffer lines = new StringBuffer();
+        int next = start;
+        while (next < end) {
+            int lineEnd = lineEnd(text, next, end);
+            if (lineEnd > next) {
+                int trimmedStart = trimStart(text, next, lineEnd);
+                lines.append(text, trimmedStart,
+                             trimEnd(text, trimmedStart, lineEnd))
+                     .append(SeqloaderConstants.CRT);
+            }
+            next = lineEnd + 1;
+        }
+        return lines.toString();
+    }
+
+    /**
+     * finds the end of a line
+     * @param text the text
+     * @param start the index of the start of the line
+     * @param end the index after the end of the region of 'text' read
+     * @return the index of the newline ending the line or 'end'
+     */
+
+    private static int lineEnd(String text, int start, int end) {
+        int eol = text.indexOf('\n', start);
+        return (eol < 0 || eol > end) ? end : eol;
+    }
+
+    /**
+     * skips the whitespace at the start of a line, as String.trim does
+     * @param text the text
+     * @param start the index of the start of the line
+     * @param end the index after the end of the line
+     * @return the index of the first character which is not whitespace or
+     *         'end'
+     */
+
+    private static int trimStart(String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * skips the whitespace at the end of a line, as String.trim does
+     * @param text the text
+     * @param start the index of the start of the line
+     * @param end the index after the end of the line
+     * @return the index after the last character which is not whitespace
+     *         or 'start'
+     */
+
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
     /**
      * Parses PubMed ids from all REFERENCE sections in a
      * GenBank sequence record where they exist. Creates a RefAssocRawAttributes
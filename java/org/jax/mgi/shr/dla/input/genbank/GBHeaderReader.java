@@ -0,0 +1,488 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.dla.input.RecordLocator;
+import org.jax.mgi.shr.dla.input.RecordReference;
+import org.jax.mgi.shr.dla.log.DLALogger;
+
+/**
+ * An iterator over the records of a GenBank format input file which reads
+ *     only the header of each record into memory
+ * @has
+ *   <UL>
+ *   <LI>the input file read through a fixed size byte buffer
+ *   <LI>a header buffer, reused for each record, which may not grow past a
+ *       maximum size
+ *   <LI>an optional RecordDataInterpreter
+ *   <LI>a logger
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>finds each record from a "LOCUS       " at the start of a line, as
+ *       a GBInputFile does
+ *   <LI>copies the lines of the record through the first ORIGIN or CONTIG
+ *       line into the header buffer; these are all the lines
+ *       GBFormatInterpreter.parseRecord reads
+ *   <LI>skips the rest of the record to the "\n//" terminator by scanning
+ *       the byte buffer, without decoding or copying it
+ *   <LI>returns each header as a String or, with an interpreter, skips the
+ *       records which are not valid and returns the interpretation of the
+ *       others. A RecordReference to the full record in the input file is
+ *       set in the object returned by the interpreter so the full record
+ *       can be read again
+ *   <LI>skips and counts a record whose header is longer than the maximum,
+ *       logging its offset, and goes on to the next record
+ *   </UL>
+ * Bytes are decoded as ISO-8859-1.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class GBHeaderReader implements DataIterator, RecordLocator {
+
+    // the start of a record
+    private static final byte[] BEGIN = "LOCUS       ".getBytes();
+
+    // the lines which end the header
+    private static final byte[] ORIGIN = "ORIGIN".getBytes();
+    private static final byte[] CONTIG = "CONTIG".getBytes();
+    private static final byte[] END = "//".getBytes();
+
+    // the size of the byte buffer
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // the name of the input file
+    private String filename;
+
+    // the input file and the bytes read from it
+    private InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferLength = 0;
+    private int bufferPos = 0;
+
+    // the offset in the file of buffer[0]
+    private long bufferStart = 0;
+
+    // true once the end of the file has been read
+    private boolean eof = false;
+
+    // the header of the current record
+    private byte[] header = new byte[64 * 1024];
+    private int headerLength = 0;
+
+    // the maximum size of a header
+    private int maxHeaderBytes;
+
+    // true if the header of the current record is longer than the maximum
+    private boolean headerTooLong = false;
+
+    // logs the records skipped for a header longer than the maximum
+    private DLALogger logger;
+
+    // the interpreter or null to return the headers
+    private RecordDataInterpreter interpreter;
+
+    // the next header, found by hasNext and not yet returned by next, and
+    // the offset and length of its record
+    private String pending = null;
+    private long pendingOffset = -1;
+    private int pendingLength = 0;
+
+    // the offset and length of the last record returned
+    private long recordOffset = -1;
+    private int recordLength = 0;
+
+    // count of records found, records skipped as not valid and bytes
+    // skipped after the headers
+    private int recordCtr = 0;
+    private int skippedCtr = 0;
+    private long skippedBytes = 0;
+
+    // count of records skipped for a header longer than the maximum
+    private int oversizedCtr = 0;
+
+    /**
+     * Constructs a GBHeaderReader over an input file
+     * @assumes nothing
+     * @effects opens the input file
+     * @param filename the name of the input file
+     * @param interpreter the interpreter for the records or null to return
+     *        the headers as Strings
+     * @param maxHeaderBytes the maximum size of the header of a record
+     * @throws MGIException if the file cannot be opened or error getting
+     *         a logger
+     */
+
+    public GBHeaderReader(String filename, RecordDataInterpreter interpreter,
+                          int maxHeaderBytes)
+        throws MGIException {
+        this.filename = filename;
+        this.interpreter = interpreter;
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.logger = DLALogger.getInstance();
+        try {
+            in = new FileInputStream(filename);
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot open input file " + filename +
+                                   ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * determines if there is another record; with an interpreter, another
+     * valid record
+     * @assumes nothing
+     * @effects records which are not valid or whose header is longer than
+     *          the maximum are skipped
+     * @return true if there is another record
+     * @throws MGIException if the input file cannot be read
+     */
+
+    public boolean hasNext() throws MGIException {
+        while (pending == null) {
+            if (!readRecord()) {
+                return false;
+            }
+            recordCtr++;
+            if (headerTooLong) {
+                oversizedCtr++;
+                logger.logdInfo("Skipping record at offset " + pendingOffset +
+                    " in " + filename + ": header is longer than " +
+                    maxHeaderBytes + " bytes", false);
+                continue;
+            }
+            String rcd = new String(header, 0, headerLength,
+                                    StandardCharsets.ISO_8859_1);
+            if (interpreter == null || interpreter.isValid(rcd)) {
+                pending = rcd;
+            }
+            else {
+                skippedCtr++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the header of the next record or its interpretation
+     * @assumes nothing
+     * @effects nothing
+     * @return the header of the record or, with an interpreter, the
+     *         interpretation of the header
+     * @throws MGIException if the input file cannot be read or the
+     *         interpreter throws an exception
+     */
+
+    public Object next() throws MGIException {
+        if (!hasNext()) {
+            throw new MGIException("No more records in " + filename);
+        }
+        String rcd = pending;
+        pending = null;
+        recordOffset = pendingOffset;
+        recordLength = pendingLength;
+        if (interpreter == null) {
+            return rcd;
+        }
+        Object o = interpreter.interpret(rcd);
+        RecordReference.setReference(o, getRecordReference());
+        return o;
+    }
+
+    /**
+     * closes the input file
+     * @assumes nothing
+     * @effects nothing
+     * @throws MGIException if the file cannot be closed
+     */
+
+    public void close() throws MGIException {
+        try {
+            in.close();
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot close input file " + filename +
+                                   ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * gets a reference to the last record returned in the input file
+     * @return the reference or null if no record has been returned
+     */
+
+    public RecordReference getRecordReference() {
+        if (recordOffset < 0) {
+            return null;
+        }
+        return new RecordReference(filename, recordOffset, recordLength);
+    }
+
+    /**
+     * gets the offset in the input file of the last record returned
+     * @return the offset or -1 if no record has been returned
+     */
+
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * gets the length in bytes of the last record returned
+     * @return the length
+     */
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * gets the number of records found
+     * @return the number of records
+     */
+
+    public int getRecordCount() {
+        return recordCtr;
+    }
+
+    /**
+     * gets the number of records skipped because they were not valid
+     * @return the number of records
+     */
+
+    public int getSkippedCount() {
+        return skippedCtr;
+    }
+
+    /**
+     * gets the number of records skipped because their header was longer
+     * than the maximum
+     * @return the number of records
+     */
+
+    public int getOversizedCount() {
+        return oversizedCtr;
+    }
+
+    /**
+     * gets the number of bytes skipped after the headers of the records
+     * @return the number of bytes
+     */
+
+    public long getSkippedBytes() {
+        return skippedBytes;
+    }
+
+    /**
+     * reads the header of the next record into the header buffer and skips
+     * the rest of the record
+     * @effects sets headerTooLong if the header is longer than the maximum
+     * @return false if there are no more records
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private boolean readRecord() throws MGIException {
+        // find BEGIN at the start of a line
+        while (!lineStartsWith(BEGIN)) {
+            if (!skipLine()) {
+                return false;
+            }
+        }
+        pendingOffset = bufferStart + bufferPos;
+        headerLength = 0;
+        headerTooLong = false;
+
+        // copy lines through the first ORIGIN or CONTIG line or to the
+        // end of the record
+        boolean atEnd = false;
+        while (true) {
+            boolean origin = lineStartsWith(ORIGIN) || lineStartsWith(CONTIG);
+            atEnd = lineStartsWith(END);
+            if (!copyLine() || origin || atEnd) {
+                break;
+            }
+        }
+        if (!atEnd) {
+            skipToEnd();
+        }
+        else if (headerLength > 0 && header[headerLength - 1] == '\n') {
+            // the record ends with "\n//" not the newline after it
+            headerLength--;
+            pendingLength = (int) (bufferStart + bufferPos - 1 -
+                                   pendingOffset);
+            return true;
+        }
+        pendingLength = (int) (bufferStart + bufferPos - pendingOffset);
+        return true;
+    }
+
+    /**
+     * determines if the line at the current position starts with a prefix
+     * @param prefix the prefix
+     * @return true if it does
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private boolean lineStartsWith(byte[] prefix) throws MGIException {
+        if (!fill(prefix.length)) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[bufferPos + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * skips the line at the current position
+     * @return false if the end of the file has been reached
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private boolean skipLine() throws MGIException {
+        while (fill(1)) {
+            while (bufferPos < bufferLength) {
+                if (buffer[bufferPos++] == '\n') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * copies the line at the current position into the header buffer
+     * @return false if the end of the file has been reached
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private boolean copyLine() throws MGIException {
+        while (fill(1)) {
+            int start = bufferPos;
+            boolean eol = false;
+            while (bufferPos < bufferLength) {
+                if (buffer[bufferPos++] == '\n') {
+                    eol = true;
+                    break;
+                }
+            }
+            append(start, bufferPos - start);
+            if (eol) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * skips the rest of a record to just after the next "\n//", starting
+     * at the start of a line
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private void skipToEnd() throws MGIException {
+        // the number of bytes of "\n//" matched; at the start of a line the
+        // newline has been matched
+        int matched = 1;
+        long start = bufferStart + bufferPos;
+        while (fill(1)) {
+            byte[] b = buffer;
+            int i = bufferPos;
+            int n = bufferLength;
+            while (i < n) {
+                byte c = b[i++];
+                if (c == '\n') {
+                    matched = 1;
+                }
+                else if (c == '/' && matched > 0) {
+                    if (++matched == 3) {
+                        bufferPos = i;
+                        skippedBytes += bufferStart + bufferPos - start;
+                        return;
+                    }
+                }
+                else {
+                    matched = 0;
+                }
+            }
+            bufferPos = i;
+        }
+        skippedBytes += bufferStart + bufferPos - start;
+    }
+
+    /**
+     * appends bytes of the byte buffer to the header buffer; once the header
+     * would be longer than the maximum nothing more is appended
+     * @effects sets headerTooLong if the header is longer than the maximum
+     * @param start the offset of the bytes in the byte buffer
+     * @param length the number of bytes
+     */
+
+    private void append(int start, int length) {
+        if (headerTooLong) {
+            return;
+        }
+        if (headerLength + length > maxHeaderBytes) {
+            headerTooLong = true;
+            return;
+        }
+        if (headerLength + length > header.length) {
+            int size = Math.min(Math.max(header.length * 2,
+                                         headerLength + length),
+                                maxHeaderBytes);
+            byte[] bigger = new byte[size];
+            System.arraycopy(header, 0, bigger, 0, headerLength);
+            header = bigger;
+        }
+        System.arraycopy(buffer, start, header, headerLength, length);
+        headerLength += length;
+    }
+
+    /**
+     * makes sure the byte buffer holds at least a number of bytes from the
+     * current position, reading more of the input file if needed
+     * @param count the number of bytes
+     * @return false if the end of the file is reached first
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private boolean fill(int count) throws MGIException {
+        while (bufferLength - bufferPos < count) {
+            if (eof) {
+                return false;
+            }
+            // move the unread bytes to the start of the buffer
+            int unread = bufferLength - bufferPos;
+            System.arraycopy(buffer, bufferPos, buffer, 0, unread);
+            bufferStart += bufferPos;
+            bufferPos = 0;
+            bufferLength = unread;
+            try {
+                int n = in.read(buffer, bufferLength,
+                                buffer.length - bufferLength);
+                if (n < 0) {
+                    eof = true;
+                }
+                else {
+                    bufferLength += n;
+                }
+            }
+            catch (IOException e) {
+                throw new MGIException("Cannot read input file " + filename +
+                                       ": " + e.getMessage());
+            }
+        }
+        return true;
+    }
+}
@@ -1,7 +1,6 @@
 package org.jax.mgi.shr.dla.input.genbank;
 
 import java.util.*;
-import java.util.regex.*;
 
 import org.jax.mgi.shr.config.OrganismCheckerCfg;
 import org.jax.mgi.shr.config.ConfigException;
@@ -39,27 +38,21 @@ import org.jax.mgi.shr.dla.input.*;
  */
 
 public class GBOrganismChecker implements OrganismChecker {
-    // expression string, pattern, and matcher to find the classification
-    // section of a GenBank format sequence record
-    // Note the ? forces searching until the FIRST instance of REFERENCE is found
-    // without the ? it will search until the LAST instance
-    private static final String ORG_EXPRESSION = "ORGANISM([\\s\\S]*?)REFERENCE";
-
-    // this one doesn't work because in the case of organism being 'Mus sp.'
-    // it stops at 'Mus sp.' does not get the full classification
-    //private static final String EXPRESSION = "ORGANISM([^.]+).*";
-
-    private Pattern orgPattern;
-    private Matcher orgMatcher;
+    // the classification section of a GenBank format sequence record runs
+    // from the FIRST instance of ORGANISM to the FIRST instance of REFERENCE
+    // after it, as the ORGANISM([\s\S]*?)REFERENCE expression used to find
+    // it. In a well formed record both are in the header, so the search
+    // stops there
+    private static final String ORGANISM = "ORGANISM";
+    private static final String REFERENCE = "REFERENCE";
 
     // not all RefSeqs have a REFERENCE section, but they do have a FEATURES
     // section
-    private static final String ORG_ALT_EXPRESSION = "ORGANISM([\\s\\S]*?)FEATURES";
-    private Pattern orgAltPattern;
-    private Matcher orgAltMatcher;
+    private static final String FEATURES = "FEATURES";
 
-    // true if any decider returns true
-    private boolean isA;
+    // finds the expressions of all the deciders in one pass over the
+    // classification; pattern i is the expression of decider i
+    private MultiPatternMatcher deciderMatcher;
 
     // count of total records looked at
     private int totalCtr = 0;
@@ -113,9 +106,13 @@ public class GBOrganismChecker implements OrganismChecker {
           deciders.add(new GBHumanDecider());
         }
 
-        // compile expression to find the classification section of a record
-        orgPattern = Pattern.compile(ORG_EXPRESSION, Pattern.MULTILINE);
-        orgAltPattern = Pattern.compile(ORG_ALT_EXPRESSION, Pattern.MULTILINE);
+        // build a matcher for the expressions of the deciders
+        String[] expressions = new String[deciders.size()];
+        for (int i = 0; i < deciders.size(); i++) {
+            expressions[i] =
+                si.getExpression(((SeqDecider)deciders.get(i)).getName());
+        }
+        deciderMatcher = new MultiPatternMatcher(expressions);
         logger = DLALogger.getInstance();
     }
 
@@ -128,62 +125,103 @@ public class GBOrganismChecker implements OrganismChecker {
     * @return true if 'record' is an organism represented by one of
     *         the deciders.
     * @throws Nothing
+    * Safe to call from multiple parse threads.
     */
 
     public boolean checkOrganism(String record) {
-        //DEBUG
-        //stopWatch.reset();
-        //stopWatch.start();
+        return checkOrganism((CharSequence)record);
+    }
 
-        totalCtr++;
-        // reset
-        isA = false;
+    /**
+    * Determines if a sequence record is an organism represented by the set
+    * of deciders without copying the record, e.g. when the record is a view
+    * over a memory mapped input file. Only the classification is copied.
+    * @assumes Nothing
+    * @effects Nothing
+    * @param record a sequence record
+    * @return true if 'record' is an organism represented by one of
+    *         the deciders.
+    * @throws Nothing
+    * Safe to call from multiple parse threads.
+    */
+
+    public boolean checkOrganism(CharSequence record) {
+        synchronized (this) {
+            totalCtr++;
+        }
 
         // find the classification section of this record
-        orgMatcher = orgPattern.matcher(record);
-        orgAltMatcher = orgAltPattern.matcher(record);
-        Iterator i = deciders.iterator();
+        int org = indexOf(record, ORGANISM, 0, record.length());
+        if (org < 0) {
+            return false;
+        }
+        int start = org + ORGANISM.length();
+        int end = indexOf(record, REFERENCE, start, record.length());
 
-        if (orgMatcher.find() == true) {
-            // Determine if we are interested in this sequence
-            while (i.hasNext()) {
-                SeqDecider currentDecider = (SeqDecider)i.next();
-                // m.group(1) is the classification
-                if(currentDecider.isA(orgMatcher.group(1))) {
-                    trueCtr++;
-                    isA = true;
-                    break;
-                }
-            }
+        // if we don't find the classification this may be a refseq record
+        // without a REFERENCE section; it ends at FEATURES instead
+        if (end < 0) {
+            end = indexOf(record, FEATURES, start, record.length());
+        }
+        if (end < 0) {
+            return false;
         }
 
-        // if we don't find the classification, try a different Matcher - this
-        // may be a refseq record
-        else if (orgAltMatcher.find() == true) {
-            // Determine if we are interested in this sequence
-            while (i.hasNext()) {
-                SeqDecider currentDecider = (SeqDecider)i.next();
-                // m.group(1) is the classification
-                if(currentDecider.isA(orgAltMatcher.group(1))) {
+        // Determine if we are interested in this sequence; the first
+        // decider in configured order that matches is counted
+        int found = deciderMatcher.match(record, start, end);
+        for (int i = 0; i < deciders.size(); i++) {
+            if ((found & (1 << i)) != 0) {
+                ((SeqDecider)deciders.get(i)).countTrue();
+                synchronized (this) {
                     trueCtr++;
-                    isA = true;
-                    break;
                 }
+                return true;
             }
         }
+        return false;
+      }
+
+    /**
+    * Determines if a string occurs at an index of a sequence record
+    * @param record a sequence record
+    * @param index the index
+    * @param s the string
+    * @return true if 's' occurs at 'index'
+    */
 
-        /*if (isA == false) {
-            logger.logdDebug("Not a valid record", true);
+    private static boolean startsWith(CharSequence record, int index,
+                                      String s) {
+        if (index + s.length() > record.length()) {
+            return false;
         }
-        */
+        for (int j = 0; j < s.length(); j++) {
+            if (record.charAt(index + j) != s.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // DEBUG
-        //stopWatch.stop();
-        //logger.logdDebug("checkOrganism time: " + stopWatch.time());
-        //logger.logdDebug("Free memory: " + runTime.freeMemory());
+    /**
+    * Finds the first occurrence of a string in a region of a sequence record
+    * @param record a sequence record
+    * @param s the string
+    * @param from the index to search from
+    * @param to the index the string must end by
+    * @return the index of 's' or -1 if it does not occur in the region
+    */
 
-        return isA;
-      }
+    private static int indexOf(CharSequence record, String s, int from,
+                               int to) {
+        char first = s.charAt(0);
+        for (int i = from; i + s.length() <= to; i++) {
+            if (record.charAt(i) == first && startsWith(record, i, s)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
     /**
     * Gets the total records looked at, the total records for which checkOrganism
@@ -193,7 +231,7 @@ public class GBOrganismChecker implements OrganismChecker {
     * @return Vector of Strings, each String contains the decider name
     *         and the count of records for which the decider returned true
     */
-    public Vector getDeciderCounts () {
+    public synchronized Vector getDeciderCounts () {
       Vector v = new Vector();
       v.add("Total Sequences looked at: " + totalCtr + SeqloaderConstants.CRT);
 
@@ -217,6 +255,27 @@ public class GBOrganismChecker implements OrganismChecker {
        return v;
     }
 
+    /**
+    * Gets the deciders in configured order, for comparing the decider
+    * answers with the expressions they match
+    * @assumes Nothing
+    * @effects Nothing
+    * @return Vector of SeqDeciders
+    */
+    Vector getDeciders() {
+        return deciders;
+    }
+
+    /**
+    * Gets the interrogator which maps the decider names to their expressions
+    * @assumes Nothing
+    * @effects Nothing
+    * @return the interrogator
+    */
+    Interrogator getInterrogator() {
+        return si;
+    }
+
     /**
      * an object that applies this predicate to the classification section
      * of a GenBank sequence record
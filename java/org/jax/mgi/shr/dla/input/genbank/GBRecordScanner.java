@@ -0,0 +1,395 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.dla.input.ByteCharSequence;
+import org.jax.mgi.shr.dla.input.RecordLocator;
+import org.jax.mgi.shr.dla.input.RecordReference;
+
+/**
+ * An iterator over the records of a GenBank format input file which memory
+ *     maps the file and finds the records by searching the mapped bytes
+ * @has
+ *   <UL>
+ *   <LI>the input file mapped a window at a time
+ *   <LI>an optional RecordDataInterpreter
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>finds each record from a "LOCUS       " at the start of a line
+ *       through the next "\n//", as a GBInputFile does, without reading the
+ *       file through a Reader or building a String for the record
+ *   <LI>without an interpreter returns each record as a ByteCharSequence
+ *       view over the mapped file
+ *   <LI>with an interpreter skips records which are not valid and returns
+ *       the interpretation of the others. A GBFormatInterpreter which
+ *       does not override isValid checks the organism of the view in place,
+ *       so a String is only built for the records which are interpreted.
+ *       A RecordReference to the record in the input file is set in the
+ *       object returned by the interpreter
+ *   </UL>
+ * Windows are mapped read only and are unmapped by the garbage collector
+ * once no view refers to them, so views remain valid after the iterator
+ * moves on. Bytes are decoded as ISO-8859-1.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class GBRecordScanner implements DataIterator, RecordLocator {
+
+    // the start and end of a record
+    private static final byte[] BEGIN = "LOCUS       ".getBytes();
+    private static final byte[] END = "\n//".getBytes();
+
+    // the default number of bytes mapped at a time
+    private static final int WINDOW_SIZE = 256 * 1024 * 1024;
+
+    // the number of bytes mapped at a time; a record longer than this is
+    // mapped by itself
+    private int windowSize;
+
+    // the name of the input file
+    private String filename;
+
+    // the input file
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long fileSize;
+
+    // the current window and its offset in the file
+    private MappedByteBuffer window = null;
+    private long windowStart = 0;
+
+    // the offset in the file to search for the next record from
+    private long cursor = 0;
+
+    // the interpreter or null to return the records as views
+    private RecordDataInterpreter interpreter;
+
+    // true if the interpreter checks the organism of a view in place
+    private boolean checkInPlace;
+
+    // the next record, found by hasNext and not yet returned by next
+    private ByteCharSequence pending = null;
+
+    // the offset and length of the last record returned
+    private long recordOffset = -1;
+    private int recordLength = 0;
+
+    // count of records found and records skipped as not valid
+    private int recordCtr = 0;
+    private int skippedCtr = 0;
+
+    /**
+     * Constructs a GBRecordScanner over an input file
+     * @assumes nothing
+     * @effects opens the input file
+     * @param filename the name of the input file
+     * @param interpreter the interpreter for the records or null to return
+     *        the records as ByteCharSequence views
+     * @throws MGIException if the file cannot be opened
+     */
+
+    public GBRecordScanner(String filename, RecordDataInterpreter interpreter)
+        throws MGIException {
+        this(filename, interpreter, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a GBRecordScanner over an input file which maps windows of
+     * the given size, so tests can place records across window edges
+     * @assumes windowSize is at least the length of "LOCUS       "
+     * @effects opens the input file
+     * @param filename the name of the input file
+     * @param interpreter the interpreter for the records or null to return
+     *        the records as ByteCharSequence views
+     * @param windowSize the number of bytes to map at a time
+     * @throws MGIException if the file cannot be opened
+     */
+
+    GBRecordScanner(String filename, RecordDataInterpreter interpreter,
+                    int windowSize) throws MGIException {
+        this.filename = filename;
+        this.windowSize = windowSize;
+        this.interpreter = interpreter;
+        this.checkInPlace = canCheckInPlace(interpreter);
+        try {
+            file = new RandomAccessFile(filename, "r");
+            channel = file.getChannel();
+            fileSize = channel.size();
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot open input file " + filename +
+                                   ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * determines if there is another record; with an interpreter, another
+     * valid record
+     * @assumes nothing
+     * @effects records which are not valid are skipped
+     * @return true if there is another record
+     * @throws MGIException if the input file cannot be read
+     */
+
+    public boolean hasNext() throws MGIException {
+        while (pending == null) {
+            ByteCharSequence record = nextRecord();
+            if (record == null) {
+                return false;
+            }
+            recordCtr++;
+            if (interpreter == null || isValid(record)) {
+                pending = record;
+            }
+            else {
+                skippedCtr++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the next record or its interpretation
+     * @assumes nothing
+     * @effects nothing
+     * @return the ByteCharSequence view of the record or, with an
+     *         interpreter, the interpretation of the record
+     * @throws MGIException if the input file cannot be read or the
+     *         interpreter throws an exception
+     */
+
+    public Object next() throws MGIException {
+        if (!hasNext()) {
+            throw new MGIException("No more records in " + filename);
+        }
+        ByteCharSequence record = pending;
+        pending = null;
+        recordOffset = record.getFileOffset();
+        recordLength = record.length();
+        if (interpreter == null) {
+            return record;
+        }
+        Object o = interpreter.interpret(record.toString());
+        RecordReference.setReference(o, getRecordReference());
+        return o;
+    }
+
+    /**
+     * closes the input file
+     * @assumes nothing
+     * @effects views remain valid after the file is closed
+     * @throws MGIException if the file cannot be closed
+     */
+
+    public void close() throws MGIException {
+        try {
+            file.close();
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot close input file " + filename +
+                                   ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * gets a reference to the last record returned in the input file
+     * @return the reference or null if no record has been returned
+     */
+
+    public RecordReference getRecordReference() {
+        if (recordOffset < 0) {
+            return null;
+        }
+        return new RecordReference(filename, recordOffset, recordLength);
+    }
+
+    /**
+     * gets the offset in the input file of the last record returned
+     * @return the offset or -1 if no record has been returned
+     */
+
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * gets the length in bytes of the last record returned
+     * @return the length
+     */
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * gets the number of records found
+     * @return the number of records
+     */
+
+    public int getRecordCount() {
+        return recordCtr;
+    }
+
+    /**
+     * gets the number of records skipped because they were not valid
+     * @return the number of records
+     */
+
+    public int getSkippedCount() {
+        return skippedCtr;
+    }
+
+    /**
+     * determines if an interpreter can check the organism of a record in
+     * place, i.e. it is a GBFormatInterpreter which does not override
+     * isValid(String)
+     * @assumes nothing
+     * @effects nothing
+     * @param interpreter the interpreter
+     * @return true if GBFormatInterpreter.isValid(CharSequence) gives the
+     *         same answer as the isValid(String) of the interpreter
+     */
+
+    public static boolean canCheckInPlace(RecordDataInterpreter interpreter) {
+        if (!(interpreter instanceof GBFormatInterpreter)) {
+            return false;
+        }
+        try {
+            return interpreter.getClass().getMethod(
+                "isValid", new Class[] {String.class}).getDeclaringClass() ==
+                GBFormatInterpreter.class;
+        }
+        catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * determines if a record is valid for the interpreter
+     * @param record the record
+     * @return true if the record is valid
+     * @throws MGIException if the interpreter throws an exception
+     */
+
+    private boolean isValid(ByteCharSequence record) throws MGIException {
+        if (checkInPlace) {
+            return ((GBFormatInterpreter) interpreter).isValid(record);
+        }
+        return interpreter.isValid(record.toString());
+    }
+
+    /**
+     * finds the next record in the input file
+     * @return a view of the record or null if there are no more records
+     * @throws MGIException if the input file cannot be read or a record
+     *         is too long to map
+     */
+
+    private ByteCharSequence nextRecord() throws MGIException {
+        // the record begins with BEGIN at the start of a line
+        long begin = find(BEGIN, cursor);
+        while (begin > 0 && byteAt(begin - 1) != '\n') {
+            begin = find(BEGIN, begin + 1);
+        }
+        if (begin < 0) {
+            cursor = fileSize;
+            return null;
+        }
+        // and ends after the next END or at the end of the file
+        long end = find(END, begin + BEGIN.length);
+        end = (end < 0) ? fileSize : end + END.length;
+        cursor = end;
+
+        if (end - begin > Integer.MAX_VALUE) {
+            throw new MGIException("Record at offset " + begin + " in " +
+                                   filename + " is too long to map");
+        }
+        if (begin < windowStart || end > windowStart + window.limit()) {
+            map(begin, end - begin);
+        }
+        return new ByteCharSequence(window, (int) (begin - windowStart),
+                                    (int) (end - begin), begin);
+    }
+
+    /**
+     * finds the next occurence of a pattern in the input file
+     * @param pattern the pattern
+     * @param from the offset in the file to search from
+     * @return the offset of the pattern in the file or -1 if not found
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private long find(byte[] pattern, long from) throws MGIException {
+        while (from + pattern.length <= fileSize) {
+            if (window == null || from < windowStart ||
+                from + pattern.length > windowStart + window.limit()) {
+                map(from, pattern.length);
+            }
+            int last = window.limit() - pattern.length;
+            byte first = pattern[0];
+            for (int i = (int) (from - windowStart); i <= last; i++) {
+                if (window.get(i) != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < pattern.length &&
+                       window.get(i + j) == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length) {
+                    return windowStart + i;
+                }
+            }
+            if (windowStart + window.limit() >= fileSize) {
+                return -1;
+            }
+            // search again in the next window, overlapping this one so
+            // a pattern spanning the two windows is found
+            from = windowStart + last + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * gets a byte of the input file
+     * @param offset the offset of the byte in the file
+     * @return the byte
+     * @throws MGIException if the input file cannot be read
+     */
+
+    private byte byteAt(long offset) throws MGIException {
+        if (offset < windowStart || offset >= windowStart + window.limit()) {
+            map(offset, 1);
+        }
+        return window.get((int) (offset - windowStart));
+    }
+
+    /**
+     * maps a window of the input file
+     * @param start the offset in the file of the window
+     * @param minSize the minimum number of bytes to map
+     * @throws MGIException if the input file cannot be mapped
+     */
+
+    private void map(long start, long minSize) throws MGIException {
+        long size = Math.min(Math.max(windowSize, minSize),
+                             fileSize - start);
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            windowStart = start;
+        }
+        catch (IOException e) {
+            throw new MGIException("Cannot map " + filename + " at offset " +
+                                   start + ": " + e.getMessage());
+        }
+    }
+}
@@ -86,6 +86,10 @@ public class MGSAssemblyFormatInterpreter extends SequenceInterpreter {
     // raw attributes for the sequence's seqid = reused by calling reset()
     private AccessionRawAttributes rawAcc = new AccessionRawAttributes();
 
+    // true if the SequenceInput, rawSeq and rawAcc are reused for each
+    // record, false if new ones are created for each record
+    private boolean reuseObjects = true;
+
     /**
      * Constructs a MGSAssemblyFormatInterpreter
      * @throws ConfigException if can't find configuration file
@@ -102,6 +106,19 @@ public class MGSAssemblyFormatInterpreter extends SequenceInterpreter {
         createRawSource();
   }
 
+  /**
+   * sets whether the SequenceInput returned by interpret is reused for the
+   * next record. It must not be when records are parsed ahead of being
+   * processed, e.g. by a SeqParsePipeline
+   * @assumes nothing
+   * @effects nothing
+   * @param reuseObjects true to reuse the SequenceInput (the default), false
+   *        to create a new one for each record
+   */
+  public void setReuseObjects(boolean reuseObjects) {
+      this.reuseObjects = reuseObjects;
+  }
+
   /**
   * a predicate that returns false if 'record' starts with '#' (indicating a
   * comment), else true
@@ -129,9 +146,16 @@ public class MGSAssemblyFormatInterpreter extends SequenceInterpreter {
     */
     public Object interpret(String rcd) throws RecordFormatException {
         // reset objects - don't reset rawMS, rawRefAssoc, it is same for all sequences
-        sequenceInput.reset();
-        rawSeq.reset();
-        rawAcc.reset();
+        if (reuseObjects) {
+            sequenceInput.reset();
+            rawSeq.reset();
+            rawAcc.reset();
+        }
+        else {
+            sequenceInput = new SequenceInput();
+            rawSeq = new SequenceRawAttributes();
+            rawAcc = new AccessionRawAttributes();
+        }
 
         // get values from the record
         parseRecord(rcd);
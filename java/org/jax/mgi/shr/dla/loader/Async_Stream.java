@@ -0,0 +1,325 @@
+package org.jax.mgi.shr.dla.loader;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.dao.DAO;
+import org.jax.mgi.shr.dbutils.dao.Batch_Stream;
+
+/**
+ * An SQLStream which executes its statements as jdbc batches on a writer
+ * thread so the thread using the stream does not wait on the database
+ * @has a queue of DAOs waiting to be written and a writer thread
+ * @does queues each insert, update and delete and returns; the writer
+ * thread takes them from the queue in order and adds them to the jdbc
+ * batch of the Batch_Stream. Closing the stream waits for the queue to be
+ * written and executes the remaining batch. The queue holds a fixed
+ * number of statements; when it is full the thread using the stream waits
+ * for the writer to catch up. An error on the writer thread
+ * stops the writer and is thrown from the next call on the stream. Meant
+ * for the qc stream, whose SQLDataManager is not used by any other thread.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class Async_Stream extends Batch_Stream {
+
+  // operations on the queue
+  private static final int INSERT = 0;
+  private static final int UPDATE = 1;
+  private static final int DELETE = 2;
+  private static final int FLUSH = 3;
+
+  // the default number of statements which can wait to be written
+  public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+  // the statements waiting to be written
+  private LinkedBlockingQueue queue = null;
+  // the thread writing the statements
+  private Thread writer = null;
+  // the first error on the writer thread
+  private volatile DBException error = null;
+  // true once close has been called
+  private boolean closed = false;
+  // number of statements written
+  private volatile int writtenCtr = 0;
+
+  /**
+   * constructor which starts the writer thread with a queue of the default
+   * size
+   * @assumes the SQLDataManager is not used by any other thread
+   * @effects starts a thread
+   * @param sqlMgr the database manager
+   */
+  public Async_Stream(SQLDataManager sqlMgr)
+  {
+    this(sqlMgr, DEFAULT_QUEUE_SIZE);
+  }
+
+  /**
+   * constructor which starts the writer thread
+   * @assumes the SQLDataManager is not used by any other thread
+   * @effects starts a thread
+   * @param sqlMgr the database manager
+   * @param queueSize the number of statements which can wait to be
+   * written before the thread using the stream waits
+   */
+  public Async_Stream(SQLDataManager sqlMgr, int queueSize)
+  {
+    super(sqlMgr);
+    queue = new LinkedBlockingQueue(queueSize);
+    writer = new Thread(new Runnable() {
+      public void run() {
+        write();
+      }
+    }, "Async_Stream");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * queue an insert
+   * @assumes nothing
+   * @effects the insert will be added to a batch on the writer thread
+   * @param dao the DAO to insert
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  public void insert(DAO dao) throws DBException
+  {
+    put(INSERT, dao);
+  }
+
+  /**
+   * queue an update
+   * @assumes nothing
+   * @effects the update will be added to a batch on the writer thread
+   * @param dao the DAO to update
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  public void update(DAO dao) throws DBException
+  {
+    put(UPDATE, dao);
+  }
+
+  /**
+   * queue a delete
+   * @assumes nothing
+   * @effects the delete will be added to a batch on the writer thread
+   * @param dao the DAO to delete
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  public void delete(DAO dao) throws DBException
+  {
+    put(DELETE, dao);
+  }
+
+  /**
+   * wait until the statements queued so far have been added to the batch
+   * @assumes nothing
+   * @effects nothing
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  public void flush() throws DBException
+  {
+    Entry marker = new Entry(FLUSH, null);
+    put(marker);
+    try {
+      marker.done.await();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    checkError();
+  }
+
+  /**
+   * write the queued statements, execute the batch and stop the writer
+   * thread
+   * @assumes nothing
+   * @effects the statements are executed; calling close again does nothing
+   * @throws DBException thrown if there was an error writing the statements
+   */
+  public void close() throws DBException
+  {
+    synchronized (this) {
+      if (closed)
+        return;
+    }
+    Entry marker = new Entry(FLUSH, null);
+    putEntry(marker);
+    try {
+      marker.done.await();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      closed = true;
+    }
+    writer.interrupt();
+    try {
+      writer.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    checkError();
+    super.close();
+  }
+
+  /**
+   * get the number of statements written to the batch
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of statements
+   */
+  public int getWrittenCount()
+  {
+    return writtenCtr;
+  }
+
+  /**
+   * queue a statement
+   * @param op the operation
+   * @param dao the DAO
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  private void put(int op, DAO dao) throws DBException
+  {
+    put(new Entry(op, dao));
+  }
+
+  /**
+   * queue an entry, writing it on this thread if the stream is closed
+   * @param entry the entry
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  private void put(Entry entry) throws DBException
+  {
+    checkError();
+    synchronized (this) {
+      if (closed) {
+        if (entry.op == FLUSH)
+          entry.done.countDown();
+        else
+          execute(entry);
+        return;
+      }
+      putEntry(entry);
+    }
+  }
+
+  /**
+   * put an entry on the queue, waiting while the queue is full
+   * @param entry the entry
+   */
+  private void putEntry(Entry entry)
+  {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        queue.put(entry);
+        break;
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * throw the error from the writer thread if there was one
+   * @throws DBException the error
+   */
+  private void checkError() throws DBException
+  {
+    if (error != null)
+      throw error;
+  }
+
+  /**
+   * the writer thread loop
+   */
+  private void write()
+  {
+    while (true) {
+      Entry entry = null;
+      try {
+        entry = (Entry)queue.take();
+      }
+      catch (InterruptedException e) {
+        synchronized (this) {
+          if (closed) {
+            // write anything queued while closing
+            while ((entry = (Entry)queue.poll()) != null)
+              writeEntry(entry);
+            return;
+          }
+        }
+        continue;
+      }
+      writeEntry(entry);
+    }
+  }
+
+  /**
+   * write an entry on the writer thread, recording any error
+   * @param entry the entry
+   */
+  private void writeEntry(Entry entry)
+  {
+    if (entry.op == FLUSH) {
+      entry.done.countDown();
+      return;
+    }
+    if (error != null)
+      return; // discard after an error
+    try {
+      execute(entry);
+    }
+    catch (DBException e) {
+      error = e;
+    }
+  }
+
+  /**
+   * add an entry to the batch of the Batch_Stream
+   * @param entry the entry
+   * @throws DBException thrown if there is an error adding to the batch
+   */
+  private void execute(Entry entry) throws DBException
+  {
+    if (entry.op == INSERT)
+      super.insert(entry.dao);
+    else if (entry.op == UPDATE)
+      super.update(entry.dao);
+    else
+      super.delete(entry.dao);
+    writtenCtr++;
+  }
+
+  /**
+   * a queued statement
+   * @has an operation and a DAO
+   * @does nothing
+   * @company The Jackson Laboratory
+   * @author sc
+   * @version 1.0
+   */
+  private static class Entry {
+    private int op;
+    private DAO dao;
+    // counted down when a flush marker has been reached
+    private CountDownLatch done = new CountDownLatch(1);
+
+    private Entry(int op, DAO dao) {
+      this.op = op;
+      this.dao = dao;
+    }
+  }
+}
@@ -0,0 +1,516 @@
+package org.jax.mgi.shr.dla.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.jax.mgi.shr.dbutils.SQLDataManager;
+import org.jax.mgi.shr.dbutils.Table;
+import org.jax.mgi.shr.dbutils.DBException;
+import org.jax.mgi.shr.dbutils.DBExceptionFactory;
+import org.jax.mgi.shr.dbutils.dao.DAO;
+import org.jax.mgi.shr.dbutils.dao.Inline_Stream;
+
+/**
+ * An SQLStream which sends inserts for a set of tables to PostgreSQL with
+ * COPY FROM STDIN and executes all other statements inline
+ * @has a SQLDataManager, the names of the tables to copy in the order they
+ * are to be written, a buffer of rows in COPY text format for each
+ * of those tables, and a writer thread with a queue of chunks of rows
+ * waiting to be written
+ * @does formats the bcp vector of each inserted DAO for a copied table as a
+ * COPY text row and buffers it. When the buffered rows reach the chunk size
+ * they are handed to the writer thread, which writes them to the database
+ * with one COPY per table in the configured order, so parent rows are
+ * written before the rows referencing them. The next chunk is formatted
+ * while the writer copies the last one. The queue holds a fixed number of
+ * chunks; when it is full the thread using the stream waits for the writer
+ * to catch up. Before any other insert, update or delete, and on close, the
+ * buffered rows are handed off and the stream waits for the writer to
+ * finish, so statements are executed in order. Inserts for any other
+ * table, including DAOs without bcp support, updates and deletes are
+ * executed as they are by the Inline_Stream. An error on the writer thread
+ * stops the writer and is thrown from the next call on the stream. Rows are sent in text format because it needs no knowledge
+ * of the column types; values are written as their string values with the
+ * COPY escapes. The CopyManager of the PostgreSQL JDBC driver is found by
+ * reflection so the driver is needed only at run time.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class Copy_Stream extends Inline_Stream {
+
+  // the default number of chunks which can wait to be written
+  public static final int DEFAULT_QUEUE_SIZE = 2;
+
+  // the database manager
+  private SQLDataManager sqlMgr = null;
+  // the names of the tables to copy in the order they are written
+  private String[] tables = null;
+  // the buffered rows keyed by lower case table name (StringBuilder)
+  private HashMap buffers = new HashMap();
+  // number of rows buffered over all tables
+  private int bufferedRows = 0;
+  // number of rows to buffer before writing
+  private int chunkSize = 0;
+  // the chunks waiting to be written
+  private LinkedBlockingQueue queue = null;
+  // the thread writing the chunks
+  private Thread writer = null;
+  // the first error on the writer thread
+  private volatile DBException error = null;
+  // true once the writer thread has been stopped
+  private boolean closed = false;
+  // number of rows written with COPY
+  private volatile long copiedRows = 0;
+  // number of COPY statements executed
+  private volatile int copyCtr = 0;
+
+  /**
+   * constructor which starts the writer thread with a queue of the default
+   * size
+   * @assumes the database is PostgreSQL
+   * @effects starts a thread
+   * @param sqlMgr the database manager
+   * @param tables the names of the tables to copy, parent tables first
+   * @param chunkSize the number of rows to buffer before writing them
+   */
+  public Copy_Stream(SQLDataManager sqlMgr, String[] tables, int chunkSize)
+  {
+    this(sqlMgr, tables, chunkSize, DEFAULT_QUEUE_SIZE);
+  }
+
+  /**
+   * constructor which starts the writer thread
+   * @assumes the database is PostgreSQL
+   * @effects starts a thread
+   * @param sqlMgr the database manager
+   * @param tables the names of the tables to copy, parent tables first
+   * @param chunkSize the number of rows to buffer before writing them
+   * @param queueSize the number of chunks which can wait to be written
+   * before the thread using the stream waits
+   */
+  public Copy_Stream(SQLDataManager sqlMgr, String[] tables, int chunkSize,
+                     int queueSize)
+  {
+    super(sqlMgr);
+    this.sqlMgr = sqlMgr;
+    this.tables = tables;
+    this.chunkSize = Math.max(1, chunkSize);
+    for (int i = 0; i < tables.length; i++)
+      buffers.put(tables[i].toLowerCase(), new StringBuilder());
+    queue = new LinkedBlockingQueue(Math.max(1, queueSize));
+    writer = new Thread(new Runnable() {
+      public void run() {
+        write();
+      }
+    }, "Copy_Stream");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * buffer the insert of a DAO for a copied table or execute it inline
+   * @assumes nothing
+   * @effects buffered rows may be handed to the writer thread
+   * @param dao the DAO to insert
+   * @throws DBException thrown if there is an error writing to the database
+   * or there was an error on the writer thread
+   */
+  public void insert(DAO dao) throws DBException
+  {
+    checkError();
+    Vector supported = null;
+    try
+    {
+      supported = dao.getBCPSupportedTables();
+    }
+    catch (RuntimeException e)
+    {
+      // the DAO does not support bcp, e.g. MSSeqAssoc; it is inserted
+      // inline
+    }
+    StringBuilder buffer = null;
+    Table table = null;
+    if (supported != null)
+    {
+      for (Iterator i = supported.iterator(); i.hasNext(); )
+      {
+        table = (Table)i.next();
+        buffer = (StringBuilder)buffers.get(table.getName().toLowerCase());
+        if (buffer != null)
+          break;
+      }
+    }
+    if (buffer == null)
+    {
+      // the row may reference rows still in the buffers
+      flush();
+      super.insert(dao);
+      return;
+    }
+    appendRow(buffer, dao.getBCPVector(table));
+    if (++bufferedRows >= chunkSize)
+      handOff();
+  }
+
+  /**
+   * write the buffered rows and execute the update inline
+   * @assumes nothing
+   * @effects the database is updated
+   * @param dao the DAO to update
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  public void update(DAO dao) throws DBException
+  {
+    flush();
+    super.update(dao);
+  }
+
+  /**
+   * write the buffered rows and execute the delete inline
+   * @assumes nothing
+   * @effects rows are deleted from the database
+   * @param dao the DAO to delete
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  public void delete(DAO dao) throws DBException
+  {
+    flush();
+    super.delete(dao);
+  }
+
+  /**
+   * write the buffered rows, stop the writer thread and close the stream
+   * @assumes nothing
+   * @effects the buffered rows are written to the database; calling close
+   * again does nothing more
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  public void close() throws DBException
+  {
+    if (closed)
+      return;
+    try
+    {
+      flush();
+    }
+    finally
+    {
+      closed = true;
+      writer.interrupt();
+      try
+      {
+        writer.join();
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+    super.close();
+  }
+
+  /**
+   * hand the buffered rows to the writer thread and wait until it has
+   * written every chunk handed to it
+   * @assumes nothing
+   * @effects rows are written to the database and the buffers emptied
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  public void flush() throws DBException
+  {
+    handOff();
+    if (closed)
+      return;
+    Chunk marker = new Chunk(null, null);
+    put(marker);
+    try
+    {
+      marker.done.await();
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    }
+    checkError();
+  }
+
+  /**
+   * hand the buffered rows to the writer thread as a chunk with one COPY
+   * statement per table, waiting while the queue is full
+   * @assumes nothing
+   * @effects the buffers are emptied
+   * @throws DBException thrown if there was an error on the writer thread
+   */
+  private void handOff() throws DBException
+  {
+    checkError();
+    if (bufferedRows == 0)
+      return;
+    Vector sql = new Vector();
+    Vector rows = new Vector();
+    for (int i = 0; i < tables.length; i++)
+    {
+      StringBuilder buffer =
+          (StringBuilder)buffers.get(tables[i].toLowerCase());
+      if (buffer.length() == 0)
+        continue;
+      sql.add("COPY " + tables[i] + " FROM STDIN");
+      rows.add(buffer.toString());
+      buffer.setLength(0);
+    }
+    bufferedRows = 0;
+    Chunk chunk = new Chunk((String[])sql.toArray(new String[0]),
+                            (String[])rows.toArray(new String[0]));
+    if (closed)
+      writeChunk(chunk);
+    else
+      put(chunk);
+    checkError();
+  }
+
+  /**
+   * get the number of rows written with COPY
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of rows
+   */
+  public long getCopiedRowCount()
+  {
+    return copiedRows;
+  }
+
+  /**
+   * get the number of COPY statements executed
+   * @assumes nothing
+   * @effects nothing
+   * @return the number of COPY statements
+   */
+  public int getCopyCount()
+  {
+    return copyCtr;
+  }
+
+  /**
+   * put a chunk on the queue, waiting while the queue is full
+   * @param chunk the chunk
+   */
+  private void put(Chunk chunk)
+  {
+    boolean interrupted = false;
+    while (true)
+    {
+      try
+      {
+        queue.put(chunk);
+        break;
+      }
+      catch (InterruptedException e)
+      {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * throw the error from the writer thread if there was one
+   * @throws DBException the error
+   */
+  private void checkError() throws DBException
+  {
+    if (error != null)
+      throw error;
+  }
+
+  /**
+   * the writer thread loop; stops when interrupted after close has waited
+   * for the queue to be written
+   */
+  private void write()
+  {
+    while (true)
+    {
+      Chunk chunk = null;
+      try
+      {
+        chunk = (Chunk)queue.take();
+      }
+      catch (InterruptedException e)
+      {
+        return;
+      }
+      if (chunk.sql == null)
+      {
+        chunk.done.countDown();
+        continue;
+      }
+      if (error != null)
+        continue; // discard after an error
+      try
+      {
+        writeChunk(chunk);
+      }
+      catch (DBException e)
+      {
+        error = e;
+      }
+    }
+  }
+
+  /**
+   * write a chunk to the database with its COPY statements
+   * @param chunk the chunk
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  private void writeChunk(Chunk chunk) throws DBException
+  {
+    for (int i = 0; i < chunk.sql.length; i++)
+    {
+      copiedRows += copyIn(sqlMgr, chunk.sql[i], chunk.rows[i]);
+      copyCtr++;
+    }
+  }
+
+  /**
+   * execute a COPY FROM STDIN statement with the CopyManager of the
+   * PostgreSQL JDBC driver
+   * @assumes the database is PostgreSQL
+   * @effects rows are written to the database
+   * @param sqlMgr the database manager
+   * @param sql the COPY statement
+   * @param rows the rows in COPY text format
+   * @return the number of rows written
+   * @throws DBException thrown if there is an error writing to the database
+   */
+  public static long copyIn(SQLDataManager sqlMgr, String sql, String rows)
+  throws DBException
+  {
+    byte[] data = rows.getBytes(StandardCharsets.UTF_8);
+    try
+    {
+      Class pgConnection = Class.forName("org.postgresql.PGConnection");
+      Object copyMgr = pgConnection.getMethod("getCopyAPI", new Class[0])
+          .invoke(sqlMgr.getConnection().unwrap(pgConnection), new Object[0]);
+      Method copyIn = Class.forName("org.postgresql.copy.CopyManager")
+          .getMethod("copyIn", new Class[] {String.class, InputStream.class});
+      Object count = copyIn.invoke(copyMgr,
+          new Object[] {sql, new ByteArrayInputStream(data)});
+      return ((Number)count).longValue();
+    }
+    catch (InvocationTargetException e)
+    {
+      if (e.getCause() instanceof Exception)
+        throw copyException(sql, (Exception)e.getCause());
+      throw copyException(sql, e);
+    }
+    catch (SQLException e)
+    {
+      throw copyException(sql, e);
+    }
+    catch (ReflectiveOperationException e)
+    {
+      throw copyException(sql, e);
+    }
+  }
+
+  /**
+   * append a row in COPY text format to a buffer
+   * @assumes nothing
+   * @effects the row is appended to the buffer
+   * @param buffer the buffer
+   * @param values the column values in table order
+   */
+  public static void appendRow(StringBuilder buffer, Vector values)
+  {
+    for (int i = 0; i < values.size(); i++)
+    {
+      if (i > 0)
+        buffer.append('\t');
+      Object value = values.get(i);
+      if (value == null)
+        buffer.append("\\N");
+      else
+        appendEscaped(buffer, value.toString());
+    }
+    buffer.append('\n');
+  }
+
+  /**
+   * append a value to a buffer escaping the characters COPY text format
+   * treats specially
+   * @param buffer the buffer
+   * @param s the value
+   */
+  private static void appendEscaped(StringBuilder buffer, String s)
+  {
+    for (int i = 0; i < s.length(); i++)
+    {
+      char c = s.charAt(i);
+      switch (c)
+      {
+        case '\\':
+          buffer.append("\\\\");
+          break;
+        case '\t':
+          buffer.append("\\t");
+          break;
+        case '\n':
+          buffer.append("\\n");
+          break;
+        case '\r':
+          buffer.append("\\r");
+          break;
+        default:
+          buffer.append(c);
+      }
+    }
+  }
+
+  /**
+   * a chunk of rows to write, or a marker the writer counts down when it
+   * reaches it
+   * @has the COPY statements and their rows, or nothing for a marker
+   * @does nothing
+   * @company The Jackson Laboratory
+   * @author sc
+   * @version 1.0
+   */
+  private static class Chunk {
+    private String[] sql;
+    private String[] rows;
+    // counted down when a marker has been reached
+    private CountDownLatch done = new CountDownLatch(1);
+
+    private Chunk(String[] sql, String[] rows) {
+      this.sql = sql;
+      this.rows = rows;
+    }
+  }
+
+  /**
+   * create the exception for a failed COPY
+   * @param sql the COPY statement
+   * @param e the cause
+   * @return the exception
+   */
+  private static DBException copyException(String sql, Exception e)
+  {
+    DBExceptionFactory eFactory = new DBExceptionFactory();
+    DBException e2 = (DBException)
+        eFactory.getException(DBExceptionFactory.JDBCException, e);
+    e2.bind(sql);
+    return e2;
+  }
+}
@@ -229,6 +229,10 @@ public abstract class DLALoader {
       try {
 		  logger.logdInfo("Performing post processing", true);
 		  postprocess();
+		  // an asynchronous qc stream must finish writing before its
+		  // connection is closed; closing again does nothing
+		  if (qcStream instanceof Async_Stream)
+			  qcStream.close();
 		  qcDBMgr.closeResources();
 		  loadDBMgr.closeResources();
       }
@@ -307,6 +311,12 @@ public abstract class DLALoader {
           return new BCP_Batch_Stream(DBMgr, BCPMgr);
       else if (name.equals("org.jax.mgi.shr.dbutils.dao.BCP_Script_Stream"))
           return new BCP_Script_Stream(DBMgr.getScriptWriter(), DBMgr, BCPMgr);
+      else if (name.equals("org.jax.mgi.shr.dla.loader.Async_Stream"))
+          return new Async_Stream(DBMgr,
+              Integer.parseInt(dlaConfig.getAsyncQueueSize()));
+      else if (name.equals("org.jax.mgi.shr.dla.loader.Copy_Stream"))
+          return new Copy_Stream(DBMgr, dlaConfig.getCopyTables(),
+              Integer.parseInt(dlaConfig.getCopyChunkSize()));
       else
       {
           DLALoaderExceptionFactory factory = new DLALoaderExceptionFactory();
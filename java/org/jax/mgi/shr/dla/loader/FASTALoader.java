@@ -7,6 +7,7 @@ import org.jax.mgi.dbs.mgd.loads.Acc.AccessionRawAttributes;
 import org.jax.mgi.shr.config.InputDataCfg;
 import org.jax.mgi.shr.ioutils.InputDataFile;
 import org.jax.mgi.shr.ioutils.RecordDataIterator;
+import org.jax.mgi.shr.dbutils.DataIterator;
 import org.jax.mgi.shr.exception.MGIException;
 import org.jax.mgi.shr.dbutils.dao.SQLStream;
 import org.jax.mgi.dbs.mgd.loads.SeqSrc.MSRawAttributes;
@@ -72,12 +73,25 @@ public abstract class FASTALoader extends DLALoader
       {
           inputFile = new FASTAInputFile(super.inputConfig.getInputFileName());
       }
-      RecordDataIterator it = inputFile.getIterator();
+      // a gzip compressed input file is decompressed while it is read
+      DataIterator it = null;
+      if (inputFile.isCompressed())
+      {
+          int threads = new Integer(dlaConfig.getGzipThreads()).intValue();
+          logger.logdInfo("Decompressing input file " +
+                          inputFile.getFilename() + " on " + threads +
+                          " threads", true);
+          it = inputFile.getDecompressingIterator(
+              FASTAData.getRecordInterpreter(), threads);
+      }
+      else
+          it = inputFile.getIterator();
       while (it.hasNext())
       {
           FASTAData fasta = (FASTAData)it.next();
           load(fasta);
       }
+      it.close();
       logger.logdInfo("FASTALoader run complete", true);
   }
 
@@ -179,6 +179,20 @@ public class CoordLoader extends DLALoader {
 	    coordProcessor.createCollection(collectionKey);
 	   
 	}
+	// delete by object mode - delete the features of every input object
+	// in batches before loading
+	if (loadMode.equals(CoordloaderConstants.DR_BY_OBJECT_MODE) &&
+	    coordProcessor.isBulkDelete()) {
+	    HashSet objectIDs = new HashSet();
+	    DataIterator scan = new InputDataFile().getIterator(
+		(RecordDataInterpreter)loadCfg.getInterpreterClass());
+	    while (scan.hasNext()) {
+		CoordinateInput input = (CoordinateInput)scan.next();
+		objectIDs.add(
+		    input.getCoordMapFeatureRawAttributes().getObjectId());
+	    }
+	    coordProcessor.deleteByObjects(objectIDs);
+	}
     } 
 
     /**
@@ -4,6 +4,7 @@ import org.jax.mgi.shr.ioutils.InputDataFile;
 import org.jax.mgi.shr.exception.MGIException;
 import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
 import org.jax.mgi.shr.dla.loader.DLALoaderException;
+import org.jax.mgi.shr.dla.input.mgs.MGSAssemblyFormatInterpreter;
 
 /**
  * An object which extends Seqloader and implements the Seqloader
@@ -17,6 +18,9 @@ import org.jax.mgi.shr.dla.loader.DLALoaderException;
  *     preProcess method
  * <LI>It has an empty implementation of the superclass (Seqloader)
  *     appPostProcess method.
+ * <LI>implements superclass (Seqloader) createParseInterpreter when the
+ *     configured interpreter is a MGSAssemblyFormatInterpreter so records
+ *     may be parsed on multiple threads
  * </UL>
  * @author sc
  * @version 1.0
@@ -52,9 +56,29 @@ public class AssemblySeqloader extends SeqLoader {
         InputDataFile inData = new InputDataFile();
         // get an iterator over the input file
         super.iterator = inData.getIterator((RecordDataInterpreter)loadCfg.getInterpreterClass());
+        // the input file is needed for pipelined parsing
+        super.inputFile = inData;
 
     }
 
+    /**
+     * creates a new instance of the configured interpreter for a parse
+     * thread if it is a MGSAssemblyFormatInterpreter, set to create a new
+     * SequenceInput for each record
+     * @return the interpreter or null if the configured interpreter is not
+     *  known to be safe to run ahead of the processing thread
+     * @throws MGIException if the interpreter cannot be created
+     */
+    protected RecordDataInterpreter createParseInterpreter()
+        throws MGIException {
+        Object interpreter = loadCfg.getInterpreterClass();
+        if (!(interpreter instanceof MGSAssemblyFormatInterpreter)) {
+            return null;
+        }
+        ((MGSAssemblyFormatInterpreter) interpreter).setReuseObjects(false);
+        return (RecordDataInterpreter) interpreter;
+    }
+
     /**
      * This loader has no application specific post processing
      */
@@ -6,6 +6,7 @@ import org.jax.mgi.shr.dbutils.ScriptException;
 import org.jax.mgi.shr.dla.log.DLALogger;
 import org.jax.mgi.shr.dla.log.DLALoggingException;
 import org.jax.mgi.shr.config.ConfigException;
+import org.jax.mgi.shr.config.SequenceLoadCfg;
 import org.jax.mgi.shr.dbutils.DBException;
 import org.jax.mgi.shr.cache.CacheException;
 import org.jax.mgi.shr.cache.KeyNotFoundException;
@@ -25,6 +26,8 @@ import org.jax.mgi.shr.dla.input.SequenceInput;
  *        in MGI
  *   <LI> Remapping of above - each secondary seqid to its set of primary seqids
  *   <LI>     SQL to call stored procedures to accomplish Merges and Splits
+ *   <LI>     Optionally, the merge and split events staged to be applied in
+ *            one statement
  *   </UL>
  * @does
  *   <UL>
@@ -56,6 +59,10 @@ import org.jax.mgi.shr.dla.input.SequenceInput;
  *       <LI>only curators can move associations and mark the split sequence as
  *           deleted
  *     </UL>
+ *   <LI>In bulk mode, loads all merge and split events into a temp table with
+ *       multi-row inserts and calls the merge and split stored procedures for
+ *       each row, in the order the events were detected, in a single
+ *       statement rather than one statement per event
  *   </UL>
  * @company The Jackson Laboratory
  * @author sc
@@ -70,6 +77,23 @@ public class MergeSplitProcessor {
     private int mergeCtr = 0;
     private int splitCtr = 0;
 
+    // true if merges and splits are staged and applied in one statement
+    private boolean bulk;
+
+    // merge and split events staged in bulk mode, each a String[] of
+    // kind, fromSeqid, toSeqid
+    private Vector stagedEvents = new Vector();
+
+    // temp table the staged events are loaded into
+    private static final String STAGE_TABLE = "tmp_mergesplit";
+
+    // number of events per insert statement when loading the temp table
+    private static final int STAGE_INSERT_SIZE = 500;
+
+    // event kinds in the temp table
+    private static final String MERGE = "merge";
+    private static final String SPLIT = "split";
+
     /**
      * Constructs a MergeSplitProcessor
      * @assumes Nothing
@@ -91,6 +115,7 @@ public class MergeSplitProcessor {
          mergeSplitHelper = new MergeSplitHelper(seqidLookup);
          mergeSplitSeqs = new HashMap();
          logger = DLALogger.getInstance();
+         bulk = new SequenceLoadCfg().getOkToBulkMergeSplit().booleanValue();
      }
      /**
       * Detects a Merge/Split event for a sequence by determining if any of the
@@ -157,8 +182,14 @@ public class MergeSplitProcessor {
                            SeqloaderConstants.SGL_QUOTE + toSeqid +
                            SeqloaderConstants.SGL_QUOTE +
 			   SeqloaderConstants.CLOSE_PAREN;
-                       writer.write(cmd);
-                       writer.go();
+                       if (bulk) {
+                           stagedEvents.add(
+                               new String[] {SPLIT, fromSeqid, toSeqid});
+                       }
+                       else {
+                           writer.write(cmd);
+                           writer.go();
+                       }
                        splitCtr++;
                    }
                }
@@ -175,11 +206,91 @@ public class MergeSplitProcessor {
                        SeqloaderConstants.SGL_QUOTE +
 		       SeqloaderConstants.CLOSE_PAREN;
                    qcReporter.reportMergedSeqs(fromSeqid, toSeqid);
-                   writer.write(cmd);
-                   writer.go();
+                   if (bulk) {
+                       stagedEvents.add(
+                           new String[] {MERGE, fromSeqid, toSeqid});
+                   }
+                   else {
+                       writer.write(cmd);
+                       writer.go();
+                   }
                    mergeCtr++;
                }
         }
+        if (bulk && !stagedEvents.isEmpty()) {
+            writeStagedEvents(writer);
+        }
+    }
+
+    /**
+     * Writes the staged merge and split events as a load of the temp table
+     *    followed by a single statement calling the merge or split stored
+     *    procedure for each event in the order staged. An event which fails
+     *    is rolled back and reported as a notice without undoing the others
+     * @assumes the script is run against PostgreSQL
+     * @effects the staged events are written to the script and cleared
+     * @param writer the ScriptWriter which to write the statements
+     * @throws ScriptException
+     */
+
+    private void writeStagedEvents(ScriptWriter writer)
+            throws ScriptException {
+        writer.write("create temp table " + STAGE_TABLE +
+            " (seq int not null, kind text not null, " +
+            "fromSeqid text not null, toSeqid text not null)");
+        writer.go();
+        StringBuffer insert = null;
+        int seq = 0;
+        for (Iterator i = stagedEvents.iterator(); i.hasNext();) {
+            String[] event = (String[])i.next();
+            if (insert == null) {
+                insert = new StringBuffer("insert into " + STAGE_TABLE +
+                                          " values ");
+            }
+            else {
+                insert.append(SeqloaderConstants.COMMA);
+            }
+            insert.append(SeqloaderConstants.OPEN_PAREN + seq +
+                SeqloaderConstants.COMMA + quote(event[0]) +
+                SeqloaderConstants.COMMA + quote(event[1]) +
+                SeqloaderConstants.COMMA + quote(event[2]) +
+                SeqloaderConstants.CLOSE_PAREN);
+            seq++;
+            if (seq % STAGE_INSERT_SIZE == 0 || !i.hasNext()) {
+                writer.write(insert.toString());
+                writer.go();
+                insert = null;
+            }
+        }
+        // each event runs in its own subtransaction so an event which fails
+        // is reported and rolled back alone, as its own statement would be
+        writer.write("do $$ declare e record; begin " +
+            "for e in select * from " + STAGE_TABLE + " order by seq loop " +
+            "begin " +
+            "if e.kind = '" + MERGE + "' then " +
+            "perform SEQ_merge(e.fromSeqid, e.toSeqid); " +
+            "else perform SEQ_split(e.fromSeqid, e.toSeqid); " +
+            "end if; " +
+            "exception when others then raise notice '% % % failed: %', " +
+            "e.kind, e.fromSeqid, e.toSeqid, SQLERRM; " +
+            "end; end loop; end $$");
+        writer.go();
+        writer.write("drop table " + STAGE_TABLE);
+        writer.go();
+        logger.logdInfo("Staged " + stagedEvents.size() +
+                        " merge and split events", false);
+        stagedEvents.clear();
+    }
+
+    /**
+     * Quotes a string as an SQL literal
+     * @param s the string
+     * @return the literal
+     */
+
+    private static String quote(String s) {
+        return SeqloaderConstants.SGL_QUOTE + s.replaceAll("'", "''") +
+            SeqloaderConstants.SGL_QUOTE;
     }
 
     /**
@@ -6,8 +6,11 @@ import org.jax.mgi.shr.cache.KeyNotFoundException;
 import org.jax.mgi.shr.dbutils.DBException;
 import org.jax.mgi.shr.config.ConfigException;
 import org.jax.mgi.dbs.mgd.loads.Seq.Sequence;
+import org.jax.mgi.dbs.mgd.dao.SEQ_SequenceState;
 import org.jax.mgi.shr.dla.input.SequenceInput;
 
+import java.sql.Timestamp;
+
 /**
  * An object that determines sequence events
  * @has
@@ -102,24 +105,24 @@ public class SeqEventDetector {
               addCtr++;
         }
 
-        // this is a dummy sequence
-        else if (termNameLookup.lookup(
-            sequence.getSequenceState().getSequenceStatusKey()).equals(
-                SeqloaderConstants.DUMMY_SEQ_STATUS)) {
-            event = SeqloaderConstants.DUMMY;
-            dummyCtr++;
-            sequence.setIsDummySequence(true);
-        }
-
-        // this sequence needs to be updated
-        else if (sequence.getSequenceState().getSeqrecordDate().before(
-                 seqInput.getSeq().getSeqRecDate())) {
-          event = SeqloaderConstants.UPDATE;
-          updateCtr++;
-        }
-        // sequence already in database as it is
         else {
-            nonCtr++;
+            SEQ_SequenceState state = sequence.getSequenceState();
+            event = detectExistingEvent(seqInput,
+                                        state.getSequenceStatusKey(),
+                                        state.getSeqrecordDate());
+            // this is a dummy sequence
+            if (event == SeqloaderConstants.DUMMY) {
+                dummyCtr++;
+                sequence.setIsDummySequence(true);
+            }
+            // this sequence needs to be updated
+            else if (event == SeqloaderConstants.UPDATE) {
+                updateCtr++;
+            }
+            // sequence already in database as it is
+            else {
+                nonCtr++;
+            }
         }
 
         // find merge/split sequences;
@@ -130,6 +133,57 @@ public class SeqEventDetector {
         return event;
     }
 
+    /**
+     * Determines from the status and seqrecord date of an existing sequence
+     * alone whether it is a non event, so that the full Sequence need only
+     * be looked up for the other events. Non events are counted here; other
+     * events are counted when detectEvent is called with the full Sequence
+     * @assumes Nothing
+     * @effects Nothing
+     * @param seqInput set of raw values for the sequence being processed
+     * @param statusKey the _SequenceStatus_key of the existing sequence
+     * @param seqrecordDate the seqrecord_date of the existing sequence
+     * @return true if the sequence is a non event
+     * @throws CacheException if TermNameLookup error
+     * @throws KeyNotFoundException if status key not found
+     * @throws DBException if TermNameLookup error
+     */
+
+    public boolean isNonEvent(SequenceInput seqInput, Integer statusKey,
+                              Timestamp seqrecordDate)
+        throws CacheException, KeyNotFoundException, DBException {
+        if (detectExistingEvent(seqInput, statusKey, seqrecordDate) ==
+            SeqloaderConstants.NON_EVENT) {
+            nonCtr++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determines the event for a sequence in the database
+     * @param seqInput set of raw values for the sequence being processed
+     * @param statusKey the _SequenceStatus_key of the existing sequence
+     * @param seqrecordDate the seqrecord_date of the existing sequence
+     * @return DUMMY, UPDATE or NON_EVENT
+     * @throws CacheException if TermNameLookup error
+     * @throws KeyNotFoundException if status key not found
+     * @throws DBException if TermNameLookup error
+     */
+
+    private int detectExistingEvent(SequenceInput seqInput, Integer statusKey,
+                                    Timestamp seqrecordDate)
+        throws CacheException, KeyNotFoundException, DBException {
+        if (termNameLookup.lookup(statusKey).equals(
+                SeqloaderConstants.DUMMY_SEQ_STATUS)) {
+            return SeqloaderConstants.DUMMY;
+        }
+        else if (seqrecordDate.before(seqInput.getSeq().getSeqRecDate())) {
+            return SeqloaderConstants.UPDATE;
+        }
+        return SeqloaderConstants.NON_EVENT;
+    }
+
     /**
        * Detects merge/split event
        * @assumes Nothing
@@ -5,6 +5,8 @@ import org.jax.mgi.shr.dla.loader.DLALoaderException;
 import org.jax.mgi.shr.timing.Stopwatch;
 import org.jax.mgi.shr.config.SequenceLoadCfg;
 import org.jax.mgi.shr.ioutils.RecordDataIterator;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.ioutils.InputDataFile;
 import org.jax.mgi.shr.dbutils.ScriptWriter;
 import org.jax.mgi.shr.dbutils.DataIterator;
 import org.jax.mgi.shr.dbutils.dao.BCP_Stream;
@@ -13,6 +15,7 @@ import org.jax.mgi.shr.config.ScriptWriterCfg;
 import org.jax.mgi.shr.exception.MGIException;
 import org.jax.mgi.shr.ioutils.RecordFormatException;
 import org.jax.mgi.dbs.mgd.loads.SeqSrc.MSException;
+import org.jax.mgi.dbs.mgd.loads.SeqSrc.MSResolver;
 import org.jax.mgi.dbs.mgd.loads.SeqSrc.UnresolvedAttributeException;
 import org.jax.mgi.dbs.mgd.lookup.AccessionLookup;
 import org.jax.mgi.dbs.mgd.lookup.LogicalDBLookup;
@@ -28,6 +31,12 @@ import java.util.Iterator;
 import java.util.HashSet;
 import org.jax.mgi.shr.dla.input.OrganismChecker;
 import org.jax.mgi.shr.dla.input.SequenceInput;
+import org.jax.mgi.shr.dla.input.genbank.GBInputFile;
+import org.jax.mgi.shr.dla.input.genbank.GBHeaderReader;
+import org.jax.mgi.shr.dla.input.RecordReference;
+import org.jax.mgi.shr.dla.input.genbank.GBRecordScanner;
+import org.jax.mgi.shr.dla.input.embl.EMBLInputFile;
+import org.jax.mgi.shr.dla.input.embl.EMBLInputFileNoSeq;
 import org.jax.mgi.dbs.mgd.loads.Seq.SequenceInputProcessor;
 import org.jax.mgi.dbs.mgd.loads.Seq.SequenceAttributeResolver;
 import org.jax.mgi.dbs.mgd.loads.Seq.SequenceResolverException;
@@ -53,6 +62,14 @@ import org.jax.mgi.dbs.mgd.loads.Seq.*;
  *       an appropriate interpreter. And create an optional OrganismChecker.
  *   <LI>appPostProcess - for any application specific post-processing
  * </UL>
+ * Sub classes which support pipelined parsing (SEQ_PARSE_THREADS > 1) must
+ * also set the inputFile in getDataIterator and implement
+ * createParseInterpreter to return a new interpreter for each parse thread
+ * (see AssemblySeqloader). The interpreter must return a new SequenceInput
+ * for each record.
+ * The same is required to read a gzip compressed (.gz) GenBank or EMBL
+ * input file, which is decompressed on DLA_GZIP_THREADS threads while it is
+ * read.
  * @has a set of 'basic-needs' objects for doing DLA loads<br>
  * <UL>
  *   <LI>A RecordDataIterator
@@ -87,6 +104,9 @@ public abstract class SeqLoader extends DLALoader {
     // iterator over an input file
     protected DataIterator iterator;
 
+    // the input file; optional, required for pipelined parsing
+    protected InputDataFile inputFile;
+
     // optional organism checker for reporting statistics by organism
     protected OrganismChecker organismChecker;
 
@@ -130,6 +150,32 @@ public abstract class SeqLoader extends DLALoader {
     // total processing time for the load
     double totalProcessTime;
 
+    // number of threads parsing input records, 1 if not pipelined
+    private int parseThreads;
+
+    // maximum number of records read but not yet processed when pipelined
+    private int parseQueueDepth;
+
+    // parses input records on multiple threads; null if not pipelined
+    private SeqParsePipeline parsePipeline;
+
+    // true if a GenBank input file is memory mapped
+    private boolean mapInputFile;
+
+    // true if only the headers of the records of a GenBank input file are
+    // read; the maximum size of a header
+    private boolean headerOnlyInput;
+    private int headerMaxBytes;
+
+    // true if a GenBank or EMBL input file is gzip compressed; the number
+    // of threads decompressing it
+    private boolean compressedInput;
+    private int gzipThreads;
+
+    // true if the input record of each SequenceInput is released once it
+    // has been parsed, leaving a reference to it in the input file
+    private boolean releaseRecords;
+
     /**
      * initialized if we are in incremental mode
      */
@@ -188,6 +234,35 @@ public abstract class SeqLoader extends DLALoader {
         // number of valid sequences WITH processing errors
         errCtr = 0;
 
+        // number of threads parsing input records and the number of records
+        // they may get ahead of the processing thread
+        parseThreads = new Integer(loadCfg.getParseThreads()).intValue();
+        parseQueueDepth = new Integer(loadCfg.getParseQueueDepth()).intValue();
+
+        // memory map a GenBank input file or read only the headers of its
+        // records if configured
+        mapInputFile = loadCfg.getOkToMapInputFile().booleanValue() &&
+            inputFile instanceof GBInputFile;
+        headerOnlyInput = loadCfg.getOkToReadHeadersOnly().booleanValue() &&
+            inputFile instanceof GBInputFile;
+        headerMaxBytes =
+            new Integer(loadCfg.getHeaderMaxBytes()).intValue();
+
+        // decompress a gzip compressed input file while reading it; its
+        // records have no offsets in the file so it is neither memory
+        // mapped nor read by header
+        compressedInput = isCompressedInput();
+        gzipThreads = new Integer(dlaConfig.getGzipThreads()).intValue();
+        if (compressedInput) {
+            mapInputFile = false;
+            headerOnlyInput = false;
+        }
+        if ((mapInputFile || headerOnlyInput || compressedInput) &&
+            parseThreads <= 1) {
+            useInputIterator();
+        }
+        releaseRecords = loadCfg.getOkToReleaseRecords().booleanValue();
+
         // writes repeated input sequences to a file
         try {
             repeatSeqWriter = new BufferedWriter(new FileWriter(loadCfg.
@@ -228,10 +303,28 @@ public abstract class SeqLoader extends DLALoader {
             int logicalDBKey = lookup.lookup(loadCfg.getLogicalDB()).intValue();
             boolean useFullCache =
                 loadCfg.getUseAssocClonesFullCache().booleanValue();
-            if (useFullCache)
+            if (loadCfg.getUseCompactAccessionCache().booleanValue()) {
+                CompactSeqIdLookup compactLookup =
+                    new CompactSeqIdLookup(logicalDBKey);
+                logger.logdInfo("CompactSeqIdLookup loaded " +
+                    compactLookup.size() + " seqids, " +
+                    compactLookup.getOverflowSize() + " not packed, table " +
+                    compactLookup.getTableBytes() + " bytes", true);
+                seqIdLookup = compactLookup;
+            }
+            else if (useFullCache)
                 seqIdLookup = new AccessionLookup(logicalDBKey,
                                        MGITypeConstants.SEQUENCE,
                                        AccessionLib.PREFERRED);
+            else if (loadCfg.getUseSeqIdBloomFilter().booleanValue()) {
+                BloomFilterSeqIdLookup bloomLookup =
+                    new BloomFilterSeqIdLookup(logicalDBKey, Double.parseDouble(
+                        loadCfg.getSeqIdBloomFilterFpp()));
+                logger.logdInfo("BloomFilterSeqIdLookup loaded " +
+                    bloomLookup.size() + " seqids, filter " +
+                    bloomLookup.getFilterBytes() + " bytes", true);
+                seqIdLookup = bloomLookup;
+            }
             else
                 seqIdLookup = new AccessionLookup(logicalDBKey,
                                        MGITypeConstants.SEQUENCE,
@@ -280,6 +373,48 @@ public abstract class SeqLoader extends DLALoader {
      * load.
      */
     protected void run()  throws MGIException {
+        boolean completed = false;
+        try {
+            processRecords();
+            completed = true;
+        }
+        finally {
+            if (!completed) {
+                closeOnFailure();
+            }
+        }
+    }
+
+    /**
+     * stops the parse threads and closes the prefetch connection of the
+     * incremental processor when the load fails before they are closed
+     * @assumes nothing
+     * @effects stops threads and closes a database connection
+     */
+    private void closeOnFailure() {
+        if (parsePipeline != null) {
+            parsePipeline.close();
+        }
+        if (seqProcessor instanceof IncremSequenceInputProcessor) {
+            try {
+                ( (IncremSequenceInputProcessor) seqProcessor).close();
+            }
+            catch (SeqloaderException e) {
+                logger.logdInfo("Error closing incremental processor: " +
+                                e.getMessage(), false);
+            }
+        }
+    }
+
+    /**
+     * iterates thru the input records, processing each
+     * @assumes nothing
+     * @effects database records created within the RADAR and/or MGD
+     * database
+     * @throws MGIException throw if a fatal error occurs while performing the
+     * load.
+     */
+    private void processRecords() throws MGIException {
         // throw an exception if subclass hasn't set the RecordDataIterator
        if (iterator == null) {
            throw new RuntimeException("RecordDataIterator not defined!");
@@ -294,11 +429,18 @@ public abstract class SeqLoader extends DLALoader {
        // Data object representing the raw values of the current input record
        SequenceInput si;
 
+       // parse on multiple threads if configured and supported by the subclass
+       if (parseThreads > 1) {
+           startParsePipeline();
+       }
+
        // iterate thru the records and process them
-       while(iterator.hasNext()) {
+       while(hasNextInput()) {
            try {
-               si = (SequenceInput)
-                   iterator.next();
+               si = nextInput();
+               if (releaseRecords) {
+                   si.getSeq().releaseRecord();
+               }
                String currentSeqid = si.getPrimaryAcc().getAccID();
 
                // for NCBI Gene Model sequences we want to bypass the skipping of
@@ -310,8 +452,8 @@ public abstract class SeqLoader extends DLALoader {
                        // we have a repeated sequence; count it, write it out,
                        // go on to next sequence in the input
                        seqIdsAlreadyProcessedCtr++;
-                       repeatSeqWriter.write(si.getSeq().getRecord() + SeqloaderConstants.CRT);
-                       logger.logdDebug("Repeat Sequence: " + currentSeqid);
+                       repeatSeqWriter.write(getFullRecord(si) + SeqloaderConstants.CRT);
+                       logger.logdDebug("Repeat Sequence: {0}", currentSeqid);
                        continue;
                    }
                    else {
@@ -324,7 +466,9 @@ public abstract class SeqLoader extends DLALoader {
                throw new MGIException(e.getMessage());
            }
            catch (MGIException e) {
-               if (e.getParent().getClass().getName().equals("org.jax.mgi.shr.ioutils.RecordFormatException")) {
+               if (e instanceof RecordFormatException ||
+                   (e.getParent() != null &&
+                   e.getParent().getClass().getName().equals("org.jax.mgi.shr.ioutils.RecordFormatException"))) {
                  logger.logdErr(e.getMessage());
                  logger.logcInfo(e.getMessage(), true);
                  errCtr++;
@@ -383,6 +527,10 @@ public abstract class SeqLoader extends DLALoader {
            }
        }
 
+       if (parsePipeline != null) {
+           parsePipeline.close();
+       }
+
        // special handling for Incremental mode
        if (loadMode.equals(SeqloaderConstants.INCREM_LOAD_MODE)) {
            // process the last batch
@@ -395,6 +543,194 @@ public abstract class SeqLoader extends DLALoader {
     }
 
 
+    /**
+     * subclasses which support pipelined parsing implement this method to
+     * create a new interpreter for each parse thread. The interpreters may
+     * share an OrganismChecker but nothing else that is not thread safe.
+     * @assumes nothing
+     * @effects nothing
+     * @return a new interpreter for the input file or null if pipelined
+     * parsing is not supported
+     * @throws MGIException if the interpreter cannot be created
+     */
+    protected RecordDataInterpreter createParseInterpreter()
+        throws MGIException {
+        return null;
+    }
+
+    /**
+     * creates and starts a SeqParsePipeline with parseThreads interpreters
+     * over the inputFile. The load runs single threaded if the subclass
+     * does not support pipelined parsing
+     * @assumes nothing
+     * @effects starts the parse threads and closes the subclass iterator
+     * @throws MGIException if the pipeline cannot be created or the input
+     *         file is compressed and the subclass does not support reading
+     *         it
+     */
+    private void startParsePipeline() throws MGIException {
+        RecordDataInterpreter[] interpreters =
+            new RecordDataInterpreter[parseThreads];
+        for (int i = 0; i < parseThreads; i++) {
+            interpreters[i] = createParseInterpreter();
+            if (interpreters[i] == null || inputFile == null) {
+                checkCompressedInput();
+                logger.logdInfo("Pipelined parsing not supported by this " +
+                    "load, parsing on a single thread", false);
+                return;
+            }
+        }
+        logger.logdInfo("Parsing with " + parseThreads + " threads, " +
+            "queue depth " + parseQueueDepth, false);
+        if (mapInputFile || headerOnlyInput || compressedInput) {
+            parsePipeline = new SeqParsePipeline(createInputIterator(null),
+                interpreters, parseQueueDepth);
+        }
+        else {
+            parsePipeline = new SeqParsePipeline(inputFile, interpreters,
+                parseQueueDepth);
+        }
+        // the pipeline reads the input file through its own iterator
+        iterator.close();
+        parsePipeline.start();
+    }
+
+    /**
+     * replaces the iterator set by the subclass with a GBHeaderReader, a
+     * GBRecordScanner or a decompressing iterator over the input file when
+     * parsing on a single thread. The load uses the subclass iterator if the
+     * subclass does not implement createParseInterpreter
+     * @assumes inputFile is a GBInputFile, or an EMBL input file if it is
+     *          compressed
+     * @effects closes the subclass iterator
+     * @throws MGIException if the input file cannot be opened or it is
+     *         compressed and the subclass does not support reading it
+     */
+    private void useInputIterator() throws MGIException {
+        RecordDataInterpreter interpreter = createParseInterpreter();
+        if (interpreter == null) {
+            checkCompressedInput();
+            logger.logdInfo("Reading record headers or memory mapping " +
+                "not supported by this load, reading the input file", false);
+            mapInputFile = false;
+            headerOnlyInput = false;
+            return;
+        }
+        iterator.close();
+        iterator = createInputIterator(interpreter);
+    }
+
+    /**
+     * throws an exception if the input file is compressed; called when the
+     * subclass does not implement createParseInterpreter, so its iterator
+     * would read the compressed bytes as records
+     * @throws MGIException if the input file is compressed
+     */
+    private void checkCompressedInput() throws MGIException {
+        if (compressedInput) {
+            throw new MGIException("Cannot read compressed input file " +
+                inputFile.getFilename() + ": this load does not support " +
+                "decompressing its input");
+        }
+    }
+
+    /**
+     * determines if the input file is a gzip compressed GenBank or EMBL
+     * input file
+     * @return true if it is
+     */
+    private boolean isCompressedInput() {
+        if (inputFile instanceof GBInputFile) {
+            return ((GBInputFile) inputFile).isCompressed();
+        }
+        if (inputFile instanceof EMBLInputFile) {
+            return ((EMBLInputFile) inputFile).isCompressed();
+        }
+        if (inputFile instanceof EMBLInputFileNoSeq) {
+            return ((EMBLInputFileNoSeq) inputFile).isCompressed();
+        }
+        return false;
+    }
+
+    /**
+     * creates an iterator over the input file which decompresses it, reads
+     * only the headers of its records or memory maps it, as configured
+     * @assumes inputFile is a GBInputFile, or an EMBL input file if it is
+     *          compressed
+     * @effects opens the input file
+     * @param interpreter the interpreter for the records or null for the
+     *        raw records
+     * @return the iterator
+     * @throws MGIException if the input file cannot be opened
+     */
+    private DataIterator createInputIterator(RecordDataInterpreter interpreter)
+        throws MGIException {
+        if (compressedInput) {
+            logger.logdInfo("Decompressing input file " +
+                inputFile.getFilename() + " on " + gzipThreads + " threads",
+                false);
+            if (inputFile instanceof EMBLInputFile) {
+                return ((EMBLInputFile) inputFile).getDecompressingIterator(
+                    interpreter, gzipThreads);
+            }
+            if (inputFile instanceof EMBLInputFileNoSeq) {
+                return ((EMBLInputFileNoSeq) inputFile).
+                    getDecompressingIterator(interpreter, gzipThreads);
+            }
+            return ((GBInputFile) inputFile).getDecompressingIterator(
+                interpreter, gzipThreads);
+        }
+        if (headerOnlyInput) {
+            logger.logdInfo("Reading record headers of input file " +
+                inputFile.getFilename(), false);
+            return new GBHeaderReader(inputFile.getFilename(), interpreter,
+                headerMaxBytes);
+        }
+        logger.logdInfo("Memory mapping input file " +
+            inputFile.getFilename(), false);
+        return new GBRecordScanner(inputFile.getFilename(), interpreter);
+    }
+
+    /**
+     * gets the full input record of a SequenceInput; if only the header of
+     * the record was read or the record was released it is read again from
+     * the input file
+     * @param si the SequenceInput
+     * @return the input record
+     * @throws MGIException if error reading the input file
+     */
+    private String getFullRecord(SequenceInput si) throws MGIException {
+        RecordReference ref = si.getSeq().getRecordReference();
+        if (ref != null && (headerOnlyInput || releaseRecords)) {
+            return ref.read();
+        }
+        return si.getSeq().getRecord();
+    }
+
+    /**
+     * determines if there is another input record to process
+     * @return true if there is another input record
+     * @throws MGIException if error reading the input
+     */
+    private boolean hasNextInput() throws MGIException {
+        if (parsePipeline != null) {
+            return parsePipeline.hasNext();
+        }
+        return iterator.hasNext();
+    }
+
+    /**
+     * gets the next input record
+     * @return the SequenceInput for the next input record
+     * @throws MGIException if error reading or interpreting the input
+     */
+    private SequenceInput nextInput() throws MGIException {
+        if (parsePipeline != null) {
+            return parsePipeline.next();
+        }
+        return (SequenceInput) iterator.next();
+    }
+
     /**
      * closes the load and qc SQLStreams. Reports load statistics.
      * In incremental_mode processes merges and splits, closes repeat sequence
@@ -479,6 +815,14 @@ public abstract class SeqLoader extends DLALoader {
         logger.logdInfo("Total Repeat Sequences written to repeat file: " + seqIdsAlreadyProcessedCtr, false);
         logger.logpInfo("Total Repeat Sequences written to repeat file: " + seqIdsAlreadyProcessedCtr, false);
 
+        // Report MSResolver memo counts
+        MSResolver msResolver = seqProcessor.getMSProcessor().getResolver();
+        if (msResolver.getMemoHits() + msResolver.getMemoMisses() > 0) {
+            logger.logdInfo("MSResolver memo hits = " +
+                            msResolver.getMemoHits() + ", misses = " +
+                            msResolver.getMemoMisses(), false);
+        }
+
         // following logged in debug mode only
         if (totalValidSeqs > 0) {
             logger.logdDebug(
@@ -507,6 +851,28 @@ public abstract class SeqLoader extends DLALoader {
                 logger.logdDebug("Least SequenceLookup time = " +
                                  ( (IncremSequenceInputProcessor) seqProcessor).
                                  getCurrentLowSequenceLookupTime(), false);
+                logger.logdDebug("Total SequenceLookup wait time = " +
+                                 ( (IncremSequenceInputProcessor) seqProcessor).
+                                 getCurrentSequenceLookupWaitTime(), false);
+                logger.logdDebug("SequenceLookup time hidden by prefetch = " +
+                                 ( (IncremSequenceInputProcessor) seqProcessor).
+                                 getCurrentHiddenSequenceLookupTime(), false);
+                logger.logdDebug("Total two phase status lookup time = " +
+                                 ( (IncremSequenceInputProcessor) seqProcessor).
+                                 getCurrentStatusLookupTime(), false);
+                if (seqIdLookup instanceof BloomFilterSeqIdLookup) {
+                    BloomFilterSeqIdLookup bloomLookup =
+                        (BloomFilterSeqIdLookup) seqIdLookup;
+                    logger.logdInfo("Seqid queries saved by Bloom filter = " +
+                                    bloomLookup.getSavedQueryCount(), false);
+                    logger.logdInfo("Seqid Bloom filter false positives = " +
+                                    bloomLookup.getFalsePositiveCount() +
+                                    " (rate " +
+                                    bloomLookup.getFalsePositiveRate() + ")",
+                                    false);
+                    logger.logdInfo("Seqid Bloom filter hits = " +
+                                    bloomLookup.getHitCount(), false);
+                }
             }
 
         // Report OrganismChecker counts
@@ -0,0 +1,409 @@
+package org.jax.mgi.shr.dla.loader.seq;
+
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.ioutils.InputDataFile;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.dla.input.SequenceInput;
+import org.jax.mgi.shr.dla.input.RecordLocator;
+import org.jax.mgi.shr.dla.input.RecordReference;
+import org.jax.mgi.shr.dla.input.genbank.GBFormatInterpreter;
+import org.jax.mgi.shr.dla.input.genbank.GBRecordScanner;
+
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An object that parses the records of an input file on a set of worker
+ *     threads and hands the resulting SequenceInput objects back to a
+ *     single consumer in the order the records appear in the input file.
+ * @has
+ *   <UL>
+ *   <LI>a reader thread which reads raw records from an InputDataFile
+ *   <LI>a set of worker threads, each with its own RecordDataInterpreter
+ *   <LI>a bounded queue of raw records waiting to be parsed
+ *   <LI>a reorder buffer of parsed records waiting to be consumed
+ *   </UL>
+ * @does
+ *   <UL>
+ *   <LI>runs isValid and interpret on raw records in parallel
+ *   <LI>returns valid, parsed records in input order, skipping records
+ *       which are not valid
+ *   <LI>limits the number of records read but not yet consumed to the
+ *       configured queue depth
+ *   </UL>
+ * Interpreters are not shared between worker threads, but anything the
+ * interpreters share (e.g. an OrganismChecker) must be thread safe. Each
+ * interpreter must return a new object for each record, as records are
+ * parsed ahead of being consumed.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class SeqParsePipeline {
+
+    // marks the end of the work queue for a worker thread
+    private static final ParseTask END_OF_INPUT = new ParseTask(-1, null);
+
+    // iterator over the raw records of the input file
+    private DataIterator recordIterator;
+
+    // one interpreter per worker thread
+    private RecordDataInterpreter[] interpreters;
+
+    // raw records waiting to be parsed
+    private ArrayBlockingQueue workQueue;
+
+    // parsed records waiting to be consumed keyed by record number (Long)
+    private HashMap results;
+
+    // permits for records read but not yet consumed
+    private Semaphore slots;
+
+    // the reader and worker threads
+    private Thread readerThread;
+    private Thread[] workerThreads;
+
+    // total number of records read, -1 until the reader has finished
+    private long totalRecords = -1;
+
+    // a fatal error reading the input file
+    private Exception readerError = null;
+
+    // the number of the next record to hand to the consumer
+    private long nextRecord = 0;
+
+    // the next valid record to hand to the consumer
+    private ParseResult pending = null;
+
+    /**
+     * Constructs a SeqParsePipeline over an input file
+     * @assumes each interpreter is a separate instance
+     * @effects opens an iterator over the input file
+     * @param inputFile the file to read records from
+     * @param interpreters the interpreters to parse records with; one
+     *        worker thread is created for each
+     * @param queueDepth the maximum number of records read but not yet
+     *        consumed
+     * @throws MGIException if an iterator over the input file cannot be
+     *         created
+     */
+    public SeqParsePipeline(InputDataFile inputFile,
+                            RecordDataInterpreter[] interpreters,
+                            int queueDepth) throws MGIException {
+        this(inputFile.getIterator(new RawRecordInterpreter()), interpreters,
+             queueDepth);
+    }
+
+    /**
+     * Constructs a SeqParsePipeline over an iterator of raw records, e.g. a
+     * GBRecordScanner or GBHeaderReader without an interpreter. If the
+     * iterator is a RecordLocator a reference to each record in the input
+     * file is set in the object parsed from it
+     * @assumes each interpreter is a separate instance and the iterator
+     *          returns each record as a CharSequence
+     * @effects nothing
+     * @param recordIterator the iterator to read records from
+     * @param interpreters the interpreters to parse records with; one
+     *        worker thread is created for each
+     * @param queueDepth the maximum number of records read but not yet
+     *        consumed
+     */
+    public SeqParsePipeline(DataIterator recordIterator,
+                            RecordDataInterpreter[] interpreters,
+                            int queueDepth) {
+        this.recordIterator = recordIterator;
+        this.interpreters = interpreters;
+        workQueue = new ArrayBlockingQueue(queueDepth);
+        results = new HashMap();
+        slots = new Semaphore(queueDepth);
+    }
+
+    /**
+     * starts the reader and worker threads
+     * @assumes nothing
+     * @effects starts reading and parsing the input file
+     */
+    public void start() {
+        workerThreads = new Thread[interpreters.length];
+        for (int i = 0; i < interpreters.length; i++) {
+            workerThreads[i] = new Worker(interpreters[i]);
+            workerThreads[i].setName("SeqParsePipeline-worker-" + i);
+            workerThreads[i].setDaemon(true);
+            workerThreads[i].start();
+        }
+        readerThread = new Reader();
+        readerThread.setName("SeqParsePipeline-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * determines if there is another valid record to consume; blocks until
+     * the next record in input order has been parsed
+     * @assumes start has been called
+     * @effects records which are not valid are skipped
+     * @return true if there is another valid record
+     * @throws MGIException if the input file could not be read
+     */
+    public boolean hasNext() throws MGIException {
+        while (pending == null) {
+            ParseResult result = take();
+            if (result == null) {
+                return false;
+            }
+            if (!result.skipped) {
+                pending = result;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * gets the next valid record in input order
+     * @assumes hasNext has returned true
+     * @effects nothing
+     * @return the SequenceInput parsed from the next valid record
+     * @throws MGIException the exception thrown interpreting the record,
+     *         e.g. a RecordFormatException
+     */
+    public SequenceInput next() throws MGIException {
+        if (!hasNext()) {
+            throw new RuntimeException("SeqParsePipeline: no more records");
+        }
+        ParseResult result = pending;
+        pending = null;
+        if (result.error != null) {
+            if (result.error instanceof MGIException) {
+                throw (MGIException) result.error;
+            }
+            if (result.error instanceof RuntimeException) {
+                throw (RuntimeException) result.error;
+            }
+            throw new MGIException(result.error.getMessage());
+        }
+        return (SequenceInput) result.input;
+    }
+
+    /**
+     * stops the reader and worker threads
+     * @assumes nothing
+     * @effects any records not yet consumed are discarded
+     */
+    public void close() {
+        if (readerThread != null) {
+            readerThread.interrupt();
+        }
+        if (workerThreads != null) {
+            for (int i = 0; i < workerThreads.length; i++) {
+                workerThreads[i].interrupt();
+            }
+        }
+    }
+
+    /**
+     * takes the next result in input order from the reorder buffer
+     * @assumes nothing
+     * @effects releases a slot to the reader
+     * @return the next ParseResult or null if there are no more records
+     * @throws MGIException if the input file could not be read and every
+     *         record read before the error has been taken
+     */
+    private synchronized ParseResult take() throws MGIException {
+        Long key = new Long(nextRecord);
+        while (!results.containsKey(key)) {
+            // every record read has been consumed; an error reading the
+            // input is thrown only now so the records read before it are
+            // not lost
+            if (totalRecords != -1 && nextRecord >= totalRecords) {
+                if (readerError != null) {
+                    throw new MGIException("Error reading input file: " +
+                        readerError.getMessage());
+                }
+                return null;
+            }
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                throw new MGIException("Interrupted waiting for a parsed " +
+                    "record: " + e.getMessage());
+            }
+        }
+        nextRecord++;
+        slots.release();
+        return (ParseResult) results.remove(key);
+    }
+
+    /**
+     * adds a parsed record to the reorder buffer
+     * @param result the ParseResult
+     */
+    private synchronized void publish(ParseResult result) {
+        results.put(new Long(result.recordNumber), result);
+        notifyAll();
+    }
+
+    /**
+     * records that the reader has finished
+     * @param count the total number of records read
+     * @param e the exception which stopped the reader or null
+     */
+    private synchronized void readerFinished(long count, Exception e) {
+        totalRecords = count;
+        readerError = e;
+        notifyAll();
+    }
+
+    /**
+     * a raw record waiting to be parsed
+     */
+    private static class ParseTask {
+        private long recordNumber;
+        // a String or a view over the input file
+        private CharSequence record;
+
+        // refers to the record in the input file; null if not known
+        private RecordReference recordRef = null;
+
+        private ParseTask(long recordNumber, CharSequence record) {
+            this.recordNumber = recordNumber;
+            this.record = record;
+        }
+    }
+
+    /**
+     * the outcome of parsing a raw record
+     */
+    private static class ParseResult {
+        private long recordNumber;
+        // the parsed record; null if skipped or in error
+        private Object input = null;
+        // true if the record is not valid
+        private boolean skipped = false;
+        // exception thrown validating or interpreting the record
+        private Exception error = null;
+
+        private ParseResult(long recordNumber) {
+            this.recordNumber = recordNumber;
+        }
+    }
+
+    /**
+     * reads raw records from the input file onto the work queue
+     */
+    private class Reader extends Thread {
+        public void run() {
+            long count = 0;
+            Exception error = null;
+            try {
+                while (recordIterator.hasNext()) {
+                    slots.acquire();
+                    CharSequence record =
+                        (CharSequence) recordIterator.next();
+                    ParseTask task = new ParseTask(count, record);
+                    if (recordIterator instanceof RecordLocator) {
+                        task.recordRef = ((RecordLocator) recordIterator).
+                            getRecordReference();
+                    }
+                    workQueue.put(task);
+                    count++;
+                }
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (Exception e) {
+                error = e;
+            }
+            readerFinished(count, error);
+            try {
+                for (int i = 0; i < interpreters.length; i++) {
+                    workQueue.put(END_OF_INPUT);
+                }
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * parses raw records from the work queue into the reorder buffer
+     */
+    private class Worker extends Thread {
+        // this worker's interpreter
+        private RecordDataInterpreter interpreter;
+
+        // true if the interpreter checks the organism of a view in place
+        private boolean checkInPlace;
+
+        private Worker(RecordDataInterpreter interpreter) {
+            this.interpreter = interpreter;
+            this.checkInPlace = GBRecordScanner.canCheckInPlace(interpreter);
+        }
+
+        public void run() {
+            while (true) {
+                ParseTask task;
+                try {
+                    task = (ParseTask) workQueue.take();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                if (task == END_OF_INPUT) {
+                    return;
+                }
+                ParseResult result = new ParseResult(task.recordNumber);
+                try {
+                    if (isValid(task.record)) {
+                        result.input =
+                            interpreter.interpret(task.record.toString());
+                        if (task.recordRef != null) {
+                            RecordReference.setReference(result.input,
+                                                         task.recordRef);
+                        }
+                    }
+                    else {
+                        result.skipped = true;
+                    }
+                }
+                catch (Exception e) {
+                    result.error = e;
+                }
+                publish(result);
+            }
+        }
+
+        // a view is only copied into a String if it is to be interpreted
+        // or the interpreter cannot check it in place
+        private boolean isValid(CharSequence record) throws MGIException {
+            if (record instanceof String) {
+                return interpreter.isValid((String) record);
+            }
+            if (checkInPlace) {
+                return ((GBFormatInterpreter) interpreter).isValid(record);
+            }
+            return interpreter.isValid(record.toString());
+        }
+    }
+
+    /**
+     * a RecordDataInterpreter which returns each record unchanged so that
+     * records may be parsed outside of the iterator
+     */
+    private static class RawRecordInterpreter
+        implements RecordDataInterpreter {
+
+        public boolean isValid(String record) {
+            return true;
+        }
+
+        public Object interpret(String record) {
+            return record;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.jax.mgi.shr.dla.log;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * An object that formats and writes log records to their handlers on a
+ * background thread
+ * @has a bounded ring buffer of log records waiting to be written and a
+ * writer thread
+ * @does takes log records from the logging threads and formats and
+ * publishes them in order on the writer thread, so logging threads only
+ * wait on file I/O if the buffer fills. Each record carries its own
+ * formatter, so the handlers' formatter is never switched; the handlers
+ * are given a formatter which writes the formatted text as is.
+ * @company The Jackson Laboratory
+ * @author sc
+ * @version 1.0
+ */
+
+public class AsyncLogAppender {
+
+  // the records waiting to be written
+  private ArrayBlockingQueue buffer = null;
+  // the thread writing the records
+  private Thread writer = null;
+  // the handlers written to since the last flush
+  private HashSet dirtyHandlers = new HashSet();
+  // true once close has been called
+  private boolean closed = false;
+  // a formatter for handlers which writes the formatted text as is
+  private static final Formatter preformatted = new Formatter() {
+    public String format(LogRecord record) {
+      return record.getMessage();
+    }
+  };
+
+  /**
+   * constructor which starts the writer thread
+   * @assumes nothing
+   * @effects starts a thread and registers a shutdown hook which writes
+   * any records still buffered when the jvm exits
+   * @param capacity the number of records which can be buffered
+   */
+  public AsyncLogAppender(int capacity) {
+    buffer = new ArrayBlockingQueue(capacity);
+    writer = new Thread(new Runnable() {
+      public void run() {
+        write();
+      }
+    }, "AsyncLogAppender");
+    writer.setDaemon(true);
+    writer.start();
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      public void run() {
+        AsyncLogAppender.this.close();
+      }
+    });
+  }
+
+  /**
+   * prepare a handler to have records written to it by this appender
+   * @assumes nothing
+   * @effects the formatter of the handler is replaced
+   * @param handler the handler
+   */
+  public void attach(Handler handler) {
+    handler.setFormatter(preformatted);
+  }
+
+  /**
+   * buffer a record to be formatted and written to a handler
+   * @assumes the handler has been attached
+   * @effects the record will be written on the writer thread; waits if the
+   * buffer is full. Appending is serialized with closing so no record is
+   * left in the buffer
+   * @param handler the handler to write the record to
+   * @param formatter the formatter for the record
+   * @param record the record
+   */
+  public void append(Handler handler, Formatter formatter, LogRecord record) {
+    Entry entry = new Entry(handler, formatter, record);
+    synchronized (this) {
+      if (closed) {
+        // the writer has stopped; write on this thread
+        entry.write();
+        return;
+      }
+      put(entry);
+    }
+  }
+
+  /**
+   * wait until all records buffered so far have been written and flushed
+   * @assumes nothing
+   * @effects the handlers are flushed
+   */
+  public void flush() {
+    synchronized (this) {
+      if (closed)
+        return;
+    }
+    Entry marker = new Entry(null, null, null);
+    put(marker);
+    try {
+      marker.done.await();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * write all buffered records and stop the writer thread
+   * @assumes nothing
+   * @effects records appended after closing are written on the appending
+   * thread
+   */
+  public void close() {
+    synchronized (this) {
+      if (closed)
+        return;
+    }
+    flush();
+    synchronized (this) {
+      closed = true;
+    }
+    writer.interrupt();
+  }
+
+  /**
+   * put an entry into the buffer, waiting if it is full
+   * @param entry the entry
+   */
+  private void put(Entry entry) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        buffer.put(entry);
+        break;
+      }
+      catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * the writer thread loop
+   */
+  private void write() {
+    while (true) {
+      Entry entry = null;
+      try {
+        entry = (Entry)buffer.take();
+      }
+      catch (InterruptedException e) {
+        synchronized (this) {
+          if (closed) {
+            // write anything appended while closing
+            while ((entry = (Entry)buffer.poll()) != null) {
+              if (entry.handler != null)
+                entry.write();
+              else
+                entry.done.countDown();
+            }
+            return;
+          }
+        }
+        continue;
+      }
+      if (entry.handler == null) {
+        // a flush marker
+        for (Iterator i = dirtyHandlers.iterator(); i.hasNext(); )
+          ((Handler)i.next()).flush();
+        dirtyHandlers.clear();
+        entry.done.countDown();
+      }
+      else {
+        entry.write();
+        dirtyHandlers.add(entry.handler);
+      }
+    }
+  }
+
+  /**
+   * a log record with the handler and formatter to write it with
+   * @has a handler, formatter and log record
+   * @does formats the record and publishes the text to the handler
+   * @company The Jackson Laboratory
+   * @author sc
+   * @version 1.0
+   */
+  private static class Entry {
+    private Handler handler;
+    private Formatter formatter;
+    private LogRecord record;
+    // counted down when a flush marker has been reached
+    private CountDownLatch done = new CountDownLatch(1);
+
+    private Entry(Handler handler, Formatter formatter, LogRecord record) {
+      this.handler = handler;
+      this.formatter = formatter;
+      this.record = record;
+    }
+
+    private void write() {
+      LogRecord text =
+          new LogRecord(record.getLevel(), formatter.format(record));
+      handler.publish(text);
+    }
+  }
+}
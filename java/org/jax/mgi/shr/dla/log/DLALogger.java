@@ -3,8 +3,10 @@ package org.jax.mgi.shr.dla.log;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.FileHandler;
+import java.util.logging.LogRecord;
 import java.io.IOException;
 import java.lang.Throwable;
+import java.util.function.Supplier;
 
 import org.jax.mgi.shr.config.DLALoggerCfg;
 import org.jax.mgi.shr.config.ConfigException;
@@ -47,9 +49,16 @@ import org.jax.mgi.shr.log.Logger;
  * <li>logdInfo - logs an informational message to the diagnostics log<br><br>
  * <li>logvErr - logs an error message to the valiadtion log
  * <li>logdErr - logs an error message to the diagnostics log<br><br>
- * <li>logdDebug - logs a debug message to the diagnostics log
+ * <li>logdDebug - logs a debug message to the diagnostics log. Overloads
+ * which take a pattern and arguments or a Supplier only build the message
+ * if debug messages are being logged
  * <p>
  * The DataLoadLogger class was not written for a multithreaded environment.
+ * <p>
+ * If LOG_ASYNC is configured the messages are formatted and written to the
+ * log files by an AsyncLogAppender on a background thread, in the same
+ * formats. Whether a message will be logged is always decided before the
+ * calling class and method are looked up for the header stamp.
  *
  * @company The Jackson Lab
  * @author M Walker
@@ -104,6 +113,12 @@ public class DLALogger implements Logger {
   private String clientClass = null;
   // the name of the method which logs a message
   private String clientMethod = null;
+  // true if the log files should be written on a background thread
+  private boolean async = false;
+  // the number of messages which can wait to be written
+  private int asyncBufferSize = 0;
+  // writes the log files on a background thread; null if not async
+  private AsyncLogAppender appender = null;
   // the logging line separator
   private static final String lineSeparator =
       System.getProperty( "line.separator");
@@ -162,6 +177,7 @@ public class DLALogger implements Logger {
       instance.createLogv();
       instance.createLogc();
       instance.createLogd();
+      instance.startAppender();
     }
     return instance;
   }
@@ -212,6 +228,11 @@ public class DLALogger implements Logger {
     * @param doStamping true if the message should be time stamped
     */
   public void logpInfo(String msg, boolean doStamping) {
+    if (appender != null) {
+      post(processLogger, logpHandler, doStamping ? Level.INFO : Level.FINER,
+           doStamping, msg);
+      return;
+    }
     if (doStamping) {
       if (logpFormatter != STAMPED_FORMATTER) {
         // swith the formatter to stamped
@@ -244,6 +265,11 @@ public class DLALogger implements Logger {
     * @param doStamping true if the message should be time stamped
     */
   public void logcInfo(String msg, boolean doStamping) {
+    if (appender != null) {
+      post(curatorLogger, logcHandler, doStamping ? Level.INFO : Level.FINER,
+           doStamping, msg);
+      return;
+    }
     if (doStamping) {
       if (logcFormatter != STAMPED_FORMATTER) {
         // swith the formatter to stamped
@@ -276,6 +302,11 @@ public class DLALogger implements Logger {
     * @param doStamping true if the message should be time stamped
     */
   public void logvInfo(String msg, boolean doStamping) {
+    if (appender != null) {
+      post(validationLogger, logvHandler,
+           doStamping ? Level.INFO : Level.FINER, doStamping, msg);
+      return;
+    }
     if (doStamping) {
       if (logvFormatter != STAMPED_FORMATTER) {
         // swith the formatter to stamped
@@ -308,6 +339,11 @@ public class DLALogger implements Logger {
     * @param doStamping true if the message should be time stamped
     */
   public void logdInfo(String msg, boolean doStamping) {
+    if (appender != null) {
+      post(diagnosticsLogger, logdHandler,
+           doStamping ? Level.INFO : Level.FINER, doStamping, msg);
+      return;
+    }
     if (doStamping) {
       if (logdFormatter != STAMPED_FORMATTER) {
         // swith the formatter to stamped
@@ -341,6 +377,10 @@ public class DLALogger implements Logger {
     * @param  msg string message.
     */
   public void logvErr(String msg) {
+    if (appender != null) {
+      post(validationLogger, logvHandler, Level.SEVERE, true, msg);
+      return;
+    }
     if (logvFormatter != STAMPED_FORMATTER) {
       // swith the formatter to stamped
       logvHandler.setFormatter(stampedFormatter);
@@ -360,6 +400,10 @@ public class DLALogger implements Logger {
     * @param  msg string message.
     */
   public void logdErr(String msg) {
+    if (appender != null) {
+      post(diagnosticsLogger, logdHandler, Level.SEVERE, true, msg);
+      return;
+    }
     if (logdFormatter != STAMPED_FORMATTER) {
       // swith the formatter to stamped
       logdHandler.setFormatter(stampedFormatter);
@@ -383,6 +427,13 @@ public class DLALogger implements Logger {
     * @param  msg string message.
     */
   public void logdDebug(String msg) {
+    // don't look up the caller for a message that won't be logged
+    if (!diagnosticsLogger.isLoggable(Level.FINEST))
+      return;
+    if (appender != null) {
+      post(diagnosticsLogger, logdHandler, Level.FINEST, true, msg);
+      return;
+    }
     if (logdFormatter != STAMPED_FORMATTER) {
       // swith the formatter to stamped
       logdHandler.setFormatter(stampedFormatter);
@@ -411,6 +462,12 @@ public class DLALogger implements Logger {
       logdDebug(msg);
     }
     else {
+      if (!diagnosticsLogger.isLoggable(Level.FINEST))
+        return;
+      if (appender != null) {
+        post(diagnosticsLogger, logdHandler, Level.FINEST, false, msg);
+        return;
+      }
       if (logdFormatter != BRIEF_FORMATTER) {
         // switch the formatter to non-stamped
         logdHandler.setFormatter(messageOnlyFormatter);
@@ -422,6 +479,131 @@ public class DLALogger implements Logger {
     }
   }
 
+  /**
+    * Writes a debug message made from a pattern and an argument to the
+    * diagnostics log. The message is only made if debug messages are
+    * being logged. A standard header stamp will be included.
+    * @assumes nothing
+    * @effects a message will be written to the diagnostics log if
+    * the debug state is true
+    * @param pattern the message with {0} where the argument goes
+    * @param arg the argument
+    */
+  public void logdDebug(String pattern, Object arg) {
+    if (isDebugLoggable())
+      logdDebug(format(pattern, new Object[] {arg}));
+  }
+
+  /**
+    * Writes a debug message made from a pattern and two arguments to the
+    * diagnostics log. The message is only made if debug messages are
+    * being logged. A standard header stamp will be included.
+    * @assumes nothing
+    * @effects a message will be written to the diagnostics log if
+    * the debug state is true
+    * @param pattern the message with {0} and {1} where the arguments go
+    * @param arg1 the first argument
+    * @param arg2 the second argument
+    */
+  public void logdDebug(String pattern, Object arg1, Object arg2) {
+    if (isDebugLoggable())
+      logdDebug(format(pattern, new Object[] {arg1, arg2}));
+  }
+
+  /**
+    * Writes a debug message made from a pattern and arguments to the
+    * diagnostics log. The message is only made if debug messages are
+    * being logged. A standard header stamp will be included.
+    * @assumes nothing
+    * @effects a message will be written to the diagnostics log if
+    * the debug state is true
+    * @param pattern the message with {0}, {1}, ... where the arguments go
+    * @param args the arguments
+    */
+  public void logdDebug(String pattern, Object[] args) {
+    if (isDebugLoggable())
+      logdDebug(format(pattern, args));
+  }
+
+  /**
+    * Writes a debug message supplied on demand to the diagnostics log.
+    * The supplier is only called if debug messages are being logged.
+    * A standard header stamp will be included.
+    * @assumes nothing
+    * @effects a message will be written to the diagnostics log if
+    * the debug state is true
+    * @param message supplies the message
+    */
+  public void logdDebug(Supplier<String> message) {
+    if (isDebugLoggable())
+      logdDebug(message.get());
+  }
+
+  /**
+   * logs a debug message made from a pattern and arguments to a Logger,
+   * only making the message if a DLALogger is logging debug messages
+   * @assumes nothing
+   * @effects a debug message may be logged
+   * @param logger the Logger to use
+   * @param pattern the message with {0}, {1}, ... where the arguments go
+   * @param args the arguments
+   */
+  public static void logDebug(Logger logger, String pattern, Object[] args) {
+    if (logger instanceof DLALogger &&
+        !((DLALogger)logger).isDebugLoggable())
+      return;
+    logger.logDebug(format(pattern, args));
+  }
+
+  /**
+   * return whether debug messages are being logged to the diagnostics log
+   * @assumes nothing
+   * @effects nothing
+   * @return true if debug messages will be logged
+   */
+  public boolean isDebugLoggable() {
+    return diagnosticsLogger.isLoggable(Level.FINEST);
+  }
+
+  /**
+   * make a message by replacing {0}, {1}, ... in a pattern with the string
+   * values of the arguments. Unlike MessageFormat numbers are not
+   * formatted and quotes are not special.
+   * @assumes nothing
+   * @effects nothing
+   * @param pattern the pattern
+   * @param args the arguments
+   * @return the message
+   */
+  public static String format(String pattern, Object[] args) {
+    StringBuffer buff = new StringBuffer(pattern.length() + 32);
+    int len = pattern.length();
+    int i = 0;
+    while (i < len) {
+      char c = pattern.charAt(i);
+      if (c == '{') {
+        int close = pattern.indexOf('}', i + 1);
+        if (close > i + 1) {
+          int index = -1;
+          try {
+            index = Integer.parseInt(pattern.substring(i + 1, close));
+          }
+          catch (NumberFormatException e) {
+            // not a placeholder
+          }
+          if (index >= 0 && index < args.length) {
+            buff.append(String.valueOf(args[index]));
+            i = close + 1;
+            continue;
+          }
+        }
+      }
+      buff.append(c);
+      i++;
+    }
+    return buff.toString();
+  }
+
   /**
    * sets the debug state to on or off
    * @assumes nothing
@@ -453,6 +635,9 @@ public class DLALogger implements Logger {
    * @effects log files will be closed
    */
   public void close() {
+    // write any buffered messages
+    if (appender != null)
+      appender.close();
     // close file handlers
     if (logpHandler != null)
       logpHandler.close();
@@ -594,6 +779,8 @@ public class DLALogger implements Logger {
     logv = config.getLogv();
     logd = config.getLogd();
     debugState = config.getDebug().booleanValue();
+    async = config.getAsync().booleanValue();
+    asyncBufferSize = Integer.parseInt(config.getAsyncBufferSize());
     // get a named Logger class from the java 1.4 frameworks.
     // naming these logs is for java 1.4 internal use.
     // remove the default handlers for each log.
@@ -631,21 +818,72 @@ public class DLALogger implements Logger {
     }
   }
 
+  /**
+   * starts the AsyncLogAppender if the logger is configured to be async
+   * and has it write to the file handlers
+   */
+  private void startAppender() {
+    if (!async)
+      return;
+    appender = new AsyncLogAppender(asyncBufferSize);
+    appender.attach(logpHandler);
+    appender.attach(logcHandler);
+    appender.attach(logvHandler);
+    appender.attach(logdHandler);
+  }
+
+  /**
+   * posts a message to the AsyncLogAppender if the logger will log it
+   * @param logger the java1.4 Logger instance for the log
+   * @param handler the FileHandler for the log
+   * @param level the level of the message
+   * @param doStamping true if the message should have a header stamp
+   * @param msg the message
+   */
+  private void post(java.util.logging.Logger logger, FileHandler handler,
+                    Level level, boolean doStamping, String msg) {
+    if (!logger.isLoggable(level))
+      return;
+    LogRecord record = new LogRecord(level, msg);
+    record.setLoggerName(logger.getName());
+    if (doStamping) {
+      StackTraceElement caller = findCaller();
+      record.setSourceClassName(caller == null ?
+                                null : caller.getClassName());
+      record.setSourceMethodName(caller == null ?
+                                 null : caller.getMethodName());
+      appender.append(handler, stampedFormatter, record);
+    }
+    else {
+      appender.append(handler, messageOnlyFormatter, record);
+    }
+  }
+
   /**
    * sets the instance variables clientClass and clientMethod for use in
    * message header stamping
    */
   private void setClassNameMethodName() {
+    StackTraceElement caller = findCaller();
+    if (caller != null) {
+      clientClass = caller.getClassName();
+      clientMethod = caller.getMethodName();
+    }
+  }
+
+  /**
+   * finds the first frame on the stack outside of this class and the
+   * logging frameworks
+   * @return the frame of the caller or null if there is none
+   */
+  private StackTraceElement findCaller() {
     String name;
     StackTraceElement stack[] = new Throwable().getStackTrace();
-    int len = stack.length;
     for (int i = 0; i < stack.length; i++) {
       name = stack[i].getClassName();
-      if (!name.equals(LOGGER) && !name.startsWith(FRAMEWORKS)) {
-        clientClass = name;
-        clientMethod = stack[i].getMethodName();
-        break;
-      }
+      if (!name.equals(LOGGER) && !name.startsWith(FRAMEWORKS))
+        return stack[i];
     }
+    return null;
   }
 }
@@ -149,4 +149,73 @@ public class TestMSCollapsedCache
     assertEquals(new Integer(-70), foundMS.getMSKey());
   }
 
+  /**
+   * the MSCollapsedIndex should find the same sources as the
+   * MSCollapsedCache for ages differing only in case, both for sources
+   * loaded from the database and for sources added later
+   * @throws Exception
+   */
+  public void testIndexMatchesCache() throws Exception
+  {
+    MSCollapsedIndex index = new MSCollapsedIndex();
+    String[] ages = new String[] {"Not Applicable", "not applicable",
+        "NOT APPLICABLE", "Postnatal Day 5", "postnatal day 5", null};
+    assertSameLookups(index, ages);
+
+    // add sources with mixed case ages to both
+    MolecularSource added = brainSource("Postnatal Day 5");
+    lookup.addToCache(added);
+    index.addToCache(added);
+    MolecularSource other = brainSource("Not Applicable");
+    lookup.addToCache(other);
+    index.addToCache(other);
+    assertSameLookups(index, ages);
+  }
+
+  /**
+   * assert the MSCollapsedIndex and the MSCollapsedCache look up the same
+   * source for each of a set of ages
+   * @param index the MSCollapsedIndex
+   * @param ages the ages
+   * @throws Exception
+   */
+  private void assertSameLookups(MSCollapsedIndex index, String[] ages)
+      throws Exception
+  {
+    for (int i = 0; i < ages.length; i++)
+    {
+      MolecularSource unresolvedMS = brainSource(ages[i]);
+      MolecularSource expected = lookup.lookup(unresolvedMS);
+      MolecularSource found = index.lookup(unresolvedMS);
+      if (expected == null)
+        assertNull(ages[i], found);
+      else
+        assertSame(ages[i], expected, found);
+    }
+  }
+
+  /**
+   * create a source with the attributes of the source with key -70 and the
+   * given age
+   * @param age the age
+   * @return the MolecularSource
+   * @throws Exception
+   */
+  private MolecularSource brainSource(String age) throws Exception
+  {
+    MolecularSource ms =
+        new MolecularSource(
+            new PRB_SourceDAO(new PRB_SourceKey(new Integer(-300)),
+                              new PRB_SourceState()));
+    ms.setOrganismKey(new Integer(1));
+    ms.setSegmentTypeKey(segmentLookup.lookup("Not Applicable"));
+    ms.setVectorTypeKey(vectorLookup.lookup("Not Applicable"));
+    ms.setCellLineKey(cellLineLookup.lookup("Not Specified"));
+    ms.setGenderKey(genderLookup.lookup("Not Specified"));
+    ms.setStrainKey(strainLookup.lookup("Not Specified"));
+    ms.setTissueKey(tissueLookup.lookup("brain"));
+    ms.setAge(age);
+    return ms;
+  }
+
 }
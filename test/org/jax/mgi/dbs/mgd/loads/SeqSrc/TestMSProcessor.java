@@ -1,10 +1,16 @@
 package org.jax.mgi.dbs.mgd.loads.SeqSrc;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
 import junit.framework.*;
 import org.jax.mgi.shr.dbutils.*;
 import org.jax.mgi.shr.dbutils.dao.*;
 import org.jax.mgi.shr.config.DatabaseCfg;
+import org.jax.mgi.shr.config.ConfigReinitializer;
 import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.cache.CacheConstants;
 import org.jax.mgi.dbs.mgd.*;
 import org.jax.mgi.dbs.mgd.lookup.*;
 
@@ -23,6 +29,9 @@ public class TestMSProcessor
     private StrainKeyLookup strainLookup;
     private OrganismKeyLookup organismLookup;
     private String jobkey = new String("-200");
+    // accids with anonymous, conflicting named, named and no clone sources
+    private String[] cloneAccids =
+        new String[] {"T00313", "T00513", "T00613", "NOGOOD"};
 
 
     public TestMSProcessor(String name)
@@ -322,6 +331,76 @@ public class TestMSProcessor
 
     }
 
+    /**
+     * the clone source names looked up for a batch should be the names the
+     * associated clones cache finds for each accid
+     * @throws Exception
+     */
+    public void testBatchCloneNamesMatchCache() throws Exception
+    {
+      HashSet accids = new HashSet(Arrays.asList(cloneAccids));
+      HashMap batch = MSLookup.findAssocCloneNamesByAccids(accids);
+      AssocClonesLookup cache =
+          new AssocClonesLookup(CacheConstants.LAZY_CACHE);
+      assertEquals(accids, batch.keySet());
+      for (int i = 0; i < cloneAccids.length; i++)
+      {
+        String[] expected = cache.lookup(cloneAccids[i]);
+        String[] names = (String[])batch.get(cloneAccids[i]);
+        if (expected == null)
+        {
+          assertNull(names);
+          continue;
+        }
+        Arrays.sort(expected);
+        Arrays.sort(names);
+        assertEquals(cloneAccids[i], Arrays.asList(expected),
+                     Arrays.asList(names));
+      }
+    }
+
+    /**
+     * new sequences processed after the associated clones of their batch
+     * are prefetched should resolve to the same sources as they do through
+     * the associated clones cache
+     * @throws Exception
+     */
+    public void testNewSeqClonePrefetchedMatchesCache() throws Exception
+    {
+      System.getProperties().put("MS_OK_TO_BATCH_ASSOC_CLONES", "true");
+      ConfigReinitializer.reinit();
+      MSProcessor batchProcessor;
+      try
+      {
+        batchProcessor = new MSProcessor(new Inline_Stream(sqlMgr),
+                                         new Inline_Stream(radar));
+      }
+      finally
+      {
+        System.getProperties().remove("MS_OK_TO_BATCH_ASSOC_CLONES");
+        ConfigReinitializer.reinit();
+      }
+      batchProcessor.prefetchAssociatedClones(
+          new HashSet(Arrays.asList(cloneAccids)));
+      for (int i = 0; i < cloneAccids.length; i++)
+      {
+        MSRawAttributes raw = new MSRawAttributes();
+        raw.setOrganism("mouse, laboratory");
+        raw.setCellLine("HeLa");
+        MolecularSource cached =
+            msProcessor.processNewSeqSrc(cloneAccids[i], raw);
+        raw = new MSRawAttributes();
+        raw.setOrganism("mouse, laboratory");
+        raw.setCellLine("HeLa");
+        MolecularSource prefetched =
+            batchProcessor.processNewSeqSrc(cloneAccids[i], raw);
+        assertEquals(cloneAccids[i], cached.getMSKey(),
+                     prefetched.getMSKey());
+        assertEquals(cached.getName(), prefetched.getName());
+      }
+      batchProcessor.clearPrefetched();
+    }
+
     private void doInserts() throws Exception
     {
       Integer seg = segmentLookup.lookup("Not Applicable");
@@ -3,6 +3,7 @@ package org.jax.mgi.dbs.mgd.loads.SeqSrc;
 import junit.framework.*;
 import org.jax.mgi.shr.dbutils.*;
 import org.jax.mgi.shr.cache.*;
+import org.jax.mgi.shr.config.ConfigReinitializer;
 import org.jax.mgi.dbs.mgd.*;
 import org.jax.mgi.dbs.mgd.lookup.*;
 
@@ -106,4 +107,45 @@ public class TestMSResolver
         assertTrue(ms.getMSKey().intValue() > 0);
     }
 
+    /**
+     * a resolver remembering resolved sources should resolve the same
+     * sources as one which does not, and find repeated raw attributes in
+     * its memo
+     * @throws Exception
+     */
+    public void testMemoMatchesResolve() throws Exception
+    {
+        System.setProperty("MS_RESOLVER_MEMO_SIZE", "1");
+        ConfigReinitializer.reinit();
+        MSResolver memoResolver;
+        try
+        {
+            memoResolver = new MSResolver();
+        }
+        finally
+        {
+            System.getProperties().remove("MS_RESOLVER_MEMO_SIZE");
+            ConfigReinitializer.reinit();
+        }
+        // raw organisms which both collapse to the source with key -70
+        String[] organisms = new String[] {"Mus abbotti", "Mus abbotti",
+                                           "mouse, laboratory",
+                                           "Mus abbotti"};
+        for (int i = 0; i < organisms.length; i++)
+        {
+            MSRawAttributes raw = new MSRawAttributes();
+            raw.setOrganism(organisms[i]);
+            raw.setTissue("brain");
+            MolecularSource expected = resolver.resolve(raw);
+            MolecularSource ms = memoResolver.resolve(raw);
+            assertEquals(new Integer(-70), expected.getMSKey());
+            assertEquals(expected.getMSKey(), ms.getMSKey());
+            assertEquals(expected.toString(), ms.toString());
+        }
+        // the second is found in the memo; the last was forgotten when the
+        // third was remembered
+        assertEquals(1, memoResolver.getMemoHits());
+        assertEquals(3, memoResolver.getMemoMisses());
+    }
+
 }
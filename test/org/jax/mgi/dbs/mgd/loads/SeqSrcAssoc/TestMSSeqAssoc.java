@@ -1,5 +1,9 @@
 package org.jax.mgi.dbs.mgd.loads.SeqSrcAssoc;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Vector;
+
 import junit.framework.*;
 import org.jax.mgi.shr.dbutils.*;
 import org.jax.mgi.shr.config.*;
@@ -92,4 +96,37 @@ public class TestMSSeqAssoc
 
     }
 
+    /**
+     * the associations found for a batch of sequence keys should give the
+     * same MSSeqAssoc as looking up each sequence
+     * @throws Exception
+     */
+    public void testFindBySeqKeysMatchesSingleLookup() throws Exception
+    {
+        HashSet seqKeys = new HashSet();
+        seqKeys.add(new Integer(-200));
+        seqKeys.add(new Integer(-999)); // no associations
+        HashMap assocs = MSSeqAssoc.findBySeqKeys(seqKeys);
+        assertEquals(seqKeys, assocs.keySet());
+        assertEquals(0, ((Vector)assocs.get(new Integer(-999))).size());
+
+        Vector v = (Vector)assocs.get(new Integer(-200));
+        MSSeqAssoc batchAssoc = MSSeqAssoc.findBySeqKeyOrganism(v,
+            new Integer(-200), new Integer(1));
+        assertEquals(assoc.getAssocKey(), batchAssoc.getAssocKey());
+        assertEquals(assoc.getSeqKey(), batchAssoc.getSeqKey());
+        assertEquals(assoc.getMolecularSource().getMSKey(),
+                     batchAssoc.getMolecularSource().getMSKey());
+        assertEquals(assoc.getUpdateSQL(), batchAssoc.getUpdateSQL());
+
+        // an organism the sequence has no source for
+        assertNull(MSSeqAssoc.findBySeqKeyOrganism(new Integer(-200),
+                                                   new Integer(2)));
+        assertNull(MSSeqAssoc.findBySeqKeyOrganism(v, new Integer(-200),
+                                                   new Integer(2)));
+        assertNull(MSSeqAssoc.findBySeqKeyOrganism(
+            (Vector)assocs.get(new Integer(-999)), new Integer(-999),
+            new Integer(1)));
+    }
+
 }
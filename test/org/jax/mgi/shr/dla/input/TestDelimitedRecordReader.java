@@ -0,0 +1,200 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Vector;
+
+import junit.framework.*;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+
+public class TestDelimitedRecordReader
+    extends TestCase {
+
+  // number of records in the input
+  private static final int RECORDS = 20000;
+
+  private byte[] data = null;
+  private File file = null;
+
+  public TestDelimitedRecordReader(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    data = TestGzipBlockInputStream.sampleData(RECORDS);
+    file = File.createTempFile("TestDelimitedRecordReader", ".gz");
+  }
+
+  protected void tearDown() throws Exception {
+    file.delete();
+    file = null;
+    data = null;
+    super.tearDown();
+  }
+
+  public void testEndDelimiter() throws Exception {
+    DelimitedRecordReader reader = new DelimitedRecordReader("test",
+        new ByteArrayInputStream(data), "LOCUS ", "//", null);
+    assertEquals(expectedRecords(true), readAll(reader));
+    assertEquals(RECORDS, reader.getRecordCount());
+    assertEquals(0, reader.getSkippedCount());
+  }
+
+  public void testBeginDelimiterOnly() throws Exception {
+    DelimitedRecordReader reader = new DelimitedRecordReader("test",
+        new ByteArrayInputStream(data), "LOCUS ", null, null);
+    assertEquals(expectedRecords(false), readAll(reader));
+  }
+
+  public void testDelimiterNotAtLineStart() throws Exception {
+    String input = "xLOCUS  not a record\nLOCUS  one\n x//\n//\n" +
+        "LOCUS  two\n//extra\n";
+    DelimitedRecordReader reader = new DelimitedRecordReader("test",
+        new ByteArrayInputStream(input.getBytes()), "LOCUS ", "//", null);
+    Vector expected = new Vector();
+    expected.add("LOCUS  one\n x//\n//");
+    expected.add("LOCUS  two\n//");
+    assertEquals(expected, readAll(reader));
+  }
+
+  public void testInterpreter() throws Exception {
+    DelimitedRecordReader reader = new DelimitedRecordReader("test",
+        new ByteArrayInputStream(data), "LOCUS ", "//",
+        new TestInterpreter());
+    Vector expected = new Vector();
+    Vector records = expectedRecords(true);
+    for (int i = 0; i < records.size(); i++) {
+      String rcd = (String)records.get(i);
+      if (i % 3 != 0)
+        expected.add(new Integer(rcd.length()));
+    }
+    assertEquals(expected, readAll(reader));
+    assertEquals(RECORDS, reader.getRecordCount());
+    assertEquals(RECORDS - expected.size(), reader.getSkippedCount());
+  }
+
+  public void testSingleMember() throws Exception {
+    TestGzipBlockInputStream.writeFile(file,
+        TestGzipBlockInputStream.gzip(data));
+    assertEquals(expectedRecords(true), readCompressed());
+  }
+
+  public void testMultiMember() throws Exception {
+    // members split in the middle of records
+    byte[] first = TestGzipBlockInputStream.slice(data, 0, 12345);
+    byte[] second =
+        TestGzipBlockInputStream.slice(data, 12345, data.length);
+    byte[] one = TestGzipBlockInputStream.gzip(first);
+    byte[] two = TestGzipBlockInputStream.gzip(second);
+    byte[] members = new byte[one.length + two.length];
+    System.arraycopy(one, 0, members, 0, one.length);
+    System.arraycopy(two, 0, members, one.length, two.length);
+    TestGzipBlockInputStream.writeFile(file, members);
+    assertEquals(expectedRecords(true), readCompressed());
+  }
+
+  public void testBgzf() throws Exception {
+    // records span the block boundaries
+    TestGzipBlockInputStream.writeFile(file,
+        TestGzipBlockInputStream.bgzf(data));
+    assertEquals(expectedRecords(true), readCompressed());
+  }
+
+  public void testCorruptBlock() throws Exception {
+    byte[] compressed = TestGzipBlockInputStream.bgzf(data);
+    compressed[compressed.length / 2] ^= 0x55;
+    TestGzipBlockInputStream.writeFile(file, compressed);
+    assertReadFails();
+  }
+
+  public void testTruncatedBlock() throws Exception {
+    byte[] compressed = TestGzipBlockInputStream.bgzf(data);
+    TestGzipBlockInputStream.writeFile(file,
+        TestGzipBlockInputStream.slice(compressed, 0, compressed.length / 2));
+    assertReadFails();
+  }
+
+  /**
+   * assert reading all records of the compressed test file throws an
+   * MGIException
+   * @throws Exception
+   */
+  private void assertReadFails() throws Exception {
+    DelimitedRecordReader reader = DelimitedRecordReader.openCompressed(
+        file.getPath(), "LOCUS ", "//", null, 4);
+    try {
+      readAll(reader);
+      fail("expected an MGIException reading " + file.getPath());
+    }
+    catch (MGIException e) {
+      // expected
+    }
+    reader.close();
+  }
+
+  /**
+   * read the records of the compressed test file
+   * @return the records
+   * @throws Exception
+   */
+  private Vector readCompressed() throws Exception {
+    DelimitedRecordReader reader = DelimitedRecordReader.openCompressed(
+        file.getPath(), "LOCUS ", "//", null, 4);
+    Vector records = readAll(reader);
+    reader.close();
+    return records;
+  }
+
+  /**
+   * split the sample data into records
+   * @param endDelimiter true if the records end with "//", otherwise a
+   * record ends at the next record
+   * @return the records
+   */
+  private Vector expectedRecords(boolean endDelimiter) {
+    Vector records = new Vector();
+    String text = new String(data);
+    int start = text.indexOf("LOCUS ");
+    while (start >= 0) {
+      int next = text.indexOf("\nLOCUS ", start);
+      int end = (next < 0) ? text.length() : next + 1;
+      if (endDelimiter)
+        end = text.indexOf("\n//", start) + 3;
+      records.add(text.substring(start, end));
+      start = (next < 0) ? -1 : next + 1;
+    }
+    return records;
+  }
+
+  /**
+   * read all records from a DelimitedRecordReader
+   * @param reader the reader
+   * @return the records or their interpretations
+   * @throws MGIException
+   */
+  private static Vector readAll(DelimitedRecordReader reader)
+      throws MGIException {
+    Vector records = new Vector();
+    while (reader.hasNext())
+      records.add(reader.next());
+    return records;
+  }
+
+  /**
+   * an interpreter which skips every third record and returns the length
+   * of the others
+   */
+  private static class TestInterpreter implements RecordDataInterpreter {
+    public boolean isValid(String rcd) {
+      int id = Integer.parseInt(
+          rcd.substring("LOCUS       R".length(), rcd.indexOf('\n')));
+      return id % 3 != 0;
+    }
+
+    public Object interpret(String rcd) {
+      return new Integer(rcd.length());
+    }
+  }
+}
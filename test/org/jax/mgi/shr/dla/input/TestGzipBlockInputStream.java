@@ -0,0 +1,293 @@
+package org.jax.mgi.shr.dla.input;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.*;
+
+public class TestGzipBlockInputStream
+    extends TestCase {
+
+  // the uncompressed size of a BGZF block, as bgzip writes them
+  private static final int BGZF_BLOCK_SIZE = 65280;
+
+  private byte[] data = null;
+  private File file = null;
+
+  public TestGzipBlockInputStream(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    data = sampleData(20000);
+    file = File.createTempFile("TestGzipBlockInputStream", ".gz");
+  }
+
+  protected void tearDown() throws Exception {
+    file.delete();
+    file = null;
+    data = null;
+    super.tearDown();
+  }
+
+  public void testSingleMember() throws Exception {
+    writeFile(file, gzip(data));
+    GzipBlockInputStream in = new GzipBlockInputStream(file.getPath(), 4, 8);
+    assertTrue(Arrays.equals(data, readAll(in)));
+    assertEquals(0, in.getBlockCount());
+    in.close();
+  }
+
+  public void testMultiMember() throws Exception {
+    ByteArrayOutputStream members = new ByteArrayOutputStream();
+    for (int i = 0; i < data.length; i += 100000)
+      members.write(gzip(slice(data, i, Math.min(i + 100000, data.length))));
+    writeFile(file, members.toByteArray());
+    GzipBlockInputStream in = new GzipBlockInputStream(file.getPath(), 4, 8);
+    assertTrue(Arrays.equals(data, readAll(in)));
+    in.close();
+  }
+
+  public void testBgzf() throws Exception {
+    writeFile(file, bgzf(data));
+    int blocks = (data.length + BGZF_BLOCK_SIZE - 1) / BGZF_BLOCK_SIZE;
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      GzipBlockInputStream in =
+          new GzipBlockInputStream(file.getPath(), threads, 2);
+      assertTrue("threads " + threads, Arrays.equals(data, readAll(in)));
+      // the data blocks and the empty end of file block
+      assertEquals(blocks + 1, in.getBlockCount());
+      in.close();
+    }
+  }
+
+  public void testBgzfThenMember() throws Exception {
+    int half = data.length / 2;
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(bgzf(slice(data, 0, half)));
+    out.write(gzip(slice(data, half, data.length)));
+    writeFile(file, out.toByteArray());
+    GzipBlockInputStream in = new GzipBlockInputStream(file.getPath(), 4, 8);
+    assertTrue(Arrays.equals(data, readAll(in)));
+    in.close();
+  }
+
+  public void testEmptyFile() throws Exception {
+    writeFile(file, new byte[0]);
+    GzipBlockInputStream in = new GzipBlockInputStream(file.getPath(), 4, 8);
+    assertEquals(-1, in.read());
+    in.close();
+  }
+
+  public void testCorruptBlock() throws Exception {
+    byte[] compressed = bgzf(data);
+    // change a byte of the compressed data of the second block
+    int second = blockSize(compressed, 0);
+    compressed[second + 30] ^= 0x55;
+    writeFile(file, compressed);
+    assertReadFails();
+  }
+
+  public void testCrcError() throws Exception {
+    byte[] compressed = bgzf(data);
+    // change the CRC32 in the trailer of the first block
+    int first = blockSize(compressed, 0);
+    compressed[first - 8] ^= 0x01;
+    writeFile(file, compressed);
+    assertReadFails();
+  }
+
+  public void testBlockSizeTooLarge() throws Exception {
+    byte[] compressed = bgzf(data);
+    // set the uncompressed size in the trailer of the first block to
+    // 0xffffffff, which would be negative as an int
+    int first = blockSize(compressed, 0);
+    for (int i = first - 4; i < first; i++)
+      compressed[i] = (byte)0xff;
+    writeFile(file, compressed);
+    assertReadFails();
+  }
+
+  public void testTruncatedBlock() throws Exception {
+    byte[] compressed = bgzf(data);
+    // cut the file in the middle of the second block
+    int second = blockSize(compressed, 0);
+    writeFile(file, slice(compressed, 0, second + 100));
+    assertReadFails();
+  }
+
+  public void testTruncatedMember() throws Exception {
+    byte[] compressed = gzip(data);
+    writeFile(file, slice(compressed, 0, compressed.length / 2));
+    assertReadFails();
+  }
+
+  /**
+   * assert reading the whole of the test file throws an IOException
+   * @throws Exception
+   */
+  private void assertReadFails() throws Exception {
+    GzipBlockInputStream in = new GzipBlockInputStream(file.getPath(), 4, 8);
+    try {
+      readAll(in);
+      fail("expected an IOException reading " + file.getPath());
+    }
+    catch (IOException e) {
+      // expected
+    }
+    in.close();
+  }
+
+  /**
+   * create sample GenBank style records
+   * @param records the number of records
+   * @return the records as bytes
+   */
+  static byte[] sampleData(int records) {
+    StringBuffer buf = new StringBuffer("junk before the first record\n");
+    for (int i = 0; i < records; i++) {
+      buf.append("LOCUS       R" + i + "\n");
+      buf.append("  ORGANISM  Mus musculus\n");
+      buf.append("ORIGIN\n");
+      for (int j = 0; j < i % 7; j++)
+        buf.append("  " + (j * 60 + 1) + " acgtacgtac gtacgtacgt\n");
+      buf.append("//\n");
+    }
+    return buf.toString().getBytes();
+  }
+
+  /**
+   * compress bytes as one gzip member
+   * @param bytes the bytes
+   * @return the gzip member
+   * @throws IOException
+   */
+  static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream gz = new GZIPOutputStream(out);
+    gz.write(bytes);
+    gz.close();
+    return out.toByteArray();
+  }
+
+  /**
+   * compress bytes as BGZF blocks followed by the empty end of file block,
+   * as bgzip does
+   * @param bytes the bytes
+   * @return the BGZF blocks
+   * @throws IOException
+   */
+  static byte[] bgzf(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int i = 0; i < bytes.length; i += BGZF_BLOCK_SIZE)
+      out.write(bgzfBlock(
+          slice(bytes, i, Math.min(i + BGZF_BLOCK_SIZE, bytes.length))));
+    out.write(bgzfBlock(new byte[0]));
+    return out.toByteArray();
+  }
+
+  /**
+   * compress bytes as one BGZF block: a gzip member with a BC extra field
+   * holding the block size less one
+   * @param bytes the bytes
+   * @return the block
+   */
+  private static byte[] bgzfBlock(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(bytes);
+    deflater.finish();
+    byte[] buffer = new byte[bytes.length + 1024];
+    int length = 0;
+    while (!deflater.finished())
+      length += deflater.deflate(buffer, length, buffer.length - length);
+    deflater.end();
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    // gzip header with FEXTRA, unknown OS and a 6 byte extra field
+    out.write(new byte[] {31, (byte)139, 8, 4, 0, 0, 0, 0, 0, (byte)255},
+              0, 10);
+    writeInt16(out, 6);
+    out.write('B');
+    out.write('C');
+    writeInt16(out, 2);
+    writeInt16(out, 18 + length + 8 - 1);
+    out.write(buffer, 0, length);
+    writeInt32(out, crc.getValue());
+    writeInt32(out, bytes.length);
+    return out.toByteArray();
+  }
+
+  /**
+   * get the size of the BGZF block at an offset
+   * @param compressed the BGZF blocks
+   * @param offset the offset of a block
+   * @return the size of the block
+   */
+  private static int blockSize(byte[] compressed, int offset) {
+    return ((compressed[offset + 16] & 0xff) |
+            ((compressed[offset + 17] & 0xff) << 8)) + 1;
+  }
+
+  private static void writeInt16(ByteArrayOutputStream out, int i) {
+    out.write(i & 0xff);
+    out.write((i >> 8) & 0xff);
+  }
+
+  private static void writeInt32(ByteArrayOutputStream out, long i) {
+    writeInt16(out, (int)(i & 0xffff));
+    writeInt16(out, (int)((i >> 16) & 0xffff));
+  }
+
+  /**
+   * copy part of an array
+   * @param bytes the array
+   * @param from the start of the part
+   * @param to the end of the part
+   * @return the part
+   */
+  static byte[] slice(byte[] bytes, int from, int to) {
+    byte[] part = new byte[to - from];
+    System.arraycopy(bytes, from, part, 0, part.length);
+    return part;
+  }
+
+  /**
+   * write bytes to a file
+   * @param file the file
+   * @param bytes the bytes
+   * @throws IOException
+   */
+  static void writeFile(File file, byte[] bytes) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(bytes);
+    out.close();
+  }
+
+  /**
+   * read an InputStream to its end, with reads of varying length
+   * @param in the InputStream
+   * @return the bytes read
+   * @throws IOException
+   */
+  private static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8191];
+    int len = 1;
+    int n;
+    while ((n = in.read(buffer, 0, len)) >= 0) {
+      out.write(buffer, 0, n);
+      len = (len + 1000) % buffer.length + 1;
+    }
+    return out.toByteArray();
+  }
+}
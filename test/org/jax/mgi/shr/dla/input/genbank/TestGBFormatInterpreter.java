@@ -0,0 +1,349 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.StringTokenizer;
+
+import junit.framework.*;
+import org.jax.mgi.shr.config.ConfigException;
+import org.jax.mgi.shr.config.ConfigReinitializer;
+import org.jax.mgi.shr.dla.input.SequenceInput;
+import org.jax.mgi.shr.stringutil.StringLib;
+import org.jax.mgi.dbs.mgd.loads.Seq.SequenceRawAttributes;
+
+public class TestGBFormatInterpreter
+    extends TestCase {
+
+  // the sections of a record before the FEATURES section
+  private static final String HEADER =
+      "LOCUS       AB000096                3133 bp    mRNA    linear   " +
+      "ROD 07-FEB-1999\n" +
+      "DEFINITION  Mus musculus mRNA for GATA-2, complete cds.\n" +
+      "ACCESSION   AB000096\n" +
+      "VERSION     AB000096.1  GI:1754585\n" +
+      "KEYWORDS    .\n" +
+      "SOURCE      Mus musculus (house mouse)\n" +
+      "  ORGANISM  Mus musculus\n" +
+      "            Eukaryota; Metazoa; Chordata; Craniata; Vertebrata.\n" +
+      "FEATURES             Location/Qualifiers\n";
+
+  // the sections of a record after the FEATURES section
+  private static final String TRAILER =
+      "ORIGIN      \n" +
+      "        1 gaattcggca cgagggcgcc\n" +
+      "//\n";
+
+  // the first line of a FEATURES source section
+  private static final String SOURCE_LINE = "     source          1..3133\n";
+
+  // indent of a qualifier line
+  private static final String INDENT = "                     ";
+
+  // source sections, without their first line
+  private static final String[] SOURCES = new String[] {
+      // values on one line
+      INDENT + "/organism=\"Mus musculus\"\n" +
+      INDENT + "/mol_type=\"mRNA\"\n" +
+      INDENT + "/strain=\"129SJVMus\"\n" +
+      INDENT + "/db_xref=\"taxon:10090\"\n" +
+      INDENT + "/clone_lib=\"RIKEN full-length enriched library\"\n" +
+      INDENT + "/tissue_type=\"placenta day 20\"\n" +
+      INDENT + "/dev_stage=\"dpc 14.5\"\n" +
+      INDENT + "/sex=\"Female\"\n" +
+      INDENT + "/cell_line=\"MS-1\"\n" +
+      INDENT + "/clone=\"1110001A07\"\n",
+      // values which span lines
+      INDENT + "/strain=\"\n" +
+      INDENT + "BALB/c\"\n" +
+      INDENT + "/note=\"a note which\n" +
+      INDENT + "spans three\n" +
+      INDENT + "lines\"\n" +
+      INDENT + "/tissue_type=\"brain\n" +
+      INDENT + "\"\n" +
+      INDENT + "/cell_line=\"\n" +
+      INDENT + "\"\n",
+      // qualifiers without values
+      INDENT + "/x=\n" +
+      INDENT + "/strain=\n" +
+      INDENT + "/environmental_sample\n" +
+      INDENT + "/sex=\"\"\n" +
+      INDENT + "/clone=unquoted\n" +
+      INDENT + "/tissue_type= \"leading space\"\n",
+      // values containing '='
+      INDENT + "/note=\"a=b\"\n" +
+      INDENT + "/strain==\"C57BL/6J\"\n" +
+      INDENT + "/tissue_type=\"liver\"=\n" +
+      INDENT + "/dev_stage=\"age\n" +
+      INDENT + "=5 days\"\n" +
+      INDENT + "/sex=\"Male=\"\n",
+      // an unterminated quote, which takes at most 10 more lines
+      INDENT + "/note=\"never closed\n" +
+      INDENT + "line 1\n" + INDENT + "line 2\n" + INDENT + "line 3\n" +
+      INDENT + "line 4\n" + INDENT + "line 5\n" + INDENT + "line 6\n" +
+      INDENT + "line 7\n" + INDENT + "line 8\n" + INDENT + "line 9\n" +
+      INDENT + "line 10\n" + INDENT + "/strain=\"not taken\"\n" +
+      INDENT + "/sex=\"Female\"\n",
+      // blank lines within and between values
+      INDENT + "/note=\"blank\n" +
+      "   \n" +
+      "\n" +
+      INDENT + "lines\"\n" +
+      "\t\n" +
+      INDENT + "/strain=\"one\n" +
+      " \n" + " \n" + " \n" + " \n" + " \n" + " \n" + " \n" + " \n" +
+      " \n" + " \n" +
+      INDENT + "two\"\n" +
+      INDENT + "/sex=\"Female\"\n",
+      // a second source section
+      INDENT + "/organism=\"Mus musculus\"\n" +
+      INDENT + "/strain=\"FVB/N\"\n" +
+      SOURCE_LINE +
+      INDENT + "/organism=\"Gene trapping vector VICTR76\"\n" +
+      "     LTR             <1..30\n"
+  };
+
+  private SourceInterpreter interpreter = null;
+
+  public TestGBFormatInterpreter(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    System.setProperty("SEQ_LOGICALDB", "Sequence DB");
+    System.setProperty("SEQ_PROVIDER", "GenBank");
+    ConfigReinitializer.reinit();
+    interpreter = new SourceInterpreter();
+  }
+
+  protected void tearDown() throws Exception {
+    interpreter = null;
+    System.getProperties().remove("SEQ_LOGICALDB");
+    System.getProperties().remove("SEQ_PROVIDER");
+    ConfigReinitializer.reinit();
+    super.tearDown();
+  }
+
+  /**
+   * the source qualifiers parsed from a record should be those parsed by
+   * the line by line parsing the interpreter used to do
+   * @throws Exception
+   */
+  public void testRecordSourceMatchesBaseline() throws Exception {
+    for (int i = 0; i < SOURCES.length; i++) {
+      String rcd = HEADER + SOURCE_LINE + SOURCES[i] + TRAILER;
+      String[] sections = baselineSourceSections(rcd);
+      SequenceRawAttributes seq =
+          ((SequenceInput)interpreter.interpret(rcd)).getSeq();
+      assertEquals("source " + i, baselineParseSource(sections[0]),
+                   describe(seq));
+      assertEquals("source " + i, sections[1], seq.get2ndarySource());
+    }
+  }
+
+  /**
+   * the source qualifiers parsed from a source section given as a String
+   * should be those parsed by the line by line parsing the interpreter used
+   * to do
+   * @throws Exception
+   */
+  public void testSourceMatchesBaseline() throws Exception {
+    for (int i = 0; i < SOURCES.length; i++) {
+      interpreter.source = SOURCE_LINE + SOURCES[i];
+      SequenceRawAttributes seq = ((SequenceInput)interpreter.interpret(
+          HEADER + SOURCE_LINE + TRAILER)).getSeq();
+      assertEquals("source " + i, baselineParseSource(interpreter.source),
+                   describe(seq));
+    }
+  }
+
+  /**
+   * a line of only whitespace in a value which spans lines adds a space to
+   * a value parsed from a source section String; in a record it is skipped
+   * @throws Exception
+   */
+  public void testWhitespaceLines() throws Exception {
+    String source = SOURCE_LINE + INDENT + "/note=\"start\n" +
+        "   \n" + "\n" + INDENT + "end\"\n";
+    SequenceRawAttributes seq = ((SequenceInput)interpreter.interpret(
+        HEADER + source + TRAILER)).getSeq();
+    assertEquals("start end", seq.getNote());
+
+    interpreter.source = source;
+    seq = ((SequenceInput)interpreter.interpret(
+        HEADER + SOURCE_LINE + TRAILER)).getSeq();
+    assertEquals("start  end", seq.getNote());
+  }
+
+  /**
+   * a subclass which overrides parseSource(String) should still be given
+   * the source section of a record, as trimmed lines
+   * @throws Exception
+   */
+  public void testParseSourceStringOverride() throws Exception {
+    StringSourceInterpreter stringInterpreter = new StringSourceInterpreter();
+    for (int i = 0; i < SOURCES.length; i++) {
+      String rcd = HEADER + SOURCE_LINE + SOURCES[i] + TRAILER;
+      String[] sections = baselineSourceSections(rcd);
+      SequenceRawAttributes seq =
+          ((SequenceInput)stringInterpreter.interpret(rcd)).getSeq();
+      assertEquals("source " + i, sections[0], stringInterpreter.source);
+      assertEquals("source " + i, baselineParseSource(sections[0]),
+                   describe(seq));
+    }
+  }
+
+  /**
+   * get the source attributes set in a SequenceRawAttributes
+   * @param seq the SequenceRawAttributes
+   * @return the attributes which are not null by name
+   */
+  private static HashMap describe(SequenceRawAttributes seq) {
+    HashMap attrs = new HashMap();
+    put(attrs, "library", seq.getLibrary());
+    put(attrs, "strain", seq.getStrain());
+    put(attrs, "tissue", seq.getTissue());
+    put(attrs, "age", seq.getAge());
+    put(attrs, "sex", seq.getSex());
+    put(attrs, "cellLine", seq.getCellLine());
+    put(attrs, "clone", seq.getCloneId());
+    put(attrs, "note", seq.getNote());
+    put(attrs, "featureOrganism", seq.getFeatureOrganism());
+    return attrs;
+  }
+
+  private static void put(HashMap attrs, String name, String value) {
+    if (value != null)
+      attrs.put(name, value);
+  }
+
+  /**
+   * get the first and second FEATURES source sections of a record as the
+   * interpreter used to: as trimmed lines each followed by a new line. The
+   * record has no REFERENCE or COMMENT sections
+   * @param rcd the record
+   * @return the first and second source sections
+   */
+  private static String[] baselineSourceSections(String rcd) {
+    StringBuffer source = new StringBuffer();
+    StringBuffer secondarySource = new StringBuffer();
+    StringBuffer current = null;
+    boolean features = false;
+    StringTokenizer lineSplitter = new StringTokenizer(rcd, "\n");
+    while (lineSplitter.hasMoreTokens()) {
+      String line = lineSplitter.nextToken().trim();
+      if (!features) {
+        features = line.startsWith("FEATURES");
+      }
+      else if (current == null) {
+        if (line.startsWith("source")) {
+          current = source;
+          current.append(line + "\n");
+        }
+      }
+      else if (!line.startsWith("source") && !line.startsWith("ORIGIN") &&
+               !line.startsWith("CONTIG")) {
+        current.append(line + "\n");
+      }
+      else if (line.startsWith("source") && current == source) {
+        current = secondarySource;
+        current.append(line + "\n");
+      }
+      else {
+        break;
+      }
+    }
+    return new String[] {source.toString(), secondarySource.toString()};
+  }
+
+  /**
+   * parse the source qualifiers from a source section as the interpreter
+   * used to, line by line
+   * @param source the source section
+   * @return the parsed values by attribute name
+   */
+  private static HashMap baselineParseSource(String source) {
+    HashMap attrs = new HashMap();
+    StringTokenizer lineSplitter = new StringTokenizer(source, "\n");
+    while (lineSplitter.hasMoreTokens()) {
+      String line = lineSplitter.nextToken().trim();
+      if (!line.startsWith("/"))
+        continue;
+      ArrayList splitLine = StringLib.split(line, "=");
+      if (splitLine.size() != 2)
+        continue;
+      String qualifier = (String)splitLine.get(0);
+      String value = (String)splitLine.get(1);
+      if (value.charAt(0) != '"')
+        continue;
+      char lastchar = (value.length() == 1) ?
+          'x' : value.charAt(value.length() - 1);
+      int ctr = 0;
+      while (lastchar != '"' && ctr < 10) {
+        ctr++;
+        if (lineSplitter.hasMoreTokens()) {
+          value = value + " " + lineSplitter.nextToken().trim();
+          lastchar = value.charAt(value.length() - 1);
+        }
+      }
+      value = value.substring(1, value.length() - 1);
+      if (qualifier.startsWith("/clone_lib"))
+        attrs.put("library", value);
+      else if (qualifier.startsWith("/strain"))
+        attrs.put("strain", value);
+      else if (qualifier.startsWith("/tissue_type"))
+        attrs.put("tissue", value);
+      else if (qualifier.startsWith("/dev_stage"))
+        attrs.put("age", value);
+      else if (qualifier.startsWith("/sex"))
+        attrs.put("sex", value);
+      else if (qualifier.startsWith("/cell_line"))
+        attrs.put("cellLine", value);
+      else if (qualifier.startsWith("/clone"))
+        attrs.put("clone", value);
+      else if (qualifier.startsWith("/note"))
+        attrs.put("note", value);
+      else if (qualifier.startsWith("/organism"))
+        attrs.put("featureOrganism", value);
+    }
+    return attrs;
+  }
+
+  /**
+   * a GBFormatInterpreter which can parse a given source section String in
+   * place of the source section of the record
+   */
+  private static class SourceInterpreter extends GBFormatInterpreter {
+    // the source section to parse or null to parse that of the record
+    private String source = null;
+
+    private SourceInterpreter() throws ConfigException {
+      super(null);
+    }
+
+    protected void parseSource(String text, int start, int end) {
+      if (source == null)
+        super.parseSource(text, start, end);
+      else
+        parseSource(source);
+    }
+  }
+
+  /**
+   * a GBFormatInterpreter which overrides parseSource(String) to keep the
+   * source section it is given
+   */
+  private static class StringSourceInterpreter extends GBFormatInterpreter {
+    // the source section last given to parseSource
+    private String source = null;
+
+    private StringSourceInterpreter() throws ConfigException {
+      super(null);
+    }
+
+    protected void parseSource(String source) {
+      this.source = source;
+      super.parseSource(source);
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Vector;
+
+import junit.framework.*;
+import org.jax.mgi.shr.dla.input.RecordReference;
+
+public class TestGBHeaderReader
+    extends TestCase {
+
+  private static final String BEGIN = "LOCUS       ";
+
+  private File file = null;
+
+  public TestGBHeaderReader(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = File.createTempFile("TestGBHeaderReader", ".gb");
+  }
+
+  protected void tearDown() throws Exception {
+    file.delete();
+    file = null;
+    super.tearDown();
+  }
+
+  public void testHeaders() throws Exception {
+    String text = sampleData(300, false);
+    assertReads(text, 64 * 1024 * 1024, new Vector());
+  }
+
+  public void testEndings() throws Exception {
+    String text = "junk\n" +
+        // the header ends at ORIGIN
+        BEGIN + "R0\n  ORGANISM  Mus musculus\nORIGIN\n  1 acgt\n//\n" +
+        // the header ends at CONTIG
+        BEGIN + "R1\nFEATURES   x\nCONTIG      join(A)\n//\n" +
+        // no ORIGIN or CONTIG; the header is the whole record
+        BEGIN + "R2\n  ORGANISM  Mus musculus\n//\n" +
+        // ORIGIN not at a line start
+        BEGIN + "R3\n  xORIGIN\nORIGIN\n  1 acgt\n  1 //\n//\n" +
+        // the last record has no trailing newline
+        BEGIN + "R4\nORIGIN\n  1 acgt\n//";
+    assertReads(text, 1024, new Vector());
+  }
+
+  public void testHeaderTooLong() throws Exception {
+    String text = sampleData(50, true);
+    Vector oversized = new Vector();
+    // records with more than 3 feature lines have headers longer than
+    // the maximum, which allows for a two digit record number
+    for (int i = 0; i < 50; i++) {
+      if (i % 7 > 3)
+        oversized.add(BEGIN + "R" + i + "\n");
+    }
+    int max = header(3).length() + 1;
+    assertReads(text, max, oversized);
+  }
+
+  /**
+   * assert the headers read from text and the references to their records
+   * are those found by splitting the text into records, and the records
+   * with a header longer than the maximum are skipped and counted
+   * @param text the text
+   * @param maxHeaderBytes the maximum size of a header
+   * @param oversized the first lines of the records whose header is longer
+   *        than the maximum
+   * @throws Exception
+   */
+  private void assertReads(String text, int maxHeaderBytes,
+                           Vector oversized) throws Exception {
+    writeFile(text);
+    GBHeaderReader reader =
+        new GBHeaderReader(file.getPath(), null, maxHeaderBytes);
+    Vector records = expectedRecords(text);
+    Vector expected = new Vector();
+    Vector returned = new Vector();
+    long headerBytes = 0;
+    int from = 0;
+    for (int i = 0; i < records.size(); i++) {
+      String rcd = (String)records.get(i);
+      String firstLine = rcd.substring(0, rcd.indexOf('\n') + 1);
+      if (!oversized.contains(firstLine))
+        expected.add(rcd);
+    }
+    while (reader.hasNext()) {
+      String header = (String)reader.next();
+      RecordReference ref = reader.getRecordReference();
+      String rcd = text.substring((int)ref.getOffset(),
+                                  (int)ref.getOffset() + ref.getLength());
+      assertEquals(expectedHeader(rcd), header);
+      assertEquals(text.indexOf(rcd, from), ref.getOffset());
+      assertEquals(ref.getOffset(), reader.getRecordOffset());
+      assertEquals(ref.getLength(), reader.getRecordLength());
+      returned.add(rcd);
+      headerBytes += header.length();
+      from = (int)ref.getOffset() + ref.getLength();
+    }
+    reader.close();
+    assertEquals(expected, returned);
+    assertEquals(records.size(), reader.getRecordCount());
+    assertEquals(oversized.size(), reader.getOversizedCount());
+    assertEquals(0, reader.getSkippedCount());
+    if (oversized.size() == 0) {
+      long recordBytes = 0;
+      for (int i = 0; i < records.size(); i++)
+        recordBytes += ((String)records.get(i)).length();
+      assertEquals(recordBytes - headerBytes, reader.getSkippedBytes());
+    }
+  }
+
+  /**
+   * get the header of a record: its lines through the first ORIGIN or
+   * CONTIG line, or the whole record
+   * @param rcd the record
+   * @return the header
+   */
+  private static String expectedHeader(String rcd) {
+    int i = 0;
+    while (i < rcd.length()) {
+      int eol = rcd.indexOf('\n', i);
+      if (eol < 0)
+        break;
+      if (rcd.startsWith("ORIGIN", i) || rcd.startsWith("CONTIG", i))
+        return rcd.substring(0, eol + 1);
+      i = eol + 1;
+    }
+    return rcd;
+  }
+
+  /**
+   * split text into records: a record begins with "LOCUS       " at the
+   * start of a line and ends after the next "\n//" or at the end of the
+   * text
+   * @param text the text
+   * @return the records
+   */
+  private static Vector expectedRecords(String text) {
+    Vector records = new Vector();
+    int start = nextBegin(text, 0);
+    while (start >= 0) {
+      int end = text.indexOf("\n//", start + BEGIN.length());
+      end = (end < 0) ? text.length() : end + 3;
+      records.add(text.substring(start, end));
+      start = nextBegin(text, end);
+    }
+    return records;
+  }
+
+  private static int nextBegin(String text, int from) {
+    int i = text.indexOf(BEGIN, from);
+    while (i > 0 && text.charAt(i - 1) != '\n')
+      i = text.indexOf(BEGIN, i + 1);
+    return i;
+  }
+
+  /**
+   * create sample GenBank style records
+   * @param records the number of records
+   * @param features true if record n has n % 7 feature lines
+   * @return the records
+   */
+  private static String sampleData(int records, boolean features) {
+    StringBuffer buf = new StringBuffer("junk before the first record\n");
+    for (int i = 0; i < records; i++) {
+      buf.append(BEGIN + "R" + i + "\n");
+      buf.append(header(features ? i % 7 : 0).substring(
+          BEGIN.length() + 3));
+      for (int j = 0; j < i % 5; j++)
+        buf.append("  " + (j * 60 + 1) + " acgtacgtac gtacgtacgt\n");
+      buf.append("//\n");
+    }
+    return buf.toString();
+  }
+
+  /**
+   * create the header of a sample record with a first line of
+   * "LOCUS       Rn" where n is one digit
+   * @param features the number of feature lines
+   * @return the header
+   */
+  private static String header(int features) {
+    StringBuffer buf = new StringBuffer(BEGIN + "Rn\n");
+    buf.append("  ORGANISM  Mus musculus\n");
+    buf.append("FEATURES             Location/Qualifiers\n");
+    for (int j = 0; j < features; j++)
+      buf.append("                     /note=\"a feature note line\"\n");
+    buf.append("ORIGIN\n");
+    return buf.toString();
+  }
+
+  /**
+   * write text to the test file
+   * @param text the text
+   * @throws Exception
+   */
+  private void writeFile(String text) throws Exception {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(text.getBytes("ISO-8859-1"));
+    out.close();
+  }
+}
@@ -0,0 +1,207 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.util.Vector;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.*;
+import org.jax.mgi.shr.config.ConfigReinitializer;
+import org.jax.mgi.shr.dla.input.Interrogator;
+import org.jax.mgi.shr.dla.input.SeqDecider;
+
+public class TestGBOrganismChecker
+    extends TestCase {
+
+  // the expressions which found the classification section of a record
+  // before the deciders were matched with a MultiPatternMatcher
+  private static final Pattern ORG_PATTERN =
+      Pattern.compile("ORGANISM([\\s\\S]*?)REFERENCE", Pattern.MULTILINE);
+  private static final Pattern ORG_ALT_PATTERN =
+      Pattern.compile("ORGANISM([\\s\\S]*?)FEATURES", Pattern.MULTILINE);
+
+  private static final String LOCUS =
+      "LOCUS       AB000096                3133 bp    mRNA    linear   " +
+      "ROD 07-FEB-1999\n" +
+      "DEFINITION  a sequence.\n" +
+      "ACCESSION   AB000096\n" +
+      "SOURCE      a source\n";
+
+  private static final String MOUSE =
+      "  ORGANISM  Mus musculus\n" +
+      "            Eukaryota; Metazoa; Chordata; Craniata; Vertebrata;\n" +
+      "            Mammalia; Eutheria; Rodentia; Sciurognathi; Muridae;\n" +
+      "            Murinae; Mus.\n";
+
+  private static final String RAT =
+      "  ORGANISM  Rattus norvegicus\n" +
+      "            Eukaryota; Metazoa; Chordata; Rodentia; Muridae;\n" +
+      "            Murinae; Rattus.\n";
+
+  private static final String HUMAN =
+      "  ORGANISM  Homo sapiens\n" +
+      "            Eukaryota; Metazoa; Chordata; Primates; Hominidae; Homo.\n";
+
+  private static final String FISH =
+      "  ORGANISM  Danio rerio\n" +
+      "            Eukaryota; Metazoa; Chordata; Actinopterygii; Danio.\n";
+
+  private static final String REFERENCE =
+      "REFERENCE   1  (bases 1 to 3133)\n" +
+      "  AUTHORS   Someone,A.\n" +
+      "  TITLE     Direct Submission\n";
+
+  private static final String FEATURES =
+      "FEATURES             Location/Qualifiers\n" +
+      "     source          1..3133\n" +
+      "                     /organism=\"Danio rerio\"\n";
+
+  private static final String ORIGIN =
+      "ORIGIN      \n" +
+      "        1 gaattcggca cgagggcgcc\n" +
+      "//\n";
+
+  private GBOrganismChecker checker = null;
+
+  public TestGBOrganismChecker(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    System.setProperty("SEQ_LOAD_MOUSE", "true");
+    System.setProperty("SEQ_LOAD_RAT", "true");
+    System.setProperty("SEQ_LOAD_HUMAN", "true");
+    ConfigReinitializer.reinit();
+    checker = new GBOrganismChecker();
+  }
+
+  protected void tearDown() throws Exception {
+    checker = null;
+    System.getProperties().remove("SEQ_LOAD_MOUSE");
+    System.getProperties().remove("SEQ_LOAD_RAT");
+    System.getProperties().remove("SEQ_LOAD_HUMAN");
+    ConfigReinitializer.reinit();
+    super.tearDown();
+  }
+
+  public void testWellFormedRecords() throws Exception {
+    assertMatchesRegex(new String[] {
+        LOCUS + MOUSE + REFERENCE + FEATURES + ORIGIN,
+        LOCUS + RAT + REFERENCE + FEATURES + ORIGIN,
+        LOCUS + HUMAN + REFERENCE + FEATURES + ORIGIN,
+        LOCUS + FISH + REFERENCE + FEATURES + ORIGIN,
+        // a RefSeq without a REFERENCE section
+        LOCUS + HUMAN + FEATURES + ORIGIN,
+        LOCUS + FISH + FEATURES + ORIGIN,
+        // without an ORGANISM
+        LOCUS + REFERENCE + FEATURES + ORIGIN,
+        // the expressions in another case
+        LOCUS + MOUSE.toUpperCase() + REFERENCE + ORIGIN,
+        LOCUS + HUMAN.toLowerCase() + REFERENCE + ORIGIN,
+        // more than one decider matches; the first configured is counted
+        LOCUS + HUMAN + RAT + MOUSE + REFERENCE + ORIGIN,
+        LOCUS + HUMAN + RAT + FEATURES + ORIGIN,
+    });
+  }
+
+  public void testKeywordsOutsideHeader() throws Exception {
+    assertMatchesRegex(new String[] {
+        // no REFERENCE in the header but one in the features, after an
+        // expression of a decider
+        LOCUS + FISH + FEATURES +
+            "                     /note=\"Homo sapiens REFERENCE\"\n" + ORIGIN,
+        LOCUS + FISH + FEATURES +
+            "                     /note=\"REFERENCE Homo sapiens\"\n" + ORIGIN,
+        // no REFERENCE and no FEATURES line; FEATURES in a comment
+        LOCUS + FISH +
+            "COMMENT     Rattus FEATURES\n" + ORIGIN,
+        // no REFERENCE or FEATURES at all
+        LOCUS + MOUSE + ORIGIN,
+        // FEATURES after the end of the record
+        LOCUS + FISH + ORIGIN + "Rattus FEATURES\n",
+        // REFERENCE in the sequence
+        LOCUS + FISH + FEATURES + ORIGIN.replaceFirst("gaattcggca",
+            "sapiens REFERENCE"),
+        // ORGANISM only after the header
+        LOCUS + FEATURES + "                     /note=\"ORGANISM Mus\n" +
+            "                     Muridae; Murinae; Mus REFERENCE\"\n" + ORIGIN,
+        LOCUS + FEATURES + "                     /note=\"ORGANISM\"\n" + ORIGIN,
+        // ORGANISM in the definition
+        LOCUS + "DEFINITION  ORGANISM Rattus\n" + FISH + REFERENCE + ORIGIN,
+    });
+  }
+
+  public void testGeneratedRecords() throws Exception {
+    String[] classifications = new String[] {MOUSE, RAT, HUMAN, FISH, ""};
+    String[] middles = new String[] {
+        REFERENCE + FEATURES,
+        FEATURES,
+        REFERENCE,
+        "",
+        FEATURES + "                     /note=\"Rattus REFERENCE\"\n",
+        "COMMENT     Muridae; Murinae; Mus FEATURES sapiens\n",
+    };
+    Vector records = new Vector();
+    for (int i = 0; i < classifications.length; i++) {
+      for (int j = 0; j < classifications.length; j++) {
+        for (int k = 0; k < middles.length; k++) {
+          records.add(LOCUS + classifications[i] + middles[k] + ORIGIN);
+          records.add(LOCUS + classifications[i] + middles[k] +
+                      classifications[j] + ORIGIN);
+        }
+      }
+    }
+    assertMatchesRegex((String[])records.toArray(new String[0]));
+  }
+
+  /**
+   * assert the checker gives the same answer for each record as applying
+   * the expressions of its deciders to the classification found with the
+   * regular expressions, and counts the same matches for each decider
+   * @param records the records
+   * @throws Exception
+   */
+  private void assertMatchesRegex(String[] records) throws Exception {
+    Vector deciders = checker.getDeciders();
+    Interrogator si = checker.getInterrogator();
+    int[] expectedCounts = new int[deciders.size()];
+    int expectedTrue = 0;
+    for (int i = 0; i < records.length; i++) {
+      // find the classification as the checker used to
+      String classification = null;
+      Matcher m = ORG_PATTERN.matcher(records[i]);
+      Matcher alt = ORG_ALT_PATTERN.matcher(records[i]);
+      if (m.find())
+        classification = m.group(1);
+      else if (alt.find())
+        classification = alt.group(1);
+      // the first decider whose expression is in the classification
+      int expected = -1;
+      for (int j = 0; classification != null && expected < 0 &&
+           j < deciders.size(); j++) {
+        String name = ((SeqDecider)deciders.get(j)).getName();
+        if (si.isMatch(classification.toLowerCase(), name))
+          expected = j;
+      }
+      assertEquals("record " + i + ":\n" + records[i], expected >= 0,
+                   checker.checkOrganism(records[i]));
+      // the same answer for a record which is not a String
+      assertEquals("record " + i + ":\n" + records[i], expected >= 0,
+                   checker.checkOrganism(new StringBuffer(records[i])));
+      if (expected >= 0) {
+        expectedCounts[expected] += 2;
+        expectedTrue += 2;
+      }
+    }
+    for (int j = 0; j < deciders.size(); j++) {
+      SeqDecider d = (SeqDecider)deciders.get(j);
+      assertEquals(d.getName(), expectedCounts[j], d.getTrueCtr());
+    }
+    Vector counts = checker.getDeciderCounts();
+    assertEquals("Total Sequences looked at: " + (2 * records.length),
+                 ((String)counts.get(0)).trim());
+    assertTrue((String)counts.get(1),
+               ((String)counts.get(1)).trim().endsWith(
+               "found: " + expectedTrue));
+  }
+}
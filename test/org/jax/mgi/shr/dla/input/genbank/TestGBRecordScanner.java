@@ -0,0 +1,175 @@
+package org.jax.mgi.shr.dla.input.genbank;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Vector;
+
+import junit.framework.*;
+import org.jax.mgi.shr.dla.input.ByteCharSequence;
+
+public class TestGBRecordScanner
+    extends TestCase {
+
+  // the delimiters of a GBInputFile
+  private static final String BEGIN = "LOCUS       ";
+  private static final String END = "//";
+
+  private File file = null;
+
+  public TestGBRecordScanner(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    file = File.createTempFile("TestGBRecordScanner", ".gb");
+  }
+
+  protected void tearDown() throws Exception {
+    file.delete();
+    file = null;
+    super.tearDown();
+  }
+
+  public void testRecords() throws Exception {
+    String text = sampleData(500);
+    assertScans(text, 256 * 1024 * 1024);
+  }
+
+  public void testSmallWindows() throws Exception {
+    // every record, delimiter and line start crosses some window edge
+    String text = sampleData(40);
+    for (int windowSize = BEGIN.length(); windowSize < 80; windowSize++)
+      assertScans(text, windowSize);
+  }
+
+  public void testEndAtWindowEdge() throws Exception {
+    String text = sampleData(3);
+    // the first window ends between the "\n/" and the "/" of the first
+    // record, then between the "\n" and the "//"
+    int end = text.indexOf("\n" + END);
+    assertScans(text, end + 2);
+    assertScans(text, end + 1);
+  }
+
+  public void testBeginNotAtLineStart() throws Exception {
+    String text = "x" + BEGIN + "not a record\n" +
+        BEGIN + "one\n x//\n  " + BEGIN + "in the record\n//\n" +
+        BEGIN + "two\n//extra\n" +
+        "junk " + BEGIN + "\n";
+    Vector expected = new Vector();
+    expected.add(BEGIN + "one\n x//\n  " + BEGIN + "in the record\n//");
+    expected.add(BEGIN + "two\n//");
+    assertEquals(expected, expectedRecords(text));
+    for (int windowSize = BEGIN.length(); windowSize < 40; windowSize++)
+      assertScans(text, windowSize);
+  }
+
+  public void testLastRecordWithoutNewline() throws Exception {
+    String text = sampleData(3);
+    // ends with the end delimiter
+    assertScans(text.substring(0, text.length() - 1), BEGIN.length() + 5);
+    // ends within the last record, which has no end delimiter
+    assertScans(text.substring(0, text.length() - 4), BEGIN.length() + 5);
+    assertScans(BEGIN + "R0\nORIGIN", 256);
+  }
+
+  public void testNoRecords() throws Exception {
+    assertScans("", 256);
+    assertScans("no records\n", 256);
+  }
+
+  /**
+   * assert the records scanned from text are those found by splitting the
+   * text on the GBInputFile delimiters, with the offsets and lengths of
+   * the records in the text
+   * @param text the text
+   * @param windowSize the number of bytes the scanner maps at a time
+   * @throws Exception
+   */
+  private void assertScans(String text, int windowSize) throws Exception {
+    writeFile(text);
+    GBRecordScanner scanner =
+        new GBRecordScanner(file.getPath(), null, windowSize);
+    Vector expected = expectedRecords(text);
+    Vector records = new Vector();
+    int from = 0;
+    while (scanner.hasNext()) {
+      ByteCharSequence record = (ByteCharSequence)scanner.next();
+      String rcd = record.toString();
+      records.add(rcd);
+      int offset = text.indexOf(rcd, from);
+      assertEquals("window " + windowSize, offset, scanner.getRecordOffset());
+      assertEquals("window " + windowSize, rcd.length(),
+                   scanner.getRecordLength());
+      assertEquals("window " + windowSize, offset,
+                   scanner.getRecordReference().getOffset());
+      from = offset + rcd.length();
+    }
+    scanner.close();
+    assertEquals("window " + windowSize, expected, records);
+    assertEquals(expected.size(), scanner.getRecordCount());
+    assertEquals(0, scanner.getSkippedCount());
+  }
+
+  /**
+   * split text into records on the GBInputFile delimiters: a record begins
+   * with "LOCUS       " at the start of a line and ends after the next
+   * "//" at the start of a line or at the end of the text
+   * @param text the text
+   * @return the records
+   */
+  private static Vector expectedRecords(String text) {
+    Vector records = new Vector();
+    int start = nextBegin(text, 0);
+    while (start >= 0) {
+      int end = text.indexOf("\n" + END, start + BEGIN.length());
+      end = (end < 0) ? text.length() : end + 1 + END.length();
+      records.add(text.substring(start, end));
+      start = nextBegin(text, end);
+    }
+    return records;
+  }
+
+  /**
+   * find the next "LOCUS       " at the start of a line
+   * @param text the text
+   * @param from the index to search from
+   * @return the index or -1 if there is none
+   */
+  private static int nextBegin(String text, int from) {
+    int i = text.indexOf(BEGIN, from);
+    while (i > 0 && text.charAt(i - 1) != '\n')
+      i = text.indexOf(BEGIN, i + 1);
+    return i;
+  }
+
+  /**
+   * create sample GenBank style records
+   * @param records the number of records
+   * @return the records
+   */
+  private static String sampleData(int records) {
+    StringBuffer buf = new StringBuffer("junk before the first record\n");
+    for (int i = 0; i < records; i++) {
+      buf.append(BEGIN + "R" + i + "\n");
+      buf.append("  ORGANISM  Mus musculus\n");
+      buf.append("ORIGIN\n");
+      for (int j = 0; j < i % 7; j++)
+        buf.append("  " + (j * 60 + 1) + " acgtacgtac gtacgtacgt\n");
+      buf.append(END + "\n");
+    }
+    return buf.toString();
+  }
+
+  /**
+   * write text to the test file
+   * @param text the text
+   * @throws Exception
+   */
+  private void writeFile(String text) throws Exception {
+    FileOutputStream out = new FileOutputStream(file);
+    out.write(text.getBytes("ISO-8859-1"));
+    out.close();
+  }
+}
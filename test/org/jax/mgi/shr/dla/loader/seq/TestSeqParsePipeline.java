@@ -0,0 +1,254 @@
+package org.jax.mgi.shr.dla.loader.seq;
+
+import java.util.Vector;
+
+import junit.framework.*;
+import org.jax.mgi.shr.dbutils.DataIterator;
+import org.jax.mgi.shr.exception.MGIException;
+import org.jax.mgi.shr.ioutils.RecordDataInterpreter;
+import org.jax.mgi.shr.ioutils.RecordFormatException;
+import org.jax.mgi.shr.dla.input.SequenceInput;
+import org.jax.mgi.dbs.mgd.loads.Seq.SequenceRawAttributes;
+import org.jax.mgi.dbs.mgd.loads.Acc.AccessionRawAttributes;
+
+public class TestSeqParsePipeline
+    extends TestCase {
+
+  // number of records in the input
+  private static final int RECORDS = 5000;
+
+  private Vector records = null;
+
+  public TestSeqParsePipeline(String name) {
+    super(name);
+  }
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    // every 7th record is a comment which is not valid and every 101st
+    // record can not be parsed
+    records = new Vector();
+    for (int i = 0; i < RECORDS; i++) {
+      if (i % 7 == 0)
+        records.add("# comment " + i);
+      else if (i % 101 == 0)
+        records.add("bad");
+      else
+        records.add("SEQ" + i + "\t" + (i * 31 % 997));
+    }
+  }
+
+  protected void tearDown() throws Exception {
+    records = null;
+    super.tearDown();
+  }
+
+  public void testSameOrderAndResultsAsSingleThreaded() throws Exception {
+    Vector expected = parseSingleThreaded();
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      assertEquals("threads " + threads, expected,
+                   parsePipelined(threads, 16));
+    }
+  }
+
+  public void testSmallQueueDepth() throws Exception {
+    assertEquals(parseSingleThreaded(), parsePipelined(4, 1));
+  }
+
+  public void testEmptyInput() throws Exception {
+    records.clear();
+    assertEquals(new Vector(), parsePipelined(4, 16));
+  }
+
+  /**
+   * an MGIException from the interpreter which is not a
+   * RecordFormatException reaches the consumer as thrown, without a parent
+   * exception, and the records after it are still returned
+   */
+  public void testPlainMGIException() throws Exception {
+    for (int i = 3; i < records.size(); i += 53)
+      records.set(i, "plain" + i);
+    Vector expected = parseSingleThreaded();
+    assertTrue(expected.contains(MGIException.class.getName()));
+    assertEquals(expected, parsePipelined(4, 16));
+
+    RecordDataInterpreter[] interpreters =
+        new RecordDataInterpreter[] {new TestInterpreter()};
+    Vector plain = new Vector();
+    plain.add("plain");
+    SeqParsePipeline pipeline =
+        new SeqParsePipeline(new VectorIterator(plain), interpreters, 4);
+    pipeline.start();
+    assertTrue(pipeline.hasNext());
+    try {
+      pipeline.next();
+      fail("expected an MGIException");
+    }
+    catch (MGIException e) {
+      assertFalse(e instanceof RecordFormatException);
+      assertNull(e.getParent());
+    }
+    pipeline.close();
+  }
+
+  /**
+   * every record read before an error reading the input is returned
+   * before the error is thrown, as on a single thread
+   */
+  public void testReaderError() throws Exception {
+    Vector expected = parseSingleThreaded();
+    expected.add("reader error");
+    for (int threads = 1; threads <= 8; threads *= 2) {
+      assertEquals("threads " + threads, expected,
+                   parsePipelined(new FailingIterator(records), threads, 16));
+    }
+  }
+
+  /**
+   * parses the records with one interpreter, as SeqLoader does without a
+   * pipeline
+   */
+  private Vector parseSingleThreaded() throws Exception {
+    Vector results = new Vector();
+    RecordDataInterpreter interpreter = new TestInterpreter();
+    for (int i = 0; i < records.size(); i++) {
+      String rcd = (String)records.get(i);
+      if (!interpreter.isValid(rcd))
+        continue;
+      try {
+        results.add(describe((SequenceInput)interpreter.interpret(rcd)));
+      }
+      catch (MGIException e) {
+        results.add(e.getClass().getName());
+      }
+    }
+    return results;
+  }
+
+  /**
+   * parses the records with a SeqParsePipeline
+   */
+  private Vector parsePipelined(int threads, int queueDepth)
+      throws Exception {
+    return parsePipelined(new VectorIterator(records), threads, queueDepth);
+  }
+
+  /**
+   * parses the records of an iterator with a SeqParsePipeline
+   */
+  private Vector parsePipelined(DataIterator iterator, int threads,
+                                int queueDepth) throws Exception {
+    RecordDataInterpreter[] interpreters = new RecordDataInterpreter[threads];
+    for (int i = 0; i < threads; i++)
+      interpreters[i] = new TestInterpreter();
+    SeqParsePipeline pipeline =
+        new SeqParsePipeline(iterator, interpreters, queueDepth);
+    pipeline.start();
+    Vector results = new Vector();
+    try {
+      while (pipeline.hasNext()) {
+        try {
+          results.add(describe(pipeline.next()));
+        }
+        catch (MGIException e) {
+          results.add(e.getClass().getName());
+        }
+      }
+    }
+    catch (MGIException e) {
+      // the input could not be read
+      results.add("reader error");
+    }
+    pipeline.close();
+    return results;
+  }
+
+  private String describe(SequenceInput si) throws MGIException {
+    return si.getPrimaryAcc().getAccID() + "|" + si.getSeq().getRecord() +
+        "|" + si.getSeq().getLength();
+  }
+
+  /**
+   * a DataIterator over a Vector of records
+   */
+  private static class VectorIterator implements DataIterator {
+    private Vector records;
+    private int next = 0;
+
+    private VectorIterator(Vector records) {
+      this.records = records;
+    }
+
+    public boolean hasNext() {
+      return next < records.size();
+    }
+
+    public Object next() {
+      return records.get(next++);
+    }
+
+    public void close() {
+    }
+  }
+
+  /**
+   * a DataIterator over a Vector of records which fails to read after the
+   * last record
+   */
+  private static class FailingIterator implements DataIterator {
+    private Vector records;
+    private int next = 0;
+
+    private FailingIterator(Vector records) {
+      this.records = records;
+    }
+
+    public boolean hasNext() {
+      return true;
+    }
+
+    public Object next() throws MGIException {
+      if (next == records.size())
+        throw new MGIException("input file could not be read");
+      return records.get(next++);
+    }
+
+    public void close() {
+    }
+  }
+
+  /**
+   * an interpreter which takes a varying time to parse each record so the
+   * worker threads finish out of order; records starting with "plain"
+   * throw an MGIException which is not a RecordFormatException
+   */
+  private static class TestInterpreter implements RecordDataInterpreter {
+    public boolean isValid(String rcd) {
+      return !rcd.startsWith("#");
+    }
+
+    public Object interpret(String rcd) throws MGIException {
+      if (rcd.startsWith("plain"))
+        throw new MGIException("not a format error: " + rcd);
+      String[] fields = rcd.split("\t");
+      if (fields.length != 2) {
+        RecordFormatException e = new RecordFormatException();
+        e.bindRecord(rcd);
+        throw e;
+      }
+      int work = Integer.parseInt(fields[1]);
+      long sum = 0;
+      for (int i = 0; i < work * 100; i++)
+        sum += i;
+      SequenceInput si = new SequenceInput();
+      SequenceRawAttributes rawSeq = new SequenceRawAttributes();
+      rawSeq.setRecord(rcd);
+      rawSeq.setLength(String.valueOf(sum % 1000));
+      si.setSeq(rawSeq);
+      AccessionRawAttributes rawAcc = new AccessionRawAttributes();
+      rawAcc.setAccid(fields[0]);
+      si.setPrimaryAcc(rawAcc);
+      return si;
+    }
+  }
+}